@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.bolt.v1.packstream.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.bolt.v1.packstream.BufferedChannelOutput;
+import org.neo4j.bolt.v1.packstream.PackStream;
+import org.neo4j.bolt.v1.packstream.PackedInputArray;
+import org.neo4j.bolt.v1.packstream.PackedOutputArray;
+
+/**
+ * Measures {@link PackStream} encoding and decoding of rows shaped like Bolt {@code RECORD} messages: a struct
+ * holding a list of integers, floats, strings and a small map. Encoding writes through a
+ * {@link BufferedChannelOutput} into a discarding channel, so only the packing itself is measured.
+ */
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5 )
+@Measurement( iterations = 5 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class PackStreamBenchmark
+{
+    private static final byte RECORD_SIGNATURE = 0x71;
+    private static final String[] KEYS = {"name", "age", "since", "weight"};
+    private static final String STRING_VALUE = "a string value of moderate length";
+
+    @Param( {"8", "64"} )
+    public int fieldsPerRecord;
+
+    private PackStream.Packer packer;
+    private byte[] encodedRecord;
+
+    @Setup( Level.Trial )
+    public void setUp() throws IOException
+    {
+        packer = new PackStream.Packer( new BufferedChannelOutput( new DiscardingChannel(), 8192 ) );
+
+        PackedOutputArray output = new PackedOutputArray();
+        PackStream.Packer arrayPacker = new PackStream.Packer( output );
+        packRecord( arrayPacker );
+        arrayPacker.flush();
+        encodedRecord = output.bytes();
+    }
+
+    @Benchmark
+    public void encode() throws IOException
+    {
+        packRecord( packer );
+        packer.flush();
+    }
+
+    @Benchmark
+    public void decode( Blackhole blackhole ) throws IOException
+    {
+        PackStream.Unpacker unpacker = new PackStream.Unpacker( new PackedInputArray( encodedRecord ) );
+        blackhole.consume( unpacker.unpackStructHeader() );
+        blackhole.consume( unpacker.unpackStructSignature() );
+        long fields = unpacker.unpackListHeader();
+        for ( long i = 0; i < fields; i++ )
+        {
+            switch ( (int) (i % 4) )
+            {
+            case 0:
+                blackhole.consume( unpacker.unpackLong() );
+                break;
+            case 1:
+                blackhole.consume( unpacker.unpackDouble() );
+                break;
+            case 2:
+                blackhole.consume( unpacker.unpackString() );
+                break;
+            default:
+                long entries = unpacker.unpackMapHeader();
+                for ( long j = 0; j < entries; j++ )
+                {
+                    blackhole.consume( unpacker.unpackString() );
+                    blackhole.consume( unpacker.unpackLong() );
+                }
+            }
+        }
+    }
+
+    private void packRecord( PackStream.Packer packer ) throws IOException
+    {
+        packer.packStructHeader( 1, RECORD_SIGNATURE );
+        packer.packListHeader( fieldsPerRecord );
+        for ( int i = 0; i < fieldsPerRecord; i++ )
+        {
+            switch ( i % 4 )
+            {
+            case 0:
+                packer.pack( 1_000_000L * i );
+                break;
+            case 1:
+                packer.pack( i * 1.5 );
+                break;
+            case 2:
+                packer.pack( STRING_VALUE );
+                break;
+            default:
+                packer.packMapHeader( KEYS.length );
+                for ( int j = 0; j < KEYS.length; j++ )
+                {
+                    packer.pack( KEYS[j] );
+                    packer.pack( (long) j * i );
+                }
+            }
+        }
+    }
+
+    private static class DiscardingChannel implements WritableByteChannel
+    {
+        @Override
+        public int write( ByteBuffer src )
+        {
+            int remaining = src.remaining();
+            src.position( src.limit() );
+            return remaining;
+        }
+
+        @Override
+        public boolean isOpen()
+        {
+            return true;
+        }
+
+        @Override
+        public void close()
+        {
+        }
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.Result;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.factory.GraphDatabaseFactory;
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.io.fs.FileUtils;
+
+/**
+ * Compares the interpreted and compiled Cypher 3.1 runtimes on a set of representative read queries over a small
+ * social graph of {@code :Person} nodes connected by {@code :KNOWS} relationships.
+ * <p>
+ * Queries are run with {@code CYPHER 3.1 runtime=...} so that the runtime under test is explicit, and the query
+ * plans are cached during warmup, so the numbers reflect execution rather than planning. The database is started with
+ * {@code cypher.hints_error} enabled, so that a query the compiled runtime does not support fails the benchmark,
+ * instead of silently falling back to the interpreted runtime. The queries are therefore limited to the scans,
+ * expands, filters and projections that the compiled runtime supports; it does not support aggregation.
+ */
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 5 )
+@Measurement( iterations = 5 )
+@Fork( 1 )
+@State( Scope.Benchmark )
+public class CypherRuntimeBenchmark
+{
+    private static final Label PERSON = Label.label( "Person" );
+    private static final RelationshipType KNOWS = RelationshipType.withName( "KNOWS" );
+    private static final int BATCH_SIZE = 10_000;
+
+    @Param( {"interpreted", "compiled"} )
+    public String runtime;
+
+    @Param( {"100000"} )
+    public int personCount;
+
+    @Param( {"5"} )
+    public int friendsPerPerson;
+
+    private File storeDir;
+    private GraphDatabaseService db;
+    private String scanPeople;
+    private String filterByProperty;
+    private String expandFriends;
+    private String expandFriendsOfFriends;
+
+    @Setup( Level.Trial )
+    public void setUp() throws IOException
+    {
+        storeDir = Files.createTempDirectory( "cypher-runtime-benchmark" ).toFile();
+        db = new GraphDatabaseFactory().newEmbeddedDatabaseBuilder( storeDir )
+                .setConfig( GraphDatabaseSettings.cypher_hints_error, "true" )
+                .newGraphDatabase();
+        populate();
+
+        String prefix = "CYPHER 3.1 runtime=" + runtime + " ";
+        scanPeople = prefix + "MATCH (p:Person) RETURN p.age";
+        filterByProperty = prefix + "MATCH (p:Person) WHERE p.age = 42 RETURN p.name";
+        expandFriends = prefix + "MATCH (p:Person)-[:KNOWS]->(f) WHERE id(p) = {id} RETURN f.name";
+        expandFriendsOfFriends = prefix +
+                "MATCH (p:Person)-[:KNOWS]->()-[:KNOWS]->(fof) WHERE id(p) = {id} RETURN fof.age";
+
+        // Fail the trial up front, rather than in the first warmup iteration, if a query can't run in this runtime
+        scanPeople();
+        filterByProperty();
+        expandFriends();
+        expandFriendsOfFriends();
+    }
+
+    private void populate()
+    {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Node[] people = new Node[personCount];
+        for ( int created = 0; created < personCount; )
+        {
+            try ( Transaction tx = db.beginTx() )
+            {
+                for ( int i = 0; i < BATCH_SIZE && created < personCount; i++, created++ )
+                {
+                    Node person = db.createNode( PERSON );
+                    person.setProperty( "name", "person-" + created );
+                    person.setProperty( "age", random.nextInt( 100 ) );
+                    people[created] = person;
+                }
+                tx.success();
+            }
+        }
+        for ( int connected = 0; connected < personCount; )
+        {
+            try ( Transaction tx = db.beginTx() )
+            {
+                for ( int i = 0; i < BATCH_SIZE && connected < personCount; i++, connected++ )
+                {
+                    for ( int j = 0; j < friendsPerPerson; j++ )
+                    {
+                        people[connected].createRelationshipTo( people[random.nextInt( personCount )], KNOWS );
+                    }
+                }
+                tx.success();
+            }
+        }
+    }
+
+    @TearDown( Level.Trial )
+    public void tearDown() throws IOException
+    {
+        db.shutdown();
+        FileUtils.deleteRecursively( storeDir );
+    }
+
+    @Benchmark
+    public long scanPeople()
+    {
+        return consume( db.execute( scanPeople ) );
+    }
+
+    @Benchmark
+    public long filterByProperty()
+    {
+        return consume( db.execute( filterByProperty ) );
+    }
+
+    @Benchmark
+    public long expandFriends()
+    {
+        return consume( db.execute( expandFriends, randomPerson() ) );
+    }
+
+    @Benchmark
+    public long expandFriendsOfFriends()
+    {
+        return consume( db.execute( expandFriendsOfFriends, randomPerson() ) );
+    }
+
+    private Map<String,Object> randomPerson()
+    {
+        long id = ThreadLocalRandom.current().nextInt( personCount );
+        return Collections.<String,Object>singletonMap( "id", id );
+    }
+
+    private long consume( Result result )
+    {
+        long rows = 0;
+        try ( Result closeable = result )
+        {
+            while ( closeable.hasNext() )
+            {
+                closeable.next();
+                rows++;
+            }
+        }
+        return rows;
+    }
+}
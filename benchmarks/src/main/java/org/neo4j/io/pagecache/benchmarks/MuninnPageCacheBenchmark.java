@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.io.fs.DefaultFileSystemAbstraction;
+import org.neo4j.io.fs.FileUtils;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.io.pagecache.impl.SingleFilePageSwapperFactory;
+import org.neo4j.io.pagecache.impl.muninn.MuninnPageCache;
+import org.neo4j.io.pagecache.tracing.PageCacheTracer;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_WRITE_LOCK;
+
+/**
+ * Measures the cost of pinning and unpinning pages through {@link MuninnPageCache}, for both read and write cursors,
+ * with sequential and random access patterns.
+ * <p>
+ * The {@code cachedFraction} parameter controls how much of the mapped file fits in the cache. A fraction of 1.0
+ * measures the pure pin/unpin overhead on a fully cached file, while lower fractions include page faulting and
+ * eviction costs.
+ */
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5 )
+@Measurement( iterations = 5 )
+@Fork( 1 )
+@State( Scope.Benchmark )
+public class MuninnPageCacheBenchmark
+{
+    private static final int CACHE_PAGE_SIZE = 8192;
+
+    @Param( {"16384"} )
+    public int filePages;
+
+    @Param( {"1.0", "0.5"} )
+    public double cachedFraction;
+
+    private File directory;
+    private MuninnPageCache pageCache;
+    private PagedFile pagedFile;
+
+    @Setup( Level.Trial )
+    public void setUp() throws IOException
+    {
+        directory = Files.createTempDirectory( "page-cache-benchmark" ).toFile();
+        SingleFilePageSwapperFactory swapperFactory = new SingleFilePageSwapperFactory();
+        swapperFactory.setFileSystemAbstraction( new DefaultFileSystemAbstraction() );
+        int maxPages = Math.max( 2, (int) (filePages * cachedFraction) );
+        pageCache = new MuninnPageCache( swapperFactory, maxPages, CACHE_PAGE_SIZE, PageCacheTracer.NULL );
+        pagedFile = pageCache.map( new File( directory, "benchmark.db" ), CACHE_PAGE_SIZE, CREATE );
+
+        try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK ) )
+        {
+            for ( long pageId = 0; pageId < filePages; pageId++ )
+            {
+                cursor.next( pageId );
+                for ( int offset = 0; offset < CACHE_PAGE_SIZE; offset += Long.BYTES )
+                {
+                    cursor.putLong( offset, pageId + offset );
+                }
+            }
+        }
+        pagedFile.flushAndForce();
+    }
+
+    @TearDown( Level.Trial )
+    public void tearDown() throws IOException
+    {
+        pagedFile.close();
+        pageCache.close();
+        FileUtils.deleteRecursively( directory );
+    }
+
+    @State( Scope.Thread )
+    public static class ThreadPosition
+    {
+        private long nextPageId;
+
+        long sequential( int filePages )
+        {
+            long pageId = nextPageId;
+            nextPageId = pageId + 1 == filePages ? 0 : pageId + 1;
+            return pageId;
+        }
+
+        long random( int filePages )
+        {
+            return ThreadLocalRandom.current().nextInt( filePages );
+        }
+    }
+
+    @Benchmark
+    @Threads( 1 )
+    public long sequentialRead( ThreadPosition position ) throws IOException
+    {
+        return read( position.sequential( filePages ) );
+    }
+
+    @Benchmark
+    @Threads( 4 )
+    public long randomRead( ThreadPosition position ) throws IOException
+    {
+        return read( position.random( filePages ) );
+    }
+
+    @Benchmark
+    @Threads( 1 )
+    public void sequentialWrite( ThreadPosition position ) throws IOException
+    {
+        write( position.sequential( filePages ) );
+    }
+
+    @Benchmark
+    @Threads( 4 )
+    public void randomWrite( ThreadPosition position ) throws IOException
+    {
+        write( position.random( filePages ) );
+    }
+
+    private long read( long pageId ) throws IOException
+    {
+        long value = 0;
+        try ( PageCursor cursor = pagedFile.io( pageId, PF_SHARED_READ_LOCK ) )
+        {
+            if ( cursor.next() )
+            {
+                do
+                {
+                    value = cursor.getLong( 0 );
+                }
+                while ( cursor.shouldRetry() );
+            }
+        }
+        return value;
+    }
+
+    private void write( long pageId ) throws IOException
+    {
+        try ( PageCursor cursor = pagedFile.io( pageId, PF_SHARED_WRITE_LOCK ) )
+        {
+            if ( cursor.next() )
+            {
+                cursor.putLong( 0, pageId );
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api.state.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.kernel.api.properties.DefinedProperty;
+import org.neo4j.kernel.api.properties.Property;
+import org.neo4j.kernel.impl.api.state.TxState;
+
+/**
+ * Measures the cost of building up a {@link TxState} the way a write transaction does: creating nodes and
+ * relationships, adding labels and setting properties. Each invocation builds a complete transaction state of
+ * {@code transactionSize} entities from scratch, so the numbers include the growth of the internal maps.
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5 )
+@Measurement( iterations = 5 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class TxStateBenchmark
+{
+    private static final int LABEL_ID = 1;
+    private static final int PROPERTY_KEY_ID = 2;
+    private static final int RELATIONSHIP_TYPE_ID = 3;
+
+    @Param( {"10", "1000", "100000"} )
+    public int transactionSize;
+
+    @Benchmark
+    public TxState createNodes()
+    {
+        TxState state = new TxState();
+        for ( long nodeId = 0; nodeId < transactionSize; nodeId++ )
+        {
+            state.nodeDoCreate( nodeId );
+        }
+        return state;
+    }
+
+    @Benchmark
+    public TxState createNodesWithLabelAndProperty()
+    {
+        TxState state = new TxState();
+        for ( long nodeId = 0; nodeId < transactionSize; nodeId++ )
+        {
+            state.nodeDoCreate( nodeId );
+            state.nodeDoAddLabel( LABEL_ID, nodeId );
+            DefinedProperty property = Property.longProperty( PROPERTY_KEY_ID, nodeId );
+            state.nodeDoReplaceProperty( nodeId, Property.noNodeProperty( nodeId, PROPERTY_KEY_ID ), property );
+        }
+        return state;
+    }
+
+    @Benchmark
+    public TxState createRelationshipChain()
+    {
+        TxState state = new TxState();
+        state.nodeDoCreate( 0 );
+        for ( long id = 1; id < transactionSize; id++ )
+        {
+            state.nodeDoCreate( id );
+            state.relationshipDoCreate( id, RELATIONSHIP_TYPE_ID, id - 1, id );
+        }
+        return state;
+    }
+
+    @Benchmark
+    public TxState updateExistingNodeProperties()
+    {
+        TxState state = new TxState();
+        for ( long nodeId = 0; nodeId < transactionSize; nodeId++ )
+        {
+            DefinedProperty before = Property.longProperty( PROPERTY_KEY_ID, -nodeId );
+            DefinedProperty after = Property.longProperty( PROPERTY_KEY_ID, nodeId );
+            state.nodeDoReplaceProperty( nodeId, before, after );
+        }
+        return state;
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.factory.GraphDatabaseFactory;
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.io.fs.DefaultFileSystemAbstraction;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.fs.FileUtils;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.pagecache.StandalonePageCacheFactory;
+import org.neo4j.kernel.impl.store.NeoStores;
+import org.neo4j.kernel.impl.store.NodeStore;
+import org.neo4j.kernel.impl.store.RecordCursor;
+import org.neo4j.kernel.impl.store.RelationshipStore;
+import org.neo4j.kernel.impl.store.StoreFactory;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.store.record.RelationshipRecord;
+import org.neo4j.logging.NullLogProvider;
+
+import static org.neo4j.helpers.collection.MapUtil.stringMap;
+import static org.neo4j.kernel.impl.store.record.RecordLoad.NORMAL;
+
+/**
+ * Measures record access through {@link NodeStore} and {@link RelationshipStore}, comparing
+ * {@link org.neo4j.kernel.impl.store.RecordStore#getRecord(long, org.neo4j.kernel.impl.store.record.AbstractBaseRecord,
+ * org.neo4j.kernel.impl.store.record.RecordLoad) getRecord} with a reused {@link RecordCursor}.
+ * <p>
+ * The store is populated once per trial with a chain of nodes, each connected to the next by a relationship, and the
+ * page cache is sized to hold the whole store, so that the numbers reflect record decoding and pinning rather than IO.
+ */
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5 )
+@Measurement( iterations = 5 )
+@Fork( 1 )
+@State( Scope.Benchmark )
+public class RecordStoreBenchmark
+{
+    private static final int BATCH_SIZE = 10_000;
+
+    @Param( {"1000000"} )
+    public int nodeCount;
+
+    private File storeDir;
+    private FileSystemAbstraction fs;
+    private PageCache pageCache;
+    private NeoStores neoStores;
+    private NodeStore nodeStore;
+    private RelationshipStore relationshipStore;
+
+    @Setup( Level.Trial )
+    public void setUp() throws IOException
+    {
+        storeDir = Files.createTempDirectory( "record-store-benchmark" ).toFile();
+        populateStore();
+
+        fs = new DefaultFileSystemAbstraction();
+        Config config = new Config( stringMap( GraphDatabaseSettings.pagecache_memory.name(), "1g" ) );
+        pageCache = StandalonePageCacheFactory.createPageCache( fs, config );
+        neoStores = new StoreFactory( storeDir, pageCache, fs, NullLogProvider.getInstance() ).openAllNeoStores();
+        nodeStore = neoStores.getNodeStore();
+        relationshipStore = neoStores.getRelationshipStore();
+    }
+
+    private void populateStore()
+    {
+        GraphDatabaseService db = new GraphDatabaseFactory().newEmbeddedDatabase( storeDir );
+        try
+        {
+            RelationshipType type = RelationshipType.withName( "NEXT" );
+            Node previous = null;
+            int created = 0;
+            while ( created < nodeCount )
+            {
+                try ( Transaction tx = db.beginTx() )
+                {
+                    for ( int i = 0; i < BATCH_SIZE && created < nodeCount; i++, created++ )
+                    {
+                        Node node = db.createNode();
+                        if ( previous != null )
+                        {
+                            previous.createRelationshipTo( node, type );
+                        }
+                        previous = node;
+                    }
+                    tx.success();
+                }
+            }
+        }
+        finally
+        {
+            db.shutdown();
+        }
+    }
+
+    @TearDown( Level.Trial )
+    public void tearDown() throws IOException
+    {
+        neoStores.close();
+        pageCache.close();
+        FileUtils.deleteRecursively( storeDir );
+    }
+
+    @State( Scope.Thread )
+    public static class Records
+    {
+        NodeRecord node;
+        RelationshipRecord relationship;
+        RecordCursor<NodeRecord> nodeCursor;
+        RecordCursor<RelationshipRecord> relationshipCursor;
+        long nextNodeId;
+        long nextRelationshipId;
+
+        @Setup( Level.Iteration )
+        public void setUp( RecordStoreBenchmark benchmark )
+        {
+            node = benchmark.nodeStore.newRecord();
+            relationship = benchmark.relationshipStore.newRecord();
+            nodeCursor = benchmark.nodeStore.newRecordCursor( benchmark.nodeStore.newRecord() )
+                    .acquire( 0, NORMAL );
+            relationshipCursor = benchmark.relationshipStore.newRecordCursor(
+                    benchmark.relationshipStore.newRecord() ).acquire( 0, NORMAL );
+        }
+
+        @TearDown( Level.Iteration )
+        public void tearDown()
+        {
+            nodeCursor.close();
+            relationshipCursor.close();
+        }
+
+        long nextNodeId( long highId )
+        {
+            long id = nextNodeId;
+            nextNodeId = id + 1 == highId ? 0 : id + 1;
+            return id;
+        }
+
+        long nextRelationshipId( long highId )
+        {
+            long id = nextRelationshipId;
+            nextRelationshipId = id + 1 == highId ? 0 : id + 1;
+            return id;
+        }
+    }
+
+    @Benchmark
+    public NodeRecord nodeGetRecordRandom( Records records )
+    {
+        long id = ThreadLocalRandom.current().nextLong( nodeStore.getHighId() );
+        return nodeStore.getRecord( id, records.node, NORMAL );
+    }
+
+    @Benchmark
+    public boolean nodeCursorSequential( Records records )
+    {
+        return records.nodeCursor.next( records.nextNodeId( nodeStore.getHighId() ) );
+    }
+
+    @Benchmark
+    public boolean nodeCursorRandom( Records records )
+    {
+        return records.nodeCursor.next( ThreadLocalRandom.current().nextLong( nodeStore.getHighId() ) );
+    }
+
+    @Benchmark
+    public RelationshipRecord relationshipGetRecordRandom( Records records )
+    {
+        long id = ThreadLocalRandom.current().nextLong( relationshipStore.getHighId() );
+        return relationshipStore.getRecord( id, records.relationship, NORMAL );
+    }
+
+    @Benchmark
+    public boolean relationshipCursorSequential( Records records )
+    {
+        return records.relationshipCursor.next( records.nextRelationshipId( relationshipStore.getHighId() ) );
+    }
+
+    @Benchmark
+    public boolean relationshipCursorRandom( Records records )
+    {
+        return records.relationshipCursor.next(
+                ThreadLocalRandom.current().nextLong( relationshipStore.getHighId() ) );
+    }
+}
@@ -30,6 +30,7 @@ import java.io.Reader;
 import java.io.Writer;
 import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.nio.file.CopyOption;
 import java.nio.file.DirectoryStream;
 import java.nio.file.FileSystem;
 import java.nio.file.Files;
@@ -171,6 +172,12 @@ public class DelegateFileSystemAbstraction implements FileSystemAbstraction
         return true;
     }
 
+    @Override
+    public void renameFile( File from, File to, CopyOption... copyOptions ) throws IOException
+    {
+        Files.move( path( from ), path( to ), copyOptions );
+    }
+
     @Override
     public File[] listFiles( File directory )
     {
@@ -28,6 +28,7 @@ import java.io.OutputStream;
 import java.io.Reader;
 import java.io.Writer;
 import java.nio.charset.Charset;
+import java.nio.file.CopyOption;
 import java.util.function.Function;
 import java.util.zip.ZipOutputStream;
 
@@ -59,6 +60,14 @@ public interface FileSystemAbstraction
 
     boolean renameFile( File from, File to ) throws IOException;
 
+    /**
+     * Move a file, like {@link java.nio.file.Files#move(java.nio.file.Path, java.nio.file.Path, CopyOption...)}.
+     * With {@link java.nio.file.StandardCopyOption#ATOMIC_MOVE} and
+     * {@link java.nio.file.StandardCopyOption#REPLACE_EXISTING}, an existing target file is atomically replaced, such
+     * that the target is never observed to be missing, or partially written.
+     */
+    void renameFile( File from, File to, CopyOption... copyOptions ) throws IOException;
+
     File[] listFiles( File directory );
 
     File[] listFiles( File directory, FilenameFilter filter );
@@ -21,6 +21,7 @@ package org.neo4j.io.fs;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
 
@@ -171,6 +172,15 @@ public class StoreFileChannel implements StoreChannel
         force( false );
     }
 
+    /**
+     * Maps a region of the file into memory, as by {@link FileChannel#map(FileChannel.MapMode, long, long)}. The
+     * mapping stays valid after this channel has been closed.
+     */
+    public MappedByteBuffer map( FileChannel.MapMode mode, long position, long size ) throws IOException
+    {
+        return channel.map( mode, position, size );
+    }
+
     static FileChannel unwrap( StoreChannel channel )
     {
         StoreFileChannel sfc = (StoreFileChannel) channel;
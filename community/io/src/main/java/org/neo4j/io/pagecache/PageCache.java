@@ -23,6 +23,7 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.OpenOption;
 import java.nio.file.StandardOpenOption;
+import java.util.List;
 
 /**
  * A page caching mechanism that allows caching multiple files and accessing their data
@@ -61,6 +62,18 @@ public interface PageCache extends AutoCloseable
      */
     PagedFile map( File file, int pageSize, OpenOption... openOptions ) throws IOException;
 
+    /**
+     * List a snapshot of the current file mappings.
+     * <p>
+     * The mappings can change as soon as this method returns. The returned {@link PagedFile} instances are therefore
+     * not guaranteed to remain mapped, and must not be {@link PagedFile#close() closed} by the caller, since no
+     * additional references to them have been acquired. Map the file again, if a stable reference is required.
+     *
+     * @return A list of the files that are currently mapped by this page cache.
+     * @throws IOException if the page cache has been closed, or the mappings could otherwise not be listed.
+     */
+    List<PagedFile> listExistingMappings() throws IOException;
+
     /** Flush all dirty pages */
     void flushAndForce() throws IOException;
 
@@ -71,6 +84,28 @@ public interface PageCache extends AutoCloseable
      */
     void flushAndForce( IOLimiter limiter ) throws IOException;
 
+    /**
+     * Flush some of the dirty pages, without forcing them to the storage device, and limit the rate of IO as advised
+     * by the given IOLimiter. Each call continues from where the previous call left off, such that repeated calls
+     * will eventually visit all dirty pages in all mapped files. This allows dirty pages to be written out gradually
+     * in the background, so that a later {@link #flushAndForce(IOLimiter)} has less work to do.
+     *
+     * @param maxPages The number of pages to flush, after which this method returns. Slightly more pages than this
+     * may be flushed, because pages are flushed in vectors.
+     * @param limiter The {@link IOLimiter} that determines if pauses or sleeps should be injected into the flushing
+     * process to keep the IO rate down.
+     * @return The number of pages that were flushed, which is less than {@code maxPages} if there were not that many
+     * dirty pages to flush.
+     */
+    long flushDirtyPages( long maxPages, IOLimiter limiter ) throws IOException;
+
+    /**
+     * The number of dirty pages in the cache; pages that have been written to since they were last flushed.
+     * The count is cheap to read, but may already be out of date when it returns, if there are concurrent writes
+     * or flushes.
+     */
+    long dirtyPages();
+
     /** Flush all dirty pages and close the page cache. */
     void close() throws IOException;
 
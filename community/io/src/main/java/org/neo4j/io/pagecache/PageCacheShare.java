@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache;
+
+import java.io.File;
+import java.nio.file.OpenOption;
+
+/**
+ * An {@link OpenOption} for {@link PageCache#map(File, int, OpenOption...)} that controls how big a share of the
+ * page cache the pages of the mapped file may occupy, relative to all other mapped files.
+ * <p>
+ * A {@link #reserved(double) reserved} share protects the pages of the file from eviction, for as long as the file
+ * occupies no more than the given fraction of the page cache. The pages can still be evicted if the page cache has
+ * no other pages it can evict.
+ * <p>
+ * A {@link #bounded(double) bounded} share makes the pages of the file the preferred victims of eviction, whenever
+ * the file occupies more than the given fraction of the page cache.
+ * <p>
+ * The share only takes effect when the file is first mapped. It is ignored when mapping a file that is already
+ * mapped.
+ */
+public final class PageCacheShare implements OpenOption
+{
+    private final boolean reserved;
+    private final double fraction;
+
+    private PageCacheShare( boolean reserved, double fraction )
+    {
+        if ( Double.isNaN( fraction ) || fraction < 0.0 || fraction > 1.0 )
+        {
+            throw new IllegalArgumentException(
+                    "The page cache share must be a fraction between 0 and 1, but was " + fraction );
+        }
+        this.reserved = reserved;
+        this.fraction = fraction;
+    }
+
+    /**
+     * Reserve the given fraction of the page cache for the mapped file.
+     *
+     * @param fraction The fraction of the page cache, between 0 and 1, to reserve for the file.
+     * @return An {@link OpenOption} that reserves the given share of the page cache.
+     */
+    public static PageCacheShare reserved( double fraction )
+    {
+        return new PageCacheShare( true, fraction );
+    }
+
+    /**
+     * Bound the mapped file to the given fraction of the page cache.
+     *
+     * @param fraction The fraction of the page cache, between 0 and 1, that the file may occupy.
+     * @return An {@link OpenOption} that bounds the file to the given share of the page cache.
+     */
+    public static PageCacheShare bounded( double fraction )
+    {
+        return new PageCacheShare( false, fraction );
+    }
+
+    /**
+     * @return {@code true} if this is a reserved share, or {@code false} if this is a bounded share.
+     */
+    public boolean isReserved()
+    {
+        return reserved;
+    }
+
+    /**
+     * @return The fraction of the page cache, between 0 and 1, covered by this share.
+     */
+    public double fraction()
+    {
+        return fraction;
+    }
+
+    @Override
+    public boolean equals( Object o )
+    {
+        if ( this == o )
+        {
+            return true;
+        }
+        if ( o == null || getClass() != o.getClass() )
+        {
+            return false;
+        }
+        PageCacheShare that = (PageCacheShare) o;
+        return reserved == that.reserved && Double.compare( that.fraction, fraction ) == 0;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return 31 * Boolean.hashCode( reserved ) + Double.hashCode( fraction );
+    }
+
+    @Override
+    public String toString()
+    {
+        return (reserved ? "reserved" : "bounded") + "PageCacheShare[" + fraction + "]";
+    }
+}
@@ -58,13 +58,18 @@ public interface PagedFile extends AutoCloseable
     int PF_NO_GROW = 1 << 2;
     /**
      * Read-ahead hint for sequential forward scanning.
+     * <p>
+     * When the cursor page faults, the page cache may also fault in a number of the following pages, that are not
+     * already in memory, as part of the same IO operation.
      */
-    int PF_READ_AHEAD = 1 << 3; // TBD
+    int PF_READ_AHEAD = 1 << 3;
     /**
-     * Do not load in the page if it is not loaded already. Only useful with
-     * exclusive locking when you want to overwrite the whole page anyway.
+     * Do not load in the page if it is not loaded already. If the page is not in memory, then
+     * {@link PageCursor#next()} will still return {@code true}, but the cursor will not be bound to any page, and
+     * {@link PageCursor#getCurrentPageId()} will return {@link PageCursor#UNBOUND_PAGE_ID}. This is useful for
+     * finding out which pages are in memory, without disturbing the contents of the page cache.
      */
-    int PF_NO_FAULT = 1 << 4; // TBD
+    int PF_NO_FAULT = 1 << 4;
     /**
      * Do not update page access statistics.
      */
@@ -130,6 +135,11 @@ public interface PagedFile extends AutoCloseable
      */
     int pageSize();
 
+    /**
+     * Get the file that this paged file is a mapping of.
+     */
+    File file();
+
     /**
      * Flush all dirty pages into the file channel, and force the file channel to disk.
      */
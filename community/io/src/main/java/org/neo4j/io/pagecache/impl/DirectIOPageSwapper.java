@@ -0,0 +1,599 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl;
+
+import org.apache.commons.lang3.SystemUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.OpenOption;
+import java.nio.file.StandardOpenOption;
+
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.Page;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PageEvictionCallback;
+import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.impl.muninn.MuninnPageCache;
+import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
+
+/**
+ * A PageSwapper that opens its file with {@code O_DIRECT}, and thereby bypasses the operating system page cache.
+ * <p>
+ * Direct IO requires that file offsets, transfer sizes and buffer addresses are all aligned to the block size.
+ * When the file page size is a multiple of the block size, and the page memory is aligned, which it is when the
+ * page cache honours {@link DirectIOPageSwapperFactory#getRequiredBufferAlignment()}, then pages are transferred
+ * straight to and from the page memory. Otherwise, the block aligned span of the file that covers the page is
+ * transferred through a per-thread bounce buffer. Writing such a span means that the blocks at its edges are
+ * shared with neighbouring pages, so those blocks are read, modified and written back under a striped block lock.
+ * <p>
+ * Since writes always cover whole blocks, the file can grow beyond its logical size by less than a block. The
+ * logical file size is tracked precisely, like in the {@link SingleFilePageSwapper}, and the file is truncated
+ * back to its logical size when the swapper is closed.
+ */
+public class DirectIOPageSwapper implements PageSwapper
+{
+    private static final int blockLockStripes = 128; // Must be a power of 2.
+    private static final int blockLockMask = blockLockStripes - 1;
+
+    private static final long fileSizeOffset =
+            UnsafeUtil.getFieldOffset( DirectIOPageSwapper.class, "fileSize" );
+
+    private static final ThreadLocal<BounceBuffer> bounceBuffers = new ThreadLocal<>();
+
+    /**
+     * Aligned native memory used for transfers that cannot go directly to and from the page memory. The memory is
+     * owned by a single thread, and is only a couple of blocks larger than a file page.
+     */
+    private static final class BounceBuffer
+    {
+        private final long pointer;
+        private final long address;
+        private final int capacity;
+
+        BounceBuffer( int capacity, int alignment )
+        {
+            this.pointer = UnsafeUtil.allocateMemory( capacity + alignment );
+            this.address = alignUp( pointer, alignment );
+            this.capacity = capacity;
+        }
+    }
+
+    private static BounceBuffer bounceBuffer( int capacity, int alignment )
+    {
+        BounceBuffer buffer = bounceBuffers.get();
+        if ( buffer == null || buffer.capacity < capacity )
+        {
+            if ( buffer != null )
+            {
+                UnsafeUtil.free( buffer.pointer );
+            }
+            buffer = new BounceBuffer( capacity, alignment );
+            bounceBuffers.set( buffer );
+        }
+        return buffer;
+    }
+
+    private static ByteBuffer wrap( long address, int length ) throws IOException
+    {
+        try
+        {
+            return UnsafeUtil.newDirectByteBuffer( address, length );
+        }
+        catch ( Exception e )
+        {
+            throw new IOException( e );
+        }
+    }
+
+    private static long alignUp( long value, long alignment )
+    {
+        return (value + alignment - 1) & -alignment;
+    }
+
+    private static long alignDown( long value, long alignment )
+    {
+        return value & -alignment;
+    }
+
+    private final FileSystemAbstraction fs;
+    private final File file;
+    private final int filePageSize;
+    private final int blockSize;
+    private final OpenOption directOpenOption;
+    private final boolean blockAlignedPages;
+    private final Object[] blockLocks;
+    private volatile PageEvictionCallback onEviction;
+    private volatile FileChannel channel;
+    private FileLock fileLock;
+
+    // Guarded by synchronized(this). See tryReopen() and close().
+    private boolean closed;
+
+    @SuppressWarnings( "unused" ) // Accessed through unsafe
+    private volatile long fileSize;
+
+    DirectIOPageSwapper(
+            File file,
+            FileSystemAbstraction fs,
+            int filePageSize,
+            int blockSize,
+            OpenOption directOpenOption,
+            PageEvictionCallback onEviction ) throws IOException
+    {
+        this.fs = fs;
+        this.file = file;
+        this.filePageSize = filePageSize;
+        this.blockSize = blockSize;
+        this.directOpenOption = directOpenOption;
+        this.blockAlignedPages = filePageSize % blockSize == 0;
+        this.blockLocks = new Object[blockLockStripes];
+        for ( int i = 0; i < blockLockStripes; i++ )
+        {
+            blockLocks[i] = new Object();
+        }
+        this.onEviction = onEviction;
+        this.channel = openChannel();
+        increaseFileSizeTo( channel.size() );
+
+        try
+        {
+            acquireLock();
+        }
+        catch ( IOException e )
+        {
+            try
+            {
+                channel.close();
+            }
+            catch ( IOException closeException )
+            {
+                e.addSuppressed( closeException );
+            }
+            throw e;
+        }
+    }
+
+    private FileChannel openChannel() throws IOException
+    {
+        return FileChannel.open( file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE, directOpenOption );
+    }
+
+    private void increaseFileSizeTo( long newFileSize )
+    {
+        long currentFileSize;
+        do
+        {
+            currentFileSize = getCurrentFileSize();
+        }
+        while ( currentFileSize < newFileSize && !UnsafeUtil.compareAndSwapLong(
+                this, fileSizeOffset, currentFileSize, newFileSize ) );
+    }
+
+    private long getCurrentFileSize()
+    {
+        return UnsafeUtil.getLongVolatile( this, fileSizeOffset );
+    }
+
+    private void setCurrentFileSize( long size )
+    {
+        UnsafeUtil.putLongVolatile( this, fileSizeOffset, size );
+    }
+
+    private void acquireLock() throws IOException
+    {
+        if ( SystemUtils.IS_OS_WINDOWS )
+        {
+            // See SingleFilePageSwapper.acquireLock() for why we don't take file locks on Windows.
+            return;
+        }
+
+        try
+        {
+            fileLock = channel.tryLock();
+            if ( fileLock == null )
+            {
+                throw new FileLockException( file );
+            }
+        }
+        catch ( OverlappingFileLockException e )
+        {
+            throw new FileLockException( file, e );
+        }
+    }
+
+    private int blockLockStripe( long fileOffset )
+    {
+        return (int) (fileOffset / blockSize) & blockLockMask;
+    }
+
+    private boolean canTransferDirectly( long address )
+    {
+        return blockAlignedPages && (address & (blockSize - 1)) == 0;
+    }
+
+    private void swapIn( Page page, long fileOffset ) throws IOException
+    {
+        long address = page.address();
+        if ( canTransferDirectly( address ) )
+        {
+            readBlocks( address, filePageSize, fileOffset );
+        }
+        else
+        {
+            long spanStart = alignDown( fileOffset, blockSize );
+            int spanLength = (int) (alignUp( fileOffset + filePageSize, blockSize ) - spanStart);
+            BounceBuffer buffer = bounceBuffer( spanLength, blockSize );
+            readBlocks( buffer.address, spanLength, spanStart );
+            UnsafeUtil.copyMemory( buffer.address + (fileOffset - spanStart), address, filePageSize );
+        }
+    }
+
+    private void swapOut( Page page, long fileOffset ) throws IOException
+    {
+        long address = page.address();
+        if ( canTransferDirectly( address ) )
+        {
+            writeBlocks( address, filePageSize, fileOffset );
+            return;
+        }
+
+        long spanStart = alignDown( fileOffset, blockSize );
+        long spanEnd = alignUp( fileOffset + filePageSize, blockSize );
+        int spanLength = (int) (spanEnd - spanStart);
+        long lastBlock = spanEnd - blockSize;
+
+        // Any other page that shares a block with this one, will have that block at one of the edges of its span.
+        // Taking the locks of both our edge blocks, in stripe order, thus serialises all read-modify-write cycles
+        // on shared blocks.
+        int firstStripe = blockLockStripe( spanStart );
+        int lastStripe = blockLockStripe( lastBlock );
+        synchronized ( blockLocks[Math.min( firstStripe, lastStripe )] )
+        {
+            synchronized ( blockLocks[Math.max( firstStripe, lastStripe )] )
+            {
+                BounceBuffer buffer = bounceBuffer( spanLength, blockSize );
+                if ( spanStart < fileOffset )
+                {
+                    readBlocks( buffer.address, blockSize, spanStart );
+                }
+                if ( spanEnd > fileOffset + filePageSize && (lastBlock != spanStart || spanStart == fileOffset) )
+                {
+                    readBlocks( buffer.address + spanLength - blockSize, blockSize, lastBlock );
+                }
+                UnsafeUtil.copyMemory( address, buffer.address + (fileOffset - spanStart), filePageSize );
+                writeBlocks( buffer.address, spanLength, spanStart );
+            }
+        }
+    }
+
+    /**
+     * Read the given block aligned span of the file into the given aligned memory, and zero-fill whatever part of
+     * the span lies beyond the end of the file.
+     */
+    private void readBlocks( long address, int length, long fileOffset ) throws IOException
+    {
+        ByteBuffer buffer = wrap( address, length );
+        int read;
+        do
+        {
+            read = channel.read( buffer, fileOffset + buffer.position() );
+        }
+        // A direct read only comes up short at the end of the file, after which the position is no longer aligned.
+        while ( read > 0 && buffer.hasRemaining() && buffer.position() % blockSize == 0 );
+        int bytesRead = buffer.position();
+        UnsafeUtil.setMemory( address + bytesRead, length - bytesRead, MuninnPageCache.ZERO_BYTE );
+    }
+
+    private void writeBlocks( long address, int length, long fileOffset ) throws IOException
+    {
+        ByteBuffer buffer = wrap( address, length );
+        do
+        {
+            channel.write( buffer, fileOffset + buffer.position() );
+        }
+        while ( buffer.hasRemaining() );
+    }
+
+    private void clear( Page page )
+    {
+        UnsafeUtil.setMemory( page.address(), page.size(), MuninnPageCache.ZERO_BYTE );
+    }
+
+    private long pageIdToPosition( long pageId ) throws IOException
+    {
+        if ( pageId < 0 )
+        {
+            throw new IOException( "Invalid file page id: " + pageId );
+        }
+        return filePageSize * pageId;
+    }
+
+    @Override
+    public long read( long filePageId, Page page ) throws IOException
+    {
+        long fileOffset = pageIdToPosition( filePageId );
+        try
+        {
+            long bytesInFile = getCurrentFileSize() - fileOffset;
+            if ( bytesInFile > 0 )
+            {
+                int bytesRead = (int) Math.min( filePageSize, bytesInFile );
+                swapIn( page, fileOffset );
+                // The blocks may extend beyond the logical end of the file.
+                UnsafeUtil.setMemory(
+                        page.address() + bytesRead, filePageSize - bytesRead, MuninnPageCache.ZERO_BYTE );
+                return bytesRead;
+            }
+            else
+            {
+                clear( page );
+            }
+        }
+        catch ( ClosedChannelException e )
+        {
+            // AsynchronousCloseException is a subclass of
+            // ClosedChannelException, and ClosedByInterruptException is in
+            // turn a subclass of AsynchronousCloseException.
+            tryReopen( e );
+            boolean interrupted = Thread.interrupted();
+            // Recurse because this is hopefully a very rare occurrence.
+            long bytesRead = read( filePageId, page );
+            if ( interrupted )
+            {
+                Thread.currentThread().interrupt();
+            }
+            return bytesRead;
+        }
+        return 0;
+    }
+
+    @Override
+    public long read( long startFilePageId, Page[] pages, int arrayOffset, int length ) throws IOException
+    {
+        pageIdToPosition( startFilePageId );
+        long bytes = 0;
+        for ( int i = 0; i < length; i++ )
+        {
+            bytes += read( startFilePageId + i, pages[arrayOffset + i] );
+        }
+        return bytes;
+    }
+
+    @Override
+    public long write( long filePageId, Page page ) throws IOException
+    {
+        long fileOffset = pageIdToPosition( filePageId );
+        increaseFileSizeTo( fileOffset + filePageSize );
+        try
+        {
+            swapOut( page, fileOffset );
+            return filePageSize;
+        }
+        catch ( ClosedChannelException e )
+        {
+            // AsynchronousCloseException is a subclass of
+            // ClosedChannelException, and ClosedByInterruptException is in
+            // turn a subclass of AsynchronousCloseException.
+            tryReopen( e );
+            boolean interrupted = Thread.interrupted();
+            // Recurse because this is hopefully a very rare occurrence.
+            long bytesWritten = write( filePageId, page );
+            if ( interrupted )
+            {
+                Thread.currentThread().interrupt();
+            }
+            return bytesWritten;
+        }
+    }
+
+    @Override
+    public long write( long startFilePageId, Page[] pages, int arrayOffset, int length ) throws IOException
+    {
+        pageIdToPosition( startFilePageId );
+        long bytes = 0;
+        for ( int i = 0; i < length; i++ )
+        {
+            bytes += write( startFilePageId + i, pages[arrayOffset + i] );
+        }
+        return bytes;
+    }
+
+    @Override
+    public void evicted( long filePageId, Page page )
+    {
+        PageEvictionCallback callback = this.onEviction;
+        if ( callback != null )
+        {
+            callback.onEvict( filePageId, page );
+        }
+    }
+
+    @Override
+    public File file()
+    {
+        return file;
+    }
+
+    @Override
+    public boolean equals( Object o )
+    {
+        if ( this == o )
+        { return true; }
+        if ( o == null || getClass() != o.getClass() )
+        { return false; }
+
+        DirectIOPageSwapper that = (DirectIOPageSwapper) o;
+
+        return file.equals( that.file );
+
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return file.hashCode();
+    }
+
+    /**
+     * Reopens the channel if it has been closed and the close() method on
+     * this swapper has not been called. In other words, if the channel has
+     * been "accidentally" closed by an interrupt or the like.
+     *
+     * @see SingleFilePageSwapper
+     */
+    private synchronized void tryReopen( ClosedChannelException closedException ) throws ClosedChannelException
+    {
+        if ( channel.isOpen() )
+        {
+            // Someone got ahead of us, presumably. Nothing to do.
+            return;
+        }
+
+        if ( closed )
+        {
+            // We've been explicitly closed, so we shouldn't reopen the
+            // channel.
+            throw closedException;
+        }
+
+        try
+        {
+            channel = openChannel();
+            // The closing of a FileChannel also releases all associated file locks.
+            acquireLock();
+        }
+        catch ( IOException e )
+        {
+            closedException.addSuppressed( e );
+            throw closedException;
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException
+    {
+        closed = true;
+        try
+        {
+            if ( channel.isOpen() && channel.size() > getCurrentFileSize() )
+            {
+                // Cut off the padding that whole-block writes may have left beyond the logical end of the file.
+                channel.truncate( getCurrentFileSize() );
+            }
+        }
+        finally
+        {
+            try
+            {
+                channel.close();
+            }
+            finally
+            {
+                // See SingleFilePageSwapper.close() for why we eagerly relinquish the onEviction callback.
+                onEviction = null;
+            }
+        }
+    }
+
+    @Override
+    public synchronized void closeAndDelete() throws IOException
+    {
+        close();
+        fs.deleteFile( file );
+    }
+
+    @Override
+    public void force() throws IOException
+    {
+        try
+        {
+            // Direct IO bypasses the page cache, but not necessarily the device write cache, nor does it make
+            // changes to the file meta-data durable.
+            channel.force( false );
+        }
+        catch ( ClosedChannelException e )
+        {
+            // AsynchronousCloseException is a subclass of
+            // ClosedChannelException, and ClosedByInterruptException is in
+            // turn a subclass of AsynchronousCloseException.
+            tryReopen( e );
+            boolean interrupted = Thread.interrupted();
+            // Recurse because this is hopefully a very rare occurrence.
+            force();
+            if ( interrupted )
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public long getLastPageId() throws IOException
+    {
+        long channelSize = getCurrentFileSize();
+        if ( channelSize == 0 )
+        {
+            return PageCursor.UNBOUND_PAGE_ID;
+        }
+        long div = channelSize / filePageSize;
+        long mod = channelSize % filePageSize;
+        return mod == 0? div - 1 : div;
+    }
+
+    @Override
+    public void truncate() throws IOException
+    {
+        setCurrentFileSize( 0 );
+        try
+        {
+            channel.truncate( 0 );
+        }
+        catch ( ClosedChannelException e )
+        {
+            // AsynchronousCloseException is a subclass of
+            // ClosedChannelException, and ClosedByInterruptException is in
+            // turn a subclass of AsynchronousCloseException.
+            tryReopen( e );
+            boolean interrupted = Thread.interrupted();
+            // Recurse because this is hopefully a very rare occurrence.
+            truncate();
+            if ( interrupted )
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "DirectIOPageSwapper{" +
+                "filePageSize=" + filePageSize +
+                ", blockSize=" + blockSize +
+                ", file=" + file +
+                '}';
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.OpenOption;
+
+import org.neo4j.io.fs.DefaultFileSystemAbstraction;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageEvictionCallback;
+import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.PageSwapperFactory;
+
+/**
+ * A factory for DirectIOPageSwapper instances, selected with {@code dbms.memory.pagecache.swapper=direct}.
+ * <p>
+ * The swappers open their files with {@code O_DIRECT}, such that page cache IO bypasses the operating system page
+ * cache, and the memory that would otherwise be spent on caching store files twice can be given to the page cache.
+ * Direct IO is only available on JVMs that support the {@code com.sun.nio.file.ExtendedOpenOption.DIRECT} open
+ * option, which means JDK 10 or later, and only for files on the default file system. There is no direct IO on
+ * Java 8, where creating a swapper fails.
+ *
+ * @see org.neo4j.io.pagecache.impl.DirectIOPageSwapper
+ */
+public class DirectIOPageSwapperFactory implements PageSwapperFactory
+{
+    // The alignment, in bytes, that file offsets, transfer sizes and buffer addresses must have for direct IO.
+    private static final int defaultBlockSize = Integer.getInteger(
+            "org.neo4j.io.pagecache.impl.DirectIOPageSwapperFactory.blockSize", 4096 );
+
+    private static final OpenOption defaultDirectOpenOption = lookupDirectOpenOption();
+
+    private static OpenOption lookupDirectOpenOption()
+    {
+        try
+        {
+            Class<?> extendedOpenOption = Class.forName( "com.sun.nio.file.ExtendedOpenOption" );
+            for ( Object option : extendedOpenOption.getEnumConstants() )
+            {
+                if ( ((Enum<?>) option).name().equals( "DIRECT" ) )
+                {
+                    return (OpenOption) option;
+                }
+            }
+        }
+        catch ( Exception ignore )
+        {
+            // Direct IO is not supported by this JVM.
+        }
+        return null;
+    }
+
+    /**
+     * @return {@code true} if this JVM is able to open files for direct IO.
+     */
+    public static boolean isDirectIOSupported()
+    {
+        return defaultDirectOpenOption != null;
+    }
+
+    private final OpenOption directOpenOption;
+    private final int blockSize;
+    private FileSystemAbstraction fs;
+
+    public DirectIOPageSwapperFactory()
+    {
+        this( defaultDirectOpenOption, defaultBlockSize );
+    }
+
+    /**
+     * Used by tests to exercise the block alignment and read-modify-write logic of the swappers with an ordinary
+     * open option in place of {@code O_DIRECT}, on JVMs that don't support direct IO.
+     */
+    DirectIOPageSwapperFactory( OpenOption directOpenOption, int blockSize )
+    {
+        this.directOpenOption = directOpenOption;
+        this.blockSize = blockSize;
+    }
+
+    @Override
+    public void setFileSystemAbstraction( FileSystemAbstraction fs )
+    {
+        this.fs = fs;
+    }
+
+    @Override
+    public PageSwapper createPageSwapper(
+            File file,
+            int filePageSize,
+            PageEvictionCallback onEviction,
+            boolean createIfNotExist ) throws IOException
+    {
+        if ( directOpenOption == null )
+        {
+            throw new IOException( "Cannot map " + file + " for direct IO, because this JVM does not support " +
+                                   "opening files with O_DIRECT" );
+        }
+        if ( !(fs instanceof DefaultFileSystemAbstraction) )
+        {
+            throw new IOException( "Cannot map " + file + " for direct IO, because direct IO is only supported " +
+                                   "for the default file system, but got " + fs );
+        }
+        if ( !fs.fileExists( file ) )
+        {
+            if ( createIfNotExist )
+            {
+                fs.create( file ).close();
+            }
+            else
+            {
+                throw new NoSuchFileException( file.getPath(), null, "Cannot map non-existing file" );
+            }
+        }
+        return new DirectIOPageSwapper( file, fs, filePageSize, blockSize, directOpenOption, onEviction );
+    }
+
+    @Override
+    public void syncDevice()
+    {
+        // Nothing do to, since we `fsync` files individually in `force()`.
+    }
+
+    @Override
+    public String implementationName()
+    {
+        return "direct";
+    }
+
+    @Override
+    public int getCachePageSizeHint()
+    {
+        return 8192;
+    }
+
+    @Override
+    public boolean isCachePageSizeHintStrict()
+    {
+        return false;
+    }
+
+    @Override
+    public long getRequiredBufferAlignment()
+    {
+        return blockSize;
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+/**
+ * The eviction policies available to the {@link MuninnPageCache}.
+ * <p>
+ * The page cache runs a clock arm over all of its pages, both in the background eviction thread and when page
+ * faulting threads have to cooperatively evict. The eviction policy decides, every time the clock arm sweeps past a
+ * loaded page, whether or not that page should be evicted.
+ */
+public enum EvictionPolicy
+{
+    /**
+     * The classic CLOCK algorithm. Pinning a page increments its usage counter, and the clock arm decrements it.
+     * Pages are evicted when their usage counter reaches zero.
+     */
+    CLOCK
+    {
+        @Override
+        boolean sweep( MuninnPage page, MuninnPageCache pageCache, boolean desperate )
+        {
+            return page.decrementUsage();
+        }
+    },
+
+    /**
+     * A segmented CLOCK, in the spirit of 2Q, that keeps large sequential scans from evicting the working set.
+     * <p>
+     * Pages enter the cache on probation. The first time the clock arm sweeps past a probationary page, its usage
+     * counter is cleared. The second time, the page is evicted, unless it has been used again in the meantime, in
+     * which case it is promoted to the protected segment instead. Repeated use within a short time span, like when a
+     * scan reads all the records on a page, does therefore not count towards promotion.
+     * <p>
+     * As long as the protected segment is within its share of the cache, the clock arm leaves the protected pages
+     * alone, so a scan can only ever cycle through the probationary pages. Once the protected segment has outgrown
+     * its share, its pages age and are evicted just like with {@link #CLOCK}.
+     */
+    SCAN_RESISTANT
+    {
+        @Override
+        boolean sweep( MuninnPage page, MuninnPageCache pageCache, boolean desperate )
+        {
+            if ( desperate )
+            {
+                // We have already gone around the clock without finding anything to evict, so stop discriminating.
+                return page.decrementUsage();
+            }
+            if ( page.isProtected() )
+            {
+                return !pageCache.isProtectedSegmentWithinShare() && page.decrementUsage();
+            }
+            if ( page.isProbationTested() )
+            {
+                if ( page.isReferenced() )
+                {
+                    if ( page.promote() )
+                    {
+                        pageCache.protectedPageAdded();
+                    }
+                    return false;
+                }
+                return true;
+            }
+            page.clearUsage();
+            page.markProbationTested();
+            return false;
+        }
+    };
+
+    /**
+     * Called as the clock arm sweeps past the given loaded page.
+     *
+     * @param page The page under the clock arm.
+     * @param pageCache The page cache the page belongs to.
+     * @param desperate {@code true} if the clock arm has already gone around all pages without being able to evict
+     * any, which happens during cooperative eviction when the cache is under heavy pressure.
+     * @return {@code true} if the page should be evicted, otherwise {@code false}.
+     */
+    abstract boolean sweep( MuninnPage page, MuninnPageCache pageCache, boolean desperate );
+}
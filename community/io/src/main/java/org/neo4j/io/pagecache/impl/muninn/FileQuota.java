@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.neo4j.io.pagecache.PageCacheShare;
+
+/**
+ * Keeps track of how many pages a {@link MuninnPagedFile} has in memory, and compares that to the
+ * {@link PageCacheShare shares} of the page cache that the file was mapped with.
+ * <p>
+ * Pages are counted when they are faulted in, and discounted when they are evicted. Both happen while holding the
+ * exclusive lock on the page in question, so the count is exact, though the eviction thread reads it racily.
+ */
+final class FileQuota
+{
+    private final int reservedPages;
+    private final int maxPages;
+    private final AtomicInteger residentPages = new AtomicInteger();
+
+    private FileQuota( int reservedPages, int maxPages )
+    {
+        this.reservedPages = reservedPages;
+        this.maxPages = maxPages;
+    }
+
+    /**
+     * Create a quota for a file, given the shares it was mapped with.
+     *
+     * @return the quota, or {@code null} if neither a reserved nor a bounded share was given.
+     */
+    static FileQuota create( int cachedPages, PageCacheShare reservedShare, PageCacheShare boundedShare )
+    {
+        if ( reservedShare == null && boundedShare == null )
+        {
+            return null;
+        }
+        int reservedPages = reservedShare == null ? 0 : (int) (cachedPages * reservedShare.fraction());
+        int maxPages = boundedShare == null ? cachedPages : (int) (cachedPages * boundedShare.fraction());
+        return new FileQuota( reservedPages, maxPages );
+    }
+
+    int reservedPages()
+    {
+        return reservedPages;
+    }
+
+    void pageFaulted()
+    {
+        residentPages.incrementAndGet();
+    }
+
+    void pageEvicted()
+    {
+        residentPages.decrementAndGet();
+    }
+
+    /**
+     * @return {@code true} if the file occupies no more than its reserved share of the page cache.
+     */
+    boolean isWithinReservation()
+    {
+        return residentPages.get() <= reservedPages;
+    }
+
+    /**
+     * @return {@code true} if the file occupies more than its bounded share of the page cache.
+     */
+    boolean isOverLimit()
+    {
+        return residentPages.get() > maxPages;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "FileQuota[resident = " + residentPages.get() + ", reserved = " + reservedPages +
+               ", max = " + maxPages + "]";
+    }
+}
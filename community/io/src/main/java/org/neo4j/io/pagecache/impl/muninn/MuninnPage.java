@@ -28,17 +28,24 @@ import org.neo4j.io.pagecache.tracing.EvictionEvent;
 import org.neo4j.io.pagecache.tracing.FlushEvent;
 import org.neo4j.io.pagecache.tracing.FlushEventOpportunity;
 import org.neo4j.io.pagecache.tracing.PageFaultEvent;
+import org.neo4j.io.pagecache.tracing.PinEvent;
 import org.neo4j.unsafe.impl.internal.dragons.MemoryManager;
 import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
 
 import static java.lang.String.format;
 
-final class MuninnPage extends SequenceLock implements Page
+final class MuninnPage extends SequenceLock implements Page, PinEvent.SegmentedPage
 {
     private static final long usageStampOffset = UnsafeUtil.getFieldOffset( MuninnPage.class, "usageStamp" );
+    private static final long segmentOffset = UnsafeUtil.getFieldOffset( MuninnPage.class, "segment" );
+    private static final long dirtyOffset = UnsafeUtil.getFieldOffset( MuninnPage.class, "dirty" );
 
-    // The sign bit is used as a dirty flag for the page.
-    // The other 7 bits are used as an exponent for computing the cache page size (as a power of two).
+    // The segment states used by the segmented eviction policies. See EvictionPolicy.SCAN_RESISTANT.
+    private static final int SEGMENT_PROBATION = 0;
+    private static final int SEGMENT_PROBATION_TESTED = 1;
+    private static final int SEGMENT_PROTECTED = 2;
+
+    // The lower 7 bits are used as an exponent for computing the cache page size (as a power of two).
     private byte cachePageHeader;
 
     // We keep this reference to prevent the MemoryManager from becoming
@@ -52,6 +59,21 @@ final class MuninnPage extends SequenceLock implements Page
     @SuppressWarnings( "unused" )
     private volatile byte usageStamp;
 
+    // The eviction segment the page currently belongs to. Only changed by eviction, and only through CAS or
+    // getAndSet, so that the MuninnPageCache can keep an exact count of the protected pages.
+    // accessed through unsafe
+    @SuppressWarnings( "unused" )
+    private volatile int segment;
+
+    // Non-zero if the page has been written to since it was last flushed. Only changed through CAS, so that the
+    // MuninnPageCache can keep an exact count of the dirty pages.
+    // accessed through unsafe
+    @SuppressWarnings( "unused" )
+    private volatile int dirty;
+
+    // The page cache that counts this page as dirty, or not.
+    private final MuninnPageCache pageCache;
+
     // Next pointer in the freelist of available pages. This is either a
     // MuninnPage object, or a FreePage object. See the comment on the
     // MuninnPageCache.freelist field.
@@ -59,11 +81,14 @@ final class MuninnPage extends SequenceLock implements Page
 
     private PageSwapper swapper;
     private long filePageId = PageCursor.UNBOUND_PAGE_ID;
+    // The quota of the file this page is bound to, or null if that file was mapped without a page cache share.
+    private FileQuota quota;
 
-    public MuninnPage( int cachePageSize, MemoryManager memoryManager )
+    public MuninnPage( int cachePageSize, MemoryManager memoryManager, MuninnPageCache pageCache )
     {
         this.cachePageHeader = (byte) (31 - Integer.numberOfLeadingZeros( cachePageSize ));
         this.memoryManager = memoryManager;
+        this.pageCache = pageCache;
         getCachePageId(); // initialize our identity hashCode
     }
 
@@ -89,17 +114,24 @@ final class MuninnPage extends SequenceLock implements Page
      */
     boolean isDirty()
     {
-        return (cachePageHeader & ~0x7F) != 0;
+        return UnsafeUtil.getIntVolatile( this, dirtyOffset ) != 0;
     }
 
     public void markAsDirty()
     {
-        cachePageHeader |= ~0x7F;
+        // The CAS is only attempted when the page is clean, so writing to a page that is already dirty stays cheap.
+        if ( !isDirty() && UnsafeUtil.compareAndSwapInt( this, dirtyOffset, 0, 1 ) )
+        {
+            pageCache.dirtyPageCountChanged( 1 );
+        }
     }
 
     public void markAsClean()
     {
-        cachePageHeader &= 0x7F;
+        if ( isDirty() && UnsafeUtil.compareAndSwapInt( this, dirtyOffset, 1, 0 ) )
+        {
+            pageCache.dirtyPageCountChanged( -1 );
+        }
     }
 
     /** Increment the usage stamp to at most 4. */
@@ -131,6 +163,61 @@ final class MuninnPage extends SequenceLock implements Page
         return UnsafeUtil.getByteVolatile( this, usageStampOffset );
     }
 
+    /** Returns true if the usage stamp has been incremented since it was last cleared or decremented to 0. */
+    boolean isReferenced()
+    {
+        return getUsageCounter() != 0;
+    }
+
+    /** Clear the usage stamp. This is intentionally left benignly racy, like the other usage stamp updates. */
+    void clearUsage()
+    {
+        UnsafeUtil.putByteVolatile( this, usageStampOffset, (byte) 0 );
+    }
+
+    private int getSegment()
+    {
+        return UnsafeUtil.getIntVolatile( this, segmentOffset );
+    }
+
+    /** Returns true if this page is in the protected segment of a segmented eviction policy. */
+    @Override
+    public boolean isProtected()
+    {
+        return getSegment() == SEGMENT_PROTECTED;
+    }
+
+    /**
+     * Returns true if this page is on probation, and the clock arm has already swept past it once since it entered
+     * the probationary segment.
+     */
+    boolean isProbationTested()
+    {
+        return getSegment() == SEGMENT_PROBATION_TESTED;
+    }
+
+    /** Mark this probationary page as having been swept past once. Returns false if we raced with eviction. */
+    boolean markProbationTested()
+    {
+        return UnsafeUtil.compareAndSwapInt( this, segmentOffset, SEGMENT_PROBATION, SEGMENT_PROBATION_TESTED );
+    }
+
+    /** Move this tested probationary page to the protected segment. Returns false if we raced with eviction. */
+    boolean promote()
+    {
+        return UnsafeUtil.compareAndSwapInt( this, segmentOffset, SEGMENT_PROBATION_TESTED, SEGMENT_PROTECTED );
+    }
+
+    /**
+     * Put this page back on probation, and return true if it was in the protected segment.
+     * <p>
+     * NOTE: This method MUST be called while holding the exclusive page lock.
+     */
+    boolean resetSegment()
+    {
+        return UnsafeUtil.getAndSetInt( this, segmentOffset, SEGMENT_PROBATION ) == SEGMENT_PROTECTED;
+    }
+
     /**
      * NOTE: This method must be called while holding an exclusive lock on the page.
      */
@@ -169,6 +256,7 @@ final class MuninnPage extends SequenceLock implements Page
     public void fault(
             PageSwapper swapper,
             long filePageId,
+            FileQuota quota,
             PageFaultEvent faultEvent ) throws IOException
     {
         if ( this.swapper != null || this.filePageId != PageCursor.UNBOUND_PAGE_ID )
@@ -193,6 +281,60 @@ final class MuninnPage extends SequenceLock implements Page
         faultEvent.addBytesRead( bytesRead );
         faultEvent.setCachePageId( getCachePageId() );
         this.swapper = swapper; // Page now considered isBoundTo( swapper, filePageId )
+        if ( quota != null )
+        {
+            quota.pageFaulted();
+            this.quota = quota;
+        }
+    }
+
+    /**
+     * Fault the given range of consecutive file pages into the given cache pages, with a single vectored read.
+     * This has the same binding semantics as {@link #fault(PageSwapper, long, FileQuota, PageFaultEvent)}, except
+     * the page fault events are left to the caller.
+     * <p>
+     * NOTE: This method MUST be called while holding the exclusive page lock on all of the given pages.
+     *
+     * @return the number of bytes read.
+     */
+    static long faultVectored(
+            PageSwapper swapper,
+            long startFilePageId,
+            MuninnPage[] pages,
+            int length,
+            FileQuota quota ) throws IOException
+    {
+        for ( int i = 0; i < length; i++ )
+        {
+            MuninnPage page = pages[i];
+            if ( page.swapper != null || page.filePageId != PageCursor.UNBOUND_PAGE_ID )
+            {
+                String msg = format(
+                        "Cannot fault page {filePageId = %s, swapper = %s} into " +
+                        "cache page %s. Already bound to {filePageId = " +
+                        "%s, swapper = %s}.",
+                        startFilePageId + i, swapper, page.getCachePageId(), page.filePageId, page.swapper );
+                throw new IllegalStateException( msg );
+            }
+        }
+
+        // See the comment in fault() on why the filePageId is assigned before, and the swapper after, the read.
+        for ( int i = 0; i < length; i++ )
+        {
+            pages[i].filePageId = startFilePageId + i;
+        }
+        long bytesRead = swapper.read( startFilePageId, pages, 0, length );
+        for ( int i = 0; i < length; i++ )
+        {
+            MuninnPage page = pages[i];
+            page.swapper = swapper;
+            if ( quota != null )
+            {
+                quota.pageFaulted();
+                page.quota = quota;
+            }
+        }
+        return bytesRead;
     }
 
     /**
@@ -210,6 +352,12 @@ final class MuninnPage extends SequenceLock implements Page
         this.filePageId = PageCursor.UNBOUND_PAGE_ID;
 
         this.swapper = null;
+        FileQuota quota = this.quota;
+        if ( quota != null )
+        {
+            this.quota = null;
+            quota.pageEvicted();
+        }
         if ( swapper != null )
         {
             // The swapper can be null if the last page fault
@@ -218,6 +366,15 @@ final class MuninnPage extends SequenceLock implements Page
         }
     }
 
+    /**
+     * @return the quota of the file this page is bound to, if any. The eviction thread reads this without holding
+     * any lock on the page, so the answer is only a hint.
+     */
+    FileQuota getQuota()
+    {
+        return quota;
+    }
+
     public boolean isLoaded()
     {
         return filePageId != PageCursor.UNBOUND_PAGE_ID;
@@ -247,8 +404,8 @@ final class MuninnPage extends SequenceLock implements Page
     @Override
     public String toString()
     {
-        return format( "MuninnPage@%x[%s -> %x, filePageId = %s%s, swapper = %s, usage counter = %s, %s]",
+        return format( "MuninnPage@%x[%s -> %x, filePageId = %s%s, swapper = %s, usage counter = %s%s, %s]",
                 hashCode(), getCachePageId(), pointer, filePageId, (isDirty() ? ", dirty" : ""),
-                swapper, getUsageCounter(), super.toString() );
+                swapper, getUsageCounter(), (isProtected() ? ", protected" : ""), super.toString() );
     }
 }
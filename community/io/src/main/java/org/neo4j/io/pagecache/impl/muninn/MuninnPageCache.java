@@ -20,9 +20,11 @@
 package org.neo4j.io.pagecache.impl.muninn;
 
 import java.io.File;
+import java.io.Flushable;
 import java.io.IOException;
 import java.nio.file.OpenOption;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.Executor;
@@ -34,6 +36,7 @@ import java.util.concurrent.locks.LockSupport;
 import org.neo4j.io.pagecache.IOLimiter;
 import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.io.pagecache.PageCacheOpenOptions;
+import org.neo4j.io.pagecache.PageCacheShare;
 import org.neo4j.io.pagecache.PageSwapperFactory;
 import org.neo4j.io.pagecache.PagedFile;
 import org.neo4j.io.pagecache.tracing.EvictionEvent;
@@ -104,7 +107,7 @@ public class MuninnPageCache implements PageCache
 
     // Keep this many pages free and ready for use in faulting.
     // This will be truncated to be no more than half of the number of pages
-    // in the cache.
+    // in the cache, and is spread evenly over the free-list stripes.
     private static final int pagesToKeepFree = getInteger(
             MuninnPageCache.class, "pagesToKeepFree", 30 );
 
@@ -113,14 +116,56 @@ public class MuninnPageCache implements PageCache
     private static final int cooperativeEvictionLiveLockThreshold = getInteger(
             MuninnPageCache.class, "cooperativeEvictionLiveLockThreshold", 100 );
 
+    // The share of the cache, in percent, that the protected segment is allowed to occupy before its pages start
+    // aging, when using a segmented eviction policy.
+    private static final int protectedSegmentPercentage = getInteger(
+            MuninnPageCache.class, "protectedSegmentPercentage", 75 );
+
+    // Align the slabs of page memory to huge page boundaries, and size them in whole huge pages, so that the operating
+    // system can back the page cache memory with transparent huge pages. This reduces TLB misses on random access
+    // workloads over large caches.
+    private static final boolean hugePageAlignedMemory = flag(
+            MuninnPageCache.class, "hugePageAlignedMemory", false );
+    private static final int hugePageSize = getInteger(
+            MuninnPageCache.class, "hugePageSize", 2 * 1024 * 1024 );
+
+    // The number of partitions that the page memory is allocated from. Each page fault allocates the memory of its
+    // page, if it has none yet, from a partition chosen by the faulting thread. With a first-touch NUMA policy, this
+    // makes the memory of each partition local to the threads that fault into it.
+    private static final int memoryPartitions = getInteger(
+            MuninnPageCache.class, "memoryPartitions", 1 );
+
+    // The number of free-list stripes. A page faulting thread grabs free pages from the stripe given by its thread id,
+    // and only looks in the other stripes when its own stripe is empty. This spreads the CAS traffic of concurrent
+    // page faults over several cache lines. The number is rounded up to the nearest power of two, and then limited
+    // such that every stripe keeps at least one page free, but no more than half of the pages are kept free.
+    private static final int freelistStripes = getInteger(
+            MuninnPageCache.class, "freelistStripes", 1 );
+
+    // The number of background eviction threads. Each eviction thread sweeps its own range of the pages, and keeps
+    // its own share of the free-list stripes filled up. There are never more eviction threads than stripes.
+    private static final int evictionThreads = getInteger(
+            MuninnPageCache.class, "evictionThreads", 1 );
+
     // This is a pre-allocated constant, so we can throw it without allocating any objects:
     @SuppressWarnings( "ThrowableInstanceNeverThrown" )
     private static final IOException oomException = new IOException(
             "OutOfMemoryError encountered in the page cache background eviction thread" );
 
-    // The field offset to unsafely access the freelist field.
-    private static final long freelistOffset =
-            UnsafeUtil.getFieldOffset( MuninnPageCache.class, "freelist" );
+    // The array base and scale, for unsafely accessing the elements of the freelists array.
+    // The stripe heads are spaced 16 elements apart in the array, which puts them 64 or 128 bytes apart, depending on
+    // the size of references, so that two stripe heads never share a cache line.
+    private static final int freelistPaddingShift = 4;
+    private static final int freelistsArrayBase = UnsafeUtil.arrayBaseOffset( Object[].class );
+    private static final int freelistsArrayScale = UnsafeUtil.arrayIndexScale( Object[].class );
+
+    // The field offset to unsafely access the protectedPageCount field.
+    private static final long protectedPageCountOffset =
+            UnsafeUtil.getFieldOffset( MuninnPageCache.class, "protectedPageCount" );
+
+    // The field offset to unsafely access the dirtyPageCount field.
+    private static final long dirtyPageCountOffset =
+            UnsafeUtil.getFieldOffset( MuninnPageCache.class, "dirtyPageCount" );
 
     // This is used as a poison-pill signal in the freelist, to inform any
     // page faulting thread that it is now no longer possible to queue up and
@@ -146,13 +191,16 @@ public class MuninnPageCache implements PageCache
     private final PageSwapperFactory swapperFactory;
     private final int cachePageSize;
     private final int keepFree;
+    private final int freelistMask;
     private final PageCacheTracer tracer;
+    private final EvictionPolicy evictionPolicy;
+    private final int maxProtectedPages;
     private final MuninnPage[] pages;
     // All PageCursors are initialised with their pointers pointing to the victim page. This way, we can do branch-free
     // bounds checking of page accesses without fear of segfaulting newly allocated cursors.
     final long victimPage;
 
-    // The freelist is a thread-safe linked-list of 2 types of objects. A link
+    // Each freelist is a thread-safe linked-list of 2 types of objects. A link
     // can either be a MuninnPage or a FreePage.
     // Initially, most of the links are MuninnPages that are ready for the
     // taking. Then towards the end, we have the last bunch of pages linked
@@ -164,21 +212,31 @@ public class MuninnPageCache implements PageCache
     // exhibit the ABA-problem. In other words, eviction will never add
     // MuninnPages to the freelist; it will only add free pages through a new
     // FreePage object.
+    // The freelists array holds the heads of the free-list stripes, padded apart as per freelistPaddingShift, and its
+    // elements are accessed via Unsafe.
+    private final Object[] freelists;
+
+    // The number of pages currently in the protected segment, when using a segmented eviction policy. Pages are only
+    // moved in and out of the protected segment by eviction, so this is not updated on the page pinning hot path.
+    @SuppressWarnings( "unused" ) // This field is accessed via Unsafe.
+    private volatile int protectedPageCount;
+
+    // The number of dirty pages. Only updated when a page goes from clean to dirty, or back, which happens at most
+    // once per flush of the page, so writing to a page that is already dirty doesn't touch this shared counter.
     @SuppressWarnings( "unused" ) // This field is accessed via Unsafe.
-    private volatile Object freelist;
+    private volatile int dirtyPageCount;
 
     // Linked list of mappings - guarded by synchronized(this)
     private volatile FileMapping mappedFiles;
 
-    // The thread that runs the eviction algorithm. We unpark this when we've run out of
-    // free pages to grab.
-    private volatile Thread evictionThread;
-    // True if the eviction thread is currently parked, without someone having
-    // signalled it to wake up. This is used as a weak guard for unparking the
-    // eviction thread, because calling unpark too much (from many page
-    // faulting threads) can cause contention on the locks protecting that
-    // threads scheduling meta-data in the OS kernel.
-    private volatile boolean evictorParked;
+    // The file and translation table chunk that the next flushDirtyPages call continues from - guarded by
+    // synchronized(this)
+    private MuninnPagedFile backgroundFlushFile;
+    private int backgroundFlushChunk;
+
+    // The background eviction threads, and the ranges of pages they sweep. We unpark an evictor when we've run out of
+    // free pages to grab in one of its free-list stripes.
+    private final Evictor[] evictors;
     private volatile IOException evictorException;
 
     // Flag for when page cache is closed - writes guarded by synchronized(this), reads can be unsynchronized
@@ -195,6 +253,28 @@ public class MuninnPageCache implements PageCache
             int maxPages,
             int cachePageSize,
             PageCacheTracer tracer )
+    {
+        this( swapperFactory, maxPages, cachePageSize, tracer, EvictionPolicy.CLOCK );
+    }
+
+    public MuninnPageCache(
+            PageSwapperFactory swapperFactory,
+            int maxPages,
+            int cachePageSize,
+            PageCacheTracer tracer,
+            EvictionPolicy evictionPolicy )
+    {
+        this( swapperFactory, maxPages, cachePageSize, tracer, evictionPolicy, freelistStripes, evictionThreads );
+    }
+
+    MuninnPageCache(
+            PageSwapperFactory swapperFactory,
+            int maxPages,
+            int cachePageSize,
+            PageCacheTracer tracer,
+            EvictionPolicy evictionPolicy,
+            int stripeCount,
+            int evictionThreadCount )
     {
         verifyHacks();
         verifyCachePageSizeIsPowerOfTwo( cachePageSize );
@@ -203,23 +283,33 @@ public class MuninnPageCache implements PageCache
         this.pageCacheId = pageCacheIdCounter.incrementAndGet();
         this.swapperFactory = swapperFactory;
         this.cachePageSize = cachePageSize;
-        this.keepFree = Math.min( pagesToKeepFree, maxPages / 2 );
+        int stripes = stripeCount <= 1 ? 1 : Integer.highestOneBit( stripeCount - 1 ) << 1;
+        // A stripe without pages to keep free would have its evictor spin forever, trying to fill it up
+        stripes = Math.min( stripes, Integer.highestOneBit( Math.max( 1, maxPages / 2 ) ) );
+        this.freelistMask = stripes - 1;
+        this.keepFree = Math.max( 1, Math.min( pagesToKeepFree, maxPages / 2 ) / stripes ); // per stripe
         this.tracer = tracer;
+        this.evictionPolicy = evictionPolicy;
+        this.maxProtectedPages = (int) (((long) maxPages) * protectedSegmentPercentage / 100);
         this.pages = new MuninnPage[maxPages];
         this.printExceptionsOnClose = true;
 
         long alignment = swapperFactory.getRequiredBufferAlignment();
+        long slabAlignment = hugePageAlignedMemory ? Math.max( hugePageSize, alignment ) : alignment;
         long expectedMaxMemory = ((long) maxPages) * cachePageSize; // cast to long prevents overflow
-        MemoryManager memoryManager = new MemoryManager( expectedMaxMemory, alignment );
+        MemoryManager memoryManager =
+                new MemoryManager( expectedMaxMemory, alignment, slabAlignment, memoryPartitions );
         this.victimPage = VictimPageReference.getVictimPage( cachePageSize );
-        Object pageList = null;
+        this.freelists = new Object[stripes << freelistPaddingShift];
         int pageIndex = maxPages;
         while ( pageIndex --> 0 )
         {
-            MuninnPage page = new MuninnPage( cachePageSize, memoryManager );
+            MuninnPage page = new MuninnPage( cachePageSize, memoryManager, this );
             page.tryExclusiveLock(); // All pages in the free-list are exclusively locked, and unlocked by page fault.
             pages[pageIndex] = page;
 
+            int stripe = (pageIndex & freelistMask) << freelistPaddingShift;
+            Object pageList = freelists[stripe];
             if ( pageList == null )
             {
                 FreePage freePage = new FreePage( page );
@@ -238,8 +328,22 @@ public class MuninnPageCache implements PageCache
                 page.nextFree = pageList;
                 pageList = page;
             }
+            freelists[stripe] = pageList;
+        }
+        for ( int stripe = 0; stripe < stripes; stripe++ )
+        {
+            UnsafeUtil.putObjectVolatile( freelists, freelistOffset( stripe ),
+                    freelists[stripe << freelistPaddingShift] );
+        }
+
+        int evictorCount = Math.max( 1, Math.min( Math.min( evictionThreadCount, stripes ), maxPages ) );
+        this.evictors = new Evictor[evictorCount];
+        for ( int i = 0; i < evictorCount; i++ )
+        {
+            int firstPage = (int) (((long) maxPages) * i / evictorCount);
+            int endPage = (int) (((long) maxPages) * (i + 1) / evictorCount);
+            evictors[i] = new Evictor( i, firstPage, endPage );
         }
-        UnsafeUtil.putObjectVolatile( this, freelistOffset, pageList );
     }
 
     private static void verifyHacks()
@@ -286,6 +390,8 @@ public class MuninnPageCache implements PageCache
         boolean deleteOnClose = false;
         boolean exclusiveMapping = false;
         boolean anyPageSize = false;
+        PageCacheShare reservedShare = null;
+        PageCacheShare boundedShare = null;
         for ( OpenOption option : openOptions )
         {
             if ( option.equals( StandardOpenOption.CREATE ) )
@@ -308,6 +414,18 @@ public class MuninnPageCache implements PageCache
             {
                 anyPageSize = true;
             }
+            else if ( option instanceof PageCacheShare )
+            {
+                PageCacheShare share = (PageCacheShare) option;
+                if ( share.isReserved() )
+                {
+                    reservedShare = share;
+                }
+                else
+                {
+                    boundedShare = share;
+                }
+            }
             else if ( !ignoredOpenOptions.contains( option ) )
             {
                 throw new UnsupportedOperationException( "Unsupported OpenOption: " + option );
@@ -363,6 +481,8 @@ public class MuninnPageCache implements PageCache
         }
 
         // there was no existing mapping
+        FileQuota quota = FileQuota.create( pages.length, reservedShare, boundedShare );
+        verifyCombinedReservation( file, quota );
         MuninnPagedFile pagedFile = new MuninnPagedFile(
                 file,
                 this,
@@ -371,7 +491,8 @@ public class MuninnPageCache implements PageCache
                 tracer,
                 createIfNotExists,
                 truncateExisting,
-                exclusiveMapping );
+                exclusiveMapping,
+                quota );
         pagedFile.incrementRefCount();
         pagedFile.markDeleteOnClose( deleteOnClose );
         current = new FileMapping( file, pagedFile );
@@ -381,6 +502,34 @@ public class MuninnPageCache implements PageCache
         return pagedFile;
     }
 
+    /**
+     * Reserved shares that add up to the whole cache would leave nothing for the eviction sweep to evict.
+     * Note: Must be called while synchronizing on the MuninnPageCache instance.
+     */
+    private void verifyCombinedReservation( File file, FileQuota quota )
+    {
+        if ( quota == null || quota.reservedPages() == 0 )
+        {
+            return;
+        }
+        long reservedPages = quota.reservedPages();
+        for ( FileMapping mapping = mappedFiles; mapping != null; mapping = mapping.next )
+        {
+            FileQuota mappedQuota = mapping.pagedFile.quota;
+            if ( mappedQuota != null )
+            {
+                reservedPages += mappedQuota.reservedPages();
+            }
+        }
+        if ( reservedPages >= pages.length )
+        {
+            throw new IllegalArgumentException(
+                    "Cannot map file " + file + " with a reserved share of " + quota.reservedPages() + " pages, " +
+                    "because the reserved shares of all mapped files would then add up to " + reservedPages +
+                    " pages, which is not less than the " + pages.length + " pages in the page cache." );
+        }
+    }
+
     /**
      * Note: Must be called while synchronizing on the MuninnPageCache instance.
      */
@@ -394,7 +543,10 @@ public class MuninnPageCache implements PageCache
 
         try
         {
-            backgroundThreadExecutor.execute( new EvictionTask( this ) );
+            for ( Evictor evictor : evictors )
+            {
+                backgroundThreadExecutor.execute( new EvictionTask( this, evictor.index ) );
+            }
         }
         catch ( Exception e )
         {
@@ -432,8 +584,9 @@ public class MuninnPageCache implements PageCache
                     {
                         prev.next = current.next;
                     }
-                    tracer.unmappedFile( current.file );
                     flushAndCloseWithoutFail( file );
+                    // Only after the final flush, which would otherwise be traced as IO on a file that isn't mapped
+                    tracer.unmappedFile( current.file );
                     break;
                 }
                 prev = current;
@@ -477,6 +630,20 @@ public class MuninnPageCache implements PageCache
         this.printExceptionsOnClose = enabled;
     }
 
+    @Override
+    public synchronized List<PagedFile> listExistingMappings() throws IOException
+    {
+        assertNotClosed();
+        List<PagedFile> list = new ArrayList<>();
+        FileMapping current = mappedFiles;
+        while ( current != null )
+        {
+            list.add( current.pagedFile );
+            current = current.next;
+        }
+        return list;
+    }
+
     @Override
     public void flushAndForce() throws IOException
     {
@@ -510,6 +677,87 @@ public class MuninnPageCache implements PageCache
         }
     }
 
+    @Override
+    public synchronized long flushDirtyPages( long maxPages, IOLimiter limiter ) throws IOException
+    {
+        if ( limiter == null )
+        {
+            throw new IllegalArgumentException( "IOPSLimiter cannot be null" );
+        }
+        assertNotClosed();
+
+        int fileCount = 0;
+        FileMapping fileMapping = null;
+        for ( FileMapping current = mappedFiles; current != null; current = current.next )
+        {
+            fileCount++;
+            if ( current.pagedFile == backgroundFlushFile )
+            {
+                fileMapping = current;
+            }
+        }
+        if ( fileMapping == null )
+        {
+            // The file we left off in has been unmapped, so we start over from the first file
+            fileMapping = mappedFiles;
+            backgroundFlushChunk = 0;
+        }
+        if ( fileMapping == null )
+        {
+            return 0;
+        }
+
+        // Visiting each file once, plus the start of the file we began in if we began in the middle of it, covers all
+        // pages that were dirty when we started, so we stop there even if fewer pages than requested were flushed.
+        CountingIOLimiter countingLimiter = new CountingIOLimiter( limiter );
+        int chunk = backgroundFlushChunk;
+        int filesLeft = chunk == 0 ? fileCount : fileCount + 1;
+        try ( MajorFlushEvent cacheFlush = tracer.beginCacheFlush() )
+        {
+            FlushEventOpportunity flushOpportunity = cacheFlush.flushEventOpportunity();
+            long limiterStamp = IOLimiter.INITIAL_STAMP;
+            while ( countingLimiter.pagesFlushed < maxPages )
+            {
+                MuninnPagedFile pagedFile = fileMapping.pagedFile;
+                if ( chunk < pagedFile.chunkCount() )
+                {
+                    limiterStamp = pagedFile.flushChunk( chunk, flushOpportunity, countingLimiter, limiterStamp );
+                    chunk++;
+                }
+                else
+                {
+                    filesLeft--;
+                    if ( filesLeft == 0 )
+                    {
+                        break;
+                    }
+                    fileMapping = fileMapping.next == null ? mappedFiles : fileMapping.next;
+                    chunk = 0;
+                }
+            }
+        }
+        finally
+        {
+            backgroundFlushFile = fileMapping.pagedFile;
+            backgroundFlushChunk = chunk;
+        }
+        return countingLimiter.pagesFlushed;
+    }
+
+    @Override
+    public long dirtyPages()
+    {
+        return UnsafeUtil.getIntVolatile( this, dirtyPageCountOffset );
+    }
+
+    /**
+     * Called by pages when they go from clean to dirty, or back.
+     */
+    void dirtyPageCountChanged( int delta )
+    {
+        UnsafeUtil.getAndAddInt( this, dirtyPageCountOffset, delta );
+    }
+
     void syncDevice() throws IOException
     {
         swapperFactory.syncDevice();
@@ -547,8 +795,11 @@ public class MuninnPageCache implements PageCache
             pages[i] = null;
         }
 
-        interrupt( evictionThread );
-        evictionThread = null;
+        for ( Evictor evictor : evictors )
+        {
+            interrupt( evictor.thread );
+            evictor.thread = null;
+        }
     }
 
     private void interrupt( Thread thread )
@@ -603,7 +854,24 @@ public class MuninnPageCache implements PageCache
 
     MuninnPage grabFreeAndExclusivelyLockedPage( PageFaultEvent faultEvent ) throws IOException
     {
-        // Review the comment on the freelist field before making changes to
+        // We first look in the free-list stripe of our own thread, and then in the other stripes. If all of them are
+        // empty, then we wake up the evictors and do our own eviction to get a free page.
+        int stripe = (int) Thread.currentThread().getId() & freelistMask;
+        for ( int i = 0; i <= freelistMask; i++ )
+        {
+            MuninnPage page = grabFreePage( (stripe + i) & freelistMask );
+            if ( page != null )
+            {
+                return page;
+            }
+            unparkEvictor( evictorOf( (stripe + i) & freelistMask ) );
+        }
+        return cooperativelyEvict( faultEvent );
+    }
+
+    private MuninnPage grabFreePage( int stripe ) throws IOException
+    {
+        // Review the comment on the freelists field before making changes to
         // this part of the code.
         // Whatever the case, we're going to the head-pointer of the freelist,
         // and in doing so, we can discover a number of things.
@@ -618,7 +886,7 @@ public class MuninnPageCache implements PageCache
         // been emptied for whatever it contained before. New FreePage objects
         // are eventually going to be added to the freelist, but we are not
         // going to wait around for that to happen. If the freelist is empty,
-        // then we do our own eviction to get a free page.
+        // then we return null, and the caller will look elsewhere.
         // If we find a FreePage object on the freelist, then it is important
         // to check and see if it is the shutdownSignal instance. If that's the
         // case, then the page cache has been shut down, and we should throw an
@@ -627,16 +895,15 @@ public class MuninnPageCache implements PageCache
         for (;;)
         {
             assertHealthy();
-            current = getFreelistHead();
+            current = getFreelistHead( stripe );
             if ( current == null )
             {
-                unparkEvictor();
-                return cooperativelyEvict( faultEvent );
+                return null;
             }
             else if ( current instanceof MuninnPage )
             {
                 MuninnPage page = (MuninnPage) current;
-                if ( compareAndSetFreelistHead( page, page.nextFree ) )
+                if ( compareAndSetFreelistHead( stripe, page, page.nextFree ) )
                 {
                     return page;
                 }
@@ -649,7 +916,7 @@ public class MuninnPageCache implements PageCache
                     throw new IllegalStateException( "The PageCache has been shut down." );
                 }
 
-                if ( compareAndSetFreelistHead( freePage, freePage.next ) )
+                if ( compareAndSetFreelistHead( stripe, freePage, freePage.next ) )
                 {
                     return freePage.page;
                 }
@@ -684,7 +951,7 @@ public class MuninnPageCache implements PageCache
                         "The PageCache has been shut down" );
             }
 
-            if ( page.isLoaded() && page.decrementUsage() )
+            if ( page.isLoaded() && isEvictionCandidate( page, iterations > 1 ) )
             {
                 if ( page.tryExclusiveLock() )
                 {
@@ -723,103 +990,153 @@ public class MuninnPageCache implements PageCache
                 "your database." );
     }
 
-    private void unparkEvictor()
+    int freelistStripeCount()
+    {
+        return freelistMask + 1;
+    }
+
+    private Evictor evictorOf( int stripe )
+    {
+        return evictors[stripe % evictors.length];
+    }
+
+    private void unparkEvictor( Evictor evictor )
     {
-        if ( evictorParked )
+        if ( evictor.parked )
         {
-            evictorParked = false;
-            LockSupport.unpark( evictionThread );
+            evictor.parked = false;
+            LockSupport.unpark( evictor.thread );
         }
     }
 
-    private void parkEvictor( long parkNanos )
+    private void parkEvictor( Evictor evictor, long parkNanos )
     {
         // Only called from the background eviction thread!
-        evictorParked = true;
+        evictor.parked = true;
         LockSupport.parkNanos( this, parkNanos );
-        evictorParked = false;
+        evictor.parked = false;
     }
 
-    private Object getFreelistHead()
+    private static long freelistOffset( int stripe )
     {
-        return UnsafeUtil.getObjectVolatile( this, freelistOffset );
+        return UnsafeUtil.arrayOffset( stripe << freelistPaddingShift, freelistsArrayBase, freelistsArrayScale );
     }
 
-    private boolean compareAndSetFreelistHead( Object expected, Object update )
+    private Object getFreelistHead( int stripe )
+    {
+        return UnsafeUtil.getObjectVolatile( freelists, freelistOffset( stripe ) );
+    }
+
+    private boolean compareAndSetFreelistHead( int stripe, Object expected, Object update )
     {
         return UnsafeUtil.compareAndSwapObject(
-                this, freelistOffset, expected, update );
+                freelists, freelistOffset( stripe ), expected, update );
     }
 
-    private Object getAndSetFreelistHead( Object newFreelistHead )
+    private Object getAndSetFreelistHead( int stripe, Object newFreelistHead )
     {
         return UnsafeUtil.getAndSetObject(
-                this, freelistOffset, newFreelistHead );
+                freelists, freelistOffset( stripe ), newFreelistHead );
     }
 
     /**
-     * Scan through all the pages, one by one, and decrement their usage stamps.
+     * Scan through the pages of the given evictor, one by one, and decrement their usage stamps.
      * If a usage reaches zero, we try-write-locking it, and if we get that lock,
      * we evict the page. If we don't, we move on to the next page.
-     * Once we have enough free pages, we park our thread. Page-faulting will
-     * unpark our thread as needed.
+     * Once the free-list stripes of the evictor have enough free pages, we park our thread.
+     * Page-faulting will unpark our thread as needed.
      */
-    void continuouslySweepPages()
+    void continuouslySweepPages( int evictorIndex )
     {
-        evictionThread = Thread.currentThread();
-        int clockArm = 0;
+        Evictor evictor = evictors[evictorIndex];
+        evictor.thread = Thread.currentThread();
+        int clockArm = evictor.firstPage;
 
         while ( !closed )
         {
-            int pageCountToEvict = parkUntilEvictionRequired( keepFree );
-            try ( EvictionRunEvent evictionRunEvent = tracer.beginPageEvictions( pageCountToEvict ) )
+            parkUntilEvictionRequired( evictor );
+            for ( int stripe = evictor.index; stripe <= freelistMask && !closed; stripe += evictors.length )
             {
-                clockArm = evictPages( pageCountToEvict, clockArm, evictionRunEvent );
+                int pageCountToEvict = pageCountToEvict( stripe );
+                if ( pageCountToEvict > 0 )
+                {
+                    try ( EvictionRunEvent evictionRunEvent = tracer.beginPageEvictions( pageCountToEvict ) )
+                    {
+                        clockArm = evictPages( pageCountToEvict, clockArm, evictor.firstPage, evictor.endPage,
+                                stripe, evictionRunEvent );
+                    }
+                }
             }
         }
 
         // The last thing we do, is signalling the shutdown of the cache via
-        // the freelist. This signal is looked out for in grabFreePage.
-        getAndSetFreelistHead( shutdownSignal );
+        // the freelists. This signal is looked out for in grabFreePage.
+        for ( int stripe = evictor.index; stripe <= freelistMask; stripe += evictors.length )
+        {
+            getAndSetFreelistHead( stripe, shutdownSignal );
+        }
     }
 
-    private int parkUntilEvictionRequired( int keepFree )
+    private void parkUntilEvictionRequired( Evictor evictor )
     {
-        // Park until we're either interrupted, or the number of free pages drops
-        // bellow keepFree.
+        // Park until we're either interrupted, or the number of free pages in
+        // any of our stripes drops bellow keepFree.
         long parkNanos = TimeUnit.MILLISECONDS.toNanos( 10 );
         for (;;)
         {
-            parkEvictor( parkNanos );
+            parkEvictor( evictor, parkNanos );
             if ( Thread.interrupted() || closed )
             {
-                return 0;
+                return;
             }
 
-            Object freelistHead = getFreelistHead();
-
-            if ( freelistHead == null )
+            for ( int stripe = evictor.index; stripe <= freelistMask; stripe += evictors.length )
             {
-                return keepFree;
-            }
-            else if ( freelistHead.getClass() == FreePage.class )
-            {
-                int availablePages = ((FreePage) freelistHead).count;
-                if ( availablePages < keepFree )
+                if ( pageCountToEvict( stripe ) > 0 )
                 {
-                    return keepFree - availablePages;
+                    return;
                 }
             }
         }
     }
 
+    private int pageCountToEvict( int stripe )
+    {
+        Object freelistHead = getFreelistHead( stripe );
+
+        if ( freelistHead == null )
+        {
+            return keepFree;
+        }
+        else if ( freelistHead.getClass() == FreePage.class && freelistHead != shutdownSignal )
+        {
+            int availablePages = ((FreePage) freelistHead).count;
+            if ( availablePages < keepFree )
+            {
+                return keepFree - availablePages;
+            }
+        }
+        return 0;
+    }
+
     int evictPages( int pageCountToEvict, int clockArm, EvictionRunEvent evictionRunEvent )
     {
+        return evictPages( pageCountToEvict, clockArm, 0, pages.length, 0, evictionRunEvent );
+    }
+
+    private int evictPages( int pageCountToEvict, int clockArm, int firstPage, int endPage, int stripe,
+            EvictionRunEvent evictionRunEvent )
+    {
+        // Pages within reserved shares, and pages the eviction policy wants to keep, are passed over until we have
+        // gone a full revolution of the clock without evicting anything. After that we take what we can get, or else
+        // reserved pages filling our part of the cache would leave us spinning here without freeing anything.
+        int pagesSinceLastEviction = 0;
+        int revolution = endPage - firstPage;
         while ( pageCountToEvict > 0 && !closed )
         {
-            if ( clockArm == pages.length )
+            if ( clockArm == endPage )
             {
-                clockArm = 0;
+                clockArm = firstPage;
             }
             MuninnPage page = pages[clockArm];
 
@@ -829,7 +1146,9 @@ public class MuninnPageCache implements PageCache
                 return 0;
             }
 
-            if ( page.isLoaded() && page.decrementUsage() )
+            boolean desperate = pagesSinceLastEviction >= revolution;
+            pagesSinceLastEviction++;
+            if ( page.isLoaded() && isEvictionCandidate( page, desperate ) )
             {
                 if ( page.tryExclusiveLock() )
                 {
@@ -851,18 +1170,19 @@ public class MuninnPageCache implements PageCache
                         pageEvicted = page.isLoaded() && evictPage( page, evictionEvent );
                         if ( pageEvicted )
                         {
+                            pagesSinceLastEviction = 0;
                             Object current;
                             Object nextListHead;
                             FreePage freePage = null;
                             do
                             {
-                                current = getFreelistHead();
+                                current = getFreelistHead( stripe );
                                 freePage = freePage == null?
                                            new FreePage( page ) : freePage;
                                 freePage.setNext( (FreePage) current );
                                 nextListHead = freePage;
                             }
-                            while ( !compareAndSetFreelistHead( current, nextListHead ) );
+                            while ( !compareAndSetFreelistHead( stripe, current, nextListHead ) );
                         }
                     }
                     finally
@@ -894,6 +1214,12 @@ public class MuninnPageCache implements PageCache
         try
         {
             page.evict( evictionEvent );
+            boolean wasProtected = page.resetSegment();
+            if ( wasProtected )
+            {
+                UnsafeUtil.getAndAddInt( this, protectedPageCountOffset, -1 );
+            }
+            evictionEvent.setProtectedSegment( wasProtected );
             clearEvictorException();
             return true;
         }
@@ -916,6 +1242,45 @@ public class MuninnPageCache implements PageCache
         return false;
     }
 
+    /**
+     * Decide if the given page should be evicted. Pages of files that are above their bounded share of the cache
+     * are always evicted, while pages of files within their reserved share are only evicted when we are desperate.
+     * Everything else is up to the eviction policy.
+     */
+    private boolean isEvictionCandidate( MuninnPage page, boolean desperate )
+    {
+        FileQuota quota = page.getQuota();
+        if ( quota != null )
+        {
+            if ( quota.isOverLimit() )
+            {
+                return true;
+            }
+            if ( !desperate && quota.isWithinReservation() )
+            {
+                return false;
+            }
+        }
+        return evictionPolicy.sweep( page, this, desperate );
+    }
+
+    /**
+     * Returns true if the protected segment of a segmented eviction policy currently occupies no more than its
+     * share of the cache.
+     */
+    boolean isProtectedSegmentWithinShare()
+    {
+        return UnsafeUtil.getIntVolatile( this, protectedPageCountOffset ) <= maxProtectedPages;
+    }
+
+    /**
+     * Called by the eviction policy when a page has been promoted to the protected segment.
+     */
+    void protectedPageAdded()
+    {
+        UnsafeUtil.getAndAddInt( this, protectedPageCountOffset, 1 );
+    }
+
     private void clearEvictorException()
     {
         if ( evictorException != null )
@@ -936,4 +1301,53 @@ public class MuninnPageCache implements PageCache
         sb.append( ']' ).append( '\n' );
         return sb.toString();
     }
+
+    /**
+     * The state of a background eviction thread, which sweeps the pages from {@code firstPage} (inclusive) to
+     * {@code endPage} (exclusive), and fills the free-list stripes whose index modulo the number of evictors is equal
+     * to its {@code index}.
+     */
+    private static final class Evictor
+    {
+        final int index;
+        final int firstPage;
+        final int endPage;
+        volatile Thread thread;
+        // True if the eviction thread is currently parked, without someone having
+        // signalled it to wake up. This is used as a weak guard for unparking the
+        // eviction thread, because calling unpark too much (from many page
+        // faulting threads) can cause contention on the locks protecting that
+        // threads scheduling meta-data in the OS kernel.
+        volatile boolean parked;
+
+        Evictor( int index, int firstPage, int endPage )
+        {
+            this.index = index;
+            this.firstPage = firstPage;
+            this.endPage = endPage;
+        }
+    }
+
+    /**
+     * Counts the pages flushed by a {@link #flushDirtyPages(long, IOLimiter)} call, by way of the IOs reported to the
+     * limiter after each vectored write.
+     */
+    private static final class CountingIOLimiter implements IOLimiter
+    {
+        private final IOLimiter limiter;
+        long pagesFlushed;
+
+        CountingIOLimiter( IOLimiter limiter )
+        {
+            this.limiter = limiter;
+        }
+
+        @Override
+        public long maybeLimitIO( long previousStamp, int recentlyCompletedIOs, Flushable flushable )
+                throws IOException
+        {
+            pagesFlushed += recentlyCompletedIOs;
+            return limiter.maybeLimitIO( previousStamp, recentlyCompletedIOs, flushable );
+        }
+    }
 }
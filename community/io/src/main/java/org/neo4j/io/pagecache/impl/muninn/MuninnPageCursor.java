@@ -27,12 +27,14 @@ import org.neo4j.concurrent.BinaryLatch;
 import org.neo4j.io.pagecache.CursorException;
 import org.neo4j.io.pagecache.PageCursor;
 import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.PagedFile;
 import org.neo4j.io.pagecache.tracing.PageCacheTracer;
 import org.neo4j.io.pagecache.tracing.PageFaultEvent;
 import org.neo4j.io.pagecache.tracing.PinEvent;
 import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
 
 import static org.neo4j.unsafe.impl.internal.dragons.FeatureToggles.flag;
+import static org.neo4j.unsafe.impl.internal.dragons.FeatureToggles.getInteger;
 
 abstract class MuninnPageCursor extends PageCursor
 {
@@ -44,6 +46,10 @@ abstract class MuninnPageCursor extends PageCursor
 
     private static final boolean boundsCheck = flag( MuninnPageCursor.class, "boundsCheck", true );
 
+    // The number of pages, following a faulted page, that cursors opened with PF_READ_AHEAD will try to fault in
+    // with a single vectored read.
+    private static final int readAheadPageCount = getInteger( MuninnPageCursor.class, "readAheadPageCount", 16 );
+
     // Size of the respective primitive types in bytes.
     private static final int SIZE_OF_BYTE = Byte.BYTES;
     private static final int SIZE_OF_SHORT = Short.BYTES;
@@ -70,6 +76,10 @@ abstract class MuninnPageCursor extends PageCursor
     // CursorExceptionWithPreciseStackTrace with the message and stack trace pointing more or less directly at the
     // offending code.
     private Object cursorException;
+    // Scratch space for read-ahead, allocated the first time the cursor does read-ahead.
+    private MuninnPage[] readAheadPages;
+    private BinaryLatch[] readAheadLatches;
+    private PageFaultEvent[] readAheadFaultEvents;
 
     MuninnPageCursor( long victimPage )
     {
@@ -199,6 +209,8 @@ abstract class MuninnPageCursor extends PageCursor
 
     /**
      * Pin the desired file page to this cursor, page faulting it into memory if it isn't there already.
+     * If the cursor was opened with {@link PagedFile#PF_NO_FAULT}, and the page isn't in memory, then the cursor is
+     * left unbound, with no {@link #page}.
      * @param filePageId The file page id we want to pin this cursor to.
      * @param writeLock 'true' if we will be taking a write lock on the page as part of the pin.
      * @throws IOException if anything goes wrong with the pin, most likely during a page fault.
@@ -237,6 +249,7 @@ abstract class MuninnPageCursor extends PageCursor
                 boolean locked = tryLockPage( page );
                 if ( locked & page.isBoundTo( swapper, filePageId ) )
                 {
+                    pinEvent.hit( page );
                     pinCursorToPage( page, filePageId, swapper );
                     return;
                 }
@@ -246,6 +259,13 @@ abstract class MuninnPageCursor extends PageCursor
                 }
                 item = null;
             }
+            else if ( (pf_flags & PagedFile.PF_NO_FAULT) != 0 )
+            {
+                // The page is either not in memory, or in the process of being faulted in by someone else. Either
+                // way, we've been asked to not wait for it, so we leave the cursor unbound.
+                pinEvent.done();
+                return;
+            }
             else
             {
                 item = uncommonPin( item, filePageId, chunkOffset, chunk );
@@ -307,7 +327,9 @@ abstract class MuninnPageCursor extends PageCursor
         // protect it against concurrent eviction as we assigning a binding to the page. If anything goes wrong, then
         // we must make sure to release that write lock as well.
         PageFaultEvent faultEvent = pinEvent.beginPageFault();
+        faultEvent.setSwapper( swapper );
         MuninnPage page;
+        long lastPageId;
         try
         {
             // The grabFreePage method might throw.
@@ -331,9 +353,9 @@ abstract class MuninnPageCursor extends PageCursor
             // here, so the unmapping would have already happened. We do this
             // check before page.fault(), because that would otherwise reopen
             // the file channel.
-            assertPagedFileStillMappedAndGetIdOfLastPage();
+            lastPageId = assertPagedFileStillMappedAndGetIdOfLastPage();
             page.initBuffer();
-            page.fault( swapper, filePageId, faultEvent );
+            page.fault( swapper, filePageId, pagedFile.quota, faultEvent );
         }
         catch ( Throwable throwable )
         {
@@ -351,9 +373,122 @@ abstract class MuninnPageCursor extends PageCursor
         convertPageFaultLock( page );
         latch.release();
         faultEvent.done();
+        if ( (pf_flags & PagedFile.PF_READ_AHEAD) != 0 && readAheadPageCount > 0 )
+        {
+            readAhead( filePageId, lastPageId, chunk );
+        }
         return page;
     }
 
+    /**
+     * Fault in the pages that follow the given, just faulted, file page, with a single vectored read. This turns the
+     * page faults of a sequential scan from many small reads, into a few large ones.
+     * <p>
+     * Read-ahead is best-effort. It stops at the first page that is already in memory, or being faulted in by someone
+     * else, at the end of the file, and at the end of the translation table chunk. Failures are traced, but otherwise
+     * ignored, since the pages will be faulted in the normal way if anyone ends up needing them.
+     */
+    private void readAhead( long filePageId, long lastPageId, Object[] chunk )
+    {
+        if ( readAheadPages == null )
+        {
+            readAheadPages = new MuninnPage[readAheadPageCount];
+            readAheadLatches = new BinaryLatch[readAheadPageCount];
+            readAheadFaultEvents = new PageFaultEvent[readAheadPageCount];
+        }
+        MuninnPage[] pages = readAheadPages;
+        BinaryLatch[] latches = readAheadLatches;
+        PageFaultEvent[] faultEvents = readAheadFaultEvents;
+        long startFilePageId = filePageId + 1;
+        long endFilePageId = Math.min( lastPageId, filePageId + readAheadPageCount );
+        int chunkId = MuninnPagedFile.computeChunkId( filePageId );
+        // The pin event is only started once we have claimed a page, so read-ahead that finds nothing to do is free
+        PinEvent readAheadEvent = null;
+        int length = 0;
+
+        for ( long id = startFilePageId; id <= endFilePageId; id++ )
+        {
+            if ( MuninnPagedFile.computeChunkId( id ) != chunkId )
+            {
+                break;
+            }
+            long chunkOffset = MuninnPagedFile.computeChunkOffset( id );
+            BinaryLatch latch = new BinaryLatch();
+            if ( !UnsafeUtil.compareAndSwapObject( chunk, chunkOffset, null, latch ) )
+            {
+                break;
+            }
+            if ( readAheadEvent == null )
+            {
+                readAheadEvent = tracer.beginPin( false, startFilePageId, swapper );
+            }
+            PageFaultEvent faultEvent = readAheadEvent.beginPageFault();
+            faultEvent.setSwapper( swapper );
+            try
+            {
+                MuninnPage page = pagedFile.grabFreeAndExclusivelyLockedPage( faultEvent );
+                page.initBuffer();
+                pages[length] = page;
+            }
+            catch ( Throwable throwable )
+            {
+                UnsafeUtil.putObjectVolatile( chunk, chunkOffset, null );
+                latch.release();
+                faultEvent.done( throwable );
+                break;
+            }
+            latches[length] = latch;
+            faultEvents[length] = faultEvent;
+            length++;
+        }
+
+        if ( length > 0 )
+        {
+            Throwable failure = null;
+            long bytesRead = 0;
+            try
+            {
+                bytesRead = MuninnPage.faultVectored( swapper, startFilePageId, pages, length, pagedFile.quota );
+            }
+            catch ( Throwable throwable )
+            {
+                failure = throwable;
+            }
+            for ( int i = 0; i < length; i++ )
+            {
+                MuninnPage page = pages[i];
+                PageFaultEvent faultEvent = faultEvents[i];
+                long chunkOffset = MuninnPagedFile.computeChunkOffset( startFilePageId + i );
+                if ( failure == null )
+                {
+                    long pageBytesRead = Math.min( bytesRead, filePageSize );
+                    bytesRead -= pageBytesRead;
+                    faultEvent.addBytesRead( pageBytesRead );
+                    faultEvent.setCachePageId( page.getCachePageId() );
+                    UnsafeUtil.putObjectVolatile( chunk, chunkOffset, page );
+                    page.unlockExclusive();
+                    latches[i].release();
+                    faultEvent.done();
+                }
+                else
+                {
+                    // Make sure to unlock the page, so the eviction thread can pick up our trash.
+                    page.unlockExclusive();
+                    UnsafeUtil.putObjectVolatile( chunk, chunkOffset, null );
+                    latches[i].release();
+                    faultEvent.done( failure );
+                }
+                pages[i] = null;
+                latches[i] = null;
+                faultEvents[i] = null;
+            }
+        }
+        if ( readAheadEvent != null )
+        {
+            readAheadEvent.done();
+        }
+    }
+
     private void abortPageFault( Throwable throwable, Object[] chunk, long chunkOffset,
                                  BinaryLatch latch,
                                  PageFaultEvent faultEvent ) throws IOException
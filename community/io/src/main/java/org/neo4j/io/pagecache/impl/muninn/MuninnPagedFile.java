@@ -40,6 +40,8 @@ import org.neo4j.io.pagecache.tracing.PageCacheTracer;
 import org.neo4j.io.pagecache.tracing.PageFaultEvent;
 import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
 
+import static org.neo4j.unsafe.impl.internal.dragons.FeatureToggles.getInteger;
+
 final class MuninnPagedFile implements PagedFile, Flushable
 {
     private static final int translationTableChunkSizePower = Integer.getInteger(
@@ -49,6 +51,11 @@ final class MuninnPagedFile implements PagedFile, Flushable
     private static final int translationTableChunkArrayBase = UnsafeUtil.arrayBaseOffset( MuninnPage[].class );
     private static final int translationTableChunkArrayScale = UnsafeUtil.arrayIndexScale( MuninnPage[].class );
 
+    // The maximum number of consecutive clean pages that a flush will include in an IO vector, in order to join
+    // two runs of dirty pages into a single write.
+    private static final int maxCleanPagesInFlushVector =
+            getInteger( MuninnPagedFile.class, "maxCleanPagesInFlushVector", 8 );
+
     private static final long headerStateOffset =
             UnsafeUtil.getFieldOffset( MuninnPagedFile.class, "headerState" );
     private static final int headerStateRefCountShift = 48;
@@ -65,6 +72,8 @@ final class MuninnPagedFile implements PagedFile, Flushable
     volatile Object[][] translationTable;
 
     final PageSwapper swapper;
+    // The quota derived from the page cache shares this file was mapped with, or null if there are none.
+    final FileQuota quota;
     private final CursorPool cursorPool;
     private final boolean exclusiveMapping;
 
@@ -96,10 +105,12 @@ final class MuninnPagedFile implements PagedFile, Flushable
             PageCacheTracer tracer,
             boolean createIfNotExists,
             boolean truncateExisting,
-            boolean exclusiveMapping ) throws IOException
+            boolean exclusiveMapping,
+            FileQuota quota ) throws IOException
     {
         this.pageCache = pageCache;
         this.filePageSize = filePageSize;
+        this.quota = quota;
         this.cursorPool = new CursorPool( this );
         this.tracer = tracer;
         this.exclusiveMapping = exclusiveMapping;
@@ -175,7 +186,8 @@ final class MuninnPagedFile implements PagedFile, Flushable
         return filePageSize;
     }
 
-    File file()
+    @Override
+    public File file()
     {
         return swapper.file();
     }
@@ -243,73 +255,139 @@ final class MuninnPagedFile implements PagedFile, Flushable
     {
         // TODO it'd be awesome if, on Linux, we'd call sync_file_range(2) instead of fsync
         MuninnPage[] pages = new MuninnPage[translationTableChunkSize];
-        long filePageId = -1; // Start at -1 because we increment at the *start* of the chunk-loop iteration.
         long limiterStamp = IOLimiter.INITIAL_STAMP;
         Object[][] tt = this.translationTable;
-        for ( Object[] chunk : tt )
+        for ( int chunkId = 0; chunkId < tt.length; chunkId++ )
         {
-            // TODO Look into if we can tolerate flushing a few clean pages if it means we can use larger vectors.
-            // TODO The clean pages in question must still be loaded, though. Otherwise we'll end up writing
-            // TODO garbage to the file.
-            int pagesGrabbed = 0;
-            chunkLoop:for ( int i = 0; i < chunk.length; i++ )
-            {
-                filePageId++;
+            limiterStamp = flushChunk(
+                    tt[chunkId], chunkId, pages, flushOpportunity, forClosing, limiter, limiterStamp );
+        }
+
+        swapper.force();
+    }
+
+    /**
+     * Flush the dirty pages of the given translation table chunk, without forcing the file. This is used for
+     * background flushing, which gradually moves through the mapped files a chunk at a time.
+     *
+     * @return The stamp to pass to the limiter when flushing the next chunk.
+     */
+    long flushChunk( int chunkId, FlushEventOpportunity flushOpportunity, IOLimiter limiter, long limiterStamp )
+            throws IOException
+    {
+        Object[][] tt = this.translationTable;
+        if ( chunkId >= tt.length )
+        {
+            return limiterStamp;
+        }
+        MuninnPage[] pages = new MuninnPage[translationTableChunkSize];
+        return flushChunk( tt[chunkId], chunkId, pages, flushOpportunity, false, limiter, limiterStamp );
+    }
 
-                long offset = computeChunkOffset( filePageId );
-                // We might race with eviction, but we also mustn't miss a dirty page, so we loop until we succeed
-                // in getting a lock on all available pages.
-                for (;;)
+    /**
+     * The number of translation table chunks, each of which covers a fixed range of file pages.
+     */
+    int chunkCount()
+    {
+        return translationTable.length;
+    }
+
+    private long flushChunk( Object[] chunk, int chunkId, MuninnPage[] pages, FlushEventOpportunity flushOpportunity,
+            boolean forClosing, IOLimiter limiter, long limiterStamp ) throws IOException
+    {
+        // Start one page before the chunk, because we increment at the *start* of the chunk-loop iteration.
+        long filePageId = (((long) chunkId) << translationTableChunkSizePower) - 1;
+        // The vector may include a few clean pages, if that means we can join two runs of dirty pages into one
+        // larger write. These clean pages must still be loaded and bound to this file, though. Otherwise we'll
+        // end up writing garbage to the file.
+        int pagesGrabbed = 0;
+        int cleanPagesGrabbed = 0; // The number of clean pages at the end of the vector.
+        chunkLoop:for ( int i = 0; i < chunk.length; i++ )
+        {
+            filePageId++;
+
+            long offset = computeChunkOffset( filePageId );
+            // We might race with eviction, but we also mustn't miss a dirty page, so we loop until we succeed
+            // in getting a lock on all available pages.
+            for (;;)
+            {
+                Object element = UnsafeUtil.getObjectVolatile( chunk, offset );
+                if ( element instanceof MuninnPage )
                 {
-                    Object element = UnsafeUtil.getObjectVolatile( chunk, offset );
-                    if ( element instanceof MuninnPage )
+                    MuninnPage page = (MuninnPage) element;
+                    boolean canBridge = pagesGrabbed > 0 && cleanPagesGrabbed < maxCleanPagesInFlushVector;
+                    long stamp = page.tryOptimisticReadLock();
+                    boolean isClean = (!page.isDirty()) && page.validateReadLock( stamp );
+                    if ( isClean && !canBridge )
                     {
-                        MuninnPage page = (MuninnPage) element;
-                        long stamp = page.tryOptimisticReadLock();
-                        if ( (!page.isDirty()) && page.validateReadLock( stamp ) )
-                        {
-                            break;
-                        }
+                        break;
+                    }
 
-                        if ( !(forClosing? page.tryExclusiveLock() : page.tryFlushLock()) )
-                        {
-                            continue;
-                        }
-                        if ( page.isBoundTo( swapper, filePageId ) && page.isDirty() )
-                        {
-                            // The page is still bound to the expected file and file page id after we locked it,
-                            // so we didn't race with eviction and faulting, and the page is dirty.
-                            // So we add it to our IO vector.
-                            pages[pagesGrabbed] = page;
-                            pagesGrabbed++;
-                            continue chunkLoop;
-                        }
-                        else if ( forClosing )
-                        {
-                            page.unlockExclusive();
-                        }
-                        else
+                    if ( !(forClosing? page.tryExclusiveLock() : page.tryFlushLock()) )
+                    {
+                        if ( isClean )
                         {
-                            page.unlockFlush();
+                            // We don't have to retry for clean pages, as we don't have to flush them.
+                            break;
                         }
+                        continue;
+                    }
+                    if ( page.isBoundTo( swapper, filePageId ) && (page.isDirty() || canBridge) )
+                    {
+                        // The page is still bound to the expected file and file page id after we locked it,
+                        // so we didn't race with eviction and faulting, and the page is either dirty, or can
+                        // bridge the gap to the next dirty page. So we add it to our IO vector.
+                        pages[pagesGrabbed] = page;
+                        pagesGrabbed++;
+                        cleanPagesGrabbed = page.isDirty() ? 0 : cleanPagesGrabbed + 1;
+                        continue chunkLoop;
+                    }
+                    else if ( forClosing )
+                    {
+                        page.unlockExclusive();
+                    }
+                    else
+                    {
+                        page.unlockFlush();
                     }
-                    break;
-                }
-                if ( pagesGrabbed > 0 )
-                {
-                    vectoredFlush( pages, pagesGrabbed, flushOpportunity, forClosing );
-                    limiterStamp = limiter.maybeLimitIO( limiterStamp, pagesGrabbed, this );
-                    pagesGrabbed = 0;
                 }
+                break;
             }
+            pagesGrabbed = dropCleanPagesAtEndOfVector( pages, pagesGrabbed, cleanPagesGrabbed, forClosing );
+            cleanPagesGrabbed = 0;
             if ( pagesGrabbed > 0 )
             {
                 vectoredFlush( pages, pagesGrabbed, flushOpportunity, forClosing );
                 limiterStamp = limiter.maybeLimitIO( limiterStamp, pagesGrabbed, this );
+                pagesGrabbed = 0;
             }
         }
+        pagesGrabbed = dropCleanPagesAtEndOfVector( pages, pagesGrabbed, cleanPagesGrabbed, forClosing );
+        if ( pagesGrabbed > 0 )
+        {
+            vectoredFlush( pages, pagesGrabbed, flushOpportunity, forClosing );
+            limiterStamp = limiter.maybeLimitIO( limiterStamp, pagesGrabbed, this );
+        }
+        return limiterStamp;
+    }
 
-        swapper.force();
+    private int dropCleanPagesAtEndOfVector(
+            MuninnPage[] pages, int pagesGrabbed, int cleanPagesGrabbed, boolean forClosing )
+    {
+        // The clean pages at the end of the vector did not end up bridging any gap, so there's no point in writing
+        // them.
+        for ( int j = pagesGrabbed - cleanPagesGrabbed; j < pagesGrabbed; j++ )
+        {
+            if ( forClosing )
+            {
+                pages[j].unlockExclusive();
+            }
+            else
+            {
+                pages[j].unlockFlush();
+            }
+        }
+        return pagesGrabbed - cleanPagesGrabbed;
     }
 
     private void vectoredFlush(
@@ -58,7 +58,10 @@ final class MuninnReadPageCursor extends MuninnPageCursor
             return false;
         }
         pin( nextPageId, false );
-        currentPageId = nextPageId;
+        if ( page != null )
+        {
+            currentPageId = nextPageId;
+        }
         nextPageId++;
         return true;
     }
@@ -132,6 +135,11 @@ final class MuninnReadPageCursor extends MuninnPageCursor
             page = null;
             // Then try pin again.
             pin( currentPageId, false );
+            if ( page == null )
+            {
+                // The page was evicted and we've been asked not to fault it back in.
+                currentPageId = UNBOUND_PAGE_ID;
+            }
         }
     }
 
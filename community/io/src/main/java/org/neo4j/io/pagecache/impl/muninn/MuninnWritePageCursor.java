@@ -70,7 +70,10 @@ final class MuninnWritePageCursor extends MuninnPageCursor
             }
         }
         pin( nextPageId, true );
-        currentPageId = nextPageId;
+        if ( page != null )
+        {
+            currentPageId = nextPageId;
+        }
         nextPageId++;
         return true;
     }
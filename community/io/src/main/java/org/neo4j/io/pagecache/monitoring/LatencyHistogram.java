@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.monitoring;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of latencies, with microsecond resolution.
+ * <p>
+ * Latencies below 8 microseconds are counted exactly. Above that, every power of two is divided into 8 equally
+ * sized buckets, such that the value reported for a percentile is never more than 12.5% above the actual latency.
+ * Latencies that are larger than what the buckets can hold, roughly 25 days, are counted in the last bucket.
+ */
+public final class LatencyHistogram
+{
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_MASK = SUB_BUCKETS - 1;
+    private static final int MAX_EXPONENT = 40;
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray( BUCKETS );
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalMicros = new AtomicLong();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    /**
+     * Record an observed latency.
+     */
+    public void record( long duration, TimeUnit unit )
+    {
+        long micros = Math.max( 0, unit.toMicros( duration ) );
+        buckets.getAndIncrement( bucketIndex( micros ) );
+        count.getAndIncrement();
+        totalMicros.getAndAdd( micros );
+        long max;
+        do
+        {
+            max = maxMicros.get();
+        }
+        while ( micros > max && !maxMicros.compareAndSet( max, micros ) );
+    }
+
+    /**
+     * @return The number of latencies recorded thus far.
+     */
+    public long count()
+    {
+        return count.get();
+    }
+
+    /**
+     * @return The sum total of the recorded latencies in microseconds. Together with {@link #count()}, sampled at two
+     * points in time, this gives the mean latency in between those points.
+     */
+    public long totalMicros()
+    {
+        return totalMicros.get();
+    }
+
+    /**
+     * @return The mean of the recorded latencies in microseconds, or zero if nothing has been recorded.
+     */
+    public long meanMicros()
+    {
+        long n = count.get();
+        return n == 0 ? 0 : totalMicros.get() / n;
+    }
+
+    /**
+     * @return The largest recorded latency in microseconds.
+     */
+    public long maxMicros()
+    {
+        return maxMicros.get();
+    }
+
+    /**
+     * Find the latency, in microseconds, that the given fraction of all recorded latencies are less than or equal
+     * to. For instance, {@code percentileMicros( 0.99 )} gives the 99th percentile latency.
+     *
+     * @param percentile a number between 0 and 1.
+     * @return The upper bound of the bucket that holds the given percentile, or zero if nothing has been recorded.
+     */
+    public long percentileMicros( double percentile )
+    {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for ( int i = 0; i < BUCKETS; i++ )
+        {
+            counts[i] = buckets.get( i );
+            total += counts[i];
+        }
+        if ( total == 0 )
+        {
+            return 0;
+        }
+        long threshold = (long) Math.ceil( total * Math.min( 1.0, Math.max( 0.0, percentile ) ) );
+        long seen = 0;
+        for ( int i = 0; i < BUCKETS; i++ )
+        {
+            seen += counts[i];
+            if ( seen >= threshold && counts[i] > 0 )
+            {
+                return Math.min( bucketUpperBound( i ), maxMicros.get() );
+            }
+        }
+        return maxMicros.get();
+    }
+
+    static int bucketIndex( long micros )
+    {
+        if ( micros < SUB_BUCKETS )
+        {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros( micros );
+        if ( exponent > MAX_EXPONENT )
+        {
+            return BUCKETS - 1;
+        }
+        int subBucket = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & SUB_BUCKET_MASK;
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long bucketUpperBound( int index )
+    {
+        if ( index < SUB_BUCKETS )
+        {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int subBucket = index & SUB_BUCKET_MASK;
+        int shift = exponent - SUB_BUCKET_BITS;
+        return ((SUB_BUCKETS + subBucket + 1L) << shift) - 1;
+    }
+}
@@ -19,6 +19,8 @@
  */
 package org.neo4j.io.pagecache.monitoring;
 
+import java.util.List;
+
 /**
  * The PageCacheCounters exposes internal counters from the page cache.
  * The data for these counters is sourced through the PageCacheTracer API.
@@ -74,4 +76,36 @@ public interface PageCacheCounters
      * @return The number of page evictions that have thrown exceptions thus far.
      */
     long evictionExceptions();
+
+    /**
+     * @return The number of page pins that found the page in memory, in the probationary segment, thus far. With
+     * the {@code CLOCK} eviction policy, all pages are in the probationary segment.
+     */
+    long probationaryHits();
+
+    /**
+     * @return The number of page pins that found the page in memory, in the protected segment, thus far.
+     */
+    long protectedHits();
+
+    /**
+     * @return The number of evictions of pages in the probationary segment thus far.
+     */
+    long probationaryEvictions();
+
+    /**
+     * @return The number of evictions of pages in the protected segment thus far.
+     */
+    long protectedEvictions();
+
+    /**
+     * @return The latencies of all page faults thus far, from the fault began until the page had been read in.
+     */
+    LatencyHistogram faultLatency();
+
+    /**
+     * @return The counters for each of the files that are currently mapped. The counters of a file are discarded when
+     * it is unmapped.
+     */
+    List<PagedFileCounters> fileCounters();
 }
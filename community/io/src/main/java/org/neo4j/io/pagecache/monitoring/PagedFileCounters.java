@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.monitoring;
+
+import java.io.File;
+
+/**
+ * The PagedFileCounters exposes internal counters from the page cache, for the IO done on a single mapped file.
+ * The data for these counters is sourced through the PageCacheTracer API.
+ *
+ * @see PageCacheCounters#fileCounters()
+ */
+public interface PagedFileCounters
+{
+    /**
+     * @return The file that these counters are about.
+     */
+    File file();
+
+    /**
+     * @return The number of page faults on this file observed thus far.
+     */
+    long faults();
+
+    /**
+     * @return The sum total of bytes read in from this file through page faults thus far.
+     */
+    long bytesRead();
+
+    /**
+     * @return The number of flushes to this file observed thus far. A flush can write more than one page.
+     */
+    long flushes();
+
+    /**
+     * @return The sum total of bytes written to this file through flushes thus far.
+     */
+    long bytesWritten();
+
+    /**
+     * @return The latencies of the page faults on this file, from the fault began until the page had been read in.
+     */
+    LatencyHistogram faultLatency();
+
+    /**
+     * @return The latencies of the flushes to this file.
+     */
+    LatencyHistogram flushLatency();
+}
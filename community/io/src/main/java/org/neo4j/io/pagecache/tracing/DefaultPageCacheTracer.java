@@ -25,14 +25,24 @@ import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.MethodType;
 import java.lang.invoke.SwitchPoint;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.monitoring.LatencyHistogram;
+import org.neo4j.io.pagecache.monitoring.PagedFileCounters;
 
 import static org.neo4j.unsafe.impl.internal.dragons.FeatureToggles.packageFlag;
 
 /**
  * The default PageCacheTracer implementation, that just increments counters.
+ * <p>
+ * Page faults and flushes are additionally counted per file, along with their latencies. These events do IO anyway,
+ * so the events for them are allocated and timed individually, while the much more frequent pins are not.
  */
 public class DefaultPageCacheTracer implements PageCacheTracer
 {
@@ -92,39 +102,20 @@ public class DefaultPageCacheTracer implements PageCacheTracer
     protected final AtomicLong filesMapped = new AtomicLong();
     protected final AtomicLong filesUnmapped = new AtomicLong();
     protected final AtomicLong evictionExceptions = new AtomicLong();
+    protected final AtomicLong probationaryHits = new AtomicLong();
+    protected final AtomicLong protectedHits = new AtomicLong();
+    protected final AtomicLong probationaryEvictions = new AtomicLong();
+    protected final AtomicLong protectedEvictions = new AtomicLong();
+    protected final LatencyHistogram faultLatency = new LatencyHistogram();
 
-    private final FlushEvent flushEvent = new FlushEvent()
-    {
-        @Override
-        public void addBytesWritten( long bytes )
-        {
-            bytesWritten.getAndAdd( bytes );
-        }
-
-        @Override
-        public void done()
-        {
-            flushes.getAndIncrement();
-        }
-
-        @Override
-        public void done( IOException exception )
-        {
-            done();
-        }
-
-        @Override
-        public void addPagesFlushed( int pageCount )
-        {
-        }
-    };
+    private final ConcurrentMap<File,FileCounters> countersPerFile = new ConcurrentHashMap<>();
 
     private final FlushEventOpportunity flushEventOpportunity = new FlushEventOpportunity()
     {
         @Override
         public FlushEvent beginFlush( long filePageId, int cachePageId, PageSwapper swapper )
         {
-            return flushEvent;
+            return new DefaultFlushEvent( fileCounters( swapper ) );
         }
     };
 
@@ -157,6 +148,19 @@ public class DefaultPageCacheTracer implements PageCacheTracer
         {
         }
 
+        @Override
+        public void setProtectedSegment( boolean protectedSegment )
+        {
+            if ( protectedSegment )
+            {
+                protectedEvictions.getAndIncrement();
+            }
+            else
+            {
+                probationaryEvictions.getAndIncrement();
+            }
+        }
+
         @Override
         public void close()
         {
@@ -178,101 +182,255 @@ public class DefaultPageCacheTracer implements PageCacheTracer
         }
     };
 
-    private final PageFaultEvent pageFaultEvent = new PageFaultEvent()
+    private final PinEvent pinTracingEvent = new PinEvent()
     {
         @Override
-        public void addBytesRead( long bytes )
+        public void setCachePageId( int cachePageId )
         {
-            bytesRead.getAndAdd( bytes );
         }
 
         @Override
-        public void done()
+        public void hit( SegmentedPage page )
         {
-            faults.getAndIncrement();
+            if ( page.isProtected() )
+            {
+                protectedHits.getAndIncrement();
+            }
+            else
+            {
+                probationaryHits.getAndIncrement();
+            }
         }
 
         @Override
-        public void done( Throwable throwable )
+        public PageFaultEvent beginPageFault()
         {
-            done();
+            return new DefaultPageFaultEvent();
         }
 
         @Override
-        public EvictionEvent beginEviction()
+        public void done()
         {
-            return evictionEvent;
+            unpins.getAndIncrement();
         }
+    };
 
+    private final PinEvent nullPinEvent = new PinEvent()
+    {
         @Override
         public void setCachePageId( int cachePageId )
         {
         }
-    };
 
-    private final PinEvent pinTracingEvent = new PinEvent()
-    {
         @Override
-        public void setCachePageId( int cachePageId )
+        public void hit( SegmentedPage page )
         {
         }
 
         @Override
         public PageFaultEvent beginPageFault()
         {
-            return pageFaultEvent;
+            return new DefaultPageFaultEvent();
         }
 
         @Override
         public void done()
         {
-            unpins.getAndIncrement();
         }
     };
 
-    private final PinEvent nullPinEvent = new PinEvent()
+    private final MajorFlushEvent majorFlushEvent = new MajorFlushEvent()
+    {
+        @Override
+        public FlushEventOpportunity flushEventOpportunity()
+        {
+            return flushEventOpportunity;
+        }
+
+        @Override
+        public void close()
+        {
+        }
+    };
+
+    /**
+     * Counters for the IO done on a single file.
+     */
+    private static final class FileCounters implements PagedFileCounters
+    {
+        private final File file;
+        private final AtomicLong faults = new AtomicLong();
+        private final AtomicLong bytesRead = new AtomicLong();
+        private final AtomicLong flushes = new AtomicLong();
+        private final AtomicLong bytesWritten = new AtomicLong();
+        private final LatencyHistogram faultLatency = new LatencyHistogram();
+        private final LatencyHistogram flushLatency = new LatencyHistogram();
+
+        FileCounters( File file )
+        {
+            this.file = file;
+        }
+
+        @Override
+        public File file()
+        {
+            return file;
+        }
+
+        @Override
+        public long faults()
+        {
+            return faults.get();
+        }
+
+        @Override
+        public long bytesRead()
+        {
+            return bytesRead.get();
+        }
+
+        @Override
+        public long flushes()
+        {
+            return flushes.get();
+        }
+
+        @Override
+        public long bytesWritten()
+        {
+            return bytesWritten.get();
+        }
+
+        @Override
+        public LatencyHistogram faultLatency()
+        {
+            return faultLatency;
+        }
+
+        @Override
+        public LatencyHistogram flushLatency()
+        {
+            return flushLatency;
+        }
+    }
+
+    private class DefaultPageFaultEvent implements PageFaultEvent
     {
+        private final long startNanos = System.nanoTime();
+        private FileCounters counters;
+        private long bytes;
+
+        @Override
+        public void addBytesRead( long bytes )
+        {
+            bytesRead.getAndAdd( bytes );
+            this.bytes += bytes;
+        }
+
         @Override
         public void setCachePageId( int cachePageId )
         {
         }
 
         @Override
-        public PageFaultEvent beginPageFault()
+        public void setSwapper( PageSwapper swapper )
         {
-            return pageFaultEvent;
+            counters = fileCounters( swapper );
         }
 
         @Override
         public void done()
         {
+            faults.getAndIncrement();
+            long latencyNanos = System.nanoTime() - startNanos;
+            faultLatency.record( latencyNanos, TimeUnit.NANOSECONDS );
+            if ( counters != null )
+            {
+                counters.faults.getAndIncrement();
+                counters.bytesRead.getAndAdd( bytes );
+                counters.faultLatency.record( latencyNanos, TimeUnit.NANOSECONDS );
+            }
+        }
+
+        @Override
+        public void done( Throwable throwable )
+        {
+            done();
         }
-    };
 
-    private final MajorFlushEvent majorFlushEvent = new MajorFlushEvent()
+        @Override
+        public EvictionEvent beginEviction()
+        {
+            return evictionEvent;
+        }
+    }
+
+    private class DefaultFlushEvent implements FlushEvent
     {
+        private final long startNanos = System.nanoTime();
+        private final FileCounters counters;
+        private long bytes;
+
+        DefaultFlushEvent( FileCounters counters )
+        {
+            this.counters = counters;
+        }
+
         @Override
-        public FlushEventOpportunity flushEventOpportunity()
+        public void addBytesWritten( long bytes )
         {
-            return flushEventOpportunity;
+            bytesWritten.getAndAdd( bytes );
+            this.bytes += bytes;
         }
 
         @Override
-        public void close()
+        public void done()
         {
+            flushes.getAndIncrement();
+            if ( counters != null )
+            {
+                counters.flushes.getAndIncrement();
+                counters.bytesWritten.getAndAdd( bytes );
+                counters.flushLatency.record( System.nanoTime() - startNanos, TimeUnit.NANOSECONDS );
+            }
         }
-    };
+
+        @Override
+        public void done( IOException exception )
+        {
+            done();
+        }
+
+        @Override
+        public void addPagesFlushed( int pageCount )
+        {
+        }
+    }
+
+    private FileCounters fileCounters( PageSwapper swapper )
+    {
+        File file = swapper == null ? null : swapper.file();
+        return file == null ? null : fileCounters( file );
+    }
+
+    private FileCounters fileCounters( File file )
+    {
+        FileCounters counters = countersPerFile.get( file );
+        return counters != null ? counters : countersPerFile.computeIfAbsent( file, FileCounters::new );
+    }
 
     @Override
     public void mappedFile( File file )
     {
         filesMapped.getAndIncrement();
+        fileCounters( file );
     }
 
     @Override
     public void unmappedFile( File file )
     {
         filesUnmapped.getAndIncrement();
+        countersPerFile.remove( file );
     }
 
     @Override
@@ -384,4 +542,40 @@ public class DefaultPageCacheTracer implements PageCacheTracer
     {
         return evictionExceptions.get();
     }
+
+    @Override
+    public long probationaryHits()
+    {
+        return probationaryHits.get();
+    }
+
+    @Override
+    public long protectedHits()
+    {
+        return protectedHits.get();
+    }
+
+    @Override
+    public long probationaryEvictions()
+    {
+        return probationaryEvictions.get();
+    }
+
+    @Override
+    public long protectedEvictions()
+    {
+        return protectedEvictions.get();
+    }
+
+    @Override
+    public LatencyHistogram faultLatency()
+    {
+        return faultLatency;
+    }
+
+    @Override
+    public List<PagedFileCounters> fileCounters()
+    {
+        return new ArrayList<>( countersPerFile.values() );
+    }
 }
@@ -59,6 +59,11 @@ public interface EvictionEvent extends AutoCloseablePageCacheTracerEvent
         {
         }
 
+        @Override
+        public void setProtectedSegment( boolean protectedSegment )
+        {
+        }
+
         @Override
         public void close()
         {
@@ -90,4 +95,10 @@ public interface EvictionEvent extends AutoCloseablePageCacheTracerEvent
      * The cache page id of the evicted page.
      */
     public void setCachePageId( int cachePageId );
+
+    /**
+     * Whether the evicted page was in the protected segment of a segmented eviction policy, as opposed to the
+     * probationary segment. Only called if the eviction succeeded.
+     */
+    public void setProtectedSegment( boolean protectedSegment );
 }
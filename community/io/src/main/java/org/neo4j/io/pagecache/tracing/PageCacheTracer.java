@@ -20,9 +20,13 @@
 package org.neo4j.io.pagecache.tracing;
 
 import java.io.File;
+import java.util.Collections;
+import java.util.List;
 
 import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.monitoring.LatencyHistogram;
 import org.neo4j.io.pagecache.monitoring.PageCacheCounters;
+import org.neo4j.io.pagecache.monitoring.PagedFileCounters;
 
 /**
  * A PageCacheTracer receives a steady stream of events and data about what
@@ -130,6 +134,42 @@ public interface PageCacheTracer extends PageCacheCounters
             return 0;
         }
 
+        @Override
+        public long probationaryHits()
+        {
+            return 0;
+        }
+
+        @Override
+        public long protectedHits()
+        {
+            return 0;
+        }
+
+        @Override
+        public long probationaryEvictions()
+        {
+            return 0;
+        }
+
+        @Override
+        public long protectedEvictions()
+        {
+            return 0;
+        }
+
+        @Override
+        public LatencyHistogram faultLatency()
+        {
+            return new LatencyHistogram();
+        }
+
+        @Override
+        public List<PagedFileCounters> fileCounters()
+        {
+            return Collections.emptyList();
+        }
+
         @Override
         public String toString()
         {
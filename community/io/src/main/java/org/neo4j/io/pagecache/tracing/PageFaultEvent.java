@@ -19,6 +19,8 @@
  */
 package org.neo4j.io.pagecache.tracing;
 
+import org.neo4j.io.pagecache.PageSwapper;
+
 /**
  * Begin a page fault as part of a pin event.
  */
@@ -54,6 +56,11 @@ public interface PageFaultEvent
         public void setCachePageId( int cachePageId )
         {
         }
+
+        @Override
+        public void setSwapper( PageSwapper swapper )
+        {
+        }
     };
 
     /**
@@ -66,6 +73,11 @@ public interface PageFaultEvent
      */
     void setCachePageId( int cachePageId );
 
+    /**
+     * The swapper of the file that the page is being faulted in from.
+     */
+    void setSwapper( PageSwapper swapper );
+
     /**
      * The page fault completed successfully.
      */
@@ -34,6 +34,11 @@ public interface PinEvent
         {
         }
 
+        @Override
+        public void hit( SegmentedPage page )
+        {
+        }
+
         @Override
         public PageFaultEvent beginPageFault()
         {
@@ -51,6 +56,12 @@ public interface PinEvent
      */
     public void setCachePageId( int cachePageId );
 
+    /**
+     * The page we want to pin is already in memory. Events that count hits per segment of a segmented eviction policy
+     * ask the given page which segment it is in, so that this look up is only paid for when hits are traced.
+     */
+    public void hit( SegmentedPage page );
+
     /**
      * The page we want to pin is not in memory, so being a page fault to load it in.
      */
@@ -60,4 +71,15 @@ public interface PinEvent
      * The pinning has completed and the page is now unpinned.
      */
     public void done();
+
+    /**
+     * A page in memory, that knows which segment of a segmented eviction policy it is in.
+     */
+    interface SegmentedPage
+    {
+        /**
+         * @return {@code true} if the page is in the protected segment, or {@code false} if it is on probation.
+         */
+        boolean isProtected();
+    }
 }
@@ -32,6 +32,7 @@ import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.nio.charset.Charset;
+import java.nio.file.CopyOption;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.function.Function;
@@ -74,6 +75,12 @@ public class AdversarialFileSystemAbstraction implements FileSystemAbstraction
         return delegate.renameFile( from, to );
     }
 
+    public void renameFile( File from, File to, CopyOption... copyOptions ) throws IOException
+    {
+        adversary.injectFailure( FileNotFoundException.class, SecurityException.class );
+        delegate.renameFile( from, to, copyOptions );
+    }
+
     public OutputStream openAsOutputStream( File fileName, boolean append ) throws IOException
     {
         adversary.injectFailure( FileNotFoundException.class, SecurityException.class );
@@ -40,7 +40,12 @@ import java.nio.channels.OverlappingFileLockException;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
+import java.nio.file.CopyOption;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -385,6 +390,23 @@ public class EphemeralFileSystemAbstraction implements FileSystemAbstraction
         return true;
     }
 
+    @Override
+    public synchronized void renameFile( File from, File to, CopyOption... copyOptions ) throws IOException
+    {
+        from = canonicalFile( from );
+        to = canonicalFile( to );
+        if ( !files.containsKey( from ) )
+        {
+            throw new NoSuchFileException( from.getPath() );
+        }
+        if ( files.containsKey( to ) && !Arrays.asList( copyOptions ).contains( StandardCopyOption.REPLACE_EXISTING ) )
+        {
+            throw new FileAlreadyExistsException( to.getPath() );
+        }
+        // Replacing the file in the map is atomic, to anyone looking the file up by name
+        files.put( to, files.remove( from ) );
+    }
+
     @Override
     public File[] listFiles( File directory )
     {
@@ -28,6 +28,7 @@ import java.io.OutputStreamWriter;
 import java.io.Reader;
 import java.io.Writer;
 import java.nio.charset.Charset;
+import java.nio.file.CopyOption;
 
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.fs.StoreChannel;
@@ -94,6 +95,13 @@ public class LimitedFilesystemAbstraction extends DelegatingFileSystemAbstractio
         return super.renameFile( from, to );
     }
 
+    @Override
+    public void renameFile( File from, File to, CopyOption... copyOptions ) throws IOException
+    {
+        ensureHasSpace();
+        super.renameFile( from, to, copyOptions );
+    }
+
     public void runOutOfDiskSpace( boolean outOfSpace )
     {
         this.outOfSpace = outOfSpace;
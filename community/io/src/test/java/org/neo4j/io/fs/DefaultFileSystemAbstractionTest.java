@@ -21,11 +21,15 @@ package org.neo4j.io.fs;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.util.UUID;
 
 import org.junit.Before;
 import org.junit.Test;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.*;
 
@@ -59,6 +63,21 @@ public class DefaultFileSystemAbstractionTest
         assertThat( path.exists(), is( true ) );
     }
 
+    @Test
+    public void shouldReplaceExistingFileWhenRenamingWithReplaceExisting() throws Exception
+    {
+        defaultFileSystemAbstraction.mkdirs( path );
+        File from = new File( path, "from" );
+        File to = new File( path, "to" );
+        Files.write( from.toPath(), "new".getBytes( UTF_8 ) );
+        Files.write( to.toPath(), "old".getBytes( UTF_8 ) );
+
+        defaultFileSystemAbstraction.renameFile( from, to, ATOMIC_MOVE, REPLACE_EXISTING );
+
+        assertFalse( defaultFileSystemAbstraction.fileExists( from ) );
+        assertThat( new String( Files.readAllBytes( to.toPath() ), UTF_8 ), is( "new" ) );
+    }
+
     @Test
     public void shouldCreatePathThatAlreadyExists() throws Exception
     {
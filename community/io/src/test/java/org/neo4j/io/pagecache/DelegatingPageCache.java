@@ -22,6 +22,7 @@ package org.neo4j.io.pagecache;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.OpenOption;
+import java.util.List;
 
 public class DelegatingPageCache implements PageCache
 {
@@ -37,6 +38,11 @@ public class DelegatingPageCache implements PageCache
         return delegate.map( file, pageSize, openOptions );
     }
 
+    public List<PagedFile> listExistingMappings() throws IOException
+    {
+        return delegate.listExistingMappings();
+    }
+
     public int pageSize()
     {
         return delegate.pageSize();
@@ -61,4 +67,14 @@ public class DelegatingPageCache implements PageCache
     {
         delegate.flushAndForce();
     }
+
+    public long flushDirtyPages( long maxPages, IOLimiter limiter ) throws IOException
+    {
+        return delegate.flushDirtyPages( maxPages, limiter );
+    }
+
+    public long dirtyPages()
+    {
+        return delegate.dirtyPages();
+    }
 }
@@ -25,11 +25,14 @@ import java.io.File;
 import java.io.IOException;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.LinkedBlockingQueue;
 
+import org.neo4j.io.pagecache.monitoring.LatencyHistogram;
+import org.neo4j.io.pagecache.monitoring.PagedFileCounters;
 import org.neo4j.io.pagecache.tracing.EvictionEvent;
 import org.neo4j.io.pagecache.tracing.EvictionRunEvent;
 import org.neo4j.io.pagecache.tracing.FlushEventOpportunity;
@@ -120,6 +123,11 @@ public class RecordingPageCacheTracer implements PageCacheTracer
             {
             }
 
+            @Override
+            public void hit( SegmentedPage page )
+            {
+            }
+
             @Override
             public PageFaultEvent beginPageFault()
             {
@@ -151,6 +159,11 @@ public class RecordingPageCacheTracer implements PageCacheTracer
                     public void setCachePageId( int cachePageId )
                     {
                     }
+
+                    @Override
+                    public void setSwapper( PageSwapper swapper )
+                    {
+                    }
                 };
             }
 
@@ -234,6 +247,42 @@ public class RecordingPageCacheTracer implements PageCacheTracer
         return 0;
     }
 
+    @Override
+    public long probationaryHits()
+    {
+        return 0;
+    }
+
+    @Override
+    public long protectedHits()
+    {
+        return 0;
+    }
+
+    @Override
+    public long probationaryEvictions()
+    {
+        return 0;
+    }
+
+    @Override
+    public long protectedEvictions()
+    {
+        return 0;
+    }
+
+    @Override
+    public LatencyHistogram faultLatency()
+    {
+        return new LatencyHistogram();
+    }
+
+    @Override
+    public List<PagedFileCounters> fileCounters()
+    {
+        return Collections.emptyList();
+    }
+
     public <T extends Event> T observe( Class<T> type ) throws InterruptedException
     {
         return type.cast( record.take() );
@@ -387,6 +436,11 @@ public class RecordingPageCacheTracer implements PageCacheTracer
         {
         }
 
+        @Override
+        public void setProtectedSegment( boolean protectedSegment )
+        {
+        }
+
         @Override
         public void close()
         {
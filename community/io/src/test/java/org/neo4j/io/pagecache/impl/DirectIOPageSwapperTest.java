@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.neo4j.io.fs.DefaultFileSystemAbstraction;
+import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.PageSwapperFactory;
+import org.neo4j.io.pagecache.PageSwapperTest;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Runs the DirectIOPageSwapper with an ordinary open option in place of {@code O_DIRECT}, and a block size that is
+ * smaller than the pages, such that the block alignment, bounce buffer and read-modify-write logic is exercised on
+ * any JVM. {@link DirectIOPageSwapperIT} runs the same tests with actual direct IO, where it is supported.
+ */
+public class DirectIOPageSwapperTest extends PageSwapperTest
+{
+    private static final int blockSize = 64;
+
+    protected final DefaultFileSystemAbstraction fs = new DefaultFileSystemAbstraction();
+
+    @Override
+    protected PageSwapperFactory swapperFactory()
+    {
+        DirectIOPageSwapperFactory factory = new DirectIOPageSwapperFactory( StandardOpenOption.READ, blockSize );
+        factory.setFileSystemAbstraction( fs );
+        return factory;
+    }
+
+    @Override
+    protected void mkdirs( File dir ) throws IOException
+    {
+        fs.mkdirs( dir );
+    }
+
+    @Test
+    public void mustReadAndWriteBlockSizedPages() throws Exception
+    {
+        File file = testDir.file( "aligned" );
+        PageSwapperFactory factory = swapperFactory();
+        int pageSize = (int) factory.getRequiredBufferAlignment();
+        PageSwapper swapper = createSwapper( factory, file, pageSize, NO_CALLBACK, true );
+
+        ByteBufferPage page = createPage( pageSize );
+        page.putLong( X, 0 );
+        page.putLong( Y, pageSize - 8 );
+        swapper.write( 3, page );
+        page = createPage( pageSize );
+
+        assertThat( swapper.read( 3, page ), is( (long) pageSize ) );
+        assertThat( page.getLong( 0 ), is( X ) );
+        assertThat( page.getLong( pageSize - 8 ), is( Y ) );
+        assertThat( swapper.getLastPageId(), is( 3L ) );
+    }
+
+    @Test
+    public void closingMustTruncateFileToItsLogicalSize() throws Exception
+    {
+        File file = testDir.file( "unaligned" );
+        PageSwapperFactory factory = swapperFactory();
+        PageSwapper swapper = createSwapper( factory, file, 15, NO_CALLBACK, true );
+
+        ByteBufferPage page = createPage( 15 );
+        page.putInt( Z, 11 );
+        swapper.write( 0, page );
+        swapper.write( 2, page );
+        swapper.close();
+
+        assertThat( fs.getFileSize( file ), is( 45L ) );
+
+        swapper = createSwapper( factory, file, 15, NO_CALLBACK, false );
+        page = createPage( 15 );
+        swapper.read( 2, page );
+        assertThat( page.getInt( 11 ), is( Z ) );
+        assertThat( swapper.getLastPageId(), is( 2L ) );
+    }
+
+    @Test
+    public void writingPageMustPreserveNeighbouringPagesInSharedBlocks() throws Exception
+    {
+        File file = testDir.file( "shared" );
+        PageSwapperFactory factory = swapperFactory();
+        int filePageSize = 15; // Not a divisor of the block size, so blocks are shared by up to six pages.
+        PageSwapper swapper = createSwapper( factory, file, filePageSize, NO_CALLBACK, true );
+
+        int pageCount = 3 * (int) factory.getRequiredBufferAlignment() / filePageSize;
+        for ( int pageId = pageCount - 1; pageId >= 0; pageId -= 2 )
+        {
+            swapper.write( pageId, pageWithContents( filePageSize, pageId ) );
+        }
+        for ( int pageId = 0; pageId < pageCount; pageId += 2 )
+        {
+            swapper.write( pageId, pageWithContents( filePageSize, pageId ) );
+        }
+
+        for ( int pageId = 0; pageId < pageCount; pageId++ )
+        {
+            assertPageContents( swapper, filePageSize, pageId );
+        }
+    }
+
+    @Test
+    public void concurrentWritesToPagesInSharedBlocksMustNotLoseUpdates() throws Exception
+    {
+        File file = testDir.file( "concurrent" );
+        PageSwapperFactory factory = swapperFactory();
+        int filePageSize = 15;
+        PageSwapper swapper = createSwapper( factory, file, filePageSize, NO_CALLBACK, true );
+        int threads = 8;
+        int pagesPerThread = 50;
+        int rounds = 20;
+
+        // Thread t writes the pages t, t + threads, t + 2 * threads, ... so every block is shared between threads.
+        ExecutorService executor = Executors.newFixedThreadPool( threads );
+        try
+        {
+            List<Future<?>> futures = new ArrayList<>();
+            for ( int t = 0; t < threads; t++ )
+            {
+                int thread = t;
+                futures.add( executor.submit( () ->
+                {
+                    for ( int round = 0; round < rounds; round++ )
+                    {
+                        for ( int i = 0; i < pagesPerThread; i++ )
+                        {
+                            long pageId = thread + (long) i * threads;
+                            swapper.write( pageId, pageWithContents( filePageSize, pageId ) );
+                        }
+                    }
+                    return null;
+                } ) );
+            }
+            for ( Future<?> future : futures )
+            {
+                future.get();
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        for ( int pageId = 0; pageId < threads * pagesPerThread; pageId++ )
+        {
+            assertPageContents( swapper, filePageSize, pageId );
+        }
+    }
+
+    private ByteBufferPage pageWithContents( int filePageSize, long pageId )
+    {
+        ByteBufferPage page = createPage( filePageSize );
+        for ( int i = 0; i < filePageSize; i++ )
+        {
+            page.putByte( (byte) (pageId * 31 + i), i );
+        }
+        return page;
+    }
+
+    private void assertPageContents( PageSwapper swapper, int filePageSize, long pageId ) throws IOException
+    {
+        ByteBufferPage page = createPage( filePageSize );
+        assertThat( swapper.read( pageId, page ), is( (long) filePageSize ) );
+        for ( int i = 0; i < filePageSize; i++ )
+        {
+            assertThat( "byte " + i + " of page " + pageId, page.getByte( i ), is( (byte) (pageId * 31 + i) ) );
+        }
+    }
+}
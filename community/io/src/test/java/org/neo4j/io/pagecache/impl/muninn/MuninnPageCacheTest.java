@@ -24,30 +24,45 @@ import org.junit.Test;
 import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
 
 import org.neo4j.graphdb.mockfs.DelegatingFileSystemAbstraction;
 import org.neo4j.graphdb.mockfs.DelegatingStoreChannel;
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.fs.StoreChannel;
+import org.neo4j.io.pagecache.IOLimiter;
+import org.neo4j.io.pagecache.PageCacheShare;
 import org.neo4j.io.pagecache.PageCacheTest;
 import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PageSwapperFactory;
 import org.neo4j.io.pagecache.PagedFile;
 import org.neo4j.io.pagecache.RecordingPageCacheTracer;
+import org.neo4j.io.pagecache.impl.SingleFilePageSwapperFactory;
+import org.neo4j.io.pagecache.tracing.DefaultPageCacheTracer;
 import org.neo4j.io.pagecache.tracing.DelegatingPageCacheTracer;
 import org.neo4j.io.pagecache.tracing.EvictionRunEvent;
 import org.neo4j.io.pagecache.tracing.MajorFlushEvent;
 import org.neo4j.io.pagecache.tracing.PageCacheTracer;
 
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_WRITE_LOCK;
+import static org.neo4j.io.pagecache.PagedFile.PF_NO_FAULT;
 import static org.neo4j.io.pagecache.PagedFile.PF_NO_GROW;
+import static org.neo4j.io.pagecache.PagedFile.PF_READ_AHEAD;
 import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
 import static org.neo4j.io.pagecache.RecordingPageCacheTracer.Evict;
 import static org.neo4j.io.pagecache.RecordingPageCacheTracer.Fault;
@@ -104,6 +119,370 @@ public class MuninnPageCacheTest extends PageCacheTest<MuninnPageCache>
         assertNotNull( tracer.observe( Evict.class ) );
     }
 
+    @Test
+    public void mustNotEvictPagesOfFilesWithinTheirReservedShare() throws Exception
+    {
+        writeInitialDataTo( file( "a" ) );
+        writeInitialDataTo( file( "b" ) );
+        RecordingPageCacheTracer tracer = new RecordingPageCacheTracer();
+
+        MuninnPageCache pageCache = createPageCache( fs, 2, 8, blockCacheFlush( tracer ) );
+        PagedFile reserved = pageCache.map( file( "a" ), 8, PageCacheShare.reserved( 0.5 ) );
+        PagedFile other = pageCache.map( file( "b" ), 8 );
+
+        try ( PageCursor cursor = reserved.io( 0, PF_SHARED_READ_LOCK ) )
+        {
+            assertTrue( cursor.next() );
+        }
+        try ( PageCursor cursor = other.io( 0, PF_SHARED_READ_LOCK ) )
+        {
+            assertTrue( cursor.next() );
+        }
+        assertNotNull( tracer.observe( Fault.class ) );
+        assertNotNull( tracer.observe( Fault.class ) );
+
+        pageCache.evictPages( 1, 0, tracer.beginPageEvictions( 1 ) );
+        Evict evict = tracer.observe( Evict.class );
+        assertThat( evict.io.file().getName(), is( "b" ) );
+    }
+
+    @Test( timeout = SEMI_LONG_TIMEOUT_MILLIS )
+    public void mustEvictPagesWithinReservedSharesWhenNothingElseCanBeEvicted() throws Exception
+    {
+        writeInitialDataTo( file( "a" ) );
+        writeInitialDataTo( file( "b" ) );
+        RecordingPageCacheTracer tracer = new RecordingPageCacheTracer();
+
+        MuninnPageCache pageCache = createPageCache( fs, 5, 8, blockCacheFlush( tracer ) );
+        PagedFile first = pageCache.map( file( "a" ), 8, PageCacheShare.reserved( 0.4 ) );
+        PagedFile second = pageCache.map( file( "b" ), 8, PageCacheShare.reserved( 0.4 ) );
+
+        for ( PagedFile pagedFile : new PagedFile[]{first, second} )
+        {
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK ) )
+            {
+                assertTrue( cursor.next() );
+                assertTrue( cursor.next() );
+            }
+        }
+        for ( int i = 0; i < 4; i++ )
+        {
+            assertNotNull( tracer.observe( Fault.class ) );
+        }
+
+        // All loaded pages are within their reserved shares, so only after a full revolution of the clock are they
+        // considered for eviction
+        pageCache.evictPages( 1, 0, tracer.beginPageEvictions( 1 ) );
+        assertNotNull( tracer.observe( Evict.class ) );
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void mustNotMapFilesWithReservedSharesAddingUpToTheWholeCache() throws Exception
+    {
+        writeInitialDataTo( file( "a" ) );
+        writeInitialDataTo( file( "b" ) );
+
+        MuninnPageCache pageCache = createPageCache( fs, 4, 8, PageCacheTracer.NULL );
+        pageCache.map( file( "a" ), 8, PageCacheShare.reserved( 0.5 ) );
+        pageCache.map( file( "b" ), 8, PageCacheShare.reserved( 0.5 ) );
+    }
+
+    @Test
+    public void mustPreferEvictingPagesOfFilesAboveTheirBoundedShare() throws Exception
+    {
+        writeInitialDataTo( file( "a" ) );
+        writeInitialDataTo( file( "b" ) );
+        RecordingPageCacheTracer tracer = new RecordingPageCacheTracer();
+
+        MuninnPageCache pageCache = createPageCache( fs, 4, 8, blockCacheFlush( tracer ) );
+        PagedFile bounded = pageCache.map( file( "a" ), 8, PageCacheShare.bounded( 0.25 ) );
+        PagedFile other = pageCache.map( file( "b" ), 8 );
+
+        for ( int i = 0; i < 3; i++ )
+        {
+            // Touch the pages of the unbounded file a few times, so they are not eviction candidates right away.
+            try ( PageCursor cursor = other.io( 0, PF_SHARED_READ_LOCK ) )
+            {
+                assertTrue( cursor.next() );
+                assertTrue( cursor.next() );
+            }
+        }
+        for ( int i = 0; i < 3; i++ )
+        {
+            try ( PageCursor cursor = bounded.io( 0, PF_SHARED_READ_LOCK ) )
+            {
+                assertTrue( cursor.next() );
+                assertTrue( cursor.next() );
+            }
+        }
+        assertNotNull( tracer.observe( Fault.class ) );
+        assertNotNull( tracer.observe( Fault.class ) );
+        assertNotNull( tracer.observe( Fault.class ) );
+        assertNotNull( tracer.observe( Fault.class ) );
+
+        pageCache.evictPages( 1, 0, tracer.beginPageEvictions( 1 ) );
+        Evict evict = tracer.observe( Evict.class );
+        assertThat( evict.io.file().getName(), is( "a" ) );
+    }
+
+    @Test
+    public void readAheadMustFaultInFollowingPagesWithTheFirstPageFault() throws Exception
+    {
+        writeInitialDataTo( file( "a" ) );
+        RecordingPageCacheTracer tracer = new RecordingPageCacheTracer();
+
+        MuninnPageCache pageCache = createPageCache( fs, 4, 8, blockCacheFlush( tracer ) );
+        PagedFile pagedFile = pageCache.map( file( "a" ), 8 );
+
+        try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK | PF_READ_AHEAD ) )
+        {
+            assertTrue( cursor.next() );
+            Fault first = tracer.observe( Fault.class );
+            Fault second = tracer.observe( Fault.class );
+            assertThat( first.pageId, is( 0L ) );
+            assertThat( second.pageId, is( 1L ) );
+            assertThat( cursor.getLong(), is( x ) );
+
+            assertTrue( cursor.next() );
+            assertThat( cursor.getLong(), is( y ) );
+            assertFalse( cursor.next() );
+        }
+        assertNull( tracer.tryObserve( Fault.class ) );
+    }
+
+    @Test
+    public void readAheadMustNotTracePinWhenThereAreNoFollowingPagesToFaultIn() throws Exception
+    {
+        writeInitialDataTo( file( "a" ) );
+        DefaultPageCacheTracer tracer = new DefaultPageCacheTracer();
+
+        MuninnPageCache pageCache = createPageCache( fs, 4, 8, blockCacheFlush( tracer ) );
+        PagedFile pagedFile = pageCache.map( file( "a" ), 8 );
+
+        try ( PageCursor cursor = pagedFile.io( 1, PF_SHARED_READ_LOCK | PF_READ_AHEAD ) )
+        {
+            assertTrue( cursor.next() );
+            assertThat( cursor.getLong(), is( y ) );
+        }
+        assertThat( tracer.faults(), is( 1L ) );
+        assertThat( tracer.pins(), is( 1L ) );
+        assertThat( tracer.unpins(), is( 1L ) );
+    }
+
+    @Test
+    public void noFaultCursorMustLeaveCursorUnboundForPagesThatAreNotInMemory() throws Exception
+    {
+        writeInitialDataTo( file( "a" ) );
+        RecordingPageCacheTracer tracer = new RecordingPageCacheTracer();
+
+        MuninnPageCache pageCache = createPageCache( fs, 4, 8, blockCacheFlush( tracer ) );
+        PagedFile pagedFile = pageCache.map( file( "a" ), 8 );
+
+        try ( PageCursor cursor = pagedFile.io( 1, PF_SHARED_READ_LOCK ) )
+        {
+            assertTrue( cursor.next() );
+        }
+        assertNotNull( tracer.observe( Fault.class ) );
+
+        try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK | PF_NO_FAULT ) )
+        {
+            assertTrue( cursor.next() );
+            assertThat( cursor.getCurrentPageId(), is( PageCursor.UNBOUND_PAGE_ID ) );
+            assertTrue( cursor.next() );
+            assertThat( cursor.getCurrentPageId(), is( 1L ) );
+            assertThat( cursor.getLong(), is( y ) );
+            assertFalse( cursor.next() );
+        }
+        assertNull( tracer.tryObserve( Fault.class ) );
+    }
+
+    @Test
+    public void flushMustWriteCleanPagesBetweenDirtyPagesAsPartOfASingleVector() throws Exception
+    {
+        writeInitialDataTo( file( "a" ) );
+        DefaultPageCacheTracer tracer = new DefaultPageCacheTracer();
+
+        MuninnPageCache pageCache = createPageCache( fs, 20, 8, blockCacheFlush( tracer ) );
+        PagedFile pagedFile = pageCache.map( file( "a" ), 8 );
+
+        try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK ) )
+        {
+            assertTrue( cursor.next() );
+            cursor.putLong( 0L );
+        }
+        try ( PageCursor cursor = pagedFile.io( 1, PF_SHARED_READ_LOCK ) )
+        {
+            assertTrue( cursor.next() );
+        }
+        try ( PageCursor cursor = pagedFile.io( 2, PF_SHARED_WRITE_LOCK ) )
+        {
+            assertTrue( cursor.next() );
+            cursor.putLong( x );
+        }
+
+        pagedFile.flushAndForce();
+        assertThat( tracer.flushes(), is( 1L ) );
+        assertThat( tracer.bytesWritten(), is( 24L ) );
+
+        ByteBuffer buf = ByteBuffer.allocate( 24 );
+        StoreChannel channel = fs.open( file( "a" ), "r" );
+        channel.read( buf );
+        buf.flip();
+        assertThat( buf.getLong(), is( 0L ) );
+        assertThat( buf.getLong(), is( y ) );
+        assertThat( buf.getLong(), is( x ) );
+        channel.close();
+    }
+
+    @Test
+    public void dirtyPagesMustCountPagesWrittenToSinceTheyWereLastFlushed() throws Exception
+    {
+        writeInitialDataTo( file( "a" ) );
+        MuninnPageCache pageCache = createPageCache( fs, 20, 8, PageCacheTracer.NULL );
+        PagedFile pagedFile = pageCache.map( file( "a" ), 8 );
+
+        try ( PageCursor cursor = pagedFile.io( 1, PF_SHARED_WRITE_LOCK ) )
+        {
+            for ( int i = 0; i < 5; i++ )
+            {
+                assertTrue( cursor.next() );
+                cursor.putLong( x );
+            }
+        }
+        try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK ) )
+        {
+            assertTrue( cursor.next() );
+        }
+        assertThat( pageCache.dirtyPages(), is( 5L ) );
+
+        pagedFile.flushAndForce();
+        assertThat( pageCache.dirtyPages(), is( 0L ) );
+        pagedFile.close();
+    }
+
+    @Test( timeout = SEMI_LONG_TIMEOUT_MILLIS )
+    public void dirtyPagesMustCountEachDirtyPageOnceThroughConcurrentWritesAndEvictions() throws Exception
+    {
+        int cachePages = 16;
+        int filePages = 64;
+        int threads = 4;
+        MuninnPageCache pageCache = createPageCache( fs, cachePages, pageCachePageSize, EvictionPolicy.CLOCK, 4, 2 );
+        try
+        {
+            PagedFile pagedFile = pageCache.map( file( "a" ), pageCachePageSize );
+            for ( int i = 0; i < 3; i++ )
+            {
+                try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK ) )
+                {
+                    assertTrue( cursor.next() );
+                    cursor.putLong( i );
+                }
+            }
+            assertThat( pageCache.dirtyPages(), is( 1L ) );
+
+            List<Future<?>> futures = new ArrayList<>();
+            for ( int t = 0; t < threads; t++ )
+            {
+                futures.add( executor.submit( () ->
+                {
+                    ThreadLocalRandom rng = ThreadLocalRandom.current();
+                    for ( int i = 0; i < 2000; i++ )
+                    {
+                        try ( PageCursor cursor = pagedFile.io( rng.nextInt( filePages ), PF_SHARED_WRITE_LOCK ) )
+                        {
+                            assertTrue( cursor.next() );
+                            cursor.putLong( i );
+                        }
+                        if ( i % 100 == 0 )
+                        {
+                            pageCache.flushDirtyPages( 4, IOLimiter.unlimited() );
+                        }
+                    }
+                    return null;
+                } ) );
+            }
+            for ( Future<?> future : futures )
+            {
+                future.get();
+            }
+
+            // Pages that are flushed, or evicted, must not be counted as dirty twice, or be left out of the count
+            assertThat( pageCache.dirtyPages(), lessThanOrEqualTo( (long) cachePages ) );
+            pagedFile.flushAndForce();
+            assertThat( pageCache.dirtyPages(), is( 0L ) );
+            pagedFile.close();
+        }
+        finally
+        {
+            pageCache.close();
+        }
+    }
+
+    @Test
+    public void flushDirtyPagesMustWriteDirtyPagesWithoutForcing() throws Exception
+    {
+        writeInitialDataTo( file( "a" ) );
+        DefaultPageCacheTracer tracer = new DefaultPageCacheTracer();
+        MuninnPageCache pageCache = createPageCache( fs, 20, 8, tracer );
+        PagedFile pagedFile = pageCache.map( file( "a" ), 8 );
+
+        try ( PageCursor cursor = pagedFile.io( 1, PF_SHARED_WRITE_LOCK ) )
+        {
+            assertTrue( cursor.next() );
+            cursor.putLong( x );
+        }
+
+        assertThat( pageCache.flushDirtyPages( 100, IOLimiter.unlimited() ), is( 1L ) );
+        assertThat( pageCache.dirtyPages(), is( 0L ) );
+        assertThat( tracer.bytesWritten(), is( 8L ) );
+
+        ByteBuffer buf = ByteBuffer.allocate( 16 );
+        StoreChannel channel = fs.open( file( "a" ), "r" );
+        channel.read( buf );
+        buf.flip();
+        assertThat( buf.getLong(), is( x ) );
+        assertThat( buf.getLong(), is( x ) );
+        channel.close();
+
+        // With nothing left to flush, we visit every page once, and then give up
+        assertThat( pageCache.flushDirtyPages( 100, IOLimiter.unlimited() ), is( 0L ) );
+        pagedFile.close();
+    }
+
+    @Test
+    public void flushDirtyPagesMustContinueWhereThePreviousCallLeftOff() throws Exception
+    {
+        writeInitialDataTo( file( "a" ) );
+        writeInitialDataTo( file( "b" ) );
+        MuninnPageCache pageCache = createPageCache( fs, 20, 8, PageCacheTracer.NULL );
+        PagedFile pagedFileA = pageCache.map( file( "a" ), 8 );
+        PagedFile pagedFileB = pageCache.map( file( "b" ), 8 );
+
+        for ( PagedFile pagedFile : new PagedFile[]{pagedFileA, pagedFileB} )
+        {
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK ) )
+            {
+                assertTrue( cursor.next() );
+                cursor.putLong( y );
+            }
+        }
+        assertThat( pageCache.dirtyPages(), is( 2L ) );
+
+        // Each call flushes at least the one page that was asked for, but not the page in the other file
+        assertThat( pageCache.flushDirtyPages( 1, IOLimiter.unlimited() ), is( 1L ) );
+        assertThat( pageCache.dirtyPages(), is( 1L ) );
+        assertThat( pageCache.flushDirtyPages( 1, IOLimiter.unlimited() ), is( 1L ) );
+        assertThat( pageCache.dirtyPages(), is( 0L ) );
+        pagedFileA.close();
+        pagedFileB.close();
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void pageCacheShareMustBeAFraction() throws Exception
+    {
+        PageCacheShare.bounded( 1.5 );
+    }
+
     private void writeInitialDataTo( File file ) throws IOException
     {
         StoreChannel channel = fs.create( file );
@@ -285,6 +664,217 @@ public class MuninnPageCacheTest extends PageCacheTest<MuninnPageCache>
         }
     }
 
+    @Test( timeout = SEMI_LONG_TIMEOUT_MILLIS )
+    public void mustLimitFreelistStripesToThePageCount() throws Exception
+    {
+        MuninnPageCache pageCache = createPageCache( fs, 4, 8, EvictionPolicy.CLOCK, 64, 8 );
+        try
+        {
+            assertThat( pageCache.freelistStripeCount(), lessThanOrEqualTo( 2 ) );
+
+            // Faulting more pages than there are in the cache must not get stuck on stripes that can't be filled
+            PagedFile pagedFile = pageCache.map( file( "a" ), 8 );
+            for ( int i = 0; i < 10; i++ )
+            {
+                try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK ) )
+                {
+                    for ( int pageId = 0; pageId < 16; pageId++ )
+                    {
+                        assertTrue( cursor.next() );
+                        cursor.putLong( 0, pageId );
+                    }
+                }
+            }
+            pagedFile.close();
+        }
+        finally
+        {
+            pageCache.close();
+        }
+    }
+
+    @Test( timeout = SEMI_LONG_TIMEOUT_MILLIS )
+    public void mustPinAndEvictConcurrentlyWithSeveralFreelistStripesAndEvictionThreads() throws Exception
+    {
+        int cachePages = 16;
+        int filePages = 128;
+        int threads = 4;
+        MuninnPageCache pageCache = createPageCache( fs, cachePages, pageCachePageSize, EvictionPolicy.CLOCK, 4, 2 );
+        try
+        {
+            assertEquals( 4, pageCache.freelistStripeCount() );
+            PagedFile pagedFile = pageCache.map( file( "a" ), pageCachePageSize );
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK ) )
+            {
+                for ( int pageId = 0; pageId < filePages; pageId++ )
+                {
+                    assertTrue( cursor.next() );
+                    cursor.putLong( 0, pageId );
+                    cursor.putLong( 8, 0 );
+                }
+            }
+
+            // Every thread increments the counters of its own pages, and checks the page ids of all pages
+            int incrementsPerThread = 2000;
+            List<Future<?>> futures = new ArrayList<>();
+            for ( int t = 0; t < threads; t++ )
+            {
+                int thread = t;
+                futures.add( executor.submit( () ->
+                {
+                    ThreadLocalRandom rng = ThreadLocalRandom.current();
+                    for ( int i = 0; i < incrementsPerThread; i++ )
+                    {
+                        int ownPage = rng.nextInt( filePages / threads ) * threads + thread;
+                        try ( PageCursor cursor = pagedFile.io( ownPage, PF_SHARED_WRITE_LOCK ) )
+                        {
+                            assertTrue( cursor.next() );
+                            assertEquals( ownPage, cursor.getLong( 0 ) );
+                            cursor.putLong( 8, cursor.getLong( 8 ) + 1 );
+                        }
+                        int anyPage = rng.nextInt( filePages );
+                        try ( PageCursor cursor = pagedFile.io( anyPage, PF_SHARED_READ_LOCK ) )
+                        {
+                            assertTrue( cursor.next() );
+                            long pageId;
+                            do
+                            {
+                                pageId = cursor.getLong( 0 );
+                            }
+                            while ( cursor.shouldRetry() );
+                            assertEquals( anyPage, pageId );
+                        }
+                    }
+                    return null;
+                } ) );
+            }
+            for ( Future<?> future : futures )
+            {
+                future.get();
+            }
+
+            long increments = 0;
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK ) )
+            {
+                for ( int pageId = 0; pageId < filePages; pageId++ )
+                {
+                    assertTrue( cursor.next() );
+                    increments += cursor.getLong( 8 );
+                }
+            }
+            assertEquals( threads * incrementsPerThread, increments );
+            pagedFile.close();
+        }
+        finally
+        {
+            pageCache.close();
+        }
+    }
+
+    @Test( timeout = SEMI_LONG_TIMEOUT_MILLIS )
+    public void scanResistantPolicyMustKeepPromotedPagesThroughSequentialScanLargerThanTheCache() throws Exception
+    {
+        DefaultPageCacheTracer tracer = new DefaultPageCacheTracer();
+        int hotPages = 4;
+
+        long hotPageFaults = faultsOnHotPagesAfterLargeScan( EvictionPolicy.SCAN_RESISTANT, tracer, hotPages );
+
+        assertEquals( 0, hotPageFaults );
+        assertThat( tracer.protectedHits(), greaterThanOrEqualTo( (long) hotPages ) );
+        assertThat( tracer.probationaryEvictions(), greaterThan( 0L ) );
+    }
+
+    @Test( timeout = SEMI_LONG_TIMEOUT_MILLIS )
+    public void clockPolicyMustEvictFrequentlyUsedPagesInSequentialScanLargerThanTheCache() throws Exception
+    {
+        DefaultPageCacheTracer tracer = new DefaultPageCacheTracer();
+        int hotPages = 4;
+
+        long hotPageFaults = faultsOnHotPagesAfterLargeScan( EvictionPolicy.CLOCK, tracer, hotPages );
+
+        assertEquals( hotPages, hotPageFaults );
+        assertEquals( 0, tracer.protectedHits() );
+        assertEquals( 0, tracer.protectedEvictions() );
+    }
+
+    /**
+     * Uses the first pages of a file frequently, while reading the rest of the file in chunks, such that the clock
+     * arm sweeps past the frequently used pages several times. Then reads through the rest of the file, which is
+     * several times larger than the cache, and reads the frequently used pages again.
+     *
+     * @return the number of page faults when reading the frequently used pages after the scan.
+     */
+    private long faultsOnHotPagesAfterLargeScan( EvictionPolicy evictionPolicy, DefaultPageCacheTracer tracer,
+            int hotPages ) throws IOException
+    {
+        int cachePages = 32;
+        int coldPages = 8 * cachePages;
+        MuninnPageCache pageCache = createPageCache( fs, cachePages, pageCachePageSize, evictionPolicy, tracer, 1, 1 );
+        try
+        {
+            PagedFile pagedFile = pageCache.map( file( "a" ), pageCachePageSize );
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK ) )
+            {
+                for ( int pageId = 0; pageId < hotPages + coldPages; pageId++ )
+                {
+                    assertTrue( cursor.next() );
+                    cursor.putLong( 0, pageId );
+                }
+            }
+            pagedFile.flushAndForce();
+
+            int chunk = cachePages / 2;
+            for ( int round = 0; round < 20; round++ )
+            {
+                readPages( pagedFile, 0, hotPages );
+                readPages( pagedFile, hotPages + (round * chunk) % coldPages, chunk );
+            }
+            readPages( pagedFile, hotPages, coldPages );
+            readPages( pagedFile, hotPages, coldPages );
+
+            long faultsBefore = tracer.faults();
+            readPages( pagedFile, 0, hotPages );
+            long hotPageFaults = tracer.faults() - faultsBefore;
+            pagedFile.close();
+            return hotPageFaults;
+        }
+        finally
+        {
+            pageCache.close();
+        }
+    }
+
+    private void readPages( PagedFile pagedFile, long startPageId, int count ) throws IOException
+    {
+        try ( PageCursor cursor = pagedFile.io( startPageId, PF_SHARED_READ_LOCK ) )
+        {
+            for ( int i = 0; i < count; i++ )
+            {
+                assertTrue( cursor.next() );
+                assertEquals( startPageId + i, cursor.getLong( 0 ) );
+            }
+        }
+    }
+
+    @Test
+    public void mustDiscardFileCountersWhenDirtyFileIsUnmapped() throws Exception
+    {
+        DefaultPageCacheTracer tracer = new DefaultPageCacheTracer();
+        MuninnPageCache pageCache = createPageCache( fs, 4, 8, tracer );
+        PagedFile pagedFile = pageCache.map( file( "a" ), 8 );
+        try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK ) )
+        {
+            assertTrue( cursor.next() );
+            cursor.putLong( x );
+        }
+        assertEquals( 1, tracer.fileCounters().size() );
+
+        // The dirty page is flushed as part of unmapping, which must not bring the counters of the file back
+        pagedFile.close();
+        assertThat( tracer.flushes(), greaterThan( 0L ) );
+        assertEquals( 0, tracer.fileCounters().size() );
+    }
+
     @Test( expected = IllegalStateException.class, timeout = SEMI_LONG_TIMEOUT_MILLIS )
     public void mustThrowIfMappingFileWouldOverflowReferenceCount() throws Exception
     {
@@ -317,4 +907,20 @@ public class MuninnPageCacheTest extends PageCacheTest<MuninnPageCache>
             }
         }
     }
+
+    private MuninnPageCache createPageCache( FileSystemAbstraction fs, int maxPages, int pageSize,
+            EvictionPolicy evictionPolicy, int freelistStripes, int evictionThreads )
+    {
+        return createPageCache( fs, maxPages, pageSize, evictionPolicy, PageCacheTracer.NULL, freelistStripes,
+                evictionThreads );
+    }
+
+    private MuninnPageCache createPageCache( FileSystemAbstraction fs, int maxPages, int pageSize,
+            EvictionPolicy evictionPolicy, PageCacheTracer tracer, int freelistStripes, int evictionThreads )
+    {
+        PageSwapperFactory swapperFactory = new SingleFilePageSwapperFactory();
+        swapperFactory.setFileSystemAbstraction( fs );
+        return new MuninnPageCache( swapperFactory, maxPages, pageSize, tracer, evictionPolicy,
+                freelistStripes, evictionThreads );
+    }
 }
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.monitoring;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertThat;
+
+public class LatencyHistogramTest
+{
+    @Test
+    public void emptyHistogramMustReportZeros()
+    {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        assertThat( histogram.count(), is( 0L ) );
+        assertThat( histogram.meanMicros(), is( 0L ) );
+        assertThat( histogram.maxMicros(), is( 0L ) );
+        assertThat( histogram.percentileMicros( 0.99 ), is( 0L ) );
+    }
+
+    @Test
+    public void bucketsMustBeContiguousAndCoverTheirUpperBounds()
+    {
+        long expectedLowerBound = 0;
+        for ( int i = 0; i < 300; i++ )
+        {
+            long upperBound = LatencyHistogram.bucketUpperBound( i );
+            assertThat( LatencyHistogram.bucketIndex( expectedLowerBound ), is( i ) );
+            assertThat( LatencyHistogram.bucketIndex( upperBound ), is( i ) );
+            expectedLowerBound = upperBound + 1;
+        }
+    }
+
+    @Test
+    public void percentilesMustBeWithinBucketPrecision()
+    {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for ( int i = 1; i <= 1000; i++ )
+        {
+            histogram.record( i, TimeUnit.MICROSECONDS );
+        }
+
+        assertThat( histogram.count(), is( 1000L ) );
+        assertThat( histogram.maxMicros(), is( 1000L ) );
+        assertThat( histogram.meanMicros(), is( 500L ) );
+        assertWithinPrecision( histogram.percentileMicros( 0.5 ), 500 );
+        assertWithinPrecision( histogram.percentileMicros( 0.99 ), 990 );
+        assertThat( histogram.percentileMicros( 1.0 ), is( 1000L ) );
+    }
+
+    private void assertWithinPrecision( long actual, long expected )
+    {
+        assertThat( expected, lessThanOrEqualTo( actual ) );
+        assertThat( actual, lessThanOrEqualTo( expected + expected / 8 ) );
+    }
+}
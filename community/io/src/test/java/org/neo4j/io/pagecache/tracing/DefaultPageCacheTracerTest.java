@@ -19,6 +19,17 @@
  */
 package org.neo4j.io.pagecache.tracing;
 
+import org.junit.Test;
+
+import java.io.File;
+import java.util.List;
+
+import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.monitoring.PagedFileCounters;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
 public class DefaultPageCacheTracerTest extends PageCacheTracerTest
 {
     @Override
@@ -27,4 +38,74 @@ public class DefaultPageCacheTracerTest extends PageCacheTracerTest
         DefaultPageCacheTracer.enablePinUnpinTracing();
         return new DefaultPageCacheTracer();
     }
+
+    @Test
+    public void mustCountFaultsAndFlushesPerFile()
+    {
+        DefaultPageCacheTracer tracer = createTracer();
+        PageSwapper a = new DummyPageSwapper( "a" );
+        PageSwapper b = new DummyPageSwapper( "b" );
+        tracer.mappedFile( new File( "c" ) );
+
+        PinEvent pinEvent = tracer.beginPin( false, 0, a );
+        PageFaultEvent faultEvent = pinEvent.beginPageFault();
+        faultEvent.setSwapper( a );
+        faultEvent.addBytesRead( 42 );
+        faultEvent.done();
+        pinEvent.done();
+
+        try ( MajorFlushEvent fileFlush = tracer.beginFileFlush( b ) )
+        {
+            FlushEvent flushEvent = fileFlush.flushEventOpportunity().beginFlush( 0, 0, b );
+            flushEvent.addBytesWritten( 12 );
+            flushEvent.done();
+            flushEvent = fileFlush.flushEventOpportunity().beginFlush( 1, 1, b );
+            flushEvent.addBytesWritten( 12 );
+            flushEvent.done();
+        }
+
+        assertCounters( tracer, "a", 1, 42, 0, 0 );
+        assertCounters( tracer, "b", 0, 0, 2, 24 );
+        assertCounters( tracer, "c", 0, 0, 0, 0 );
+        assertThat( tracer.fileCounters().size(), is( 3 ) );
+        assertThat( tracer.faultLatency().count(), is( 1L ) );
+    }
+
+    @Test
+    public void mustDiscardCountersOfUnmappedFiles()
+    {
+        DefaultPageCacheTracer tracer = createTracer();
+        PageSwapper a = new DummyPageSwapper( "a" );
+        tracer.mappedFile( new File( "a" ) );
+        tracer.mappedFile( new File( "b" ) );
+
+        PinEvent pinEvent = tracer.beginPin( false, 0, a );
+        PageFaultEvent faultEvent = pinEvent.beginPageFault();
+        faultEvent.setSwapper( a );
+        faultEvent.done();
+        pinEvent.done();
+        tracer.unmappedFile( new File( "a" ) );
+
+        assertThat( tracer.fileCounters().size(), is( 1 ) );
+        assertCounters( tracer, "b", 0, 0, 0, 0 );
+        assertThat( tracer.faults(), is( 1L ) );
+
+        // Mapping the file again starts its counters over
+        tracer.mappedFile( new File( "a" ) );
+        assertCounters( tracer, "a", 0, 0, 0, 0 );
+    }
+
+    private void assertCounters( DefaultPageCacheTracer tracer, String fileName,
+            long faults, long bytesRead, long flushes, long bytesWritten )
+    {
+        List<PagedFileCounters> fileCounters = tracer.fileCounters();
+        PagedFileCounters counters = fileCounters.stream()
+                .filter( c -> c.file().equals( new File( fileName ) ) ).findFirst().get();
+        assertThat( "faults", counters.faults(), is( faults ) );
+        assertThat( "bytesRead", counters.bytesRead(), is( bytesRead ) );
+        assertThat( "flushes", counters.flushes(), is( flushes ) );
+        assertThat( "bytesWritten", counters.bytesWritten(), is( bytesWritten ) );
+        assertThat( "faultLatency", counters.faultLatency().count(), is( faults ) );
+        assertThat( "flushLatency", counters.flushLatency().count(), is( flushes ) );
+    }
 }
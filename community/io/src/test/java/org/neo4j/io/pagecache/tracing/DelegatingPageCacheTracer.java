@@ -20,8 +20,11 @@
 package org.neo4j.io.pagecache.tracing;
 
 import java.io.File;
+import java.util.List;
 
 import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.monitoring.LatencyHistogram;
+import org.neo4j.io.pagecache.monitoring.PagedFileCounters;
 
 /**
  * A PageCacheTracer that delegates all calls to a wrapped instance.
@@ -97,6 +100,36 @@ public class DelegatingPageCacheTracer implements PageCacheTracer
         return delegate.evictionExceptions();
     }
 
+    public long probationaryHits()
+    {
+        return delegate.probationaryHits();
+    }
+
+    public long protectedHits()
+    {
+        return delegate.protectedHits();
+    }
+
+    public long probationaryEvictions()
+    {
+        return delegate.probationaryEvictions();
+    }
+
+    public long protectedEvictions()
+    {
+        return delegate.protectedEvictions();
+    }
+
+    public LatencyHistogram faultLatency()
+    {
+        return delegate.faultLatency();
+    }
+
+    public List<PagedFileCounters> fileCounters()
+    {
+        return delegate.fileCounters();
+    }
+
     public long filesMapped()
     {
         return delegate.filesMapped();
@@ -29,12 +29,15 @@ import java.io.PrintStream;
 import java.io.StringReader;
 import java.util.IdentityHashMap;
 import java.util.LinkedList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 
 import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.monitoring.LatencyHistogram;
+import org.neo4j.io.pagecache.monitoring.PagedFileCounters;
 import org.neo4j.io.pagecache.tracing.EvictionEvent;
 import org.neo4j.io.pagecache.tracing.EvictionRunEvent;
 import org.neo4j.io.pagecache.tracing.FlushEvent;
@@ -246,6 +249,7 @@ public final class LinearHistoryPageCacheTracer implements PageCacheTracer
         private File file;
         private IOException exception;
         private int cachePageId;
+        private boolean protectedSegment;
 
         @Override
         public void setFilePageId( long filePageId )
@@ -277,6 +281,12 @@ public final class LinearHistoryPageCacheTracer implements PageCacheTracer
             this.cachePageId = cachePageId;
         }
 
+        @Override
+        public void setProtectedSegment( boolean protectedSegment )
+        {
+            this.protectedSegment = protectedSegment;
+        }
+
         @Override
         public FlushEvent beginFlush( long filePageId, int cachePageId, PageSwapper swapper )
         {
@@ -291,6 +301,8 @@ public final class LinearHistoryPageCacheTracer implements PageCacheTracer
             out.print( ", cachePageId:" );
             out.print( cachePageId );
             print( out, file );
+            out.append( ", protectedSegment:" );
+            out.print( protectedSegment );
             print( out, exception, exceptionLinePrefix );
         }
     }
@@ -359,6 +371,8 @@ public final class LinearHistoryPageCacheTracer implements PageCacheTracer
         private long filePageId;
         private File file;
         private int cachePageId;
+        private boolean hit;
+        private boolean protectedSegment;
 
         public PinHEvent( boolean exclusiveLock, long filePageId, PageSwapper swapper )
         {
@@ -373,6 +387,13 @@ public final class LinearHistoryPageCacheTracer implements PageCacheTracer
             this.cachePageId = cachePageId;
         }
 
+        @Override
+        public void hit( SegmentedPage page )
+        {
+            this.hit = true;
+            this.protectedSegment = page.isProtected();
+        }
+
         @Override
         public PageFaultEvent beginPageFault()
         {
@@ -395,6 +416,10 @@ public final class LinearHistoryPageCacheTracer implements PageCacheTracer
             print( out, file );
             out.append( ", exclusiveLock:" );
             out.print( exclusiveLock );
+            out.append( ", hit:" );
+            out.print( hit );
+            out.append( ", protectedSegment:" );
+            out.print( protectedSegment );
         }
     }
 
@@ -417,6 +442,11 @@ public final class LinearHistoryPageCacheTracer implements PageCacheTracer
             this.cachePageId = cachePageId;
         }
 
+        @Override
+        public void setSwapper( PageSwapper swapper )
+        {
+        }
+
         @Override
         public void done()
         {
@@ -624,6 +654,42 @@ public final class LinearHistoryPageCacheTracer implements PageCacheTracer
         return 0;
     }
 
+    @Override
+    public long probationaryHits()
+    {
+        return 0;
+    }
+
+    @Override
+    public long protectedHits()
+    {
+        return 0;
+    }
+
+    @Override
+    public long probationaryEvictions()
+    {
+        return 0;
+    }
+
+    @Override
+    public long protectedEvictions()
+    {
+        return 0;
+    }
+
+    @Override
+    public LatencyHistogram faultLatency()
+    {
+        return new LatencyHistogram();
+    }
+
+    @Override
+    public List<PagedFileCounters> fileCounters()
+    {
+        return Collections.emptyList();
+    }
+
     private class HistoryPrinter implements Consumer<HEvent>
     {
         private final List<HEvent> concurrentIntervals;
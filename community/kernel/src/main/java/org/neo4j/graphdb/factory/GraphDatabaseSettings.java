@@ -55,6 +55,7 @@ import static org.neo4j.kernel.configuration.Settings.STRING_LIST;
 import static org.neo4j.kernel.configuration.Settings.TRUE;
 import static org.neo4j.kernel.configuration.Settings.derivedSetting;
 import static org.neo4j.kernel.configuration.Settings.illegalValueMessage;
+import static org.neo4j.kernel.configuration.Settings.lessThan;
 import static org.neo4j.kernel.configuration.Settings.list;
 import static org.neo4j.kernel.configuration.Settings.matches;
 import static org.neo4j.kernel.configuration.Settings.max;
@@ -270,6 +271,44 @@ public abstract class GraphDatabaseSettings
                   "Set this to -1 to disable the IOPS limit.")
     public static final Setting<Integer> check_point_iops_limit = setting( "dbms.checkpoint.iops.limit", INTEGER, "1000" );
 
+    @Description( "Continuously flush dirty pages to the store files in the background, in between check-points. " +
+                  "The pages are flushed at a rate that follows the number of dirty pages in the page cache, and " +
+                  "the amount of transaction log written since the last check-point. This spreads the IO of " +
+                  "check-pointing out over time, so that each check-point has fewer pages left to flush. The " +
+                  "background flushing is subject to the same IOPS limit as check-pointing." )
+    public static final Setting<Boolean> check_point_background_flush =
+            setting( "dbms.checkpoint.background_flush.enabled", BOOLEAN, TRUE );
+
+    @Internal
+    @Description( "How often dirty pages are flushed in the background, when background flushing is enabled." )
+    public static final Setting<Long> check_point_background_flush_interval =
+            setting( "unsupported.dbms.checkpoint.background_flush.interval", DURATION, "1s" );
+
+    @Description( "Let the IOPS limit of check-pointing adapt to the latency of the foreground work. When page " +
+                  "faults and forces of the transaction log are fast, the limit is raised above " +
+                  "`dbms.checkpoint.iops.limit`, so that check-points finish quickly when the database is not busy. " +
+                  "When their latency degrades, the limit is lowered again, down to `dbms.checkpoint.iops.limit`. " +
+                  "This setting is ignored in Neo4j Community Edition, and when the IOPS limit is disabled." )
+    public static final Setting<Boolean> check_point_iops_adaptive =
+            setting( "dbms.checkpoint.iops.adaptive.enabled", BOOLEAN, FALSE );
+
+    @Description( "The highest IOPS limit that adaptive IO limiting will raise the limit of check-pointing to. " +
+                  "Set this to -1 to let the limit rise for as long as the foreground latency stays healthy." )
+    public static final Setting<Integer> check_point_iops_adaptive_max_limit =
+            setting( "dbms.checkpoint.iops.adaptive.max_limit", INTEGER, "-1" );
+
+    @Internal
+    @Description( "The mean page fault latency above which adaptive IO limiting will lower the IOPS limit of " +
+                  "check-pointing." )
+    public static final Setting<Long> check_point_iops_adaptive_page_fault_latency =
+            setting( "unsupported.dbms.checkpoint.iops.adaptive.page_fault_latency", DURATION, "5ms" );
+
+    @Internal
+    @Description( "The mean latency of forcing the transaction log, above which adaptive IO limiting will lower the " +
+                  "IOPS limit of check-pointing." )
+    public static final Setting<Long> check_point_iops_adaptive_log_force_latency =
+            setting( "unsupported.dbms.checkpoint.iops.adaptive.log_force_latency", DURATION, "20ms" );
+
     // Auto Indexing
     @Description("Controls the auto indexing feature for nodes. Setting it to `false` shuts it down, " +
             "while `true` enables it by default for properties listed in the dbms.auto_index.nodes.keys setting.")
@@ -339,6 +378,64 @@ public abstract class GraphDatabaseSettings
                   "`0` means that no rotation will automatically occur based on file size. " )
     public static final Setting<Long> logical_log_rotation_threshold = setting( "dbms.tx_log.rotation.size", BYTES, "250M", min( 1024*1024L /*1Mb*/ ) );
 
+    @Description( "Pre-allocate transaction log files to the rotation size in the background, ahead of log " +
+                  "rotation, and reuse pruned log files instead of deleting them. This spares the file system from " +
+                  "growing the current log file as transactions are appended to it." )
+    @Internal
+    public static final Setting<Boolean> logical_log_preallocation =
+            setting( "dbms.tx_log.preallocate", BOOLEAN, FALSE );
+
+    @Description( "Compress the log entries of larger transactions as they are appended to the transaction log. " +
+                  "Transaction log files written with compression enabled can not be read by Neo4j versions that " +
+                  "don't support compressed log entries." )
+    public static final Setting<Boolean> logical_log_compression =
+            setting( "dbms.tx_log.compression", BOOLEAN, FALSE );
+
+    @Description( "Read transaction log files that have been rotated out through memory-mapped buffers, which makes " +
+                  "scanning the transaction log, e.g. for backups and recovery, considerably faster. Ignored on " +
+                  "Windows, where mapped files can't be deleted, and when `dbms.tx_log.preallocate` is enabled, " +
+                  "since pruned log files are then reused." )
+    public static final Setting<Boolean> logical_log_mapped_reads =
+            setting( "dbms.tx_log.mapped_reads", BOOLEAN, TRUE );
+
+    @Description( "Transaction logs are indexed with the position of about one transaction per this many bytes of " +
+                  "log, which is the most that has to be read to find a transaction that isn't cached. " +
+                  "Zero disables the index." )
+    @Internal
+    public static final Setting<Long> logical_log_index_stride =
+            setting( "unsupported.dbms.tx_log.index.stride", BYTES, "256k", min( 0L ) );
+
+    @Description( "The number of threads to recover the database with after a crash. With more than one thread, " +
+                  "transactions are read from the transaction log ahead of being applied, and the node, " +
+                  "relationship and property records of the recovered transactions are written in parallel, " +
+                  "partitioned by the store page they're on. Other changes are still applied in transaction order." )
+    public static final Setting<Integer> recovery_parallelism =
+            setting( "dbms.recovery.parallelism", INTEGER, "1", min( 1 ) );
+
+    @Description( "Enable adaptive group commit, where the thread forcing the transaction log may wait briefly for " +
+                  "concurrently committing transactions, such that they are made durable by the same force. The " +
+                  "wait is derived from the observed force latency and commit rate, and is never longer than " +
+                  "`unsupported.dbms.tx_log.group_commit.max_delay`." )
+    @Internal
+    public static final Setting<Boolean> tx_log_group_commit_enabled =
+            setting( "unsupported.dbms.tx_log.group_commit.enabled", BOOLEAN, FALSE );
+
+    @Description( "The maximum time, in microseconds, that adaptive group commit may delay a force of the " +
+                  "transaction log." )
+    @Internal
+    public static final Setting<Integer> tx_log_group_commit_max_delay =
+            setting( "unsupported.dbms.tx_log.group_commit.max_delay", INTEGER, "500", min( 0 ) );
+
+    @Description( "The number of ids in each of the batches that nodes, relationships and properties are allocated " +
+                  "ids from, instead of from the id generators directly. There is a fixed pool of batches, two to " +
+                  "four per processor, and a thread borrows a batch for a single allocation at a time. When all " +
+                  "batches are borrowed, the id is allocated from the id generator instead. Ids freed by deleting " +
+                  "entities are kept on a lock-free stack. Unused ids are handed back to the id generators on " +
+                  "shutdown. `0` disables the pooled batches." )
+    @Internal
+    public static final Setting<Integer> id_generator_pooled_batch_size =
+            setting( "unsupported.dbms.id_generator.pooled_batch_size", INTEGER, "0", min( 0 ) );
+
     @Description("Use a quick approach for rebuilding the ID generators. This give quicker recovery time, " +
             "but will limit the ability to reuse the space of deleted entities.")
     @Internal
@@ -401,10 +498,51 @@ public abstract class GraphDatabaseSettings
     }
 
     @Description( "Specify which page swapper to use for doing paged IO. " +
-                  "This is only used when integrating with proprietary storage technology." )
+                  "Set to `direct` to open store files with O_DIRECT, such that page cache IO bypasses the " +
+                  "operating system page cache. Direct IO requires JDK 10 or later, and is not available on Java 8. " +
+                  "Other values are only used when integrating with proprietary storage technology." )
     public static final Setting<String> pagecache_swapper =
             setting( "dbms.memory.pagecache.swapper", STRING, (String) null );
 
+    @Description( "Specify the eviction policy used by the page cache. The default `CLOCK` policy treats all " +
+                  "pages alike, while `SCAN_RESISTANT` keeps pages that have been accessed repeatedly in a " +
+                  "protected segment, so that large one-off scans cannot flush the frequently used pages " +
+                  "out of the cache." )
+    @Internal
+    public static final Setting<String> pagecache_eviction_policy =
+            setting( "unsupported.dbms.memory.pagecache.eviction_policy", options( "CLOCK", "SCAN_RESISTANT" ),
+                    "CLOCK" );
+
+    @Description( "The share of the page cache that is reserved for each of the node and relationship stores. " +
+                  "Pages of these stores are not evicted while the store occupies no more than its reserved " +
+                  "share, unless the page cache has no other pages to evict. The share is reserved for both " +
+                  "stores, so it must be less than 0.5, to leave some of the page cache for everything else. " +
+                  "A value of 0 disables the reservation." )
+    @Internal
+    public static final Setting<Double> pagecache_topology_reserved_share =
+            setting( "unsupported.dbms.memory.pagecache.topology_reserved_share", DOUBLE, "0", min( 0.0 ),
+                    lessThan( 0.5 ) );
+
+    @Description( "The maximum share of the page cache, between 0 and 1, that the string property store should " +
+                  "occupy. Pages of the string property store are evicted first, whenever the store occupies more " +
+                  "than this share. A value of 1 disables the bound." )
+    @Internal
+    public static final Setting<Double> pagecache_string_store_max_share =
+            setting( "unsupported.dbms.memory.pagecache.string_store_max_share", DOUBLE, "1", min( 0.0 ),
+                    max( 1.0 ) );
+
+    @Description( "Periodically record a profile of which pages are loaded in the page cache, and use the most " +
+                  "recent profile to warm up the page cache in the background when the database starts. This " +
+                  "shortens the time it takes for the database to reach its usual performance after a restart." )
+    public static final Setting<Boolean> pagecache_warmup_enabled =
+            setting( "dbms.memory.pagecache.warmup.enable", BOOLEAN, TRUE );
+
+    @Description( "The profiling frequency for the page cache. Accurate profiles allow the page cache to do active " +
+                  "warmup after a restart, reducing the mean time to performance. The default is '1m' for a " +
+                  "profile every minute." )
+    public static final Setting<Long> pagecache_warmup_profiling_interval =
+            setting( "dbms.memory.pagecache.warmup.profile.interval", DURATION, "1m" );
+
     /**
      * Block size properties values depends from selected record format.
      * We can't figured out record format until it will be selected by corresponding edition.
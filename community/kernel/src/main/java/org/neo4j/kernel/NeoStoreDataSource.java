@@ -30,6 +30,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.LockSupport;
 import java.util.function.Supplier;
 
+import org.apache.commons.lang3.SystemUtils;
 import org.neo4j.graphdb.DependencyResolver;
 import org.neo4j.graphdb.ResourceIterator;
 import org.neo4j.graphdb.config.Setting;
@@ -79,8 +80,9 @@ import org.neo4j.kernel.impl.index.IndexConfigStore;
 import org.neo4j.kernel.impl.index.LegacyIndexStore;
 import org.neo4j.kernel.impl.locking.LockService;
 import org.neo4j.kernel.impl.locking.Locks;
-import org.neo4j.kernel.impl.locking.ReentrantLockService;
+import org.neo4j.kernel.impl.locking.StripedLockService;
 import org.neo4j.kernel.impl.logging.LogService;
+import org.neo4j.kernel.impl.pagecache.PageCacheWarmer;
 import org.neo4j.kernel.impl.proc.Procedures;
 import org.neo4j.kernel.impl.storageengine.impl.recordstorage.RecordStorageEngine;
 import org.neo4j.kernel.impl.store.MetaDataStore;
@@ -95,10 +97,14 @@ import org.neo4j.kernel.impl.storemigration.monitoring.VisibleMigrationProgressM
 import org.neo4j.kernel.impl.storemigration.participant.StoreMigrator;
 import org.neo4j.kernel.impl.transaction.TransactionHeaderInformationFactory;
 import org.neo4j.kernel.impl.transaction.TransactionMonitor;
+import org.neo4j.kernel.impl.transaction.log.AdaptiveGroupCommit;
+import org.neo4j.kernel.impl.transaction.log.BackgroundLogFilePreallocator;
 import org.neo4j.kernel.impl.transaction.log.BatchingTransactionAppender;
 import org.neo4j.kernel.impl.transaction.log.LogFile;
 import org.neo4j.kernel.impl.transaction.log.LogFileInformation;
+import org.neo4j.kernel.impl.transaction.log.LogFilePreallocator;
 import org.neo4j.kernel.impl.transaction.log.LogFileRecoverer;
+import org.neo4j.kernel.impl.transaction.log.LogForceCounters;
 import org.neo4j.kernel.impl.transaction.log.LogHeaderCache;
 import org.neo4j.kernel.impl.transaction.log.LogPosition;
 import org.neo4j.kernel.impl.transaction.log.LogVersionRepository;
@@ -111,9 +117,13 @@ import org.neo4j.kernel.impl.transaction.log.PhysicalLogFiles;
 import org.neo4j.kernel.impl.transaction.log.PhysicalLogicalTransactionStore;
 import org.neo4j.kernel.impl.transaction.log.ReadableClosablePositionAwareChannel;
 import org.neo4j.kernel.impl.transaction.log.ReadableLogChannel;
+import org.neo4j.kernel.impl.transaction.log.SparseTransactionLogIndex;
 import org.neo4j.kernel.impl.transaction.log.TransactionAppender;
 import org.neo4j.kernel.impl.transaction.log.TransactionIdStore;
+import org.neo4j.kernel.impl.transaction.log.TransactionLogIndex;
 import org.neo4j.kernel.impl.transaction.log.TransactionMetadataCache;
+import org.neo4j.kernel.impl.transaction.log.checkpoint.BackgroundFlushMonitor;
+import org.neo4j.kernel.impl.transaction.log.checkpoint.BackgroundFlusher;
 import org.neo4j.kernel.impl.transaction.log.checkpoint.CheckPointScheduler;
 import org.neo4j.kernel.impl.transaction.log.checkpoint.CheckPointThreshold;
 import org.neo4j.kernel.impl.transaction.log.checkpoint.CheckPointThresholds;
@@ -160,6 +170,8 @@ import org.neo4j.logging.Logger;
 import org.neo4j.storageengine.api.StorageEngine;
 import org.neo4j.storageengine.api.StoreReadLayer;
 
+import static org.neo4j.kernel.impl.transaction.log.entry.LogVersions.COMPRESSED_ENTRIES_LOG_VERSION;
+import static org.neo4j.kernel.impl.transaction.log.entry.LogVersions.CURRENT_LOG_VERSION;
 import static org.neo4j.kernel.impl.transaction.log.pruning.LogPruneStrategyFactory.fromConfigValue;
 
 public class NeoStoreDataSource implements Lifecycle, IndexProviders
@@ -181,6 +193,10 @@ public class NeoStoreDataSource implements Lifecycle, IndexProviders
         TransactionAppender transactionAppender();
 
         IdOrderingQueue legacyIndexTransactionOrderingQueue();
+
+        LogForceCounters logForceCounters();
+
+        BackgroundFlushMonitor backgroundFlushMonitor();
     }
 
     private interface KernelModule
@@ -370,7 +386,7 @@ public class NeoStoreDataSource implements Lifecycle, IndexProviders
 
         readOnly = config.get( Configuration.read_only );
         msgLog = logProvider.getLog( getClass() );
-        this.lockService = new ReentrantLockService();
+        this.lockService = new StripedLockService();
         this.legacyIndexProviderLookup = new LegacyIndexProviderLookup()
         {
             @Override
@@ -480,6 +496,14 @@ public class NeoStoreDataSource implements Lifecycle, IndexProviders
             dependencies.satisfyDependency( logEntryReader );
             dependencies.satisfyDependency( storageEngine );
             satisfyDependencies( kernelModule );
+
+            if ( config.get( GraphDatabaseSettings.pagecache_warmup_enabled ) )
+            {
+                PageCacheWarmer pageCacheWarmer = new PageCacheWarmer( fs, pageCache, scheduler, storeDir,
+                        config.get( GraphDatabaseSettings.pagecache_warmup_profiling_interval ), logProvider );
+                life.add( pageCacheWarmer );
+                dependencies.satisfyDependency( pageCacheWarmer );
+            }
         }
         catch ( Throwable e )
         {
@@ -577,7 +601,7 @@ public class NeoStoreDataSource implements Lifecycle, IndexProviders
                 relationshipTypeTokens, schemaStateChangeCallback, constraintSemantics, scheduler, tokenNameLookup,
                 lockService, schemaIndexProvider, indexingServiceMonitor, databaseHealth, labelScanStore,
                 legacyIndexProviderLookup, indexConfigStore, legacyIndexTransactionOrdering,
-                transactionSnapshotSupplier );
+                transactionSnapshotSupplier, tracers.transactionTracer );
 
         // We pretend that the storage engine abstract hides all details within it. Whereas that's mostly
         // true it's not entirely true for the time being. As long as we need this call below, which
@@ -602,10 +626,25 @@ public class NeoStoreDataSource implements Lifecycle, IndexProviders
         final PhysicalLogFiles logFiles = new PhysicalLogFiles( storeDir, PhysicalLogFile.DEFAULT_NAME,
                 fileSystemAbstraction );
 
+        long rotationThreshold = config.get( GraphDatabaseSettings.logical_log_rotation_threshold );
+        final LogFilePreallocator logFilePreallocator = config.get( GraphDatabaseSettings.logical_log_preallocation )
+                ? life.add( new BackgroundLogFilePreallocator( fileSystemAbstraction, logFiles, rotationThreshold,
+                        scheduler, logProvider ) )
+                : LogFilePreallocator.NONE;
+
+        boolean compressLogEntries = config.get( GraphDatabaseSettings.logical_log_compression );
+        // Recycling a pruned log file truncates it, which must not happen to a file that a reader has mapped
+        boolean mapRotatedLogs = config.get( GraphDatabaseSettings.logical_log_mapped_reads ) &&
+                !config.get( GraphDatabaseSettings.logical_log_preallocation ) && !SystemUtils.IS_OS_WINDOWS;
         final PhysicalLogFile logFile = life.add( new PhysicalLogFile( fileSystemAbstraction, logFiles,
-                config.get( GraphDatabaseSettings.logical_log_rotation_threshold ),
-                transactionIdStore::getLastCommittedTransactionId, logVersionRepository, physicalLogMonitor,
-                logHeaderCache ) );
+                rotationThreshold, transactionIdStore::getLastCommittedTransactionId, logVersionRepository,
+                physicalLogMonitor, logHeaderCache, logEntryReader, logFilePreallocator,
+                compressLogEntries ? COMPRESSED_ENTRIES_LOG_VERSION : CURRENT_LOG_VERSION, mapRotatedLogs,
+                () ->
+                {
+                    long[] lastClosedTransaction = transactionIdStore.getLastClosedTransaction();
+                    return new LogPosition( lastClosedTransaction[1], lastClosedTransaction[2] );
+                } ) );
 
         final PhysicalLogFileInformation.LogVersionToTimestamp
                 logInformation = new PhysicalLogFileInformation.LogVersionToTimestamp()
@@ -636,18 +675,27 @@ public class NeoStoreDataSource implements Lifecycle, IndexProviders
                 ? GraphDatabaseFacadeFactory.Configuration.ephemeral_keep_logical_logs
                 : GraphDatabaseSettings.keep_logical_logs );
 
-        LogPruneStrategy logPruneStrategy = fromConfigValue( fs, logFileInformation, logFiles, pruningConf );
+        LogPruneStrategy logPruneStrategy =
+                fromConfigValue( fs, logFileInformation, logFiles, pruningConf, logFilePreallocator );
 
         final LogPruning logPruning = new LogPruningImpl( logPruneStrategy, logProvider );
 
         final LogRotation logRotation =
                 new LogRotationImpl( monitors.newMonitor( LogRotation.Monitor.class ), logFile, databaseHealth );
 
+        final AdaptiveGroupCommit groupCommit = config.get( GraphDatabaseSettings.tx_log_group_commit_enabled )
+                ? new AdaptiveGroupCommit( config.get( GraphDatabaseSettings.tx_log_group_commit_max_delay ),
+                        TimeUnit.MICROSECONDS )
+                : AdaptiveGroupCommit.disabled();
+        long indexStride = config.get( GraphDatabaseSettings.logical_log_index_stride );
+        final TransactionLogIndex transactionLogIndex = indexStride > 0
+                ? new SparseTransactionLogIndex( fileSystemAbstraction, logFiles, indexStride, logProvider )
+                : TransactionLogIndex.NONE;
         final TransactionAppender appender = life.add( new BatchingTransactionAppender(
                 logFile, logRotation, transactionMetadataCache, transactionIdStore, legacyIndexTransactionOrdering,
-                databaseHealth ) );
-        final LogicalTransactionStore logicalTransactionStore =
-                new PhysicalLogicalTransactionStore( logFile, transactionMetadataCache, logEntryReader );
+                databaseHealth, groupCommit, compressLogEntries, transactionLogIndex ) );
+        final LogicalTransactionStore logicalTransactionStore = new PhysicalLogicalTransactionStore(
+                logFile, transactionMetadataCache, logEntryReader, transactionLogIndex );
 
         int txThreshold = config.get( GraphDatabaseSettings.check_point_interval_tx );
         final CountCommittedTransactionThreshold countCommittedTransactionThreshold =
@@ -667,8 +715,16 @@ public class NeoStoreDataSource implements Lifecycle, IndexProviders
         long recurringPeriod = Math.min( timeMillisThreshold, TimeUnit.SECONDS.toMillis( 10 ) );
         CheckPointScheduler checkPointScheduler = new CheckPointScheduler( checkPointer, scheduler, recurringPeriod );
 
+        final BackgroundFlusher backgroundFlusher = new BackgroundFlusher( pageCache, ioLimiter, transactionIdStore,
+                checkPointer::lastCheckPointedPosition, rotationThreshold, scheduler,
+                config.get( GraphDatabaseSettings.check_point_background_flush_interval ), logProvider );
+
         life.add( checkPointer );
         life.add( checkPointScheduler );
+        if ( config.get( GraphDatabaseSettings.check_point_background_flush ) )
+        {
+            life.add( backgroundFlusher );
+        }
 
         return new TransactionLogModule()
         {
@@ -719,6 +775,18 @@ public class NeoStoreDataSource implements Lifecycle, IndexProviders
             {
                 return legacyIndexTransactionOrdering;
             }
+
+            @Override
+            public LogForceCounters logForceCounters()
+            {
+                return groupCommit;
+            }
+
+            @Override
+            public BackgroundFlushMonitor backgroundFlushMonitor()
+            {
+                return backgroundFlusher;
+            }
         };
     }
 
@@ -737,7 +805,10 @@ public class NeoStoreDataSource implements Lifecycle, IndexProviders
                 recoveryVisitorMonitor );
 
         final Visitor<LogVersionedStoreChannel,Exception> logFileRecoverer =
-                new LogFileRecoverer( logEntryReader, recoveryVisitor );
+                config.get( GraphDatabaseSettings.recovery_parallelism ) > 1
+                ? new LogFileRecoverer( logEntryReader, recoveryVisitor,
+                        scheduler.executor( JobScheduler.Groups.recovery ) )
+                : new LogFileRecoverer( logEntryReader, recoveryVisitor );
 
         final LatestCheckPointFinder checkPointFinder =
                 new LatestCheckPointFinder( logFiles, fileSystemAbstraction, logEntryReader );
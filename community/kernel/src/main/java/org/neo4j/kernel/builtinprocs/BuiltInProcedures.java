@@ -23,6 +23,8 @@ import java.lang.management.ManagementFactory;
 
 import org.neo4j.function.ThrowingConsumer;
 import org.neo4j.kernel.api.exceptions.ProcedureException;
+import org.neo4j.kernel.impl.api.CommitPhaseMonitor;
+import org.neo4j.kernel.impl.locking.LockContentionMonitor;
 import org.neo4j.kernel.impl.proc.Procedures;
 
 import static org.neo4j.kernel.api.proc.ProcedureSignature.procedureName;
@@ -34,11 +36,26 @@ public class BuiltInProcedures implements ThrowingConsumer<Procedures, Procedure
 {
     private final String neo4jVersion;
     private final String neo4jEdition;
+    private final CommitPhaseMonitor commitPhaseMonitor;
+    private final LockContentionMonitor lockContentionMonitor;
 
     public BuiltInProcedures( String neo4jVersion, String neo4jEdition )
+    {
+        this( neo4jVersion, neo4jEdition, CommitPhaseMonitor.NONE );
+    }
+
+    public BuiltInProcedures( String neo4jVersion, String neo4jEdition, CommitPhaseMonitor commitPhaseMonitor )
+    {
+        this( neo4jVersion, neo4jEdition, commitPhaseMonitor, LockContentionMonitor.NONE );
+    }
+
+    public BuiltInProcedures( String neo4jVersion, String neo4jEdition, CommitPhaseMonitor commitPhaseMonitor,
+            LockContentionMonitor lockContentionMonitor )
     {
         this.neo4jVersion = neo4jVersion;
         this.neo4jEdition = neo4jEdition;
+        this.commitPhaseMonitor = commitPhaseMonitor;
+        this.lockContentionMonitor = lockContentionMonitor;
     }
 
     @Override
@@ -57,5 +74,9 @@ public class BuiltInProcedures implements ThrowingConsumer<Procedures, Procedure
         procs.register( new ListProceduresProcedure( procedureName( "dbms", "procedures" ) ) );
         procs.register( new ListComponentsProcedure( procedureName( "dbms", "components" ), neo4jVersion, neo4jEdition ) );
         procs.register( new JmxQueryProcedure( procedureName( "dbms", "queryJmx" ), ManagementFactory.getPlatformMBeanServer() ) );
+        procs.register( new ListCommitPhaseLatenciesProcedure( procedureName( "dbms", "listCommitPhaseLatencies" ),
+                commitPhaseMonitor ) );
+        procs.register( new ListLockContentionProcedure( procedureName( "dbms", "listLockContention" ),
+                lockContentionMonitor ) );
     }
 }
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.builtinprocs;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.neo4j.collection.RawIterator;
+import org.neo4j.io.pagecache.monitoring.LatencyHistogram;
+import org.neo4j.kernel.api.exceptions.ProcedureException;
+import org.neo4j.kernel.api.proc.CallableProcedure;
+import org.neo4j.kernel.api.proc.ProcedureSignature.ProcedureName;
+import org.neo4j.kernel.impl.api.CommitPhaseMonitor;
+import org.neo4j.kernel.impl.transaction.tracing.CommitPhase;
+
+import static org.neo4j.helpers.collection.Iterators.asRawIterator;
+import static org.neo4j.kernel.api.proc.Neo4jTypes.NTInteger;
+import static org.neo4j.kernel.api.proc.Neo4jTypes.NTString;
+import static org.neo4j.kernel.api.proc.ProcedureSignature.procedureSignature;
+
+/**
+ * Lists the latencies of each {@link CommitPhase phase} of the commits made since the database was started, in
+ * microseconds, such that it can be seen where the time of committing transactions goes.
+ */
+public class ListCommitPhaseLatenciesProcedure extends CallableProcedure.BasicProcedure
+{
+    private final CommitPhaseMonitor monitor;
+
+    public ListCommitPhaseLatenciesProcedure( ProcedureName name, CommitPhaseMonitor monitor )
+    {
+        super( procedureSignature( name )
+                .out( "phase", NTString )
+                .out( "count", NTInteger )
+                .out( "meanMicros", NTInteger )
+                .out( "p50Micros", NTInteger )
+                .out( "p99Micros", NTInteger )
+                .out( "maxMicros", NTInteger )
+                .build() );
+        this.monitor = monitor;
+    }
+
+    @Override
+    public RawIterator<Object[],ProcedureException> apply( Context ctx, Object[] input ) throws ProcedureException
+    {
+        List<Object[]> rows = new ArrayList<>();
+        for ( CommitPhase phase : CommitPhase.values() )
+        {
+            LatencyHistogram latency = monitor.commitPhaseLatency( phase );
+            rows.add( new Object[]{phase.name().toLowerCase(), latency.count(), latency.meanMicros(),
+                    latency.percentileMicros( 0.5 ), latency.percentileMicros( 0.99 ), latency.maxMicros()} );
+        }
+        return asRawIterator( rows.iterator() );
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.builtinprocs;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.neo4j.collection.RawIterator;
+import org.neo4j.kernel.api.exceptions.ProcedureException;
+import org.neo4j.kernel.api.proc.CallableProcedure;
+import org.neo4j.kernel.api.proc.ProcedureSignature.ProcedureName;
+import org.neo4j.kernel.impl.locking.LockContentionMonitor;
+
+import static org.neo4j.helpers.collection.Iterators.asRawIterator;
+import static org.neo4j.kernel.api.proc.Neo4jTypes.NTInteger;
+import static org.neo4j.kernel.api.proc.Neo4jTypes.NTString;
+import static org.neo4j.kernel.api.proc.ProcedureSignature.procedureSignature;
+
+/**
+ * Lists the resources that transactions have had to wait the longest for to get their locks since the database was
+ * started, most contended first per resource type, along with who held the lock the last time someone had to wait.
+ */
+public class ListLockContentionProcedure extends CallableProcedure.BasicProcedure
+{
+    private final LockContentionMonitor monitor;
+
+    public ListLockContentionProcedure( ProcedureName name, LockContentionMonitor monitor )
+    {
+        super( procedureSignature( name )
+                .out( "resourceType", NTString )
+                .out( "resourceId", NTInteger )
+                .out( "waits", NTInteger )
+                .out( "totalWaitMicros", NTInteger )
+                .out( "maxWaitMicros", NTInteger )
+                .out( "lastHolders", NTString )
+                .build() );
+        this.monitor = monitor;
+    }
+
+    @Override
+    public RawIterator<Object[],ProcedureException> apply( Context ctx, Object[] input ) throws ProcedureException
+    {
+        List<Object[]> rows = new ArrayList<>();
+        monitor.visitContendedResources( ( resourceType, resourceId, waits, totalWaitMicros, maxWaitMicros,
+                lastHolders ) -> rows.add( new Object[]{resourceType.toString(), resourceId, waits, totalWaitMicros,
+                maxWaitMicros, lastHolders} ) );
+        return asRawIterator( rows.iterator() );
+    }
+}
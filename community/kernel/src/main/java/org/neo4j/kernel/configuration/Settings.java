@@ -772,6 +772,28 @@ public class Settings
         };
     }
 
+    public static <T extends Comparable<T>> BiFunction<T, Function<String, String>, T> lessThan( final T bound )
+    {
+        return new BiFunction<T, Function<String, String>, T>()
+        {
+            @Override
+            public T apply( T value, Function<String, String> settings )
+            {
+                if ( value != null && value.compareTo( bound ) >= 0 )
+                {
+                    throw new IllegalArgumentException( String.format( "value must be less than: %s", bound ) );
+                }
+                return value;
+            }
+
+            @Override
+            public String toString()
+            {
+                return "is less than `" + bound + "`";
+            }
+        };
+    }
+
     public static <T extends Comparable<T>> BiFunction<T, Function<String, String>, T> range( final T min, final T max )
     {
         return new BiFunction<T, Function<String, String>, T>()
@@ -23,7 +23,10 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.neo4j.helpers.Clock;
+import org.neo4j.io.pagecache.monitoring.LatencyHistogram;
 import org.neo4j.kernel.impl.transaction.tracing.CommitEvent;
+import org.neo4j.kernel.impl.transaction.tracing.CommitPhase;
+import org.neo4j.kernel.impl.transaction.tracing.CommitPhaseEvent;
 import org.neo4j.kernel.impl.transaction.tracing.LogAppendEvent;
 import org.neo4j.kernel.impl.transaction.tracing.LogForceEvent;
 import org.neo4j.kernel.impl.transaction.tracing.LogForceWaitEvent;
@@ -34,7 +37,8 @@ import org.neo4j.kernel.impl.transaction.tracing.TransactionEvent;
 import org.neo4j.kernel.impl.transaction.tracing.TransactionTracer;
 import org.neo4j.kernel.impl.util.JobScheduler;
 
-public class DefaultTransactionTracer implements TransactionTracer, LogRotationMonitor
+public class DefaultTransactionTracer
+        implements TransactionTracer, LogRotationMonitor, LogForceMonitor, CommitPhaseMonitor
 {
     public interface Monitor
     {
@@ -47,8 +51,20 @@ public class DefaultTransactionTracer implements TransactionTracer, LogRotationM
 
     private final AtomicLong counter = new AtomicLong();
     private final AtomicLong accumulatedTotalTimeNanos = new AtomicLong();
+    private final LatencyHistogram logForceLatency = new LatencyHistogram();
+    private final LatencyHistogram[] commitPhaseLatencies = new LatencyHistogram[CommitPhase.values().length];
 
     private long startTimeNanos;
+    private long logForceStartTimeNanos;
+
+    private final LogForceEvent logForceEvent = new LogForceEvent()
+    {
+        @Override
+        public void close()
+        {
+            logForceLatency.record( clock.nanoTime() - logForceStartTimeNanos, TimeUnit.NANOSECONDS );
+        }
+    };
 
     private final LogRotateEvent logRotateEvent = new LogRotateEvent()
     {
@@ -82,19 +98,21 @@ public class DefaultTransactionTracer implements TransactionTracer, LogRotationM
         @Override
         public SerializeTransactionEvent beginSerializeTransaction()
         {
-            return SerializeTransactionEvent.NULL;
+            return new PhaseEvent( CommitPhase.APPEND );
         }
 
         @Override
         public LogForceWaitEvent beginLogForceWait()
         {
-            return LogForceWaitEvent.NULL;
+            return new PhaseEvent( CommitPhase.FORCE );
         }
 
         @Override
         public LogForceEvent beginLogForce()
         {
-            return LogForceEvent.NULL;
+            // Forces of the transaction log are serialized, so there is only ever one of these events going on.
+            logForceStartTimeNanos = clock.nanoTime();
+            return logForceEvent;
         }
     };
 
@@ -114,7 +132,13 @@ public class DefaultTransactionTracer implements TransactionTracer, LogRotationM
         @Override
         public StoreApplyEvent beginStoreApply()
         {
-            return StoreApplyEvent.NULL;
+            return new PhaseEvent( CommitPhase.APPLY );
+        }
+
+        @Override
+        public CommitPhaseEvent beginPhase( CommitPhase phase )
+        {
+            return new PhaseEvent( phase );
         }
     };
 
@@ -163,6 +187,10 @@ public class DefaultTransactionTracer implements TransactionTracer, LogRotationM
         this.clock = clock;
         this.monitor = monitor;
         this.jobScheduler = jobScheduler;
+        for ( int i = 0; i < commitPhaseLatencies.length; i++ )
+        {
+            commitPhaseLatencies[i] = new LatencyHistogram();
+        }
     }
 
     @Override
@@ -171,6 +199,12 @@ public class DefaultTransactionTracer implements TransactionTracer, LogRotationM
         return transactionEvent;
     }
 
+    @Override
+    public CommitPhaseEvent beginIndexUpdates()
+    {
+        return new PhaseEvent( CommitPhase.INDEX_UPDATE );
+    }
+
     @Override
     public long numberOfLogRotationEvents()
     {
@@ -183,6 +217,18 @@ public class DefaultTransactionTracer implements TransactionTracer, LogRotationM
         return TimeUnit.NANOSECONDS.toMillis( accumulatedTotalTimeNanos.get() );
     }
 
+    @Override
+    public LatencyHistogram logForceLatency()
+    {
+        return logForceLatency;
+    }
+
+    @Override
+    public LatencyHistogram commitPhaseLatency( CommitPhase phase )
+    {
+        return commitPhaseLatencies[phase.ordinal()];
+    }
+
     private void updateCountersAndNotifyListeners()
     {
         counter.incrementAndGet();
@@ -193,4 +239,27 @@ public class DefaultTransactionTracer implements TransactionTracer, LogRotationM
             monitor.lastLogRotationEventDuration( millis );
         } );
     }
+
+    /**
+     * Times a phase of a commit. Unlike the other events of this tracer, these are created for each commit, since
+     * commits run their phases concurrently with each other.
+     */
+    private class PhaseEvent implements CommitPhaseEvent, SerializeTransactionEvent, LogForceWaitEvent,
+            StoreApplyEvent
+    {
+        private final LatencyHistogram latency;
+        private final long startTimeNanos;
+
+        PhaseEvent( CommitPhase phase )
+        {
+            this.latency = commitPhaseLatencies[phase.ordinal()];
+            this.startTimeNanos = clock.nanoTime();
+        }
+
+        @Override
+        public void close()
+        {
+            latency.record( clock.nanoTime() - startTimeNanos, TimeUnit.NANOSECONDS );
+        }
+    }
 }
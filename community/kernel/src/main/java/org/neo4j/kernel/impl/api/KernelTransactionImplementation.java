@@ -52,6 +52,8 @@ import org.neo4j.kernel.impl.transaction.TransactionHeaderInformationFactory;
 import org.neo4j.kernel.impl.transaction.TransactionMonitor;
 import org.neo4j.kernel.impl.transaction.log.PhysicalTransactionRepresentation;
 import org.neo4j.kernel.impl.transaction.tracing.CommitEvent;
+import org.neo4j.kernel.impl.transaction.tracing.CommitPhase;
+import org.neo4j.kernel.impl.transaction.tracing.CommitPhaseEvent;
 import org.neo4j.kernel.impl.transaction.tracing.TransactionEvent;
 import org.neo4j.kernel.impl.transaction.tracing.TransactionTracer;
 import org.neo4j.storageengine.api.StorageCommand;
@@ -479,7 +481,7 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
             // Trigger transaction "before" hooks.
             if ( hasDataChanges() )
             {
-                try
+                try ( CommitPhaseEvent validateEvent = commitEvent.beginPhase( CommitPhase.VALIDATE ) )
                 {
                     hooksState = hooks.beforeCommit( txState, this, storageEngine.storeReadLayer(), storageStatement );
                     if ( hooksState != null && hooksState.failed() )
@@ -499,15 +501,18 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
             {
                 // Gather up commands from the various sources
                 Collection<StorageCommand> extractedCommands = new ArrayList<>();
-                storageEngine.createCommands(
-                        extractedCommands,
-                        txState,
-                        storageStatement,
-                        locks,
-                        lastTransactionIdWhenStarted );
-                if ( hasLegacyIndexChanges() )
+                try ( CommitPhaseEvent prepareEvent = commitEvent.beginPhase( CommitPhase.PREPARE ) )
                 {
-                    legacyIndexTransactionState.extractCommands( extractedCommands );
+                    storageEngine.createCommands(
+                            extractedCommands,
+                            txState,
+                            storageStatement,
+                            locks,
+                            lastTransactionIdWhenStarted );
+                    if ( hasLegacyIndexChanges() )
+                    {
+                        legacyIndexTransactionState.extractCommands( extractedCommands );
+                    }
                 }
 
                 /* Here's the deal: we track a quick-to-access hasChanges in transaction state which is true
@@ -22,6 +22,8 @@ package org.neo4j.kernel.impl.api;
 import org.neo4j.kernel.api.exceptions.TransactionFailureException;
 import org.neo4j.kernel.impl.transaction.log.TransactionAppender;
 import org.neo4j.kernel.impl.transaction.tracing.CommitEvent;
+import org.neo4j.kernel.impl.transaction.tracing.CommitPhase;
+import org.neo4j.kernel.impl.transaction.tracing.CommitPhaseEvent;
 import org.neo4j.kernel.impl.transaction.tracing.LogAppendEvent;
 import org.neo4j.kernel.impl.transaction.tracing.StoreApplyEvent;
 import org.neo4j.storageengine.api.StorageEngine;
@@ -53,7 +55,7 @@ public class TransactionRepresentationCommitProcess implements TransactionCommit
         }
         finally
         {
-            close( batch );
+            close( batch, commitEvent );
         }
     }
 
@@ -84,16 +86,19 @@ public class TransactionRepresentationCommitProcess implements TransactionCommit
         }
     }
 
-    private void close( TransactionToApply batch )
+    private void close( TransactionToApply batch, CommitEvent commitEvent )
     {
-        while ( batch != null )
+        try ( CommitPhaseEvent closeEvent = commitEvent.beginPhase( CommitPhase.CLOSE ) )
         {
-            if ( batch.commitment().markedAsCommitted() )
+            while ( batch != null )
             {
-                batch.commitment().publishAsClosed();
+                if ( batch.commitment().markedAsCommitted() )
+                {
+                    batch.commitment().publishAsClosed();
+                }
+                batch.close();
+                batch = batch.next();
             }
-            batch.close();
-            batch = batch.next();
         }
     }
 }
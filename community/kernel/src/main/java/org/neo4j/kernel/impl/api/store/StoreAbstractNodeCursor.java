@@ -48,6 +48,7 @@ import org.neo4j.storageengine.api.NodeItem;
 import org.neo4j.storageengine.api.PropertyItem;
 import org.neo4j.storageengine.api.RelationshipItem;
 
+import static org.neo4j.kernel.impl.locking.LockService.NO_LOCK;
 import static org.neo4j.kernel.impl.locking.LockService.NO_LOCK_SERVICE;
 import static org.neo4j.kernel.impl.store.record.RecordLoad.CHECK;
 import static org.neo4j.kernel.impl.store.record.RecordLoad.NORMAL;
@@ -193,9 +194,60 @@ public abstract class StoreAbstractNodeCursor extends NodeItemHelper implements
     @Override
     public Cursor<PropertyItem> property( int propertyKeyId )
     {
+        long stamp = lockService.tryOptimisticNodeRead( nodeRecord.getId() );
+        if ( stamp != LockService.NO_STAMP )
+        {
+            Cursor<PropertyItem> property = optimisticallyReadProperty( propertyKeyId, stamp );
+            if ( property != null )
+            {
+                return property;
+            }
+        }
         return singlePropertyCursor.get().init( nodeRecord.getNextProp(), propertyKeyId, shortLivedReadLock() );
     }
 
+    /**
+     * Read the property without taking a lock, and validate the read before handing the property out.
+     *
+     * @return the property, or {@code null} if the node was written to while it was read, and it has to be read
+     * under a lock instead.
+     */
+    private Cursor<PropertyItem> optimisticallyReadProperty( int propertyKeyId, long stamp )
+    {
+        StoreSinglePropertyCursor property = null;
+        try
+        {
+            // Re-read the node record, for the same reason as when taking a read lock
+            if ( !cursors.node().next( nodeRecord.getId(), nodeRecord, CHECK ) )
+            {
+                nodeRecord.setNextProp( Record.NO_NEXT_PROPERTY.intValue() );
+            }
+            property = singlePropertyCursor.get().init( nodeRecord.getNextProp(), propertyKeyId, NO_LOCK );
+            if ( property.prefetch( lockService, nodeRecord.getId(), stamp ) )
+            {
+                return property;
+            }
+        }
+        catch ( RuntimeException e )
+        {
+            // Reading records while they're being written can fail in any number of ways, so only a failure of a
+            // valid read is a real one
+            if ( lockService.validateNodeRead( nodeRecord.getId(), stamp ) )
+            {
+                if ( property != null )
+                {
+                    property.close();
+                }
+                throw e;
+            }
+        }
+        if ( property != null )
+        {
+            property.close();
+        }
+        return null;
+    }
+
     @Override
     public Cursor<RelationshipItem> relationships( Direction direction )
     {
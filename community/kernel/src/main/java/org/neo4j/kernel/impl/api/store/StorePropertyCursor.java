@@ -23,6 +23,7 @@ import java.util.function.Consumer;
 
 import org.neo4j.cursor.Cursor;
 import org.neo4j.kernel.impl.locking.Lock;
+import org.neo4j.kernel.impl.store.PropertyType;
 import org.neo4j.kernel.impl.store.RecordCursor;
 import org.neo4j.kernel.impl.store.RecordCursors;
 import org.neo4j.kernel.impl.store.record.PropertyRecord;
@@ -69,7 +70,12 @@ public class StorePropertyCursor implements Cursor<PropertyItem>, PropertyItem
         // No, OK continue down the chain and hunt for more...
         while ( true )
         {
-            if ( recordCursor.next() )
+            boolean inUse = recordCursor.next();
+            if ( !mayContinueChain() )
+            {
+                return false;
+            }
+            if ( inUse )
             {
                 // All good, we can get values off of this record
                 PropertyRecord propertyRecord = recordCursor.get();
@@ -90,6 +96,25 @@ public class StorePropertyCursor implements Cursor<PropertyItem>, PropertyItem
         }
     }
 
+    /**
+     * Called after each property record has been read from the chain. Returning {@code false} ends the traversal,
+     * as if the chain had no more properties.
+     */
+    protected boolean mayContinueChain()
+    {
+        return true;
+    }
+
+    /**
+     * @return {@code true} if the value of the current property is kept in dynamic records, in which case reading it
+     * means following a chain of dynamic records.
+     */
+    boolean isValueInDynamicRecords()
+    {
+        PropertyType type = payload.type();
+        return type == PropertyType.STRING || type == PropertyType.ARRAY;
+    }
+
     @Override
     public int propertyKeyId()
     {
@@ -23,6 +23,7 @@ import java.util.function.Consumer;
 
 import org.neo4j.kernel.api.StatementConstants;
 import org.neo4j.kernel.impl.locking.Lock;
+import org.neo4j.kernel.impl.locking.LockService;
 import org.neo4j.kernel.impl.store.RecordCursors;
 
 /**
@@ -32,6 +33,16 @@ public class StoreSinglePropertyCursor extends StorePropertyCursor
 {
     private int propertyKeyId;
 
+    // Set while prefetching, to validate the optimistic read after each record
+    private LockService lockService;
+    private long nodeId;
+    private long stamp;
+
+    private boolean prefetched;
+    private boolean hasPrefetchedProperty;
+    private int prefetchedPropertyKeyId;
+    private Object prefetchedValue;
+
     public StoreSinglePropertyCursor( RecordCursors cursors, Consumer<StoreSinglePropertyCursor> instanceCache )
     {
         super( cursors, (Consumer) instanceCache );
@@ -41,12 +52,67 @@ public class StoreSinglePropertyCursor extends StorePropertyCursor
     {
         super.init( firstPropertyId, lock );
         this.propertyKeyId = propertyKeyId;
+        this.prefetched = false;
+        this.prefetchedValue = null;
         return this;
     }
 
+    /**
+     * Look the property up, and read its value, right away rather than when they're asked for. This is for reading
+     * the property of a node without a lock, such that the read can be validated before the value is handed out.
+     * The read is validated after each property record, so that a chain torn by a concurrent write is never followed
+     * further than to the first record that was written to.
+     *
+     * @return {@code true} if the property was read, and the read was valid all the way through. {@code false} if the
+     * read was invalidated by a concurrent write, or if the value is kept in dynamic records, which are only read
+     * under a lock. The property then has to be read under a lock instead.
+     */
+    public boolean prefetch( LockService lockService, long nodeId, long stamp )
+    {
+        this.lockService = lockService;
+        this.nodeId = nodeId;
+        this.stamp = stamp;
+        try
+        {
+            int propertyKeyId = this.propertyKeyId;
+            boolean found = next();
+            if ( !lockService.validateNodeRead( nodeId, stamp ) || (found && isValueInDynamicRecords()) )
+            {
+                return false;
+            }
+            hasPrefetchedProperty = found;
+            prefetchedPropertyKeyId = propertyKeyId;
+            prefetchedValue = found ? super.value() : null;
+            prefetched = true;
+            return lockService.validateNodeRead( nodeId, stamp );
+        }
+        finally
+        {
+            this.lockService = null;
+        }
+    }
+
+    @Override
+    protected boolean mayContinueChain()
+    {
+        return lockService == null || lockService.validateNodeRead( nodeId, stamp );
+    }
+
     @Override
     public boolean next()
     {
+        if ( prefetched )
+        {
+            try
+            {
+                return hasPrefetchedProperty;
+            }
+            finally
+            {
+                hasPrefetchedProperty = false;
+            }
+        }
+
         try
         {
             if ( propertyKeyId != StatementConstants.NO_SUCH_PROPERTY_KEY )
@@ -67,4 +133,16 @@ public class StoreSinglePropertyCursor extends StorePropertyCursor
             this.propertyKeyId = StatementConstants.NO_SUCH_PROPERTY_KEY;
         }
     }
+
+    @Override
+    public int propertyKeyId()
+    {
+        return prefetched ? prefetchedPropertyKeyId : super.propertyKeyId();
+    }
+
+    @Override
+    public Object value()
+    {
+        return prefetched ? prefetchedValue : super.value();
+    }
 }
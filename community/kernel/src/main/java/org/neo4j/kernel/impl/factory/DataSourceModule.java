@@ -46,6 +46,7 @@ import org.neo4j.kernel.api.security.AuthSubject;
 import org.neo4j.kernel.builtinprocs.BuiltInProcedures;
 import org.neo4j.kernel.configuration.Config;
 import org.neo4j.kernel.guard.Guard;
+import org.neo4j.kernel.impl.api.CommitPhaseMonitor;
 import org.neo4j.kernel.impl.api.NonTransactionalTokenNameLookup;
 import org.neo4j.kernel.impl.api.SchemaWriteGuard;
 import org.neo4j.kernel.impl.api.dbms.NonTransactionalDbmsOperations;
@@ -60,6 +61,7 @@ import org.neo4j.kernel.impl.core.RelationshipTypeTokenHolder;
 import org.neo4j.kernel.impl.core.StartupStatisticsProvider;
 import org.neo4j.kernel.impl.core.ThreadToStatementContextBridge;
 import org.neo4j.kernel.impl.core.TokenNotFoundException;
+import org.neo4j.kernel.impl.locking.LockContentionMonitor;
 import org.neo4j.kernel.impl.logging.LogService;
 import org.neo4j.kernel.impl.proc.ProcedureGDSFactory;
 import org.neo4j.kernel.impl.proc.Procedures;
@@ -348,8 +350,15 @@ public class DataSourceModule
         File pluginDir = platform.config.get( GraphDatabaseSettings.plugin_dir );
         Log internalLog = platform.logging.getInternalLog( Procedures.class );
 
+        CommitPhaseMonitor commitPhaseMonitor = platform.tracers.transactionTracer instanceof CommitPhaseMonitor
+                                                ? (CommitPhaseMonitor) platform.tracers.transactionTracer
+                                                : CommitPhaseMonitor.NONE;
+        LockContentionMonitor lockContentionMonitor = editionModule.lockManager instanceof LockContentionMonitor
+                                                      ? (LockContentionMonitor) editionModule.lockManager
+                                                      : LockContentionMonitor.NONE;
         Procedures procedures = new Procedures(
-                new BuiltInProcedures( Version.getKernel().getReleaseVersion(),  platform.databaseInfo.edition.toString()),
+                new BuiltInProcedures( Version.getKernel().getReleaseVersion(),
+                        platform.databaseInfo.edition.toString(), commitPhaseMonitor, lockContentionMonitor ),
                 pluginDir,  internalLog );
         platform.life.add( procedures );
         platform.dependencies.satisfyDependency( procedures );
@@ -58,6 +58,18 @@ abstract class AbstractLockService<HANDLE> implements LockService
         return lock( new LockedRelationship( relationshipId ) );
     }
 
+    @Override
+    public long tryOptimisticNodeRead( long nodeId )
+    {
+        return NO_STAMP;
+    }
+
+    @Override
+    public boolean validateNodeRead( long nodeId, long stamp )
+    {
+        return false;
+    }
+
     private Lock lock( LockedEntity key )
     {
         return new LockReference( key, acquire( key ) );
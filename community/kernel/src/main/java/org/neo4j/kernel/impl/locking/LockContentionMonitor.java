@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.locking;
+
+import org.neo4j.storageengine.api.lock.ResourceType;
+
+/**
+ * Exposes which resources lock clients have had to wait for the most, such that hot spots can be found when write
+ * throughput collapses under lock contention.
+ */
+public interface LockContentionMonitor
+{
+    LockContentionMonitor NONE = visitor -> {};
+
+    interface ContendedResourceVisitor
+    {
+        /**
+         * @param resourceType type of the contended resource.
+         * @param resourceId id of the contended resource.
+         * @param waits number of lock acquisitions on the resource that had to wait.
+         * @param totalWaitMicros total time in microseconds spent waiting for locks on the resource.
+         * @param maxWaitMicros longest time in microseconds spent waiting for a lock on the resource.
+         * @param lastHolders description of who held the lock the last time someone had to wait for it.
+         */
+        void visit( ResourceType resourceType, long resourceId, long waits, long totalWaitMicros, long maxWaitMicros,
+                String lastHolders );
+    }
+
+    /**
+     * Visit the most contended resources, per resource type, in order of decreasing total wait time.
+     */
+    void visitContendedResources( ContendedResourceVisitor visitor );
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.locking;
+
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.io.pagecache.monitoring.LatencyHistogram;
+import org.neo4j.storageengine.api.lock.ResourceType;
+
+/**
+ * Always-on profiling of lock contention, meant to be fed by {@link Locks.Client} implementations every time they
+ * have had to wait for a lock. Acquisitions that did not wait never reach this profiler, so it adds nothing to the
+ * uncontended path.
+ * <p/>
+ * For each resource type, the latency of every wait is recorded in a {@link LatencyHistogram}, and the resources
+ * with the highest total wait time are tracked in a small table of fixed size. When the table is full, a newly
+ * contended resource replaces the least contended one. Resources that keep being contended thus stay in the table,
+ * while resources that are only contended once in a while come and go.
+ */
+public class LockContentionProfiler implements LockContentionMonitor, LockWaitMonitor
+{
+    public static final int DEFAULT_TRACKED_RESOURCES_PER_TYPE = 32;
+
+    private final ResourceType[] resourceTypes;
+    private final LatencyHistogram[] waitLatencies;
+    private final ContendedResources[] contendedResources;
+
+    public LockContentionProfiler( ResourceType... resourceTypes )
+    {
+        this( DEFAULT_TRACKED_RESOURCES_PER_TYPE, resourceTypes );
+    }
+
+    public LockContentionProfiler( int trackedResourcesPerType, ResourceType... resourceTypes )
+    {
+        int maxTypeId = 0;
+        for ( ResourceType type : resourceTypes )
+        {
+            maxTypeId = Math.max( maxTypeId, type.typeId() );
+        }
+        this.resourceTypes = new ResourceType[maxTypeId + 1];
+        this.waitLatencies = new LatencyHistogram[maxTypeId + 1];
+        this.contendedResources = new ContendedResources[maxTypeId + 1];
+        for ( ResourceType type : resourceTypes )
+        {
+            this.resourceTypes[type.typeId()] = type;
+            this.waitLatencies[type.typeId()] = new LatencyHistogram();
+            this.contendedResources[type.typeId()] = new ContendedResources( trackedResourcesPerType );
+        }
+    }
+
+    /**
+     * Record that a lock client had to wait for a lock.
+     *
+     * @param resourceType type of the resource that was waited for.
+     * @param resourceId id of the resource that was waited for.
+     * @param waitNanos how long the client waited, in nanoseconds.
+     * @param holders description of who held the lock when the client started waiting.
+     */
+    public void lockWaited( ResourceType resourceType, long resourceId, long waitNanos, String holders )
+    {
+        int typeId = resourceType.typeId();
+        if ( typeId < resourceTypes.length && resourceTypes[typeId] != null )
+        {
+            waitLatencies[typeId].record( waitNanos, TimeUnit.NANOSECONDS );
+            contendedResources[typeId].record( resourceId, waitNanos, holders );
+        }
+    }
+
+    @Override
+    public LatencyHistogram lockWaitLatency( ResourceType resourceType )
+    {
+        int typeId = resourceType.typeId();
+        if ( typeId < waitLatencies.length && waitLatencies[typeId] != null )
+        {
+            return waitLatencies[typeId];
+        }
+        return new LatencyHistogram();
+    }
+
+    @Override
+    public void visitContendedResources( ContendedResourceVisitor visitor )
+    {
+        for ( int typeId = 0; typeId < resourceTypes.length; typeId++ )
+        {
+            if ( resourceTypes[typeId] != null )
+            {
+                contendedResources[typeId].visit( resourceTypes[typeId], visitor );
+            }
+        }
+    }
+
+    /**
+     * The most contended resources of a single resource type. Only touched by clients that have already waited for a
+     * lock, so plain synchronization is cheap in comparison.
+     */
+    private static final class ContendedResources
+    {
+        private final long[] resourceIds;
+        private final long[] waits;
+        private final long[] totalWaitNanos;
+        private final long[] maxWaitNanos;
+        private final String[] holders;
+        private int size;
+
+        ContendedResources( int capacity )
+        {
+            this.resourceIds = new long[capacity];
+            this.waits = new long[capacity];
+            this.totalWaitNanos = new long[capacity];
+            this.maxWaitNanos = new long[capacity];
+            this.holders = new String[capacity];
+        }
+
+        synchronized void record( long resourceId, long waitNanos, String holders )
+        {
+            if ( resourceIds.length == 0 )
+            {
+                return;
+            }
+            int slot = slotOf( resourceId );
+            if ( slot == -1 )
+            {
+                slot = size < resourceIds.length ? size++ : leastContendedSlot();
+                resourceIds[slot] = resourceId;
+                waits[slot] = 0;
+                totalWaitNanos[slot] = 0;
+                maxWaitNanos[slot] = 0;
+            }
+            waits[slot]++;
+            totalWaitNanos[slot] += waitNanos;
+            maxWaitNanos[slot] = Math.max( maxWaitNanos[slot], waitNanos );
+            this.holders[slot] = holders;
+        }
+
+        void visit( ResourceType type, ContendedResourceVisitor visitor )
+        {
+            long[] resourceIds;
+            long[] waits;
+            long[] totalWaitNanos;
+            long[] maxWaitNanos;
+            String[] holders;
+            int size;
+            synchronized ( this )
+            {
+                // Sort a copy by decreasing total wait, so that the visitor runs without holding our monitor
+                size = this.size;
+                resourceIds = new long[size];
+                waits = new long[size];
+                totalWaitNanos = new long[size];
+                maxWaitNanos = new long[size];
+                holders = new String[size];
+                boolean[] taken = new boolean[size];
+                for ( int i = 0; i < size; i++ )
+                {
+                    int next = -1;
+                    for ( int j = 0; j < size; j++ )
+                    {
+                        if ( !taken[j] && (next == -1 || this.totalWaitNanos[j] > this.totalWaitNanos[next]) )
+                        {
+                            next = j;
+                        }
+                    }
+                    taken[next] = true;
+                    resourceIds[i] = this.resourceIds[next];
+                    waits[i] = this.waits[next];
+                    totalWaitNanos[i] = this.totalWaitNanos[next];
+                    maxWaitNanos[i] = this.maxWaitNanos[next];
+                    holders[i] = this.holders[next];
+                }
+            }
+
+            for ( int i = 0; i < size; i++ )
+            {
+                visitor.visit( type, resourceIds[i], waits[i], TimeUnit.NANOSECONDS.toMicros( totalWaitNanos[i] ),
+                        TimeUnit.NANOSECONDS.toMicros( maxWaitNanos[i] ), holders[i] );
+            }
+        }
+
+        private int slotOf( long resourceId )
+        {
+            for ( int i = 0; i < size; i++ )
+            {
+                if ( resourceIds[i] == resourceId )
+                {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private int leastContendedSlot()
+        {
+            int least = 0;
+            for ( int i = 1; i < size; i++ )
+            {
+                if ( totalWaitNanos[i] < totalWaitNanos[least] )
+                {
+                    least = i;
+                }
+            }
+            return least;
+        }
+    }
+}
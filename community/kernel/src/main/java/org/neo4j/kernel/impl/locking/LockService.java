@@ -54,6 +54,26 @@ public interface LockService
 
     Lock acquireRelationshipLock( long relationhipId, LockType type );
 
+    /**
+     * Start reading the records of a node optimistically, that is without taking a lock. The records that were read
+     * are only consistent if {@link #validateNodeRead(long, long)} returns {@code true} at the end of the read, or
+     * else the read has to be retried, or done under a read lock.
+     *
+     * @param nodeId the node to read.
+     * @return a stamp to validate the read with, or {@link #NO_STAMP} if the node can not be read optimistically,
+     * and a read lock has to be taken instead.
+     */
+    long tryOptimisticNodeRead( long nodeId );
+
+    /**
+     * @param nodeId the node that was read.
+     * @param stamp the stamp returned by {@link #tryOptimisticNodeRead(long)} when the read started.
+     * @return {@code true} if no write lock on the node overlapped with the read, {@code false} otherwise.
+     */
+    boolean validateNodeRead( long nodeId, long stamp );
+
+    public static final long NO_STAMP = -1;
+
     public static final Lock NO_LOCK = new Lock()
     {
         @Override
@@ -76,5 +96,18 @@ public interface LockService
         {
             return NO_LOCK;
         }
+
+        @Override
+        public long tryOptimisticNodeRead( long nodeId )
+        {
+            // Taking no lock is cheaper than validating
+            return NO_STAMP;
+        }
+
+        @Override
+        public boolean validateNodeRead( long nodeId, long stamp )
+        {
+            return false;
+        }
     };
 }
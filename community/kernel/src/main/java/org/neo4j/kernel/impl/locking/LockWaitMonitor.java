@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.locking;
+
+import org.neo4j.io.pagecache.monitoring.LatencyHistogram;
+import org.neo4j.storageengine.api.lock.ResourceType;
+
+/**
+ * Exposes how long lock clients have had to wait for the locks they acquire, per resource type.
+ */
+public interface LockWaitMonitor
+{
+    LockWaitMonitor NONE = resourceType -> new LatencyHistogram();
+
+    /**
+     * @return the latencies of acquiring locks on resources of the given type, counting only the acquisitions that
+     * had to wait for another client to release the lock.
+     */
+    LatencyHistogram lockWaitLatency( ResourceType resourceType );
+}
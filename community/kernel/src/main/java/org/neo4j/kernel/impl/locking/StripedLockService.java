@@ -0,0 +1,387 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.locking;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
+
+import static java.lang.Thread.currentThread;
+
+/**
+ * A {@link LockService} with a fixed number of lock stripes per entity type, which, unlike
+ * {@link ReentrantLockService}, neither boxes entity ids nor allocates queue elements to lock them.
+ * <p>
+ * Each stripe keeps the locks of the entities hashing to it in a small open addressing table, guarded by the monitor
+ * of the stripe. As in {@link ReentrantLockService}, the locks are mutex locks, reentrant from the same thread, and
+ * they are granted in the order they were asked for, by handing out tickets to the waiting threads. Threads only ever
+ * wait for the entity they want to lock, and never for the stripe as a whole, so entities that happen to share a
+ * stripe can not deadlock with each other.
+ * <p>
+ * Each stripe also has a sequence, which is incremented whenever a write lock on any of its entities is released.
+ * This allows the records of a node to be {@link #tryOptimisticNodeRead(long) read optimistically}, without taking a
+ * lock. A held write lock makes the optimistic reads of all nodes in its stripe fail, after which the readers take a
+ * read lock instead.
+ */
+public final class StripedLockService implements LockService
+{
+    public static final int DEFAULT_STRIPES = 1024;
+
+    private static final int INITIAL_STRIPE_CAPACITY = 8;
+
+    /*
+     * The state of a stripe is laid out like the state of a SequenceLock, with the count of held write locks in the
+     * high bits, and the sequence in the low bits:
+     *
+     *  ┏━ Count of currently held write locks, 31 bits.
+     *  ┃                                   ┏━ 32 bits for the sequence, incremented on write unlock.
+     * ┏┻━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━┓┏━┻━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━┓
+     * 0WWWWWWW WWWWWWWW WWWWWWWW WWWWWWWW SSSSSSSS SSSSSSSS SSSSSSSS SSSSSSSS
+     */
+    private static final long SEQ_MASK = 0xFFFF_FFFFL;
+    private static final long CNT_UNIT = SEQ_MASK + 1;
+    private static final long CNT_MASK = ~SEQ_MASK;
+
+    private final Stripe[] nodeStripes;
+    private final Stripe[] relationshipStripes;
+    private final int stripeMask;
+
+    public StripedLockService()
+    {
+        this( DEFAULT_STRIPES );
+    }
+
+    public StripedLockService( int stripes )
+    {
+        if ( Integer.bitCount( stripes ) != 1 )
+        {
+            throw new IllegalArgumentException( "Number of stripes must be a power of two, but was " + stripes );
+        }
+        this.stripeMask = stripes - 1;
+        this.nodeStripes = new Stripe[stripes];
+        this.relationshipStripes = new Stripe[stripes];
+        for ( int i = 0; i < stripes; i++ )
+        {
+            nodeStripes[i] = new Stripe( "LockedNode" );
+            relationshipStripes[i] = new Stripe( "LockedRelationship" );
+        }
+    }
+
+    @Override
+    public Lock acquireNodeLock( long nodeId, LockType type )
+    {
+        return stripe( nodeStripes, nodeId ).acquire( nodeId, type );
+    }
+
+    @Override
+    public Lock acquireRelationshipLock( long relationshipId, LockType type )
+    {
+        return stripe( relationshipStripes, relationshipId ).acquire( relationshipId, type );
+    }
+
+    @Override
+    public long tryOptimisticNodeRead( long nodeId )
+    {
+        long state = stripe( nodeStripes, nodeId ).state.get();
+        return (state & CNT_MASK) == 0 ? state : NO_STAMP;
+    }
+
+    @Override
+    public boolean validateNodeRead( long nodeId, long stamp )
+    {
+        UnsafeUtil.loadFence();
+        return stripe( nodeStripes, nodeId ).state.get() == stamp;
+    }
+
+    int lockCount()
+    {
+        int count = 0;
+        for ( int i = 0; i < nodeStripes.length; i++ )
+        {
+            count += nodeStripes[i].size() + relationshipStripes[i].size();
+        }
+        return count;
+    }
+
+    private Stripe stripe( Stripe[] stripes, long id )
+    {
+        return stripes[(int) (hash( id ) & stripeMask)];
+    }
+
+    private static long hash( long id )
+    {
+        // The stripe tables place entities by the low bits of their ids, so the stripe is picked by a mix of all the
+        // bits, or else all the ids in a stripe would have the same low bits.
+        id ^= id >>> 33;
+        id *= 0xff51afd7ed558ccdL;
+        id ^= id >>> 33;
+        return id;
+    }
+
+    private static final class Stripe
+    {
+        private final String entityName;
+        private final AtomicLong state = new AtomicLong();
+
+        // Guarded by the monitor of this stripe. An entity is in the table while it's locked, or waited for.
+        private long[] ids = new long[INITIAL_STRIPE_CAPACITY];
+        private Thread[] owners = new Thread[INITIAL_STRIPE_CAPACITY];
+        private int[] holds = new int[INITIAL_STRIPE_CAPACITY];
+        private int[] nextTicket = new int[INITIAL_STRIPE_CAPACITY];
+        private int[] nowServing = new int[INITIAL_STRIPE_CAPACITY];
+        private int size;
+
+        Stripe( String entityName )
+        {
+            this.entityName = entityName;
+        }
+
+        Lock acquire( long id, LockType type )
+        {
+            Thread thread = currentThread();
+            boolean interrupted = false;
+            synchronized ( this )
+            {
+                int slot = slotOf( id );
+                if ( slot == -1 )
+                {
+                    slot = insert( id );
+                    owners[slot] = thread;
+                    holds[slot] = 1;
+                }
+                else if ( owners[slot] == thread )
+                {
+                    holds[slot] = Math.incrementExact( holds[slot] );
+                }
+                else
+                {
+                    int ticket = nextTicket[slot]++;
+                    while ( owners[slot] != null || nowServing[slot] != ticket )
+                    {
+                        try
+                        {
+                            wait();
+                        }
+                        catch ( InterruptedException e )
+                        {
+                            interrupted = true;
+                        }
+                        slot = slotOf( id ); // the entity may have moved, as other entities came and went
+                    }
+                    nowServing[slot]++;
+                    owners[slot] = thread;
+                    holds[slot] = 1;
+                }
+                if ( type == LockType.WRITE_LOCK )
+                {
+                    // An atomic add, rather than a volatile write, to keep the writes made under this lock from
+                    // becoming visible before the optimistic readers can see that the lock is held
+                    state.getAndAdd( CNT_UNIT );
+                }
+            }
+            if ( interrupted )
+            {
+                thread.interrupt();
+            }
+            return new StripedLock( this, id, type );
+        }
+
+        synchronized void release( long id, LockType type )
+        {
+            if ( type == LockType.WRITE_LOCK )
+            {
+                long current = state.get();
+                state.set( (current - CNT_UNIT) & CNT_MASK | (current + 1) & SEQ_MASK );
+            }
+            int slot = slotOf( id );
+            if ( --holds[slot] == 0 )
+            {
+                owners[slot] = null;
+                if ( nextTicket[slot] == nowServing[slot] )
+                {
+                    remove( slot );
+                }
+                else
+                {
+                    notifyAll();
+                }
+            }
+        }
+
+        synchronized String describe( long id )
+        {
+            int slot = slotOf( id );
+            return slot == -1 ? null : holds[slot] + "*" + owners[slot];
+        }
+
+        synchronized int size()
+        {
+            return size;
+        }
+
+        private int slotOf( long id )
+        {
+            int mask = ids.length - 1;
+            for ( int slot = (int) id & mask; ; slot = (slot + 1) & mask )
+            {
+                if ( isFree( slot ) )
+                {
+                    return -1;
+                }
+                if ( ids[slot] == id )
+                {
+                    return slot;
+                }
+            }
+        }
+
+        private boolean isFree( int slot )
+        {
+            return owners[slot] == null && nextTicket[slot] == nowServing[slot];
+        }
+
+        private int insert( long id )
+        {
+            if ( (size + 1) * 4 > ids.length * 3 )
+            {
+                grow();
+            }
+            int mask = ids.length - 1;
+            int slot = (int) id & mask;
+            while ( !isFree( slot ) )
+            {
+                slot = (slot + 1) & mask;
+            }
+            ids[slot] = id;
+            size++;
+            return slot;
+        }
+
+        private void remove( int slot )
+        {
+            // Backward shift deletion, which keeps the probe sequences intact without leaving tombstones behind
+            int mask = ids.length - 1;
+            int hole = slot;
+            for ( int next = (hole + 1) & mask; !isFree( next ); next = (next + 1) & mask )
+            {
+                int home = (int) ids[next] & mask;
+                if ( ((next - home) & mask) >= ((next - hole) & mask) )
+                {
+                    move( next, hole );
+                    hole = next;
+                }
+            }
+            clear( hole );
+            size--;
+        }
+
+        private void move( int from, int to )
+        {
+            ids[to] = ids[from];
+            owners[to] = owners[from];
+            holds[to] = holds[from];
+            nextTicket[to] = nextTicket[from];
+            nowServing[to] = nowServing[from];
+        }
+
+        private void clear( int slot )
+        {
+            ids[slot] = 0;
+            owners[slot] = null;
+            holds[slot] = 0;
+            nextTicket[slot] = 0;
+            nowServing[slot] = 0;
+        }
+
+        private void grow()
+        {
+            long[] oldIds = ids;
+            Thread[] oldOwners = owners;
+            int[] oldHolds = holds;
+            int[] oldNextTicket = nextTicket;
+            int[] oldNowServing = nowServing;
+            int capacity = oldIds.length * 2;
+            ids = new long[capacity];
+            owners = new Thread[capacity];
+            holds = new int[capacity];
+            nextTicket = new int[capacity];
+            nowServing = new int[capacity];
+            int mask = capacity - 1;
+            for ( int i = 0; i < oldIds.length; i++ )
+            {
+                if ( oldOwners[i] != null || oldNextTicket[i] != oldNowServing[i] )
+                {
+                    int slot = (int) oldIds[i] & mask;
+                    while ( !isFree( slot ) )
+                    {
+                        slot = (slot + 1) & mask;
+                    }
+                    ids[slot] = oldIds[i];
+                    owners[slot] = oldOwners[i];
+                    holds[slot] = oldHolds[i];
+                    nextTicket[slot] = oldNextTicket[i];
+                    nowServing[slot] = oldNowServing[i];
+                }
+            }
+        }
+    }
+
+    private static final class StripedLock extends Lock
+    {
+        private final Stripe stripe;
+        private final long id;
+        private final LockType type;
+        private boolean released;
+
+        StripedLock( Stripe stripe, long id, LockType type )
+        {
+            this.stripe = stripe;
+            this.id = id;
+            this.type = type;
+        }
+
+        @Override
+        public void release()
+        {
+            if ( released )
+            {
+                return;
+            }
+            released = true;
+            stripe.release( id, type );
+        }
+
+        @Override
+        public String toString()
+        {
+            StringBuilder repr = new StringBuilder( stripe.entityName ).append( "[id=" ).append( id );
+            String holder = released ? null : stripe.describe( id );
+            if ( holder != null )
+            {
+                repr.append( "; HELD_BY=" ).append( holder );
+            }
+            else
+            {
+                repr.append( "; RELEASED" );
+            }
+            return repr.append( ']' ).toString();
+        }
+    }
+}
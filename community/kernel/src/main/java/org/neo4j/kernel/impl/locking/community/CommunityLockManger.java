@@ -19,11 +19,18 @@
  */
 package org.neo4j.kernel.impl.locking.community;
 
+import org.neo4j.io.pagecache.monitoring.LatencyHistogram;
+import org.neo4j.kernel.impl.locking.LockContentionMonitor;
+import org.neo4j.kernel.impl.locking.LockContentionProfiler;
+import org.neo4j.kernel.impl.locking.LockWaitMonitor;
 import org.neo4j.kernel.impl.locking.Locks;
+import org.neo4j.kernel.impl.locking.ResourceTypes;
+import org.neo4j.storageengine.api.lock.ResourceType;
 
-public class CommunityLockManger implements Locks
+public class CommunityLockManger implements Locks, LockWaitMonitor, LockContentionMonitor
 {
-    private final LockManagerImpl manager = new LockManagerImpl( new RagManager() );
+    private final LockContentionProfiler contentionProfiler = new LockContentionProfiler( ResourceTypes.values() );
+    private final LockManagerImpl manager = new LockManagerImpl( new RagManager(), contentionProfiler );
     private volatile boolean closed;
 
     @Override
@@ -54,6 +61,18 @@ public class CommunityLockManger implements Locks
         } );
     }
 
+    @Override
+    public LatencyHistogram lockWaitLatency( ResourceType resourceType )
+    {
+        return contentionProfiler.lockWaitLatency( resourceType );
+    }
+
+    @Override
+    public void visitContendedResources( LockContentionMonitor.ContendedResourceVisitor visitor )
+    {
+        contentionProfiler.visitContendedResources( visitor );
+    }
+
     @Override
     public void close()
     {
@@ -25,6 +25,7 @@ import java.util.ListIterator;
 
 import org.neo4j.helpers.MathUtil;
 import org.neo4j.kernel.DeadlockDetectedException;
+import org.neo4j.kernel.impl.locking.LockContentionProfiler;
 import org.neo4j.kernel.impl.locking.LockType;
 import org.neo4j.kernel.impl.util.ArrayMap;
 import org.neo4j.logging.Logger;
@@ -67,6 +68,7 @@ class RWLock
     private final LinkedList<LockRequest> waitingThreadList = new LinkedList<>();
     private final ArrayMap<Object,TxLockElement> txLockElementMap = new ArrayMap<>( (byte) 5, false, true );
     private final RagManager ragManager;
+    private final LockContentionProfiler contentionProfiler;
 
     // access to these is guarded by synchronized blocks
     private int totalReadCount;
@@ -74,9 +76,15 @@ class RWLock
     private int marked; // synch helper in LockManager
 
     RWLock( Object resource, RagManager ragManager )
+    {
+        this( resource, ragManager, new LockContentionProfiler() );
+    }
+
+    RWLock( Object resource, RagManager ragManager, LockContentionProfiler contentionProfiler )
     {
         this.resource = resource;
         this.ragManager = ragManager;
+        this.contentionProfiler = contentionProfiler;
     }
 
     // keeps track of a transactions read and write lock count on this RWLock
@@ -188,6 +196,8 @@ class RWLock
         LockRequest lockRequest = null;
         // used to track do we need to add lock request to a waiting queue or we still have it there
         boolean addLockRequest = true;
+        long waitStartNanos = 0;
+        String holders = null;
         try
         {
             tle.incrementRequests();
@@ -197,6 +207,12 @@ class RWLock
             {
                 ragManager.checkWaitOn( this, tx );
 
+                if ( waitStartNanos == 0 )
+                {
+                    waitStartNanos = System.nanoTime();
+                    holders = describeHolders( tle );
+                }
+
                 if ( addLockRequest )
                 {
                     lockRequest = new LockRequest( tle, READ, currentThread );
@@ -210,6 +226,7 @@ class RWLock
             if ( !tle.isTerminated() )
             {
                 registerReadLockAcquired( tx, tle );
+                recordWait( waitStartNanos, holders );
                 return true;
             }
             else
@@ -365,6 +382,8 @@ class RWLock
         LockRequest lockRequest = null;
         // used to track do we need to add lock request to a waiting queue or we still have it there
         boolean addLockRequest = true;
+        long waitStartNanos = 0;
+        String holders = null;
         try
         {
             tle.incrementRequests();
@@ -374,6 +393,12 @@ class RWLock
             {
                 ragManager.checkWaitOn( this, tx );
 
+                if ( waitStartNanos == 0 )
+                {
+                    waitStartNanos = System.nanoTime();
+                    holders = describeHolders( tle );
+                }
+
                 if ( addLockRequest )
                 {
                     lockRequest = new LockRequest( tle, WRITE, currentThread );
@@ -387,6 +412,7 @@ class RWLock
             if ( !tle.isTerminated() )
             {
                 registerWriteLockAcquired( tx, tle );
+                recordWait( waitStartNanos, holders );
                 return true;
             }
             else
@@ -413,6 +439,30 @@ class RWLock
         }
     }
 
+    private String describeHolders( TxLockElement waiter )
+    {
+        StringBuilder sb = new StringBuilder();
+        for ( TxLockElement tle : txLockElementMap.values() )
+        {
+            if ( tle != waiter && !tle.isFree() )
+            {
+                sb.append( sb.length() == 0 ? "" : ", " ).append( tle.tx ).append( "(" ).append( tle.readCount )
+                  .append( "r," ).append( tle.writeCount ).append( "w)" );
+            }
+        }
+        return sb.toString();
+    }
+
+    private void recordWait( long waitStartNanos, String holders )
+    {
+        if ( waitStartNanos != 0 && resource instanceof LockResource )
+        {
+            LockResource lockResource = (LockResource) resource;
+            contentionProfiler.lockWaited( lockResource.type(), lockResource.resourceId(),
+                    System.nanoTime() - waitStartNanos, holders );
+        }
+    }
+
     private boolean waitUninterruptedly()
     {
         boolean addLockRequest;
@@ -0,0 +1,283 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.pagecache;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.kernel.impl.util.JobScheduler;
+import org.neo4j.kernel.impl.util.RecurringJob;
+import org.neo4j.kernel.lifecycle.LifecycleAdapter;
+import org.neo4j.logging.Log;
+import org.neo4j.logging.LogProvider;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static org.neo4j.io.pagecache.PagedFile.PF_NO_FAULT;
+import static org.neo4j.io.pagecache.PagedFile.PF_READ_AHEAD;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
+import static org.neo4j.kernel.impl.util.JobScheduler.Groups.pageCacheWarmup;
+
+/**
+ * Warms up the page cache in the background, when the database starts, by loading in the pages that were in memory
+ * when the page cache was last profiled. After the warmup, the set of pages that are in memory is periodically
+ * profiled and written to a compressed bitmap per store file, in the {@value #PROFILES_DIRECTORY} directory.
+ * <p>
+ * Only files that are mapped, and that live inside the store directory, are warmed up and profiled. Pages are loaded
+ * in file order, and with read-ahead, so that the warmup mostly performs large sequential reads.
+ */
+public class PageCacheWarmer extends LifecycleAdapter implements PageCacheWarmerMonitor
+{
+    public static final String PROFILES_DIRECTORY = "profiles";
+    public static final String SUFFIX_CACHEPROF = ".cacheprof";
+    private static final int IO_FLAGS_WARMUP = PF_SHARED_READ_LOCK | PF_READ_AHEAD;
+    private static final int IO_FLAGS_PROFILE = PF_SHARED_READ_LOCK | PF_NO_FAULT;
+
+    private final FileSystemAbstraction fs;
+    private final PageCache pageCache;
+    private final File storeDir;
+    private final Log log;
+    private final AtomicLong pagesToLoad = new AtomicLong();
+    private final AtomicLong pagesLoaded = new AtomicLong();
+    private final AtomicLong profilesWritten = new AtomicLong();
+    private final RecurringJob job;
+    private volatile boolean warmupCompleted;
+
+    public PageCacheWarmer( FileSystemAbstraction fs, PageCache pageCache, JobScheduler scheduler, File storeDir,
+            long profilingIntervalMillis, LogProvider logProvider )
+    {
+        this.fs = fs;
+        this.pageCache = pageCache;
+        this.storeDir = storeDir;
+        this.log = logProvider.getLog( getClass() );
+        this.job = new RecurringJob( scheduler, pageCacheWarmup, profilingIntervalMillis, this::warmupOrProfile, log,
+                "Page cache warmup or profiling failed, and will be retried later." );
+    }
+
+    @Override
+    public void start() throws Throwable
+    {
+        job.start( 0 );
+    }
+
+    @Override
+    public void stop() throws Throwable
+    {
+        job.stop();
+    }
+
+    @Override
+    public long warmupPagesToLoad()
+    {
+        return pagesToLoad.get();
+    }
+
+    @Override
+    public long warmupPagesLoaded()
+    {
+        return pagesLoaded.get();
+    }
+
+    @Override
+    public boolean isWarmupCompleted()
+    {
+        return warmupCompleted;
+    }
+
+    @Override
+    public long numberOfProfilesWritten()
+    {
+        return profilesWritten.get();
+    }
+
+    private void warmupOrProfile() throws IOException
+    {
+        if ( !warmupCompleted )
+        {
+            try
+            {
+                warmup();
+            }
+            finally
+            {
+                // the warmup is best-effort, and is only ever attempted once
+                warmupCompleted = true;
+            }
+        }
+        else
+        {
+            profile();
+        }
+    }
+
+    /**
+     * Load the profiled pages of all mapped store files. The profiles are all read up front, so that the total
+     * number of pages to load is known as soon as possible.
+     */
+    void warmup() throws IOException
+    {
+        List<PagedFile> files = new ArrayList<>();
+        List<BitSet> profiles = new ArrayList<>();
+        for ( PagedFile file : pageCache.listExistingMappings() )
+        {
+            File profileFile = profileFile( file.file() );
+            if ( profileFile != null && fs.fileExists( profileFile ) )
+            {
+                try
+                {
+                    BitSet profile = readProfile( profileFile );
+                    pagesToLoad.addAndGet( profile.cardinality() );
+                    files.add( file );
+                    profiles.add( profile );
+                }
+                catch ( IOException e )
+                {
+                    log.debug( "Could not read the page cache profile " + profileFile, e );
+                }
+            }
+        }
+
+        for ( int i = 0; i < files.size() && !job.isStopped(); i++ )
+        {
+            PagedFile file = files.get( i );
+            try ( PagedFile pagedFile = pageCache.map( file.file(), file.pageSize() ) )
+            {
+                loadPages( pagedFile, profiles.get( i ) );
+            }
+            catch ( IllegalStateException | IOException e )
+            {
+                // The file has been unmapped or exclusively mapped in the meantime, or its profile is stale.
+                // Either way, the warmup of this file is best-effort, and we can move on to the next one.
+                log.debug( "Could not warm up the page cache for " + file.file(), e );
+            }
+        }
+    }
+
+    private void loadPages( PagedFile pagedFile, BitSet profile ) throws IOException
+    {
+        try ( PageCursor cursor = pagedFile.io( 0, IO_FLAGS_WARMUP ) )
+        {
+            int pageId = profile.nextSetBit( 0 );
+            while ( pageId >= 0 && !job.isStopped() && cursor.next( pageId ) )
+            {
+                pagesLoaded.incrementAndGet();
+                pageId = profile.nextSetBit( pageId + 1 );
+            }
+        }
+    }
+
+    /**
+     * Write a profile of the pages that are currently in memory, for each mapped store file.
+     */
+    void profile() throws IOException
+    {
+        for ( PagedFile file : pageCache.listExistingMappings() )
+        {
+            File profileFile = profileFile( file.file() );
+            if ( profileFile == null || job.isStopped() )
+            {
+                continue;
+            }
+            try ( PagedFile pagedFile = pageCache.map( file.file(), file.pageSize() ) )
+            {
+                writeProfile( profileFile, residentPages( pagedFile ) );
+                profilesWritten.incrementAndGet();
+            }
+            catch ( IllegalStateException | IOException e )
+            {
+                log.debug( "Could not profile the page cache for " + file.file(), e );
+            }
+        }
+    }
+
+    private BitSet residentPages( PagedFile pagedFile ) throws IOException
+    {
+        BitSet residentPages = new BitSet();
+        try ( PageCursor cursor = pagedFile.io( 0, IO_FLAGS_PROFILE ) )
+        {
+            while ( !job.isStopped() && cursor.next() )
+            {
+                long pageId = cursor.getCurrentPageId();
+                if ( pageId > Integer.MAX_VALUE )
+                {
+                    break;
+                }
+                if ( pageId != PageCursor.UNBOUND_PAGE_ID )
+                {
+                    residentPages.set( (int) pageId );
+                }
+            }
+        }
+        return residentPages;
+    }
+
+    private BitSet readProfile( File profileFile ) throws IOException
+    {
+        try ( DataInputStream in = new DataInputStream( new GZIPInputStream( fs.openAsInputStream( profileFile ) ) ) )
+        {
+            byte[] bitmap = new byte[in.readInt()];
+            in.readFully( bitmap );
+            return BitSet.valueOf( bitmap );
+        }
+    }
+
+    private void writeProfile( File profileFile, BitSet residentPages ) throws IOException
+    {
+        File tmpFile = new File( profileFile.getPath() + ".tmp" );
+        fs.mkdirs( profileFile.getParentFile() );
+        byte[] bitmap = residentPages.toByteArray();
+        try ( DataOutputStream out = new DataOutputStream(
+                new GZIPOutputStream( fs.openAsOutputStream( tmpFile, false ) ) ) )
+        {
+            out.writeInt( bitmap.length );
+            out.write( bitmap );
+        }
+        // Replace the previous profile in one step, so that a crash never leaves us without a profile
+        fs.renameFile( tmpFile, profileFile, ATOMIC_MOVE, REPLACE_EXISTING );
+    }
+
+    /**
+     * @return the profile file for the given mapped file, or {@code null} if the mapped file is not a store file.
+     */
+    private File profileFile( File mappedFile ) throws IOException
+    {
+        Path storePath = storeDir.getCanonicalFile().toPath();
+        Path filePath = mappedFile.getCanonicalFile().toPath();
+        if ( !filePath.startsWith( storePath ) )
+        {
+            return null;
+        }
+        File profilesDir = new File( storeDir, PROFILES_DIRECTORY );
+        return new File( profilesDir, storePath.relativize( filePath ).toString() + SUFFIX_CACHEPROF );
+    }
+}
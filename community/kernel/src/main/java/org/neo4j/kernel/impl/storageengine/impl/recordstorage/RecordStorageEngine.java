@@ -75,6 +75,7 @@ import org.neo4j.kernel.impl.store.NeoStores;
 import org.neo4j.kernel.impl.store.SchemaStorage;
 import org.neo4j.kernel.impl.store.StoreFactory;
 import org.neo4j.kernel.impl.store.id.BufferingIdGeneratorFactory;
+import org.neo4j.kernel.impl.store.id.ConcurrentIdGeneratorFactory;
 import org.neo4j.kernel.impl.store.id.IdGeneratorFactory;
 import org.neo4j.kernel.impl.transaction.command.CacheInvalidationBatchTransactionApplier;
 import org.neo4j.kernel.impl.transaction.command.HighIdBatchTransactionApplier;
@@ -82,6 +83,7 @@ import org.neo4j.kernel.impl.transaction.command.IndexBatchTransactionApplier;
 import org.neo4j.kernel.impl.transaction.command.IndexUpdatesWork;
 import org.neo4j.kernel.impl.transaction.command.LabelUpdateWork;
 import org.neo4j.kernel.impl.transaction.command.NeoStoreBatchTransactionApplier;
+import org.neo4j.kernel.impl.transaction.command.PartitionedNeoStoreBatchTransactionApplier;
 import org.neo4j.kernel.impl.transaction.state.DefaultSchemaIndexProviderMap;
 import org.neo4j.kernel.impl.transaction.state.IntegrityValidator;
 import org.neo4j.kernel.impl.transaction.state.Loaders;
@@ -95,6 +97,7 @@ import org.neo4j.kernel.impl.transaction.state.RelationshipCreator;
 import org.neo4j.kernel.impl.transaction.state.RelationshipDeleter;
 import org.neo4j.kernel.impl.transaction.state.RelationshipGroupGetter;
 import org.neo4j.kernel.impl.transaction.state.TransactionRecordState;
+import org.neo4j.kernel.impl.transaction.tracing.TransactionTracer;
 import org.neo4j.kernel.impl.util.DependencySatisfier;
 import org.neo4j.kernel.impl.util.IdOrderingQueue;
 import org.neo4j.kernel.impl.util.JobScheduler;
@@ -150,6 +153,8 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
     private final LegacyIndexProviderLookup legacyIndexProviderLookup;
     private final PropertyPhysicalToLogicalConverter indexUpdatesConverter;
     private final Supplier<StorageStatement> storeStatementSupplier;
+    private final int recoveryParallelism;
+    private final TransactionTracer transactionTracer;
 
     private BufferingIdGeneratorFactory bufferingIdGeneratorFactory;
     private JobScheduler.JobHandle idBufferMaintenance;
@@ -186,6 +191,43 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
             IdOrderingQueue legacyIndexTransactionOrdering,
             Supplier<KernelTransactionsSnapshot> transactionsSnapshotSupplier )
     {
+        this( storeDir, config, idGeneratorFactory, eligibleForReuse, pageCache, fs, logProvider,
+                propertyKeyTokenHolder, labelTokens, relationshipTypeTokens, schemaStateChangeCallback,
+                constraintSemantics, scheduler, tokenNameLookup, lockService, indexProvider, indexingServiceMonitor,
+                databaseHealth, labelScanStoreProvider, legacyIndexProviderLookup, indexConfigStore,
+                legacyIndexTransactionOrdering, transactionsSnapshotSupplier, TransactionTracer.NULL );
+    }
+
+    /**
+     * @param transactionTracer traces the applying of index updates.
+     */
+    public RecordStorageEngine(
+            File storeDir,
+            Config config,
+            IdGeneratorFactory idGeneratorFactory,
+            IdReuseEligibility eligibleForReuse,
+            PageCache pageCache,
+            FileSystemAbstraction fs,
+            LogProvider logProvider,
+            PropertyKeyTokenHolder propertyKeyTokenHolder,
+            LabelTokenHolder labelTokens,
+            RelationshipTypeTokenHolder relationshipTypeTokens,
+            Runnable schemaStateChangeCallback,
+            ConstraintSemantics constraintSemantics,
+            JobScheduler scheduler,
+            TokenNameLookup tokenNameLookup,
+            LockService lockService,
+            SchemaIndexProvider indexProvider,
+            IndexingService.Monitor indexingServiceMonitor,
+            DatabaseHealth databaseHealth,
+            LabelScanStoreProvider labelScanStoreProvider,
+            LegacyIndexProviderLookup legacyIndexProviderLookup,
+            IndexConfigStore indexConfigStore,
+            IdOrderingQueue legacyIndexTransactionOrdering,
+            Supplier<KernelTransactionsSnapshot> transactionsSnapshotSupplier,
+            TransactionTracer transactionTracer )
+    {
+        this.transactionTracer = transactionTracer;
         this.propertyKeyTokenHolder = propertyKeyTokenHolder;
         this.relationshipTypeTokenHolder = relationshipTypeTokens;
         this.labelTokenHolder = labelTokens;
@@ -197,7 +239,15 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
         this.indexConfigStore = indexConfigStore;
         this.constraintSemantics = constraintSemantics;
         this.legacyIndexTransactionOrdering = legacyIndexTransactionOrdering;
+        this.recoveryParallelism = config.get( GraphDatabaseSettings.recovery_parallelism );
 
+        int idBatchSize = config.get( GraphDatabaseSettings.id_generator_pooled_batch_size );
+        if ( idBatchSize > 0 )
+        {
+            // Threads creating entities take their ids from a pool of batches, instead of synchronizing on
+            // the id generators for every id
+            idGeneratorFactory = new ConcurrentIdGeneratorFactory( idGeneratorFactory, idBatchSize );
+        }
         if ( safeIdBuffering )
         {
             // This buffering id generator factory will have properly buffering id generators injected into
@@ -357,7 +407,15 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
     {
         ArrayList<BatchTransactionApplier> appliers = new ArrayList<>();
         // Graph store application. The order of the decorated store appliers is irrelevant
-        appliers.add( new NeoStoreBatchTransactionApplier( neoStores, cacheAccess, lockService ) );
+        if ( mode == TransactionApplicationMode.RECOVERY && recoveryParallelism > 1 )
+        {
+            appliers.add( new PartitionedNeoStoreBatchTransactionApplier( neoStores, cacheAccess, lockService,
+                    scheduler.executor( JobScheduler.Groups.recovery ), recoveryParallelism ) );
+        }
+        else
+        {
+            appliers.add( new NeoStoreBatchTransactionApplier( neoStores, cacheAccess, lockService ) );
+        }
         if ( mode.needsHighIdTracking() )
         {
             appliers.add( new HighIdBatchTransactionApplier( neoStores ) );
@@ -370,7 +428,7 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
         // Schema index application
         appliers.add( new IndexBatchTransactionApplier( indexingService, labelScanStoreSync, indexUpdatesSync,
                 neoStores.getNodeStore(), new PropertyLoader( neoStores ),
-                indexUpdatesConverter, mode ) );
+                indexUpdatesConverter, mode, transactionTracer ) );
 
         // Legacy index application
         appliers.add(
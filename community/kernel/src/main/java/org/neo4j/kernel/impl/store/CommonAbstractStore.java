@@ -22,6 +22,7 @@ package org.neo4j.kernel.impl.store;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.NoSuchFileException;
+import java.nio.file.OpenOption;
 import java.nio.file.StandardOpenOption;
 import java.util.Collection;
 
@@ -29,6 +30,7 @@ import org.neo4j.graphdb.config.Setting;
 import org.neo4j.graphdb.factory.GraphDatabaseSettings;
 import org.neo4j.helpers.collection.Visitor;
 import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCacheShare;
 import org.neo4j.io.pagecache.PageCursor;
 import org.neo4j.io.pagecache.PagedFile;
 import org.neo4j.kernel.configuration.Config;
@@ -243,7 +245,7 @@ public abstract class CommonAbstractStore<RECORD extends AbstractBaseRecord,HEAD
         {
             extractHeaderRecord();
             int filePageSize = pageCache.pageSize() - pageCache.pageSize() % getRecordSize();
-            storeFile = pageCache.map( getStorageFileName(), filePageSize );
+            storeFile = pageCache.map( getStorageFileName(), filePageSize, pageCacheShare() );
         }
         catch ( IOException e )
         {
@@ -252,6 +254,16 @@ public abstract class CommonAbstractStore<RECORD extends AbstractBaseRecord,HEAD
         loadIdGenerator();
     }
 
+    /**
+     * The {@link PageCacheShare page cache shares}, if any, that this store should be mapped with. Stores that are
+     * important to keep in memory, or that should not be allowed to push other stores out of memory, can override
+     * this.
+     */
+    protected OpenOption[] pageCacheShare()
+    {
+        return new OpenOption[0];
+    }
+
     private void extractHeaderRecord() throws IOException
     {
         if ( getNumberOfReservedLowIds() > 0 )
@@ -1101,7 +1113,7 @@ public abstract class CommonAbstractStore<RECORD extends AbstractBaseRecord,HEAD
     @Override
     public <EXCEPTION extends Exception> void scanAllRecords( Visitor<RECORD,EXCEPTION> visitor ) throws EXCEPTION
     {
-        try ( RecordCursor<RECORD> cursor = newRecordCursor( newRecord() ) )
+        try ( RecordCursor<RECORD> cursor = newRecordScanCursor( newRecord() ) )
         {
             long highId = getHighId();
             cursor.acquire( getNumberOfReservedLowIds(), CHECK );
@@ -1127,6 +1139,17 @@ public abstract class CommonAbstractStore<RECORD extends AbstractBaseRecord,HEAD
 
     @Override
     public RecordCursor<RECORD> newRecordCursor( final RECORD record )
+    {
+        return newRecordCursor( record, PF_SHARED_READ_LOCK );
+    }
+
+    @Override
+    public RecordCursor<RECORD> newRecordScanCursor( final RECORD record )
+    {
+        return newRecordCursor( record, PF_SHARED_READ_LOCK | PF_READ_AHEAD );
+    }
+
+    private RecordCursor<RECORD> newRecordCursor( final RECORD record, final int pf_flags )
     {
         return new RecordCursor<RECORD>()
         {
@@ -1212,7 +1235,7 @@ public abstract class CommonAbstractStore<RECORD extends AbstractBaseRecord,HEAD
                 this.mode = mode;
                 try
                 {
-                    this.pageCursor = storeFile.io( pageIdForRecord( id ), PF_SHARED_READ_LOCK );
+                    this.pageCursor = storeFile.io( pageIdForRecord( id ), pf_flags );
                 }
                 catch ( IOException e )
                 {
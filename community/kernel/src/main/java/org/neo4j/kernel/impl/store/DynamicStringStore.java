@@ -20,8 +20,11 @@
 package org.neo4j.kernel.impl.store;
 
 import java.io.File;
+import java.nio.file.OpenOption;
 
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
 import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCacheShare;
 import org.neo4j.kernel.impl.store.id.IdGeneratorFactory;
 import org.neo4j.kernel.impl.store.id.IdType;
 import org.neo4j.kernel.configuration.Config;
@@ -58,4 +61,13 @@ public class DynamicStringStore extends AbstractDynamicStore
     {
         processor.processString( this, record, idType );
     }
+
+    @Override
+    protected OpenOption[] pageCacheShare()
+    {
+        // Token names are also kept in dynamic string stores, but those are small, so only bound the property strings.
+        double share = configuration.get( GraphDatabaseSettings.pagecache_string_store_max_share );
+        return idType == IdType.STRING_BLOCK && share < 1
+               ? new OpenOption[]{PageCacheShare.bounded( share )} : super.pageCacheShare();
+    }
 }
@@ -20,10 +20,13 @@
 package org.neo4j.kernel.impl.store;
 
 import java.io.File;
+import java.nio.file.OpenOption;
 import java.util.Arrays;
 import java.util.List;
 
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
 import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCacheShare;
 import org.neo4j.kernel.configuration.Config;
 import org.neo4j.kernel.impl.store.format.RecordFormats;
 import org.neo4j.kernel.impl.store.id.IdGeneratorFactory;
@@ -85,6 +88,13 @@ public class NodeStore extends CommonAbstractStore<NodeRecord,NoStoreHeader>
         processor.processNode( this, record );
     }
 
+    @Override
+    protected OpenOption[] pageCacheShare()
+    {
+        double share = configuration.get( GraphDatabaseSettings.pagecache_topology_reserved_share );
+        return share > 0 ? new OpenOption[]{PageCacheShare.reserved( share )} : super.pageCacheShare();
+    }
+
     @Override
     public void ensureHeavy( NodeRecord node )
     {
@@ -146,6 +146,19 @@ public interface RecordStore<RECORD extends AbstractBaseRecord> extends IdSequen
      */
     RecordCursor<RECORD> newRecordCursor( RECORD record );
 
+    /**
+     * Instantiates a new record cursor, like {@link #newRecordCursor(AbstractBaseRecord)}, that is intended for
+     * reading records in increasing id order, like when scanning the whole store. Stores can use this hint to read
+     * ahead of the cursor.
+     *
+     * @param record instance to use when reading record data.
+     * @return a new {@link RecordCursor} instance for scanning records in this store.
+     */
+    default RecordCursor<RECORD> newRecordScanCursor( RECORD record )
+    {
+        return newRecordCursor( record );
+    }
+
     /**
      * Returns another record id which the given {@code record} references and which a {@link RecordCursor}
      * would follow and read next.
@@ -278,6 +291,12 @@ public interface RecordStore<RECORD extends AbstractBaseRecord> extends IdSequen
             return actual.newRecordCursor( record );
         }
 
+        @Override
+        public RecordCursor<R> newRecordScanCursor( R record )
+        {
+            return actual.newRecordScanCursor( record );
+        }
+
         @Override
         public long getNextRecordReference( R record )
         {
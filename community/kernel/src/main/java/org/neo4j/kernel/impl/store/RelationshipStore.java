@@ -20,8 +20,11 @@
 package org.neo4j.kernel.impl.store;
 
 import java.io.File;
+import java.nio.file.OpenOption;
 
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
 import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCacheShare;
 import org.neo4j.kernel.configuration.Config;
 import org.neo4j.kernel.impl.store.format.RecordFormats;
 import org.neo4j.kernel.impl.store.id.IdGeneratorFactory;
@@ -58,4 +61,11 @@ public class RelationshipStore extends CommonAbstractStore<RelationshipRecord,No
     {
         processor.processRelationship( this, record );
     }
+
+    @Override
+    protected OpenOption[] pageCacheShare()
+    {
+        double share = configuration.get( GraphDatabaseSettings.pagecache_topology_reserved_share );
+        return share > 0 ? new OpenOption[]{PageCacheShare.reserved( share )} : super.pageCacheShare();
+    }
 }
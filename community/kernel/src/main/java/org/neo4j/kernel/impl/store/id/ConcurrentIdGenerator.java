@@ -0,0 +1,340 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.id;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.neo4j.kernel.impl.store.id.validation.IdValidator;
+
+/**
+ * Wraps an {@link IdGenerator} such that threads allocating and freeing ids don't contend on its monitor.
+ * <p>
+ * Ids are allocated from batches, {@link IdRange ranges} taken from the wrapped generator with
+ * {@link IdGenerator#nextIdBatch(int)}. There is a fixed pool of batches, two to four per processor, and a thread
+ * borrows a batch for the duration of a single allocation, preferably the same batch every time. When every batch
+ * is borrowed, the id is allocated straight from the wrapped generator instead. The number of batches, and thus the
+ * number of ids reserved but not yet handed out, is therefore bounded regardless of how many threads come and go,
+ * and ids reserved by a thread that has since died are handed out to other threads. Ids are freed onto a
+ * lock-free stack. For generators with aggressive reuse the freed ids are handed out again from that stack, before
+ * any batch ids. Otherwise the freed ids are handed to the wrapped generator the next time a batch is taken, so that
+ * they are not reused until the generator has been closed and opened again, as with the wrapped generator.
+ * <p>
+ * Ids left in the batches, or on the stack, are freed to the wrapped generator when this generator is
+ * {@link #close() closed}. The high id of the wrapped generator includes the ids reserved by the batches, so it
+ * will be up to one batch size per pooled batch higher than the highest id actually allocated.
+ */
+class ConcurrentIdGenerator extends IdGenerator.Delegate
+{
+    private static final long NO_ID = -1;
+    private static final long[] NO_IDS = new long[0];
+
+    private final int batchSize;
+    private final long max;
+    private final boolean aggressiveReuse;
+    private final int maxFreeIds;
+
+    private final AtomicReference<FreeId> freeIds = new AtomicReference<>();
+    private final Batch[] batches;
+    private final int batchMask;
+    // Incremented whenever the high id is set, which invalidates all batches taken before then
+    private final AtomicInteger generation = new AtomicInteger();
+
+    /**
+     * @param delegate the generator to take batches from, and to eventually free ids to.
+     * @param batchSize the number of ids in each batch.
+     * @param max the highest possible id of the wrapped generator.
+     * @param aggressiveReuse whether freed ids may be handed out again before the generator is closed.
+     * @param maxFreeIds the number of freed ids to keep on the stack, before handing them to the wrapped generator.
+     */
+    ConcurrentIdGenerator( IdGenerator delegate, int batchSize, long max, boolean aggressiveReuse, int maxFreeIds )
+    {
+        this( delegate, batchSize, max, aggressiveReuse, maxFreeIds,
+                Integer.highestOneBit( Runtime.getRuntime().availableProcessors() * 2 - 1 ) << 1 );
+    }
+
+    /**
+     * @param poolSize the number of batches that threads borrow from, which must be a power of two.
+     */
+    ConcurrentIdGenerator( IdGenerator delegate, int batchSize, long max, boolean aggressiveReuse, int maxFreeIds,
+            int poolSize )
+    {
+        super( delegate );
+        if ( poolSize < 1 || Integer.bitCount( poolSize ) != 1 )
+        {
+            throw new IllegalArgumentException( "Illegal pool size, must be a power of two: " + poolSize );
+        }
+        if ( batchSize < 1 )
+        {
+            throw new IllegalArgumentException( "Illegal batch size: " + batchSize );
+        }
+        this.batchSize = batchSize;
+        this.max = max;
+        this.aggressiveReuse = aggressiveReuse;
+        this.maxFreeIds = maxFreeIds;
+        this.batches = new Batch[poolSize];
+        for ( int i = 0; i < poolSize; i++ )
+        {
+            batches[i] = new Batch();
+        }
+        this.batchMask = poolSize - 1;
+    }
+
+    @Override
+    public long nextId()
+    {
+        if ( aggressiveReuse )
+        {
+            long id = popFreeId();
+            if ( id != NO_ID )
+            {
+                return id;
+            }
+        }
+
+        Batch batch = borrowBatch();
+        if ( batch == null )
+        {
+            return super.nextId();
+        }
+        try
+        {
+            long id = batch.next( generation.get() );
+            while ( id == NO_ID )
+            {
+                drainFreeIds();
+                if ( getHighId() + batchSize > max )
+                {
+                    // Close to capacity the ids are taken one by one, to make use of every last one of them
+                    return super.nextId();
+                }
+                id = takeBatch( batch );
+            }
+            return id;
+        }
+        finally
+        {
+            batch.borrowed.set( false );
+        }
+    }
+
+    /**
+     * @return a batch that the calling thread has exclusive access to until it clears {@link Batch#borrowed}, or
+     * {@code null} if all batches are currently borrowed by other threads.
+     */
+    private Batch borrowBatch()
+    {
+        // Threads start looking at a batch of their own choosing, so that they rarely compete for the same batch,
+        // and mostly allocate consecutive ids.
+        int start = (int) Thread.currentThread().getId();
+        for ( int i = 0; i < batches.length; i++ )
+        {
+            Batch batch = batches[(start + i) & batchMask];
+            if ( !batch.borrowed.get() && batch.borrowed.compareAndSet( false, true ) )
+            {
+                return batch;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Refill the given batch from the wrapped generator, and take the first id from it. This is exclusive with
+     * {@link #setHighId(long)}, so that a range taken while the high id is being set can't be tagged with the
+     * generation from before, and a high id set right after can't drop the range before any of its ids are used.
+     *
+     * @return the first id of the new batch, or {@link #NO_ID} if it has none.
+     */
+    private synchronized long takeBatch( Batch batch )
+    {
+        int currentGeneration = generation.get();
+        batch.reset( super.nextIdBatch( batchSize ), currentGeneration );
+        return batch.next( currentGeneration );
+    }
+
+    @Override
+    public synchronized void setHighId( long id )
+    {
+        super.setHighId( id );
+        generation.incrementAndGet();
+    }
+
+    @Override
+    public void freeId( long id )
+    {
+        if ( IdValidator.isReservedId( id ) )
+        {
+            return;
+        }
+        long highId = getHighId();
+        if ( id < 0 || id >= highId )
+        {
+            throw new IllegalArgumentException( "Illegal id[" + id + "], highId is " + highId );
+        }
+
+        FreeId head;
+        FreeId freeId;
+        do
+        {
+            head = freeIds.get();
+            freeId = new FreeId( id, head );
+        }
+        while ( !freeIds.compareAndSet( head, freeId ) );
+
+        if ( freeId.size >= maxFreeIds )
+        {
+            drainFreeIds();
+        }
+    }
+
+    @Override
+    public long getDefragCount()
+    {
+        return super.getDefragCount() + freeIdCount();
+    }
+
+    @Override
+    public long getNumberOfIdsInUse()
+    {
+        return super.getNumberOfIdsInUse() - freeIdCount();
+    }
+
+    /**
+     * Frees the ids left in the batches, and on the stack, to the wrapped generator, and closes it. Ids must not be
+     * allocated or freed concurrently with closing.
+     */
+    @Override
+    public synchronized void close()
+    {
+        for ( Batch batch : batches )
+        {
+            if ( batch.generation == generation.get() )
+            {
+                for ( long id; (id = batch.next( batch.generation )) != NO_ID; )
+                {
+                    super.freeId( id );
+                }
+            }
+            batch.clear();
+        }
+        drainFreeIds();
+        super.close();
+    }
+
+    private long popFreeId()
+    {
+        FreeId head;
+        do
+        {
+            head = freeIds.get();
+            if ( head == null )
+            {
+                return NO_ID;
+            }
+        }
+        while ( !freeIds.compareAndSet( head, head.next ) );
+        return head.id;
+    }
+
+    private void drainFreeIds()
+    {
+        if ( freeIds.get() == null )
+        {
+            return;
+        }
+        for ( FreeId freeId = freeIds.getAndSet( null ); freeId != null; freeId = freeId.next )
+        {
+            super.freeId( freeId.id );
+        }
+    }
+
+    private long freeIdCount()
+    {
+        FreeId head = freeIds.get();
+        return head == null ? 0 : head.size;
+    }
+
+    private static final class FreeId
+    {
+        private final long id;
+        private final FreeId next;
+        private final int size;
+
+        FreeId( long id, FreeId next )
+        {
+            this.id = id;
+            this.next = next;
+            this.size = next == null ? 1 : next.size + 1;
+        }
+    }
+
+    /**
+     * A range of ids taken from the wrapped generator. Only accessed by the thread that has borrowed it, apart from
+     * when closing.
+     */
+    private static final class Batch
+    {
+        private final AtomicBoolean borrowed = new AtomicBoolean();
+        private long[] defragIds = NO_IDS;
+        private int defragCursor;
+        private long nextId;
+        private long endId;
+        private int generation = -1;
+
+        void reset( IdRange range, int generation )
+        {
+            this.defragIds = range.getDefragIds();
+            this.defragCursor = 0;
+            this.nextId = range.getRangeStart();
+            this.endId = range.getRangeStart() + range.getRangeLength();
+            this.generation = generation;
+        }
+
+        long next( int currentGeneration )
+        {
+            if ( generation != currentGeneration )
+            {
+                return NO_ID;
+            }
+            if ( defragCursor < defragIds.length )
+            {
+                return defragIds[defragCursor++];
+            }
+            while ( nextId < endId )
+            {
+                long id = nextId++;
+                if ( !IdValidator.isReservedId( id ) )
+                {
+                    return id;
+                }
+            }
+            return NO_ID;
+        }
+
+        void clear()
+        {
+            defragIds = NO_IDS;
+            defragCursor = 0;
+            nextId = endId = 0;
+            generation = -1;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.id;
+
+import java.io.File;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Wraps the {@link IdGenerator} of each {@link IdType} that entities are created with in a
+ * {@link ConcurrentIdGenerator}, so that threads creating entities allocate their ids from a pool of batches,
+ * rather than all synchronizing on the same generator. The generators of tokens and schema rules, which are rarely
+ * allocated from, are left as they are.
+ */
+public class ConcurrentIdGeneratorFactory extends IdGeneratorFactory.Delegate
+{
+    private static final Set<IdType> BATCHED_ID_TYPES = EnumSet.of( IdType.NODE, IdType.RELATIONSHIP,
+            IdType.PROPERTY, IdType.STRING_BLOCK, IdType.ARRAY_BLOCK, IdType.NODE_LABELS, IdType.RELATIONSHIP_GROUP );
+
+    private final IdGenerator[/*IdType#ordinal as key*/] overriddenIdGenerators =
+            new IdGenerator[IdType.values().length];
+    private final int batchSize;
+
+    public ConcurrentIdGeneratorFactory( IdGeneratorFactory delegate, int batchSize )
+    {
+        super( delegate );
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public IdGenerator open( File filename, int grabSize, IdType idType, long highId, long maxId )
+    {
+        IdGenerator generator = super.open( filename, grabSize, idType, highId, maxId );
+        if ( BATCHED_ID_TYPES.contains( idType ) )
+        {
+            generator = new ConcurrentIdGenerator( generator, batchSize, maxId, idType.allowAggressiveReuse(),
+                    grabSize );
+            overriddenIdGenerators[idType.ordinal()] = generator;
+        }
+        return generator;
+    }
+
+    @Override
+    public IdGenerator get( IdType idType )
+    {
+        IdGenerator generator = overriddenIdGenerators[idType.ordinal()];
+        return generator != null ? generator : super.get( idType );
+    }
+}
@@ -44,7 +44,7 @@ abstract class StoreScanAsInputIterable<INPUT extends InputEntity,RECORD extends
     public StoreScanAsInputIterable( RecordStore<RECORD> store )
     {
         this.store = store;
-        this.cursor = store.newRecordCursor( store.newRecord() );
+        this.cursor = store.newRecordScanCursor( store.newRecord() );
         this.traceability = new StoreSourceTraceability( store.toString(), store.getRecordSize() );
     }
 
@@ -45,6 +45,8 @@ import org.neo4j.kernel.impl.transaction.state.IndexUpdates;
 import org.neo4j.kernel.impl.transaction.state.OnlineIndexUpdates;
 import org.neo4j.kernel.impl.transaction.state.PropertyLoader;
 import org.neo4j.kernel.impl.transaction.state.RecoveryIndexUpdates;
+import org.neo4j.kernel.impl.transaction.tracing.CommitPhaseEvent;
+import org.neo4j.kernel.impl.transaction.tracing.TransactionTracer;
 import org.neo4j.storageengine.api.CommandsToApply;
 import org.neo4j.storageengine.api.TransactionApplicationMode;
 
@@ -61,6 +63,7 @@ public class IndexBatchTransactionApplier extends BatchTransactionApplier.Adapte
     private final WorkSync<IndexingService,IndexUpdatesWork> indexUpdatesSync;
     private final SingleTransactionApplier transactionApplier;
     private final PropertyPhysicalToLogicalConverter indexUpdateConverter;
+    private final TransactionTracer transactionTracer;
 
     private List<NodeLabelUpdate> labelUpdates;
     private IndexUpdates indexUpdates;
@@ -72,6 +75,18 @@ public class IndexBatchTransactionApplier extends BatchTransactionApplier.Adapte
             PropertyPhysicalToLogicalConverter indexUpdateConverter,
             TransactionApplicationMode mode )
     {
+        this( indexingService, labelScanStoreSync, indexUpdatesSync, nodeStore, propertyLoader, indexUpdateConverter,
+                mode, TransactionTracer.NULL );
+    }
+
+    public IndexBatchTransactionApplier( IndexingService indexingService,
+            WorkSync<Supplier<LabelScanWriter>,LabelUpdateWork> labelScanStoreSync,
+            WorkSync<IndexingService,IndexUpdatesWork> indexUpdatesSync,
+            NodeStore nodeStore, PropertyLoader propertyLoader,
+            PropertyPhysicalToLogicalConverter indexUpdateConverter,
+            TransactionApplicationMode mode, TransactionTracer transactionTracer )
+    {
+        this.transactionTracer = transactionTracer;
         this.indexingService = indexingService;
         this.labelScanStoreSync = labelScanStoreSync;
         this.indexUpdatesSync = indexUpdatesSync;
@@ -97,16 +112,24 @@ public class IndexBatchTransactionApplier extends BatchTransactionApplier.Adapte
     @Override
     public void close() throws Exception
     {
-        // Apply all the label updates within this whole batch of transactions.
-        if ( labelUpdates != null )
+        if ( labelUpdates == null && (indexUpdates == null || !indexUpdates.hasUpdates()) )
         {
-            // Updates are sorted according to node id here, an artifact of node commands being sorted
-            // by node id when extracting from TransactionRecordState.
-            labelScanStoreSync.apply( new LabelUpdateWork( labelUpdates ) );
+            return;
         }
 
-        // Apply all the index updates within this whole batch of transactions.
-        applyIndexUpdates();
+        try ( CommitPhaseEvent indexUpdatesEvent = transactionTracer.beginIndexUpdates() )
+        {
+            // Apply all the label updates within this whole batch of transactions.
+            if ( labelUpdates != null )
+            {
+                // Updates are sorted according to node id here, an artifact of node commands being sorted
+                // by node id when extracting from TransactionRecordState.
+                labelScanStoreSync.apply( new LabelUpdateWork( labelUpdates ) );
+            }
+
+            // Apply all the index updates within this whole batch of transactions.
+            applyIndexUpdates();
+        }
     }
 
     /**
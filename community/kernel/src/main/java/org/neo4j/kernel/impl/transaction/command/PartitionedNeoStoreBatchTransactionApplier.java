@@ -0,0 +1,347 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.command;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.neo4j.collection.primitive.Primitive;
+import org.neo4j.collection.primitive.PrimitiveLongIntMap;
+import org.neo4j.kernel.impl.api.BatchTransactionApplier;
+import org.neo4j.kernel.impl.api.CommandVisitor;
+import org.neo4j.kernel.impl.api.TransactionApplier;
+import org.neo4j.kernel.impl.core.CacheAccessBackDoor;
+import org.neo4j.kernel.impl.locking.LockGroup;
+import org.neo4j.kernel.impl.locking.LockService;
+import org.neo4j.kernel.impl.store.NeoStores;
+import org.neo4j.kernel.impl.store.PropertyType;
+import org.neo4j.kernel.impl.store.record.AbstractBaseRecord;
+import org.neo4j.kernel.impl.store.record.DynamicRecord;
+import org.neo4j.kernel.impl.store.record.PropertyBlock;
+import org.neo4j.kernel.impl.store.record.PropertyRecord;
+import org.neo4j.storageengine.api.CommandsToApply;
+
+/**
+ * A {@link NeoStoreBatchTransactionApplier} for recovery, which writes the node, relationship, property and
+ * relationship group records of a batch of transactions in parallel, when the batch is closed. All other commands
+ * are applied as they're visited, in transaction order.
+ * <p>
+ * Records are partitioned by the store page they're on, such that the records of one page are all written by the
+ * same thread, in transaction order. A command may also write records outside of its own page though, i.e. dynamic
+ * label and property value records and secondary record units, whose ids may have been freed and reused by a
+ * command in another partition, in the same batch. Such a conflict is resolved by first writing all records
+ * partitioned so far, before carrying on.
+ * <p>
+ * No locks are taken on the records written in parallel, since nothing else reads the store during recovery.
+ */
+public class PartitionedNeoStoreBatchTransactionApplier extends BatchTransactionApplier.Adapter
+{
+    private static final int NODE = 0;
+    private static final int RELATIONSHIP = 1;
+    private static final int PROPERTY = 2;
+    private static final int RELATIONSHIP_GROUP = 3;
+    private static final int DYNAMIC_LABEL = 4;
+    private static final int STRING = 5;
+    private static final int ARRAY = 6;
+    private static final Iterable<DynamicRecord> NO_DYNAMIC_RECORDS = Collections.emptyList();
+
+    private final NeoStores neoStores;
+    private final CacheAccessBackDoor cacheAccess;
+    private final LockService lockService;
+    private final Executor executor;
+    private final List<Command>[] partitions;
+    private final int[] recordsPerPage;
+    // The partition that last wrote each record, since records were last written
+    private final PrimitiveLongIntMap recordPartitions = Primitive.longIntMap();
+    // The records written by the command being partitioned
+    private long[] recordKeys = new long[16];
+    private int recordKeyCount;
+
+    @SuppressWarnings( "unchecked" )
+    public PartitionedNeoStoreBatchTransactionApplier( NeoStores neoStores, CacheAccessBackDoor cacheAccess,
+            LockService lockService, Executor executor, int parallelism )
+    {
+        this.neoStores = neoStores;
+        this.cacheAccess = cacheAccess;
+        this.lockService = lockService;
+        this.executor = executor;
+        this.partitions = new List[parallelism];
+        for ( int i = 0; i < parallelism; i++ )
+        {
+            partitions[i] = new ArrayList<>();
+        }
+        this.recordsPerPage = new int[]{
+                neoStores.getNodeStore().getRecordsPerPage(),
+                neoStores.getRelationshipStore().getRecordsPerPage(),
+                neoStores.getPropertyStore().getRecordsPerPage(),
+                neoStores.getRelationshipGroupStore().getRecordsPerPage()};
+    }
+
+    @Override
+    public TransactionApplier startTx( CommandsToApply transaction )
+    {
+        throw new RuntimeException( "NeoStoreTransactionApplier requires a LockGroup" );
+    }
+
+    @Override
+    public TransactionApplier startTx( CommandsToApply transaction, LockGroup lockGroup ) throws IOException
+    {
+        return new PartitioningTransactionApplier( transaction.transactionId(), lockGroup );
+    }
+
+    @Override
+    public void close() throws Exception
+    {
+        writePartitionedRecords();
+    }
+
+    private void partition( Command command, int store, AbstractBaseRecord record,
+            Iterable<DynamicRecord> dynamicRecords ) throws IOException
+    {
+        int partition = partitionOf( store, record.getId() );
+        recordKeyCount = 0;
+        addRecordKey( store, record.getId() );
+        if ( record.hasSecondaryUnitId() )
+        {
+            addRecordKey( store, record.getSecondaryUnitId() );
+        }
+        for ( DynamicRecord dynamicRecord : dynamicRecords )
+        {
+            addRecordKey( dynamicStore( store, dynamicRecord ), dynamicRecord.getId() );
+        }
+
+        for ( int i = 0; i < recordKeyCount; i++ )
+        {
+            int previousPartition = recordPartitions.get( recordKeys[i] );
+            if ( previousPartition != -1 && previousPartition != partition )
+            {
+                writePartitionedRecords();
+                break;
+            }
+        }
+        for ( int i = 0; i < recordKeyCount; i++ )
+        {
+            recordPartitions.put( recordKeys[i], partition );
+        }
+        partitions[partition].add( command );
+    }
+
+    private void addRecordKey( int store, long id )
+    {
+        if ( recordKeyCount == recordKeys.length )
+        {
+            recordKeys = Arrays.copyOf( recordKeys, recordKeyCount * 2 );
+        }
+        recordKeys[recordKeyCount++] = ((long) store << 56) | id;
+    }
+
+    private int partitionOf( int store, long id )
+    {
+        long page = id / recordsPerPage[store];
+        long hash = (page * 31 + store) * 0x9E3779B97F4A7C15L;
+        return (int) ((hash >>> 33) % partitions.length);
+    }
+
+    private static int dynamicStore( int store, DynamicRecord record )
+    {
+        if ( store == NODE )
+        {
+            return DYNAMIC_LABEL;
+        }
+        return record.getType() == PropertyType.STRING.intValue() ? STRING : ARRAY;
+    }
+
+    private void writePartitionedRecords() throws IOException
+    {
+        int scheduled = 0;
+        for ( int i = 1; i < partitions.length; i++ )
+        {
+            if ( !partitions[i].isEmpty() )
+            {
+                scheduled++;
+            }
+        }
+
+        CountDownLatch written = new CountDownLatch( scheduled );
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        for ( int i = 1; i < partitions.length; i++ )
+        {
+            List<Command> partition = partitions[i];
+            if ( !partition.isEmpty() )
+            {
+                executor.execute( () ->
+                {
+                    try
+                    {
+                        write( partition );
+                    }
+                    catch ( Throwable e )
+                    {
+                        failure.compareAndSet( null, e );
+                    }
+                    finally
+                    {
+                        written.countDown();
+                    }
+                } );
+            }
+        }
+        try
+        {
+            write( partitions[0] );
+        }
+        catch ( Throwable e )
+        {
+            failure.compareAndSet( null, e );
+        }
+
+        try
+        {
+            written.await();
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException( "Interrupted while writing recovered records", e );
+        }
+        for ( List<Command> partition : partitions )
+        {
+            partition.clear();
+        }
+        recordPartitions.clear();
+
+        Throwable cause = failure.get();
+        if ( cause != null )
+        {
+            throw new IOException( "Failed to write recovered records", cause );
+        }
+    }
+
+    private void write( List<Command> partition ) throws IOException
+    {
+        RecordWriter writer = new RecordWriter();
+        for ( Command command : partition )
+        {
+            command.handle( writer );
+        }
+    }
+
+    /**
+     * Writes records to the store, like {@link NeoStoreTransactionApplier} does, but without taking any locks.
+     */
+    private class RecordWriter extends CommandVisitor.Adapter
+    {
+        @Override
+        public boolean visitNodeCommand( Command.NodeCommand command )
+        {
+            neoStores.getNodeStore().updateRecord( command.getAfter() );
+            return false;
+        }
+
+        @Override
+        public boolean visitRelationshipCommand( Command.RelationshipCommand command )
+        {
+            neoStores.getRelationshipStore().updateRecord( command.getAfter() );
+            return false;
+        }
+
+        @Override
+        public boolean visitPropertyCommand( Command.PropertyCommand command )
+        {
+            neoStores.getPropertyStore().updateRecord( command.getAfter() );
+            return false;
+        }
+
+        @Override
+        public boolean visitRelationshipGroupCommand( Command.RelationshipGroupCommand command )
+        {
+            neoStores.getRelationshipGroupStore().updateRecord( command.getAfter() );
+            return false;
+        }
+    }
+
+    /**
+     * Applies the commands of one transaction, except for the record commands that are partitioned, to be written
+     * when the batch is closed.
+     */
+    private class PartitioningTransactionApplier extends NeoStoreTransactionApplier
+    {
+        PartitioningTransactionApplier( long transactionId, LockGroup lockGroup )
+        {
+            super( neoStores, cacheAccess, lockService, transactionId, lockGroup );
+        }
+
+        @Override
+        public boolean visitNodeCommand( Command.NodeCommand command ) throws IOException
+        {
+            partition( command, NODE, command.getAfter(), command.getAfter().getDynamicLabelRecords() );
+            return false;
+        }
+
+        @Override
+        public boolean visitRelationshipCommand( Command.RelationshipCommand command ) throws IOException
+        {
+            partition( command, RELATIONSHIP, command.getAfter(), NO_DYNAMIC_RECORDS );
+            return false;
+        }
+
+        @Override
+        public boolean visitPropertyCommand( Command.PropertyCommand command ) throws IOException
+        {
+            partition( command, PROPERTY, command.getAfter(), valueRecords( command.getAfter() ) );
+            return false;
+        }
+
+        @Override
+        public boolean visitRelationshipGroupCommand( Command.RelationshipGroupCommand command ) throws IOException
+        {
+            partition( command, RELATIONSHIP_GROUP, command.getAfter(), NO_DYNAMIC_RECORDS );
+            return false;
+        }
+    }
+
+    private static List<DynamicRecord> valueRecords( PropertyRecord record )
+    {
+        List<DynamicRecord> deletedRecords = record.getDeletedRecords();
+        if ( !record.inUse() )
+        {
+            return deletedRecords;
+        }
+        List<DynamicRecord> valueRecords = null;
+        for ( PropertyBlock block : record )
+        {
+            if ( !block.isLight() )
+            {
+                if ( valueRecords == null )
+                {
+                    valueRecords = new ArrayList<>( deletedRecords );
+                }
+                valueRecords.addAll( block.getValueRecords() );
+            }
+        }
+        return valueRecords == null ? deletedRecords : valueRecords;
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Decides how long the thread about to force the transaction log should wait for more appends to arrive, such that
+ * they can be made durable by the same force.
+ * <p>
+ * Both the latency of forcing the log, and the interval between appends asking for a force, are tracked as
+ * exponentially weighted moving averages. The forcing thread waits at most a window of half the force latency,
+ * bounded by the configured maximum delay, and only when at least one more append is expected to arrive within
+ * that window. It stops waiting early as soon as the number of appends expected within the window have arrived.
+ * This means that a lone committer, or a lightly loaded database, never waits, whereas under concurrent load each
+ * force is made to cover more transactions.
+ * <p>
+ * All methods except {@link #arrived()} and the {@link LogForceCounters} methods are expected to be called by the
+ * thread holding the force lock of the appender, and are thus never called concurrently.
+ */
+public class AdaptiveGroupCommit implements LogForceCounters
+{
+    /**
+     * Group commit that never delays a force, but still keeps count of forces and forced appends.
+     */
+    public static AdaptiveGroupCommit disabled()
+    {
+        return new AdaptiveGroupCommit( 0, TimeUnit.MICROSECONDS );
+    }
+
+    // The weight of each new observation in the moving averages, as a shift: 1/8.
+    private static final int EWMA_SHIFT = 3;
+    private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos( 10 );
+    private static final int MAX_TARGET_BATCH_SIZE = 1024;
+
+    private final long maxDelayNanos;
+    private final AtomicInteger pendingAppends = new AtomicInteger();
+
+    // Only written by the thread holding the force lock, but read by monitoring.
+    private volatile long forceLatencyNanos;
+    private volatile long arrivalIntervalNanos = Long.MAX_VALUE;
+    private volatile long numberOfLogForces;
+    private volatile long numberOfForcedAppends;
+    private volatile long totalDelayNanos;
+
+    private long lastForceStartNanos;
+
+    public AdaptiveGroupCommit( long maxDelay, TimeUnit unit )
+    {
+        if ( maxDelay < 0 )
+        {
+            throw new IllegalArgumentException( "Max delay cannot be negative, but was " + maxDelay + " " + unit );
+        }
+        this.maxDelayNanos = unit.toNanos( maxDelay );
+    }
+
+    /**
+     * Called by every appender that is about to wait for its append to be forced.
+     */
+    public void arrived()
+    {
+        pendingAppends.incrementAndGet();
+    }
+
+    /**
+     * Wait, for no longer than the current window, for more appends to arrive.
+     *
+     * @return the number of nanoseconds spent waiting.
+     */
+    public long awaitBatch()
+    {
+        long window = windowNanos();
+        if ( window == 0 )
+        {
+            return 0;
+        }
+
+        int target = targetBatchSize( window );
+        long start = System.nanoTime();
+        long now = start;
+        long deadline = start + window;
+        while ( pendingAppends.get() < target && now < deadline )
+        {
+            LockSupport.parkNanos( this, Math.min( deadline - now, PARK_NANOS ) );
+            now = System.nanoTime();
+        }
+        long waited = now - start;
+        totalDelayNanos += waited;
+        return waited;
+    }
+
+    /**
+     * Called right before the log is forced, with the number of waiting appends that the force was taken for. Appends
+     * that have arrived, but are not part of this force, stay pending until the next one.
+     *
+     * @param forcedAppends the number of appends that will be made durable by this force, which is also to be passed
+     * to {@link #forceCompleted(int, long, long)}.
+     */
+    public void forceStarted( int forcedAppends )
+    {
+        pendingAppends.addAndGet( -forcedAppends );
+    }
+
+    /**
+     * Called when a force of the log has completed.
+     *
+     * @param forcedAppends the number of appends that were made durable by this force, as passed to
+     * {@link #forceStarted(int)}.
+     * @param startNanos {@link System#nanoTime()} at the start of the force.
+     * @param endNanos {@link System#nanoTime()} at the end of the force.
+     */
+    public void forceCompleted( int forcedAppends, long startNanos, long endNanos )
+    {
+        forceLatencyNanos = average( forceLatencyNanos, endNanos - startNanos );
+        if ( numberOfLogForces > 0 && forcedAppends > 0 )
+        {
+            long interval = (startNanos - lastForceStartNanos) / forcedAppends;
+            arrivalIntervalNanos = arrivalIntervalNanos == Long.MAX_VALUE
+                                   ? interval : average( arrivalIntervalNanos, interval );
+        }
+        lastForceStartNanos = startNanos;
+        numberOfForcedAppends += forcedAppends;
+        numberOfLogForces++;
+    }
+
+    int pendingAppends()
+    {
+        return pendingAppends.get();
+    }
+
+    long windowNanos()
+    {
+        long window = Math.min( maxDelayNanos, forceLatencyNanos >> 1 );
+        return arrivalIntervalNanos <= window ? window : 0;
+    }
+
+    int targetBatchSize( long window )
+    {
+        long expected = 1 + window / Math.max( 1, arrivalIntervalNanos );
+        return (int) Math.min( expected, MAX_TARGET_BATCH_SIZE );
+    }
+
+    private static long average( long average, long sample )
+    {
+        return average == 0 ? sample : average + ((sample - average) >> EWMA_SHIFT);
+    }
+
+    @Override
+    public long numberOfLogForces()
+    {
+        return numberOfLogForces;
+    }
+
+    @Override
+    public long numberOfForcedAppends()
+    {
+        return numberOfForcedAppends;
+    }
+
+    @Override
+    public long groupCommitDelayMicros()
+    {
+        return TimeUnit.NANOSECONDS.toMicros( totalDelayNanos );
+    }
+
+    @Override
+    public long groupCommitWindowMicros()
+    {
+        return TimeUnit.NANOSECONDS.toMicros( windowNanos() );
+    }
+}
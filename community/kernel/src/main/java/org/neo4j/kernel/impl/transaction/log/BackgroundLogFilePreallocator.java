@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.neo4j.function.Predicates;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.fs.StoreChannel;
+import org.neo4j.kernel.impl.util.JobScheduler;
+import org.neo4j.kernel.lifecycle.LifecycleAdapter;
+import org.neo4j.logging.Log;
+import org.neo4j.logging.LogProvider;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.neo4j.kernel.impl.util.JobScheduler.Groups.transactionLogPreallocation;
+
+/**
+ * {@link LogFilePreallocator} that zero fills the {@link PhysicalLogFiles#getPreallocatedFile() pre-allocated file}
+ * in the background, up to the log rotation size. A pre-allocated file is prepared when the database starts, and
+ * every time the previous one has been claimed by a log rotation.
+ * <p>
+ * One pruned log file at a time is kept as the {@link PhysicalLogFiles#getRecycledFile() recycled file}, and the
+ * next pre-allocated file is made from it, by overwriting its contents with zeros. Overwriting the blocks of an
+ * existing file spares the file system from allocating new ones. The overwriting cannot be skipped, since the stale
+ * log entries it contains would otherwise be read as part of the log that reuses the file.
+ */
+public class BackgroundLogFilePreallocator extends LifecycleAdapter implements LogFilePreallocator
+{
+    private static final int IDLE = 0;
+    private static final int FILLING = 1;
+    private static final int READY = 2;
+    private static final int FILL_CHUNK_SIZE = 1024 * 1024;
+
+    private final FileSystemAbstraction fileSystem;
+    private final PhysicalLogFiles logFiles;
+    private final long size;
+    private final JobScheduler scheduler;
+    private final Log log;
+    private final AtomicInteger state = new AtomicInteger( IDLE );
+    // Guards the renaming of the recycled file
+    private final Object recycleLock = new Object();
+
+    private volatile JobScheduler.JobHandle handle;
+    private volatile boolean stopped = true;
+    private volatile boolean running;
+    private final BooleanSupplier notRunningCondition = () -> !running;
+
+    public BackgroundLogFilePreallocator( FileSystemAbstraction fileSystem, PhysicalLogFiles logFiles, long size,
+            JobScheduler scheduler, LogProvider logProvider )
+    {
+        this.fileSystem = fileSystem;
+        this.logFiles = logFiles;
+        this.size = size;
+        this.scheduler = scheduler;
+        this.log = logProvider.getLog( getClass() );
+    }
+
+    @Override
+    public void start()
+    {
+        stopped = false;
+        // A pre-allocated file left behind by a previous run may not have been completely filled, so fill it again
+        scheduleFillIfIdle();
+    }
+
+    @Override
+    public void stop() throws Throwable
+    {
+        stopped = true;
+        if ( handle != null )
+        {
+            handle.cancel( false );
+        }
+        Predicates.awaitForever( notRunningCondition, 10, MILLISECONDS );
+        // A fill that was cancelled before it got to run is left unfinished, and is started over on the next start
+        state.compareAndSet( FILLING, IDLE );
+    }
+
+    @Override
+    public boolean claim( File logFile ) throws IOException
+    {
+        if ( stopped || !state.compareAndSet( READY, IDLE ) )
+        {
+            return false;
+        }
+
+        if ( !fileSystem.renameFile( logFiles.getPreallocatedFile(), logFile ) )
+        {
+            throw new IOException( "Unable to rename " + logFiles.getPreallocatedFile() + " to " + logFile );
+        }
+        scheduleFillIfIdle();
+        return true;
+    }
+
+    @Override
+    public boolean recycle( File logFile ) throws IOException
+    {
+        synchronized ( recycleLock )
+        {
+            File recycledFile = logFiles.getRecycledFile();
+            return !stopped && !fileSystem.fileExists( recycledFile ) && fileSystem.renameFile( logFile, recycledFile );
+        }
+    }
+
+    private void scheduleFillIfIdle()
+    {
+        if ( state.compareAndSet( IDLE, FILLING ) )
+        {
+            handle = scheduler.schedule( transactionLogPreallocation, this::fill );
+        }
+    }
+
+    private void fill()
+    {
+        boolean filled = false;
+        try
+        {
+            running = true;
+            if ( !stopped )
+            {
+                filled = fillPreallocatedFile();
+            }
+        }
+        catch ( IOException | RuntimeException e )
+        {
+            log.warn( "Failed to pre-allocate the next transaction log file, " +
+                      "it will be created when the log is rotated instead.", e );
+        }
+        finally
+        {
+            state.set( filled ? READY : IDLE );
+            running = false;
+        }
+    }
+
+    private boolean fillPreallocatedFile() throws IOException
+    {
+        File preallocatedFile = logFiles.getPreallocatedFile();
+        synchronized ( recycleLock )
+        {
+            File recycledFile = logFiles.getRecycledFile();
+            if ( !fileSystem.fileExists( preallocatedFile ) && fileSystem.fileExists( recycledFile ) )
+            {
+                fileSystem.renameFile( recycledFile, preallocatedFile );
+            }
+        }
+
+        ByteBuffer zeros = ByteBuffer.allocateDirect( FILL_CHUNK_SIZE );
+        try ( StoreChannel channel = fileSystem.open( preallocatedFile, "rw" ) )
+        {
+            if ( channel.size() > size )
+            {
+                channel.truncate( size );
+            }
+            long position = 0;
+            while ( position < size )
+            {
+                if ( stopped )
+                {
+                    return false;
+                }
+                zeros.clear();
+                zeros.limit( (int) Math.min( FILL_CHUNK_SIZE, size - position ) );
+                channel.writeAll( zeros, position );
+                position += zeros.limit();
+            }
+            channel.force( true );
+        }
+        return true;
+    }
+}
@@ -22,6 +22,8 @@ package org.neo4j.kernel.impl.transaction.log;
 import java.io.Flushable;
 import java.io.IOException;
 import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Lock;
@@ -51,6 +53,9 @@ import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryStart.checksum
  */
 public class BatchingTransactionAppender extends LifecycleAdapter implements TransactionAppender
 {
+    // The number of serialization buffers each committing thread keeps for reuse between batches.
+    private static final int MAX_RETAINED_SERIALIZATION_BUFFERS = 4;
+
     // For the graph store and schema indexes order-of-updates are managed by the high level entity locks
     // such that changes are applied to the affected records in the same order that they are written to the
     // log. For the legacy indexes there are no such locks, and hence no such ordering. This queue below
@@ -65,14 +70,55 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
     private final LogPositionMarker positionMarker = new LogPositionMarker();
     private final DatabaseHealth databaseHealth;
     private final Lock forceLock = new ReentrantLock();
+    private final AdaptiveGroupCommit groupCommit;
+    private final boolean compressLogEntries;
+    private final TransactionLogIndex transactionLogIndex;
+    // Each committing thread serializes its transactions into its own buffers, one per transaction in the batch.
+    // Only the first few buffers are kept for reuse, so a single large batch doesn't pin its buffers for the
+    // lifetime of the thread.
+    private final ThreadLocal<List<TransactionSerializationBuffer>> serializationBuffers =
+            ThreadLocal.withInitial( ArrayList::new );
 
     private FlushablePositionAwareChannel writer;
     private TransactionLogWriter transactionLogWriter;
-    private IndexCommandDetector indexCommandDetector;
 
     public BatchingTransactionAppender( LogFile logFile, LogRotation logRotation,
             TransactionMetadataCache transactionMetadataCache, TransactionIdStore transactionIdStore,
             IdOrderingQueue legacyIndexTransactionOrdering, DatabaseHealth databaseHealth )
+    {
+        this( logFile, logRotation, transactionMetadataCache, transactionIdStore, legacyIndexTransactionOrdering,
+                databaseHealth, AdaptiveGroupCommit.disabled() );
+    }
+
+    public BatchingTransactionAppender( LogFile logFile, LogRotation logRotation,
+            TransactionMetadataCache transactionMetadataCache, TransactionIdStore transactionIdStore,
+            IdOrderingQueue legacyIndexTransactionOrdering, DatabaseHealth databaseHealth,
+            AdaptiveGroupCommit groupCommit )
+    {
+        this( logFile, logRotation, transactionMetadataCache, transactionIdStore, legacyIndexTransactionOrdering,
+                databaseHealth, groupCommit, false );
+    }
+
+    /**
+     * @param compressLogEntries whether or not to compress the log entries of larger transactions. The
+     * {@link LogFile} must then be one that marks its log files as possibly containing compressed entries.
+     */
+    public BatchingTransactionAppender( LogFile logFile, LogRotation logRotation,
+            TransactionMetadataCache transactionMetadataCache, TransactionIdStore transactionIdStore,
+            IdOrderingQueue legacyIndexTransactionOrdering, DatabaseHealth databaseHealth,
+            AdaptiveGroupCommit groupCommit, boolean compressLogEntries )
+    {
+        this( logFile, logRotation, transactionMetadataCache, transactionIdStore, legacyIndexTransactionOrdering,
+                databaseHealth, groupCommit, compressLogEntries, TransactionLogIndex.NONE );
+    }
+
+    /**
+     * @param transactionLogIndex told about the start position of every appended transaction.
+     */
+    public BatchingTransactionAppender( LogFile logFile, LogRotation logRotation,
+            TransactionMetadataCache transactionMetadataCache, TransactionIdStore transactionIdStore,
+            IdOrderingQueue legacyIndexTransactionOrdering, DatabaseHealth databaseHealth,
+            AdaptiveGroupCommit groupCommit, boolean compressLogEntries, TransactionLogIndex transactionLogIndex )
     {
         this.logFile = logFile;
         this.logRotation = logRotation;
@@ -80,13 +126,15 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
         this.legacyIndexTransactionOrdering = legacyIndexTransactionOrdering;
         this.databaseHealth = databaseHealth;
         this.transactionMetadataCache = transactionMetadataCache;
+        this.groupCommit = groupCommit;
+        this.compressLogEntries = compressLogEntries;
+        this.transactionLogIndex = transactionLogIndex;
     }
 
     @Override
     public void start() throws Throwable
     {
         this.writer = logFile.getWriter();
-        this.indexCommandDetector = new IndexCommandDetector();
         this.transactionLogWriter = new TransactionLogWriter( new LogEntryWriter( writer ) );
     }
 
@@ -100,16 +148,24 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
 
         // Assigned base tx id just to make compiler happy
         long lastTransactionId = TransactionIdStore.BASE_TX_ID;
-        // Synchronized with logFile to get absolute control over concurrent rotations happening
-        synchronized ( logFile )
+        List<TransactionSerializationBuffer> buffers = serializationBuffers.get();
+        try ( SerializeTransactionEvent serialiseEvent = logAppendEvent.beginSerializeTransaction() )
         {
-            // Assert that kernel is healthy before making any changes
-            databaseHealth.assertHealthy( IOException.class );
-            try ( SerializeTransactionEvent serialiseEvent = logAppendEvent.beginSerializeTransaction() )
+            // Serialize the transactions in this batch before taking the logFile monitor, concurrently with other
+            // committing threads. Nothing has been written to the log at this point, so a failure here merely fails
+            // this batch. What remains to be done under the monitor is assigning transaction ids, and copying the
+            // serialized transactions into the log.
+            int batchSize = serialize( batch, buffers );
+
+            // Synchronized with logFile to get absolute control over concurrent rotations happening
+            synchronized ( logFile )
             {
+                // Assert that kernel is healthy before making any changes
+                databaseHealth.assertHealthy( IOException.class );
+
                 // Append all transactions in this batch to the log under the same logFile monitor
                 TransactionToApply tx = batch;
-                while ( tx != null )
+                for ( int i = 0; i < batchSize; i++ )
                 {
                     long transactionId = transactionIdStore.nextCommittingTransactionId();
 
@@ -119,13 +175,24 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
                     // really recover from and would point to a bug somewhere.
                     matchAgainstExpectedTransactionIdIfAny( transactionId, tx );
 
-                    TransactionCommitment commitment = appendToLog( tx.transactionRepresentation(), transactionId );
+                    TransactionCommitment commitment = appendToLog( buffers.get( i ), transactionId );
                     tx.commitment( commitment, transactionId );
                     tx = tx.next();
                     lastTransactionId = transactionId;
                 }
             }
         }
+        finally
+        {
+            for ( TransactionSerializationBuffer buffer : buffers )
+            {
+                buffer.release();
+            }
+            for ( int i = buffers.size() - 1; i >= MAX_RETAINED_SERIALIZATION_BUFFERS; i-- )
+            {
+                buffers.remove( i );
+            }
+        }
 
         // At this point we've appended all transactions in this batch, but we can't mark any of them
         // as committed since they haven't been forced to disk yet. So here we force, or potentially
@@ -139,6 +206,21 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
         return lastTransactionId;
     }
 
+    private int serialize( TransactionToApply batch, List<TransactionSerializationBuffer> buffers )
+            throws IOException
+    {
+        int batchSize = 0;
+        for ( TransactionToApply tx = batch; tx != null; tx = tx.next() )
+        {
+            if ( buffers.size() == batchSize )
+            {
+                buffers.add( new TransactionSerializationBuffer( compressLogEntries ) );
+            }
+            buffers.get( batchSize++ ).serialize( tx.transactionRepresentation() );
+        }
+        return batchSize;
+    }
+
     private void matchAgainstExpectedTransactionIdIfAny( long transactionId, TransactionToApply tx )
     {
         long expectedTransactionId = tx.transactionId();
@@ -186,13 +268,9 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
      * @return A TransactionCommitment instance with metadata about the committed transaction, such as whether or not
      * this transaction contains any legacy index changes.
      */
-    private TransactionCommitment appendToLog( TransactionRepresentation transaction, long transactionId )
-            throws IOException
+    private TransactionCommitment appendToLog( TransactionSerializationBuffer serializedTransaction,
+            long transactionId ) throws IOException
     {
-        // Reset command writer so that we, after we've written the transaction, can ask it whether or
-        // not any legacy index command was written. If so then there's additional ordering to care about below.
-        indexCommandDetector.reset();
-
         // The outcome of this try block is either of:
         // a) transaction successfully appended, at which point we return a Commitment to be used after force
         // b) transaction failed to be appended, at which point a kernel panic is issued
@@ -201,8 +279,9 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
         // log rotation, which will wait for all transactions closed or fail on kernel panic.
         try
         {
+            TransactionRepresentation transaction = serializedTransaction.transaction();
             LogPosition logPositionBeforeCommit = writer.getCurrentPosition( positionMarker ).newPosition();
-            transactionLogWriter.append( transaction, transactionId );
+            transactionLogWriter.append( serializedTransaction, transactionId );
             LogPosition logPositionAfterCommit = writer.getCurrentPosition( positionMarker ).newPosition();
 
             long transactionChecksum = checksum(
@@ -210,9 +289,9 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
             transactionMetadataCache.cacheTransactionMetadata(
                     transactionId, logPositionBeforeCommit, transaction.getMasterId(), transaction.getAuthorId(),
                     transactionChecksum );
+            transactionLogIndex.transactionAppended( transactionId, logPositionBeforeCommit );
 
-            transaction.accept( indexCommandDetector );
-            boolean hasLegacyIndexChanges = indexCommandDetector.hasWrittenAnyLegacyIndexCommand();
+            boolean hasLegacyIndexChanges = serializedTransaction.hasLegacyIndexChanges();
             if ( hasLegacyIndexChanges )
             {
                 // Offer this transaction id to the queue so that the legacy index applier can take part in the ordering
@@ -239,6 +318,7 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
         // There's a benign race here, where we add our link before we update our next pointer.
         // This is okay, however, because unparkAll() spins when it sees a null next pointer.
         ThreadLink threadLink = new ThreadLink( Thread.currentThread() );
+        groupCommit.arrived();
         threadLink.next = threadLinkHead.getAndSet( threadLink );
 
         try ( LogForceWaitEvent logForceWaitEvent = logForceEvents.beginLogForceWait() )
@@ -274,10 +354,19 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
 
     private void forceLog( LogForceEvents logForceEvents ) throws IOException
     {
+        // Give appends arriving right behind us a chance to be included in this force, if the observed force latency
+        // and arrival rate say that it will pay off. Anyone arriving meanwhile will park, waiting for our unpark.
+        groupCommit.awaitBatch();
+        // Only count the appends whose threads we take. An append that has arrived, but not yet linked up, will be
+        // waiting for the next force, and so stays pending until then.
         ThreadLink links = threadLinkHead.getAndSet( ThreadLink.END );
+        int forcedAppends = countLinks( links );
+        groupCommit.forceStarted( forcedAppends );
+        long startNanos = System.nanoTime();
         try ( LogForceEvent logForceEvent = logForceEvents.beginLogForce() )
         {
             force();
+            groupCommit.forceCompleted( forcedAppends, startNanos, System.nanoTime() );
         }
         catch ( final Throwable panic )
         {
@@ -290,6 +379,24 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
         }
     }
 
+    private static int countLinks( ThreadLink links )
+    {
+        int count = 0;
+        while ( links != ThreadLink.END )
+        {
+            count++;
+            ThreadLink tmp;
+            do
+            {
+                // Spin because of the race:y update when consing.
+                tmp = links.next;
+            }
+            while ( tmp == null );
+            links = tmp;
+        }
+        return count;
+    }
+
     private void unparkAll( ThreadLink links )
     {
         do
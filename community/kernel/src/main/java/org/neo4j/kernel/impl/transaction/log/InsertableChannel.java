@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+/**
+ * A {@link ReadableClosableChannel} that bytes can be inserted into, ahead of what remains to be read from it. This
+ * is how the log entries inflated from a compressed log entry are read, as if they had been there all along.
+ */
+public interface InsertableChannel extends ReadableClosableChannel
+{
+    /**
+     * Have the given bytes be read before the rest of this channel. The position of this channel stays where it
+     * is, i.e. after the compressed entry, until all inserted bytes have been read.
+     *
+     * @param bytes the bytes to insert, which this channel takes ownership of.
+     * @param length the number of bytes, from the start of {@code bytes}, to insert.
+     */
+    void insert( byte[] bytes, int length );
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Keeps a zero filled file ready to become the next transaction log file, such that appending to a freshly rotated
+ * log doesn't need to grow the file, and thus doesn't need to update file system metadata on every force.
+ * <p>
+ * A zero filled tail of a log file reads as the end of the log, see {@link PhysicalLogFile}.
+ */
+public interface LogFilePreallocator
+{
+    LogFilePreallocator NONE = new LogFilePreallocator()
+    {
+        @Override
+        public boolean claim( File logFile )
+        {
+            return false;
+        }
+
+        @Override
+        public boolean recycle( File logFile )
+        {
+            return false;
+        }
+    };
+
+    /**
+     * Rename the pre-allocated file, if one is ready, to the given log file name.
+     *
+     * @param logFile the name of the log file about to be created.
+     * @return {@code true} if the log file was created from a pre-allocated file, or {@code false} if there
+     * was no pre-allocated file ready, in which case the log file must be created from scratch.
+     * @throws IOException if the pre-allocated file could not be renamed.
+     */
+    boolean claim( File logFile ) throws IOException;
+
+    /**
+     * Offer a log file that is being pruned to be reused for a later pre-allocated file, instead of being deleted.
+     *
+     * @param logFile the pruned log file.
+     * @return {@code true} if the file was taken over for reuse, or {@code false} if the caller should delete it.
+     * @throws IOException if the file could not be taken over.
+     */
+    boolean recycle( File logFile ) throws IOException;
+}
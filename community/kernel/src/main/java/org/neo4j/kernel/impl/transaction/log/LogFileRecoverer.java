@@ -19,24 +19,47 @@
  */
 package org.neo4j.kernel.impl.transaction.log;
 
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import org.neo4j.helpers.collection.CloseableVisitor;
 import org.neo4j.helpers.collection.Visitor;
 import org.neo4j.kernel.impl.transaction.CommittedTransactionRepresentation;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryReader;
 import org.neo4j.kernel.impl.transaction.state.RecoverableTransaction;
 
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.neo4j.kernel.impl.transaction.log.LogVersionBridge.NO_MORE_CHANNELS;
 
 public class LogFileRecoverer implements Visitor<LogVersionedStoreChannel,Exception>
 {
+    // How many transactions may be read ahead of the one being recovered, when reading ahead
+    private static final int READ_AHEAD_TRANSACTIONS = 1_000;
+
     private final LogEntryReader<ReadableClosablePositionAwareChannel> logEntryReader;
     private final CloseableVisitor<RecoverableTransaction,Exception> visitor;
+    private final Executor readAheadExecutor;
 
     public LogFileRecoverer( LogEntryReader<ReadableClosablePositionAwareChannel> logEntryReader,
             CloseableVisitor<RecoverableTransaction,Exception> visitor )
+    {
+        this( logEntryReader, visitor, null );
+    }
+
+    /**
+     * @param readAheadExecutor executor to read and decode transactions with, ahead of the visitor recovering them,
+     * or {@code null} to have the visiting thread read them as well.
+     */
+    public LogFileRecoverer( LogEntryReader<ReadableClosablePositionAwareChannel> logEntryReader,
+            CloseableVisitor<RecoverableTransaction,Exception> visitor, Executor readAheadExecutor )
     {
         this.logEntryReader = logEntryReader;
         this.visitor = visitor;
+        this.readAheadExecutor = readAheadExecutor;
     }
 
     @Override
@@ -47,30 +70,12 @@ public class LogFileRecoverer implements Visitor<LogVersionedStoreChannel,Except
         try ( final PhysicalTransactionCursor<ReadableClosablePositionAwareChannel> physicalTransactionCursor =
                       new PhysicalTransactionCursor<>( recoveredDataChannel, logEntryReader ) )
         {
-            RecoverableTransaction recoverableTransaction = new RecoverableTransaction()
-            {
-                @Override
-                public CommittedTransactionRepresentation representation()
-                {
-                    return physicalTransactionCursor.get();
-                }
-
-                @Override
-                public LogPosition positionAfterTx()
-                {
-                    long version = recoveredDataChannel.getVersion();
-                    long byteOffset = physicalTransactionCursor.lastKnownGoodPosition();
-                    return new LogPosition( version, byteOffset );
-                }
-            };
-
-            while ( physicalTransactionCursor.next() && !visitor.visit( recoverableTransaction ) )
-            {
-            }
+            long lastKnownGoodPosition = readAheadExecutor == null
+                    ? recover( physicalTransactionCursor, recoveredDataChannel )
+                    : recoverReadingAhead( physicalTransactionCursor, recoveredDataChannel );
 
             // Now that all ok transactions have been read, if needed truncate the position to cut
             // off any potentially broken transactions
-            long lastKnownGoodPosition = physicalTransactionCursor.lastKnownGoodPosition();
             if ( channel.position() > lastKnownGoodPosition )
             {
                 channel.truncate( lastKnownGoodPosition );
@@ -80,4 +85,140 @@ public class LogFileRecoverer implements Visitor<LogVersionedStoreChannel,Except
         visitor.close();
         return true;
     }
+
+    private long recover( PhysicalTransactionCursor<ReadableClosablePositionAwareChannel> physicalTransactionCursor,
+            ReadableLogChannel recoveredDataChannel ) throws Exception
+    {
+        RecoverableTransaction recoverableTransaction = new RecoverableTransaction()
+        {
+            @Override
+            public CommittedTransactionRepresentation representation()
+            {
+                return physicalTransactionCursor.get();
+            }
+
+            @Override
+            public LogPosition positionAfterTx()
+            {
+                long version = recoveredDataChannel.getVersion();
+                long byteOffset = physicalTransactionCursor.lastKnownGoodPosition();
+                return new LogPosition( version, byteOffset );
+            }
+        };
+
+        while ( physicalTransactionCursor.next() && !visitor.visit( recoverableTransaction ) )
+        {
+        }
+        return physicalTransactionCursor.lastKnownGoodPosition();
+    }
+
+    /**
+     * Recover transactions as they are read and decoded by another thread, which reads up to
+     * {@link #READ_AHEAD_TRANSACTIONS} transactions ahead of the one being recovered.
+     */
+    private long recoverReadingAhead(
+            PhysicalTransactionCursor<ReadableClosablePositionAwareChannel> physicalTransactionCursor,
+            ReadableLogChannel recoveredDataChannel ) throws Exception
+    {
+        BlockingQueue<RecoverableTransaction> transactions = new ArrayBlockingQueue<>( READ_AHEAD_TRANSACTIONS );
+        AtomicBoolean stopReading = new AtomicBoolean();
+        CompletableFuture<Long> reading = new CompletableFuture<>();
+        readAheadExecutor.execute( () ->
+        {
+            try
+            {
+                readAhead( physicalTransactionCursor, recoveredDataChannel, transactions, stopReading );
+                reading.complete( physicalTransactionCursor.lastKnownGoodPosition() );
+            }
+            catch ( Throwable e )
+            {
+                reading.completeExceptionally( e );
+            }
+        } );
+
+        RecoverableTransaction lastVisited = null;
+        try
+        {
+            while ( true )
+            {
+                RecoverableTransaction transaction = transactions.poll( 10, MILLISECONDS );
+                if ( transaction == null )
+                {
+                    if ( reading.isDone() && transactions.isEmpty() )
+                    {
+                        break;
+                    }
+                    continue;
+                }
+                if ( visitor.visit( transaction ) )
+                {
+                    lastVisited = transaction;
+                    break;
+                }
+            }
+        }
+        finally
+        {
+            // Have the reader stop, and wait for it to do so, before the log it reads from is closed
+            stopReading.set( true );
+            reading.handle( ( position, failure ) -> null ).join();
+        }
+
+        long lastKnownGoodPosition;
+        try
+        {
+            lastKnownGoodPosition = reading.get();
+        }
+        catch ( ExecutionException e )
+        {
+            Throwable cause = e.getCause();
+            throw cause instanceof Exception ? (Exception) cause : new RuntimeException( cause );
+        }
+        // If the visitor stopped early, then whatever was read past the transaction it stopped at is cut off
+        return lastVisited != null ? lastVisited.positionAfterTx().getByteOffset() : lastKnownGoodPosition;
+    }
+
+    private static void readAhead(
+            PhysicalTransactionCursor<ReadableClosablePositionAwareChannel> physicalTransactionCursor,
+            ReadableLogChannel recoveredDataChannel, BlockingQueue<RecoverableTransaction> transactions,
+            AtomicBoolean stopReading ) throws Exception
+    {
+        while ( !stopReading.get() && physicalTransactionCursor.next() )
+        {
+            RecoverableTransaction transaction = new ReadTransaction( physicalTransactionCursor.get(),
+                    new LogPosition( recoveredDataChannel.getVersion(),
+                            physicalTransactionCursor.lastKnownGoodPosition() ) );
+            while ( !transactions.offer( transaction, 10, MILLISECONDS ) )
+            {
+                if ( stopReading.get() )
+                {
+                    return;
+                }
+            }
+        }
+    }
+
+    private static class ReadTransaction implements RecoverableTransaction
+    {
+        private final CommittedTransactionRepresentation representation;
+        private final LogPosition positionAfterTx;
+
+        ReadTransaction( CommittedTransactionRepresentation representation, LogPosition positionAfterTx )
+        {
+            this.representation = representation;
+            this.positionAfterTx = positionAfterTx;
+        }
+
+        @Override
+        public CommittedTransactionRepresentation representation()
+        {
+            return representation;
+        }
+
+        @Override
+        public LogPosition positionAfterTx()
+        {
+            return positionAfterTx;
+        }
+    }
 }
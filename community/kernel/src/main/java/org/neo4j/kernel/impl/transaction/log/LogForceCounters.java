@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+/**
+ * Counters for how the transaction log is being forced, and how the appends are grouped into each force.
+ */
+public interface LogForceCounters
+{
+    /**
+     * @return the total number of times the transaction log has been forced.
+     */
+    long numberOfLogForces();
+
+    /**
+     * @return the total number of appends, transactions and check points, that have been made durable by those forces.
+     * Divided by {@link #numberOfLogForces()} this gives the average group commit size.
+     */
+    long numberOfForcedAppends();
+
+    /**
+     * @return the total time, in microseconds, that log forces have been delayed in order to group more appends
+     * into each force.
+     */
+    long groupCommitDelayMicros();
+
+    /**
+     * @return the current upper bound, in microseconds, on how long the next log force may be delayed. Zero when the
+     * observed arrival rate of appends is too low for any delay to pay off, or when group commit is disabled.
+     */
+    long groupCommitWindowMicros();
+}
@@ -19,29 +19,58 @@
  */
 package org.neo4j.kernel.impl.transaction.log;
 
-import org.neo4j.helpers.collection.LruCache;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
+/**
+ * Caches the last committed transaction id from the header of log files, which is the transaction id that the log
+ * file starts after. Log versions are dense, so like the {@link TransactionMetadataCache} this cache is a lock-free
+ * ring indexed by log version.
+ */
 public class LogHeaderCache
 {
-    private final LruCache<Long /*log version*/, Long /*last committed tx*/> logHeaderCache;
+    private final AtomicReferenceArray<CachedLogHeader> logHeaderCache;
+    private final int mask;
 
     public LogHeaderCache( int headerCacheSize )
     {
-        this.logHeaderCache = new LruCache<>( "Log header cache", headerCacheSize );
+        int capacity = Integer.highestOneBit( Math.max( 1, headerCacheSize - 1 ) ) << 1;
+        this.logHeaderCache = new AtomicReferenceArray<>( capacity );
+        this.mask = capacity - 1;
     }
 
     public void clear()
     {
-        logHeaderCache.clear();
+        for ( int i = 0; i < logHeaderCache.length(); i++ )
+        {
+            logHeaderCache.set( i, null );
+        }
     }
 
     public void putHeader( long logVersion, long previousLogLastCommittedTx )
     {
-        logHeaderCache.put( logVersion, previousLogLastCommittedTx );
+        logHeaderCache.set( slot( logVersion ), new CachedLogHeader( logVersion, previousLogLastCommittedTx ) );
     }
 
     public Long getLogHeader( long logVersion )
     {
-        return logHeaderCache.get( logVersion );
+        CachedLogHeader cached = logHeaderCache.get( slot( logVersion ) );
+        return cached != null && cached.logVersion == logVersion ? cached.previousLogLastCommittedTx : null;
+    }
+
+    private int slot( long logVersion )
+    {
+        return (int) (logVersion & mask);
+    }
+
+    private static final class CachedLogHeader
+    {
+        private final long logVersion;
+        private final long previousLogLastCommittedTx;
+
+        CachedLogHeader( long logVersion, long previousLogLastCommittedTx )
+        {
+            this.logVersion = logVersion;
+            this.previousLogLastCommittedTx = previousLogLastCommittedTx;
+        }
     }
 }
@@ -0,0 +1,257 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.fs.StoreChannel;
+import org.neo4j.io.fs.StoreFileChannel;
+import org.neo4j.kernel.impl.transaction.log.entry.LogHeader;
+import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
+
+import static org.neo4j.kernel.impl.transaction.log.entry.LogHeader.LOG_HEADER_SIZE;
+import static org.neo4j.kernel.impl.transaction.log.entry.LogHeaderReader.readLogHeader;
+
+/**
+ * A read-only {@link LogVersionedStoreChannel} over a memory-mapped log file. Only log files that have been rotated
+ * out may be mapped, since they are no longer appended to or truncated.
+ * <p>
+ * {@link ReadAheadChannel} reads straight from the {@link #buffer() mapped buffer} when it can, instead of copying
+ * the log into its own buffer, so scanning a mapped log file neither makes any system calls nor copies any bytes.
+ * <p>
+ * The mapping is released when the channel is {@link #close() closed}, so the buffer must not be used after that.
+ */
+public class MappedLogVersionedStoreChannel implements LogVersionedStoreChannel
+{
+    private final ByteBuffer buffer;
+    private final long version;
+    private final byte formatVersion;
+    private boolean open = true;
+
+    MappedLogVersionedStoreChannel( ByteBuffer buffer, long version, byte formatVersion )
+    {
+        this.buffer = buffer;
+        this.version = version;
+        this.formatVersion = formatVersion;
+    }
+
+    /**
+     * Maps the log file of the given version, positioned after its header.
+     *
+     * @return the mapped log file, or {@code null} if the file system can't map it, or it's too large to be mapped.
+     * @throws IOException if the log file couldn't be opened or its header couldn't be read.
+     */
+    public static MappedLogVersionedStoreChannel tryMap( PhysicalLogFiles logFiles, FileSystemAbstraction fileSystem,
+            long version ) throws IOException
+    {
+        File file = logFiles.getLogFileForVersion( version );
+        try ( StoreChannel rawChannel = fileSystem.open( file, "r" ) )
+        {
+            long size = rawChannel.size();
+            if ( !(rawChannel instanceof StoreFileChannel) || size > Integer.MAX_VALUE || size < LOG_HEADER_SIZE )
+            {
+                return null;
+            }
+            LogHeader header = readLogHeader( ByteBuffer.allocate( LOG_HEADER_SIZE ), rawChannel, true );
+            assert header.logVersion == version;
+            ByteBuffer buffer = ((StoreFileChannel) rawChannel).map( FileChannel.MapMode.READ_ONLY, 0, size );
+            buffer.position( LOG_HEADER_SIZE );
+            return new MappedLogVersionedStoreChannel( buffer, version, header.logFormatVersion );
+        }
+    }
+
+    /**
+     * @return the mapped log file, positioned at the position of this channel. Reading from it advances this channel.
+     * @throws ClosedChannelException if this channel is closed, and the mapping thus released.
+     */
+    ByteBuffer buffer() throws ClosedChannelException
+    {
+        assertOpen();
+        return buffer;
+    }
+
+    @Override
+    public int read( ByteBuffer dst ) throws IOException
+    {
+        assertOpen();
+        int remaining = buffer.remaining();
+        if ( remaining == 0 )
+        {
+            return -1;
+        }
+        int count = Math.min( remaining, dst.remaining() );
+        ByteBuffer source = buffer.duplicate();
+        source.limit( source.position() + count );
+        dst.put( source );
+        buffer.position( buffer.position() + count );
+        return count;
+    }
+
+    @Override
+    public long read( ByteBuffer[] dsts, int offset, int length ) throws IOException
+    {
+        long total = 0;
+        for ( int i = offset; i < offset + length; i++ )
+        {
+            int read = read( dsts[i] );
+            if ( read == -1 )
+            {
+                return total == 0 ? -1 : total;
+            }
+            total += read;
+        }
+        return total;
+    }
+
+    @Override
+    public long read( ByteBuffer[] dsts ) throws IOException
+    {
+        return read( dsts, 0, dsts.length );
+    }
+
+    @Override
+    public int read( ByteBuffer dst, long position ) throws IOException
+    {
+        throw new UnsupportedOperationException( "Not needed" );
+    }
+
+    @Override
+    public long position() throws IOException
+    {
+        assertOpen();
+        return buffer.position();
+    }
+
+    @Override
+    public StoreChannel position( long newPosition ) throws IOException
+    {
+        assertOpen();
+        buffer.position( (int) Math.min( newPosition, buffer.limit() ) );
+        return this;
+    }
+
+    @Override
+    public long size() throws IOException
+    {
+        return buffer.limit();
+    }
+
+    @Override
+    public boolean isOpen()
+    {
+        return open;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        if ( open )
+        {
+            open = false;
+            // Unmap right away rather than when the buffer is garbage collected, which could be long after the
+            // log file has been pruned. If the JVM doesn't support this, we are left waiting for the collector.
+            UnsafeUtil.invokeCleaner( buffer );
+        }
+    }
+
+    @Override
+    public long getVersion()
+    {
+        return version;
+    }
+
+    @Override
+    public byte getLogFormatVersion()
+    {
+        return formatVersion;
+    }
+
+    @Override
+    public FileLock tryLock() throws IOException
+    {
+        throw new UnsupportedOperationException( "Read-only" );
+    }
+
+    @Override
+    public int write( ByteBuffer src ) throws IOException
+    {
+        throw new UnsupportedOperationException( "Read-only" );
+    }
+
+    @Override
+    public int write( ByteBuffer src, long position ) throws IOException
+    {
+        throw new UnsupportedOperationException( "Read-only" );
+    }
+
+    @Override
+    public void writeAll( ByteBuffer src, long position ) throws IOException
+    {
+        throw new UnsupportedOperationException( "Read-only" );
+    }
+
+    @Override
+    public void writeAll( ByteBuffer src ) throws IOException
+    {
+        throw new UnsupportedOperationException( "Read-only" );
+    }
+
+    @Override
+    public long write( ByteBuffer[] srcs, int offset, int length ) throws IOException
+    {
+        throw new UnsupportedOperationException( "Read-only" );
+    }
+
+    @Override
+    public long write( ByteBuffer[] srcs ) throws IOException
+    {
+        throw new UnsupportedOperationException( "Read-only" );
+    }
+
+    @Override
+    public StoreChannel truncate( long size ) throws IOException
+    {
+        throw new UnsupportedOperationException( "Read-only" );
+    }
+
+    @Override
+    public void force( boolean metaData ) throws IOException
+    {
+    }
+
+    @Override
+    public void flush() throws IOException
+    {
+    }
+
+    private void assertOpen() throws ClosedChannelException
+    {
+        if ( !open )
+        {
+            throw new ClosedChannelException();
+        }
+    }
+}
@@ -28,7 +28,9 @@ import java.util.function.Supplier;
 import org.neo4j.helpers.Exceptions;
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.fs.StoreChannel;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryReader;
 import org.neo4j.kernel.impl.transaction.log.entry.LogHeader;
+import org.neo4j.kernel.impl.transaction.log.entry.VersionAwareLogEntryReader;
 import org.neo4j.kernel.lifecycle.Lifecycle;
 
 import static org.neo4j.kernel.impl.transaction.log.entry.LogHeader.LOG_HEADER_SIZE;
@@ -38,6 +40,11 @@ import static org.neo4j.kernel.impl.transaction.log.entry.LogVersions.CURRENT_LO
 
 /**
  * {@link LogFile} backed by one or more files in a {@link FileSystemAbstraction}.
+ * <p>
+ * The current log file may be longer than the log entries written to it, when it was created from a file
+ * {@link LogFilePreallocator pre-allocated} to the rotation size. The zeros following the last entry are read as the
+ * end of the log, and the file is truncated to its last entry when it's rotated out, so that only the current log
+ * file ever has such a tail.
  */
 public class PhysicalLogFile implements LogFile, Lifecycle
 {
@@ -68,6 +75,11 @@ public class PhysicalLogFile implements LogFile, Lifecycle
     private PositionAwarePhysicalFlushableChannel writer;
     private final LogVersionRepository logVersionRepository;
     private final LogVersionBridge readerLogVersionBridge;
+    private final LogEntryReader<ReadableClosablePositionAwareChannel> logEntryReader;
+    private final LogFilePreallocator preallocator;
+    private final byte logFormatVersion;
+    private final boolean mapRotatedLogs;
+    private final Supplier<LogPosition> lastClosedPosition;
 
     private volatile PhysicalLogVersionedStoreChannel channel;
 
@@ -75,6 +87,64 @@ public class PhysicalLogFile implements LogFile, Lifecycle
                             Supplier<Long> lastCommittedId, LogVersionRepository logVersionRepository,
                             Monitor monitor, LogHeaderCache logHeaderCache
     )
+    {
+        this( fileSystem, logFiles, rotateAtSize, lastCommittedId, logVersionRepository, monitor, logHeaderCache,
+                new VersionAwareLogEntryReader<>(), LogFilePreallocator.NONE, CURRENT_LOG_VERSION );
+    }
+
+    public PhysicalLogFile( FileSystemAbstraction fileSystem, PhysicalLogFiles logFiles, long rotateAtSize,
+                            Supplier<Long> lastCommittedId, LogVersionRepository logVersionRepository,
+                            Monitor monitor, LogHeaderCache logHeaderCache,
+                            LogEntryReader<ReadableClosablePositionAwareChannel> logEntryReader,
+                            LogFilePreallocator preallocator )
+    {
+        this( fileSystem, logFiles, rotateAtSize, lastCommittedId, logVersionRepository, monitor, logHeaderCache,
+                logEntryReader, preallocator, CURRENT_LOG_VERSION );
+    }
+
+    /**
+     * @param logFormatVersion the format version to write into the header of new log files. The current log file
+     * is rotated when started, if its header has an older format version.
+     */
+    public PhysicalLogFile( FileSystemAbstraction fileSystem, PhysicalLogFiles logFiles, long rotateAtSize,
+                            Supplier<Long> lastCommittedId, LogVersionRepository logVersionRepository,
+                            Monitor monitor, LogHeaderCache logHeaderCache,
+                            LogEntryReader<ReadableClosablePositionAwareChannel> logEntryReader,
+                            LogFilePreallocator preallocator, byte logFormatVersion )
+    {
+        this( fileSystem, logFiles, rotateAtSize, lastCommittedId, logVersionRepository, monitor, logHeaderCache,
+                logEntryReader, preallocator, logFormatVersion, false );
+    }
+
+    /**
+     * @param mapRotatedLogs whether or not to read log files that have been rotated out through
+     * {@link MappedLogVersionedStoreChannel memory-mapped buffers}. Log files must then never be truncated after
+     * they have been rotated out, which means that pruned log files must not be recycled.
+     */
+    public PhysicalLogFile( FileSystemAbstraction fileSystem, PhysicalLogFiles logFiles, long rotateAtSize,
+                            Supplier<Long> lastCommittedId, LogVersionRepository logVersionRepository,
+                            Monitor monitor, LogHeaderCache logHeaderCache,
+                            LogEntryReader<ReadableClosablePositionAwareChannel> logEntryReader,
+                            LogFilePreallocator preallocator, byte logFormatVersion, boolean mapRotatedLogs )
+    {
+        this( fileSystem, logFiles, rotateAtSize, lastCommittedId, logVersionRepository, monitor, logHeaderCache,
+                logEntryReader, preallocator, logFormatVersion, mapRotatedLogs, () -> LogPosition.UNSPECIFIED );
+    }
+
+    /**
+     * @param mapRotatedLogs whether or not to read log files that have been rotated out through
+     * {@link MappedLogVersionedStoreChannel memory-mapped buffers}. Log files must then never be truncated after
+     * they have been rotated out, which means that pruned log files must not be recycled.
+     * @param lastClosedPosition the position right after the last closed transaction, as recovered, or
+     * {@link LogPosition#UNSPECIFIED} if not known. Used when starting, to find the end of the log entries without
+     * reading all entries of the current log file.
+     */
+    public PhysicalLogFile( FileSystemAbstraction fileSystem, PhysicalLogFiles logFiles, long rotateAtSize,
+                            Supplier<Long> lastCommittedId, LogVersionRepository logVersionRepository,
+                            Monitor monitor, LogHeaderCache logHeaderCache,
+                            LogEntryReader<ReadableClosablePositionAwareChannel> logEntryReader,
+                            LogFilePreallocator preallocator, byte logFormatVersion, boolean mapRotatedLogs,
+                            Supplier<LogPosition> lastClosedPosition )
     {
         this.fileSystem = fileSystem;
         this.rotateAtSize = rotateAtSize;
@@ -83,7 +153,12 @@ public class PhysicalLogFile implements LogFile, Lifecycle
         this.monitor = monitor;
         this.logHeaderCache = logHeaderCache;
         this.logFiles = logFiles;
-        this.readerLogVersionBridge = new ReaderLogVersionBridge( fileSystem, logFiles );
+        this.mapRotatedLogs = mapRotatedLogs;
+        this.readerLogVersionBridge = new ReaderLogVersionBridge( fileSystem, logFiles, this::isMappable );
+        this.logEntryReader = logEntryReader;
+        this.preallocator = preallocator;
+        this.logFormatVersion = logFormatVersion;
+        this.lastClosedPosition = lastClosedPosition;
     }
 
     @Override
@@ -104,9 +179,15 @@ public class PhysicalLogFile implements LogFile, Lifecycle
         long lastLogVersionUsed = logVersionRepository.getCurrentLogVersion();
         channel = openLogChannelForVersion( lastLogVersionUsed );
         // Move to the end
-        channel.position( channel.size() );
+        channel.position( endOfEntries( channel ) );
 
         writer = new PositionAwarePhysicalFlushableChannel( channel );
+
+        if ( channel.getLogFormatVersion() < logFormatVersion )
+        {
+            // Entries of the newer format must not be appended to a log file whose header says otherwise
+            rotate();
+        }
     }
 
     @Override
@@ -150,6 +231,17 @@ public class PhysicalLogFile implements LogFile, Lifecycle
 
     private PhysicalLogVersionedStoreChannel rotate( LogVersionedStoreChannel currentLog ) throws IOException
     {
+        /*
+         * Cut off any pre-allocated tail before the log is rotated out. Readers move on to the next log version
+         * only when they reach the end of the file, so older log files must end at their last entry.
+         */
+        long endOfLog = currentLog.position();
+        if ( currentLog.size() > endOfLog )
+        {
+            currentLog.truncate( endOfLog );
+            currentLog.force( true );
+        }
+
         /*
          * The store is now flushed. If we fail now the recovery code will open the
          * current log file and replay everything. That's unnecessary but totally ok.
@@ -172,21 +264,74 @@ public class PhysicalLogFile implements LogFile, Lifecycle
     private PhysicalLogVersionedStoreChannel openLogChannelForVersion( long forVersion ) throws IOException
     {
         File toOpen = logFiles.getLogFileForVersion( forVersion );
+        if ( !fileSystem.fileExists( toOpen ) )
+        {
+            preallocator.claim( toOpen );
+        }
         StoreChannel storeChannel = fileSystem.open( toOpen, "rw" );
         LogHeader header = readLogHeader( headerBuffer, storeChannel, false );
+        if ( header != null && header.logFormatVersion == 0 )
+        {
+            // The zeros of a pre-allocated file, where the header is yet to be written
+            header = null;
+        }
         if ( header == null )
         {
             // Either the header is not there in full or the file was new. Don't care
             long lastTxId = lastCommittedId.get();
-            writeLogHeader( headerBuffer, forVersion, lastTxId );
+            writeLogHeader( headerBuffer, forVersion, lastTxId, logFormatVersion );
             logHeaderCache.putHeader( forVersion, lastTxId );
+            storeChannel.position( 0 );
             storeChannel.writeAll( headerBuffer );
             monitor.opened( toOpen, forVersion, lastTxId, true );
         }
-        byte formatVersion = header == null ? CURRENT_LOG_VERSION : header.logFormatVersion;
+        byte formatVersion = header == null ? logFormatVersion : header.logFormatVersion;
         return new PhysicalLogVersionedStoreChannel( storeChannel, forVersion, formatVersion );
     }
 
+    /**
+     * @return the position right after the last log entry in the given log, which is the end of the file unless the
+     * file has a pre-allocated tail of zeros. Such a tail is only looked for when the file ends with a zero, since
+     * a log entry rarely does, and when the file is longer than the position of the last closed transaction in it.
+     * Entries are then read from the last closed transaction onwards, which is typically just a check point, if
+     * anything, rather than from the start of the file.
+     */
+    private long endOfEntries( PhysicalLogVersionedStoreChannel channel ) throws IOException
+    {
+        long size = channel.size();
+        long scanFrom = LOG_HEADER_SIZE;
+        LogPosition lastClosed = lastClosedPosition.get();
+        if ( lastClosed != LogPosition.UNSPECIFIED && lastClosed.getLogVersion() == channel.getVersion() &&
+             lastClosed.getByteOffset() > LOG_HEADER_SIZE && lastClosed.getByteOffset() <= size )
+        {
+            scanFrom = lastClosed.getByteOffset();
+        }
+        if ( size <= scanFrom )
+        {
+            return size;
+        }
+        ByteBuffer lastByte = ByteBuffer.allocate( 1 );
+        channel.position( size - 1 );
+        channel.read( lastByte );
+        if ( lastByte.get( 0 ) != 0 )
+        {
+            return size;
+        }
+
+        // Don't close this reader, since that would close the channel of the log that we're about to write to
+        channel.position( scanFrom );
+        ReadAheadLogChannel reader = new ReadAheadLogChannel( channel, LogVersionBridge.NO_MORE_CHANNELS );
+        LogPositionMarker marker = new LogPositionMarker();
+        reader.getCurrentPosition( marker );
+        // Reading stops at the zeros of the pre-allocated tail. Recovery has already cut off any broken entry, so
+        // failing to read one here means the log is corrupt, and we must not start appending after it.
+        while ( logEntryReader.readLogEntry( reader ) != null )
+        {
+            reader.getCurrentPosition( marker );
+        }
+        return marker.getByteOffset();
+    }
+
     @Override
     public FlushablePositionAwareChannel getWriter()
     {
@@ -196,11 +341,38 @@ public class PhysicalLogFile implements LogFile, Lifecycle
     @Override
     public ReadableLogChannel getReader( LogPosition position ) throws IOException
     {
-        PhysicalLogVersionedStoreChannel logChannel = openForVersion( logFiles, fileSystem, position.getLogVersion() );
+        long version = position.getLogVersion();
+        LogVersionedStoreChannel logChannel = openForReading( logFiles, fileSystem, version, isMappable( version ) );
         logChannel.position( position.getByteOffset() );
         return new ReadAheadLogChannel( logChannel, readerLogVersionBridge );
     }
 
+    private boolean isMappable( long version )
+    {
+        return mapRotatedLogs && version < logVersionRepository.getCurrentLogVersion();
+    }
+
+    /**
+     * Opens the log file of the given version for reading, positioned after its header.
+     *
+     * @param map whether or not to try to {@link MappedLogVersionedStoreChannel memory-map} the log file, which must
+     * then have been rotated out. The log file is opened as a regular channel if it can't be mapped.
+     */
+    public static LogVersionedStoreChannel openForReading( PhysicalLogFiles logFiles, FileSystemAbstraction fileSystem,
+            long version, boolean map ) throws IOException
+    {
+        if ( map && fileSystem.fileExists( logFiles.getLogFileForVersion( version ) ) )
+        {
+            LogVersionedStoreChannel mappedChannel = MappedLogVersionedStoreChannel.tryMap( logFiles, fileSystem,
+                    version );
+            if ( mappedChannel != null )
+            {
+                return mappedChannel;
+            }
+        }
+        return openForVersion( logFiles, fileSystem, version );
+    }
+
     public static PhysicalLogVersionedStoreChannel openForVersion( PhysicalLogFiles logFiles,
             FileSystemAbstraction fileSystem,
             long version ) throws IOException
@@ -58,6 +58,10 @@ public class PhysicalLogFiles
         }
     }
 
+    private static final String PREALLOCATED_PREFIX = "preallocated.";
+    private static final String RECYCLED_PREFIX = "recycled.";
+    private static final String TRANSACTION_INDEX_PREFIX = "index.";
+
     private final File logBaseName;
     private final Pattern logFilePattern;
     private final FileSystemAbstraction fileSystem;
@@ -79,6 +83,33 @@ public class PhysicalLogFiles
         return new File( logBaseName.getPath() + DEFAULT_VERSION_SUFFIX + version );
     }
 
+    /**
+     * @return the file that a log file is pre-allocated into, before it is renamed to become the next log version.
+     * Its name deliberately doesn't share the prefix of the log files, so that it isn't mistaken for one.
+     */
+    public File getPreallocatedFile()
+    {
+        return new File( logBaseName.getParentFile(), PREALLOCATED_PREFIX + logBaseName.getName() );
+    }
+
+    /**
+     * @return the file that a pruned log file is kept as, until it's reused for pre-allocating a log file.
+     */
+    public File getRecycledFile()
+    {
+        return new File( logBaseName.getParentFile(), RECYCLED_PREFIX + logBaseName.getName() );
+    }
+
+    /**
+     * @return the file that the {@link SparseTransactionLogIndex sparse transaction index} of the log file of the
+     * given version is kept in.
+     */
+    public File getTransactionIndexFileForVersion( long version )
+    {
+        return new File( logBaseName.getParentFile(),
+                TRANSACTION_INDEX_PREFIX + logBaseName.getName() + DEFAULT_VERSION_SUFFIX + version );
+    }
+
     public boolean versionExists( long version )
     {
         return fileSystem.fileExists( getLogFileForVersion( version ) );
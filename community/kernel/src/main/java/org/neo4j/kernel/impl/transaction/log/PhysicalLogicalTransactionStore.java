@@ -40,13 +40,22 @@ public class PhysicalLogicalTransactionStore implements LogicalTransactionStore
     private final LogFile logFile;
     private final TransactionMetadataCache transactionMetadataCache;
     private final LogEntryReader<ReadableClosablePositionAwareChannel> logEntryReader;
+    private final TransactionLogIndex transactionLogIndex;
 
     public PhysicalLogicalTransactionStore( LogFile logFile, TransactionMetadataCache transactionMetadataCache,
             LogEntryReader<ReadableClosablePositionAwareChannel> logEntryReader )
+    {
+        this( logFile, transactionMetadataCache, logEntryReader, TransactionLogIndex.NONE );
+    }
+
+    public PhysicalLogicalTransactionStore( LogFile logFile, TransactionMetadataCache transactionMetadataCache,
+            LogEntryReader<ReadableClosablePositionAwareChannel> logEntryReader,
+            TransactionLogIndex transactionLogIndex )
     {
         this.logFile = logFile;
         this.transactionMetadataCache = transactionMetadataCache;
         this.logEntryReader = logEntryReader;
+        this.transactionLogIndex = transactionLogIndex;
     }
 
     @Override
@@ -68,11 +77,17 @@ public class PhysicalLogicalTransactionStore implements LogicalTransactionStore
             // ask LogFile about the version it may be in
             LogVersionLocator headerVisitor = new LogVersionLocator( transactionIdToStartFrom );
             logFile.accept( headerVisitor );
+            LogPosition headerPosition = headerVisitor.getLogPosition();
 
-            // ask LogFile
+            // ask the index where in that version to start looking, so that we don't have to read all of it
             TransactionPositionLocator transactionPositionLocator =
-                    new TransactionPositionLocator( transactionIdToStartFrom, logEntryReader );
-            logFile.accept( transactionPositionLocator, headerVisitor.getLogPosition() );
+                    locateFromIndex( transactionIdToStartFrom, headerPosition );
+            if ( transactionPositionLocator == null )
+            {
+                // ask LogFile
+                transactionPositionLocator = new TransactionPositionLocator( transactionIdToStartFrom, logEntryReader );
+                logFile.accept( transactionPositionLocator, headerPosition );
+            }
             LogPosition position = transactionPositionLocator.getAndCacheFoundLogPosition( transactionMetadataCache );
             return new PhysicalTransactionCursor<>( logFile.getReader( position ), logEntryReader );
         }
@@ -83,6 +98,30 @@ public class PhysicalLogicalTransactionStore implements LogicalTransactionStore
         }
     }
 
+    /**
+     * @return a locator which has found the transaction by reading the log from the position that the
+     * {@link TransactionLogIndex} has for it, or {@code null} if that wasn't possible.
+     */
+    private TransactionPositionLocator locateFromIndex( long transactionId, LogPosition headerPosition )
+    {
+        LogPosition indexedPosition = transactionLogIndex.lookup( headerPosition.getLogVersion(), transactionId );
+        if ( indexedPosition == null || indexedPosition.getByteOffset() < headerPosition.getByteOffset() )
+        {
+            return null;
+        }
+        try
+        {
+            TransactionPositionLocator locator = new TransactionPositionLocator( transactionId, logEntryReader );
+            logFile.accept( locator, indexedPosition );
+            return locator.hasFound() ? locator : null;
+        }
+        catch ( IOException | RuntimeException e )
+        {
+            // The index is only a hint, so ignore it if it leads anywhere unexpected
+            return null;
+        }
+    }
+
     private static final TransactionMetadataCache.TransactionMetadata METADATA_FOR_EMPTY_STORE =
             new TransactionMetadataCache.TransactionMetadata( -1, -1, LogPosition.start( 0 ), BASE_TX_CHECKSUM );
 
@@ -161,6 +200,11 @@ public class PhysicalLogicalTransactionStore implements LogicalTransactionStore
             return true;
         }
 
+        boolean hasFound()
+        {
+            return startEntryForFoundTransaction != null;
+        }
+
         public LogPosition getAndCacheFoundLogPosition( TransactionMetadataCache transactionMetadataCache )
                 throws NoSuchTransactionException
         {
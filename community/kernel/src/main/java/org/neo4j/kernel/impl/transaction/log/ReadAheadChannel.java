@@ -33,13 +33,15 @@ import static java.lang.System.arraycopy;
  * spanning more than one file, by properly implementing {@link #next(StoreChannel)}.
  * @param <T> The type of StoreChannel wrapped
  */
-public class ReadAheadChannel<T extends StoreChannel> implements ReadableClosableChannel
+public class ReadAheadChannel<T extends StoreChannel> implements ReadableClosableChannel, InsertableChannel
 {
     public static final int DEFAULT_READ_AHEAD_SIZE = 1024 * 4;
 
     protected T channel;
     private final ByteBuffer aheadBuffer;
     private final int readAheadSize;
+    // Bytes inserted ahead of the aheadBuffer, or null if there are none left to read
+    private ByteBuffer inserted;
 
     public ReadAheadChannel( T channel )
     {
@@ -69,43 +71,37 @@ public class ReadAheadChannel<T extends StoreChannel> implements ReadableClosabl
     @Override
     public byte get() throws IOException
     {
-        ensureDataExists( 1 );
-        return aheadBuffer.get();
+        return bufferWithData( 1 ).get();
     }
 
     @Override
     public short getShort() throws IOException
     {
-        ensureDataExists( 2 );
-        return aheadBuffer.getShort();
+        return bufferWithData( 2 ).getShort();
     }
 
     @Override
     public int getInt() throws IOException
     {
-        ensureDataExists( 4 );
-        return aheadBuffer.getInt();
+        return bufferWithData( 4 ).getInt();
     }
 
     @Override
     public long getLong() throws IOException
     {
-        ensureDataExists( 8 );
-        return aheadBuffer.getLong();
+        return bufferWithData( 8 ).getLong();
     }
 
     @Override
     public float getFloat() throws IOException
     {
-        ensureDataExists( 4 );
-        return aheadBuffer.getFloat();
+        return bufferWithData( 4 ).getFloat();
     }
 
     @Override
     public double getDouble() throws IOException
     {
-        ensureDataExists( 8 );
-        return aheadBuffer.getDouble();
+        return bufferWithData( 8 ).getDouble();
     }
 
     @Override
@@ -113,6 +109,19 @@ public class ReadAheadChannel<T extends StoreChannel> implements ReadableClosabl
     {
         assert length <= bytes.length;
 
+        if ( inserted != null && inserted.hasRemaining() )
+        {
+            bufferWithData( length ).get( bytes, 0, length );
+            return;
+        }
+
+        ByteBuffer mapped = mappedBufferWithData( length );
+        if ( mapped != null )
+        {
+            mapped.get( bytes, 0, length );
+            return;
+        }
+
         int bytesGotten = 0;
         while ( bytesGotten < length )
         {   // get max 1024 bytes at the time, so that ensureDataExists functions as it should
@@ -123,12 +132,69 @@ public class ReadAheadChannel<T extends StoreChannel> implements ReadableClosabl
         }
     }
 
+    @Override
+    public void insert( byte[] bytes, int length )
+    {
+        if ( inserted != null && inserted.hasRemaining() )
+        {
+            throw new IllegalStateException( "Can not insert more bytes while " + inserted.remaining() +
+                    " previously inserted bytes remain to be read" );
+        }
+        inserted = ByteBuffer.wrap( bytes, 0, length );
+    }
+
     @Override
     public void close() throws IOException
     {
         channel.close();
     }
 
+    private ByteBuffer bufferWithData( int requestedNumberOfBytes ) throws IOException
+    {
+        if ( inserted != null )
+        {
+            int remaining = inserted.remaining();
+            if ( remaining >= requestedNumberOfBytes )
+            {
+                return inserted;
+            }
+            if ( remaining > 0 )
+            {
+                // Inserted bytes hold whole log entries, so nothing read from them carries on into the channel
+                throw new IOException( "Requested " + requestedNumberOfBytes + " bytes with only " + remaining +
+                        " inserted bytes remaining" );
+            }
+            inserted = null;
+        }
+        ByteBuffer mapped = mappedBufferWithData( requestedNumberOfBytes );
+        if ( mapped != null )
+        {
+            return mapped;
+        }
+        ensureDataExists( requestedNumberOfBytes );
+        return aheadBuffer;
+    }
+
+    /**
+     * Reading straight from a mapped channel spares copying its bytes into the aheadBuffer. That's only possible
+     * once the aheadBuffer has been read to its end, since it's ahead of the channel until then.
+     *
+     * @return the mapped buffer of the current channel, if it has the requested number of bytes remaining and the
+     * aheadBuffer has none, otherwise {@code null}.
+     */
+    private ByteBuffer mappedBufferWithData( int requestedNumberOfBytes ) throws IOException
+    {
+        if ( !aheadBuffer.hasRemaining() && channel instanceof MappedLogVersionedStoreChannel )
+        {
+            ByteBuffer mapped = ((MappedLogVersionedStoreChannel) channel).buffer();
+            if ( mapped.remaining() >= requestedNumberOfBytes )
+            {
+                return mapped;
+            }
+        }
+        return null;
+    }
+
     private void ensureDataExists( int requestedNumberOfBytes ) throws IOException
     {
         int remaining = aheadBuffer.remaining();
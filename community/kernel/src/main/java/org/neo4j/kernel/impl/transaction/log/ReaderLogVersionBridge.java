@@ -21,29 +21,43 @@ package org.neo4j.kernel.impl.transaction.log;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.function.LongPredicate;
 
 import org.neo4j.io.fs.FileSystemAbstraction;
 
-import static org.neo4j.kernel.impl.transaction.log.PhysicalLogFile.openForVersion;
+import static org.neo4j.kernel.impl.transaction.log.PhysicalLogFile.openForReading;
 
 public class ReaderLogVersionBridge implements LogVersionBridge
 {
     private final FileSystemAbstraction fileSystem;
     private final PhysicalLogFiles logFiles;
+    private final LongPredicate mapVersion;
 
     public ReaderLogVersionBridge( FileSystemAbstraction fileSystem, PhysicalLogFiles logFiles )
+    {
+        this( fileSystem, logFiles, version -> false );
+    }
+
+    /**
+     * @param mapVersion whether or not the log file of a given version may be
+     * {@link MappedLogVersionedStoreChannel memory-mapped}, i.e. whether it has been rotated out.
+     */
+    public ReaderLogVersionBridge( FileSystemAbstraction fileSystem, PhysicalLogFiles logFiles,
+            LongPredicate mapVersion )
     {
         this.fileSystem = fileSystem;
         this.logFiles = logFiles;
+        this.mapVersion = mapVersion;
     }
 
     @Override
     public LogVersionedStoreChannel next( LogVersionedStoreChannel channel ) throws IOException
     {
-        PhysicalLogVersionedStoreChannel nextChannel;
+        LogVersionedStoreChannel nextChannel;
+        long nextVersion = channel.getVersion() + 1;
         try
         {
-            nextChannel = openForVersion( logFiles, fileSystem, channel.getVersion() + 1 );
+            nextChannel = openForReading( logFiles, fileSystem, nextVersion, mapVersion.test( nextVersion ) );
         }
         catch ( FileNotFoundException e )
         {
@@ -0,0 +1,278 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.fs.StoreChannel;
+import org.neo4j.kernel.impl.transaction.log.entry.LogHeader;
+import org.neo4j.logging.Log;
+import org.neo4j.logging.LogProvider;
+
+/**
+ * A {@link TransactionLogIndex} with an entry for about every {@code strideBytes} of log, so that finding a
+ * transaction means reading at most about that much of the log, instead of the log file up to the transaction.
+ * <p>
+ * The index of the current log file is built in memory, as transactions are appended to it. Once the log has been
+ * rotated, the index of the previous log file is written to its
+ * {@link PhysicalLogFiles#getTransactionIndexFileForVersion(long) index file}, from which it's read back when needed
+ * after a restart. Transactions appended to a log file before a restart are not in its index.
+ * <p>
+ * Index files are only advisory. An index file is ignored unless the header and the size of its log file are the same
+ * as when the index was written, and lookups fall back to reading the log file from the beginning when there is no
+ * index.
+ */
+public class SparseTransactionLogIndex implements TransactionLogIndex
+{
+    private static final long FORMAT_MAGIC = 0x5458494458303031L; // "TXIDX001"
+    private static final int HEADER_SIZE = 5 * Long.BYTES;
+    private static final int MAX_CACHED_VERSIONS = 64;
+
+    private final FileSystemAbstraction fileSystem;
+    private final PhysicalLogFiles logFiles;
+    private final long strideBytes;
+    private final Log log;
+    private final ConcurrentMap<Long,Entries> versions = new ConcurrentHashMap<>();
+
+    // Only accessed by the appending thread
+    private Entries current;
+
+    public SparseTransactionLogIndex( FileSystemAbstraction fileSystem, PhysicalLogFiles logFiles, long strideBytes,
+            LogProvider logProvider )
+    {
+        this.fileSystem = fileSystem;
+        this.logFiles = logFiles;
+        this.strideBytes = strideBytes;
+        this.log = logProvider.getLog( getClass() );
+    }
+
+    @Override
+    public void transactionAppended( long transactionId, LogPosition startPosition )
+    {
+        long logVersion = startPosition.getLogVersion();
+        if ( current == null || current.logVersion != logVersion )
+        {
+            if ( current != null && current.logVersion < logVersion )
+            {
+                // The log has been rotated since the previous transaction was appended
+                write( current );
+            }
+            current = new Entries( logVersion );
+            cache( current );
+        }
+        current.maybeAdd( transactionId, startPosition.getByteOffset(), strideBytes );
+    }
+
+    @Override
+    public LogPosition lookup( long logVersion, long transactionId )
+    {
+        Entries entries = versions.get( logVersion );
+        if ( entries == null )
+        {
+            entries = read( logVersion );
+            if ( entries == null )
+            {
+                return null;
+            }
+            cache( entries );
+        }
+        long byteOffset = entries.floor( transactionId );
+        return byteOffset == -1 ? null : new LogPosition( logVersion, byteOffset );
+    }
+
+    private void cache( Entries entries )
+    {
+        versions.put( entries.logVersion, entries );
+        while ( versions.size() > MAX_CACHED_VERSIONS )
+        {
+            long lowest = Long.MAX_VALUE;
+            for ( Long version : versions.keySet() )
+            {
+                lowest = Math.min( lowest, version );
+            }
+            versions.remove( lowest );
+        }
+    }
+
+    private void write( Entries entries )
+    {
+        File indexFile = logFiles.getTransactionIndexFileForVersion( entries.logVersion );
+        try
+        {
+            File logFile = logFiles.getLogFileForVersion( entries.logVersion );
+            LogHeader header = logFiles.extractHeader( entries.logVersion );
+            long[] array = entries.array;
+            int size = entries.size;
+            ByteBuffer buffer = ByteBuffer.allocate( HEADER_SIZE + size * 2 * Long.BYTES );
+            buffer.putLong( FORMAT_MAGIC );
+            buffer.putLong( entries.logVersion );
+            buffer.putLong( header.lastCommittedTxId );
+            buffer.putLong( fileSystem.getFileSize( logFile ) );
+            buffer.putLong( size );
+            for ( int i = 0; i < size * 2; i++ )
+            {
+                buffer.putLong( array[i] );
+            }
+            buffer.flip();
+            try ( StoreChannel channel = fileSystem.create( indexFile ) )
+            {
+                channel.writeAll( buffer );
+            }
+        }
+        catch ( IOException | RuntimeException e )
+        {
+            // The log can be read without the index, so just make sure that a partially written index isn't used
+            fileSystem.deleteFile( indexFile );
+            log.warn( "Could not write the transaction index of log version " + entries.logVersion, e );
+        }
+    }
+
+    private Entries read( long logVersion )
+    {
+        File indexFile = logFiles.getTransactionIndexFileForVersion( logVersion );
+        if ( !fileSystem.fileExists( indexFile ) || !logFiles.versionExists( logVersion ) )
+        {
+            return null;
+        }
+        try ( StoreChannel channel = fileSystem.open( indexFile, "r" ) )
+        {
+            ByteBuffer header = ByteBuffer.allocate( HEADER_SIZE );
+            if ( !readFully( channel, header ) )
+            {
+                return null;
+            }
+            LogHeader logHeader = logFiles.extractHeader( logVersion );
+            long logFileSize = fileSystem.getFileSize( logFiles.getLogFileForVersion( logVersion ) );
+            if ( header.getLong() != FORMAT_MAGIC || header.getLong() != logVersion ||
+                 header.getLong() != logHeader.lastCommittedTxId || header.getLong() != logFileSize )
+            {
+                // The log file has been replaced, or appended to, since this index was written
+                return null;
+            }
+            long size = header.getLong();
+            if ( size < 0 || size * 2 * Long.BYTES != channel.size() - HEADER_SIZE )
+            {
+                return null;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate( (int) size * 2 * Long.BYTES );
+            if ( !readFully( channel, buffer ) )
+            {
+                return null;
+            }
+            Entries entries = new Entries( logVersion );
+            for ( int i = 0; i < size; i++ )
+            {
+                entries.add( buffer.getLong(), buffer.getLong() );
+            }
+            return entries;
+        }
+        catch ( IOException | RuntimeException e )
+        {
+            return null;
+        }
+    }
+
+    private static boolean readFully( StoreChannel channel, ByteBuffer buffer ) throws IOException
+    {
+        while ( buffer.hasRemaining() )
+        {
+            if ( channel.read( buffer ) == -1 )
+            {
+                return false;
+            }
+        }
+        buffer.flip();
+        return true;
+    }
+
+    /**
+     * The indexed transaction ids of one log file, with the byte offsets of their start entries, in transaction id
+     * order. Added to by a single thread, and safe to look up in concurrently.
+     */
+    private static final class Entries
+    {
+        private final long logVersion;
+        // Pairs of transaction id and byte offset. The array is published before the size that covers a new pair.
+        private volatile long[] array = new long[32];
+        private volatile int size;
+
+        Entries( long logVersion )
+        {
+            this.logVersion = logVersion;
+        }
+
+        void maybeAdd( long transactionId, long byteOffset, long strideBytes )
+        {
+            int n = size;
+            if ( n == 0 || byteOffset - array[n * 2 - 1] >= strideBytes )
+            {
+                add( transactionId, byteOffset );
+            }
+        }
+
+        void add( long transactionId, long byteOffset )
+        {
+            int n = size;
+            long[] entries = array;
+            if ( n * 2 == entries.length )
+            {
+                long[] grown = new long[entries.length * 2];
+                System.arraycopy( entries, 0, grown, 0, entries.length );
+                entries = grown;
+            }
+            entries[n * 2] = transactionId;
+            entries[n * 2 + 1] = byteOffset;
+            array = entries;
+            size = n + 1;
+        }
+
+        /**
+         * @return the byte offset of the highest indexed transaction id that is at or below the given one, or -1 if
+         * there is no such transaction id.
+         */
+        long floor( long transactionId )
+        {
+            int n = size;
+            long[] entries = array;
+            int low = 0;
+            int high = n - 1;
+            int found = -1;
+            while ( low <= high )
+            {
+                int mid = (low + high) >>> 1;
+                if ( entries[mid * 2] <= transactionId )
+                {
+                    found = mid;
+                    low = mid + 1;
+                }
+                else
+                {
+                    high = mid - 1;
+                }
+            }
+            return found == -1 ? -1 : entries[found * 2 + 1];
+        }
+    }
+}
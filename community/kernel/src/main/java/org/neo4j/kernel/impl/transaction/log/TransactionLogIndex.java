@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+/**
+ * Knows where in the transaction log some of the transactions start, such that a transaction can be found without
+ * reading the log file it is in from the beginning.
+ */
+public interface TransactionLogIndex
+{
+    TransactionLogIndex NONE = new TransactionLogIndex()
+    {
+        @Override
+        public void transactionAppended( long transactionId, LogPosition startPosition )
+        {
+        }
+
+        @Override
+        public LogPosition lookup( long logVersion, long transactionId )
+        {
+            return null;
+        }
+    };
+
+    /**
+     * Called for every transaction appended to the log, in transaction id order, by the thread appending it.
+     *
+     * @param transactionId the id of the appended transaction.
+     * @param startPosition the position of the start entry of the appended transaction.
+     */
+    void transactionAppended( long transactionId, LogPosition startPosition );
+
+    /**
+     * @param logVersion the version of the log file that the transaction is in.
+     * @param transactionId the id of the transaction to find.
+     * @return the start position of the closest indexed transaction at or before the given transaction, in the given
+     * log file, or {@code null} if there is no such transaction in the index. Reading the log from this position will
+     * reach the given transaction, if the transaction is in the given log file.
+     */
+    LogPosition lookup( long logVersion, long transactionId );
+}
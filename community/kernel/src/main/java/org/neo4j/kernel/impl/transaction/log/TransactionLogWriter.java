@@ -34,6 +34,34 @@ public class TransactionLogWriter
     }
 
     public void append( TransactionRepresentation transaction, long transactionId ) throws IOException
+    {
+        appendStartAndCommands( transaction );
+
+        // Write commit record
+        writer.writeCommitEntry( transactionId, transaction.getTimeCommitted() );
+    }
+
+    /**
+     * Append a transaction whose start entry and commands have already been serialized into the given buffer,
+     * followed by its commit entry.
+     */
+    void append( TransactionSerializationBuffer serializedTransaction, long transactionId ) throws IOException
+    {
+        if ( serializedTransaction.isCompressed() )
+        {
+            writer.writeCompressedEntries( serializedTransaction.compressedArray(),
+                    serializedTransaction.compressedLength(), serializedTransaction.length() );
+        }
+        else
+        {
+            writer.writeSerializedEntries( serializedTransaction.array(), serializedTransaction.length() );
+        }
+
+        // Write commit record
+        writer.writeCommitEntry( transactionId, serializedTransaction.transaction().getTimeCommitted() );
+    }
+
+    void appendStartAndCommands( TransactionRepresentation transaction ) throws IOException
     {
         writer.writeStartEntry( transaction.getMasterId(), transaction.getAuthorId(),
                 transaction.getTimeStarted(), transaction.getLatestCommittedTxWhenStarted(),
@@ -41,9 +69,6 @@ public class TransactionLogWriter
 
         // Write all the commands to the log channel
         writer.serialize( transaction );
-
-        // Write commit record
-        writer.writeCommitEntry( transactionId, transaction.getTimeCommitted() );
     }
 
     public void checkPoint( LogPosition logPosition ) throws IOException
@@ -19,25 +19,39 @@
  */
 package org.neo4j.kernel.impl.transaction.log;
 
-import org.neo4j.helpers.collection.LruCache;
-
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Caches the {@link TransactionMetadata} of the most recently appended, or looked up, transactions.
+ * <p>
+ * Transaction ids are dense and handed out in order, so the cache is a ring indexed by transaction id, where each
+ * slot remembers the transaction id it holds metadata for. Caching the metadata of a transaction evicts whatever
+ * transaction previously occupied its slot. Neither looking up nor caching takes any locks.
+ */
 public class TransactionMetadataCache
 {
-    private final LruCache<Long /*tx id*/, TransactionMetadata> txStartPositionCache;
+    private final AtomicReferenceArray<CachedTransactionMetadata> txStartPositionCache;
+    private final int mask;
 
     public TransactionMetadataCache( int transactionCacheSize )
     {
-        this.txStartPositionCache = new LruCache<>( "Tx start position cache", transactionCacheSize );
+        int capacity = Integer.highestOneBit( Math.max( 1, transactionCacheSize - 1 ) ) << 1;
+        this.txStartPositionCache = new AtomicReferenceArray<>( capacity );
+        this.mask = capacity - 1;
     }
 
     public void clear()
     {
-        txStartPositionCache.clear();
+        for ( int i = 0; i < txStartPositionCache.length(); i++ )
+        {
+            txStartPositionCache.set( i, null );
+        }
     }
 
     public TransactionMetadata getTransactionMetadata( long txId )
     {
-        return txStartPositionCache.get( txId );
+        CachedTransactionMetadata cached = txStartPositionCache.get( slot( txId ) );
+        return cached != null && cached.txId == txId ? cached.metadata : null;
     }
 
     public TransactionMetadata cacheTransactionMetadata( long txId, LogPosition position, int masterId,
@@ -49,10 +63,27 @@ public class TransactionMetadataCache
         }
 
         TransactionMetadata result = new TransactionMetadata( masterId, authorId, position, checksum );
-        txStartPositionCache.put( txId, result );
+        txStartPositionCache.set( slot( txId ), new CachedTransactionMetadata( txId, result ) );
         return result;
     }
 
+    private int slot( long txId )
+    {
+        return (int) (txId & mask);
+    }
+
+    private static final class CachedTransactionMetadata
+    {
+        private final long txId;
+        private final TransactionMetadata metadata;
+
+        CachedTransactionMetadata( long txId, TransactionMetadata metadata )
+        {
+            this.txId = txId;
+            this.metadata = metadata;
+        }
+    }
+
     public static class TransactionMetadata
     {
         private final int masterId;
@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.neo4j.io.ByteUnit;
+import org.neo4j.kernel.impl.transaction.TransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryWriter;
+import org.neo4j.kernel.impl.transaction.log.entry.Lz4BlockCodec;
+
+/**
+ * An in-memory channel that a committing thread serializes its transaction into, before entering the critical
+ * section of the {@link BatchingTransactionAppender}. Everything but the commit entry, which needs the transaction
+ * id, is serialized here, such that only a copy of the serialized bytes remains to be done under the lock.
+ * <p>
+ * If compression is enabled, the serialized entries of larger transactions are compressed here as well, and are
+ * appended as one compressed entry if that makes them meaningfully smaller.
+ * <p>
+ * Instances are reused by the thread that owns them, and are not thread-safe.
+ */
+class TransactionSerializationBuffer implements FlushableChannel
+{
+    private static final int INITIAL_CAPACITY = (int) ByteUnit.kibiBytes( 8 );
+    // Buffers that have grown larger than this, because of a large transaction, are not kept around for reuse.
+    private static final int MAX_RETAINED_CAPACITY = (int) ByteUnit.mebiBytes( 1 );
+    private static final Flushable NO_OP_FLUSHABLE = () -> { };
+    // Transactions smaller than this rarely compress well enough to be worth the effort of inflating them again
+    private static final int MIN_COMPRESSIBLE_LENGTH = 512;
+    // Compressed entries must save at least this much, to make up for their entry header
+    private static final int MIN_COMPRESSION_SAVING = 64;
+
+    private final TransactionLogWriter transactionLogWriter = new TransactionLogWriter( new LogEntryWriter( this ) );
+    private final IndexCommandDetector indexCommandDetector = new IndexCommandDetector();
+    private final Lz4BlockCodec compressor;
+    private ByteBuffer buffer = ByteBuffer.allocate( INITIAL_CAPACITY );
+    private byte[] compressed;
+    private int compressedLength;
+    private TransactionRepresentation transaction;
+    private boolean hasLegacyIndexChanges;
+
+    TransactionSerializationBuffer( boolean compress )
+    {
+        this.compressor = compress ? new Lz4BlockCodec() : null;
+    }
+
+    /**
+     * Serialize the start entry and the commands of the given transaction into this buffer, replacing whatever
+     * this buffer contained before.
+     */
+    void serialize( TransactionRepresentation transaction ) throws IOException
+    {
+        this.transaction = transaction;
+        buffer.clear();
+        transactionLogWriter.appendStartAndCommands( transaction );
+        compressedLength = compressor == null ? -1 : compress();
+
+        indexCommandDetector.reset();
+        transaction.accept( indexCommandDetector );
+        hasLegacyIndexChanges = indexCommandDetector.hasWrittenAnyLegacyIndexCommand();
+    }
+
+    TransactionRepresentation transaction()
+    {
+        return transaction;
+    }
+
+    boolean hasLegacyIndexChanges()
+    {
+        return hasLegacyIndexChanges;
+    }
+
+    byte[] array()
+    {
+        return buffer.array();
+    }
+
+    int length()
+    {
+        return buffer.position();
+    }
+
+    /**
+     * @return whether or not the serialized entries have been compressed, in which case they're appended as
+     * {@link #compressedLength()} bytes of {@link #compressedArray()} rather than as {@link #array()}.
+     */
+    boolean isCompressed()
+    {
+        return compressedLength >= 0;
+    }
+
+    byte[] compressedArray()
+    {
+        return compressed;
+    }
+
+    int compressedLength()
+    {
+        return compressedLength;
+    }
+
+    /**
+     * Let go of the serialized transaction, and of the memory held by this buffer if it has grown large.
+     */
+    void release()
+    {
+        transaction = null;
+        if ( buffer.capacity() > MAX_RETAINED_CAPACITY )
+        {
+            buffer = ByteBuffer.allocate( INITIAL_CAPACITY );
+        }
+        if ( compressed != null && compressed.length > MAX_RETAINED_CAPACITY )
+        {
+            compressed = null;
+        }
+    }
+
+    private int compress()
+    {
+        int length = length();
+        if ( length < MIN_COMPRESSIBLE_LENGTH )
+        {
+            return -1;
+        }
+        // Give up on compressing as soon as the result wouldn't save enough
+        int maxCompressedLength = length - MIN_COMPRESSION_SAVING;
+        if ( compressed == null || compressed.length < maxCompressedLength )
+        {
+            compressed = new byte[Math.max( maxCompressedLength, INITIAL_CAPACITY )];
+        }
+        int result = compressor.compress( buffer.array(), length, compressed );
+        return result <= maxCompressedLength ? result : -1;
+    }
+
+    private ByteBuffer bufferWithGuaranteedSpace( int spaceInBytes )
+    {
+        if ( buffer.remaining() < spaceInBytes )
+        {
+            long required = (long) buffer.position() + spaceInBytes;
+            int capacity = (int) Math.min( Integer.MAX_VALUE - 8, Math.max( required, buffer.capacity() * 2L ) );
+            ByteBuffer grown = ByteBuffer.allocate( capacity );
+            buffer.flip();
+            grown.put( buffer );
+            buffer = grown;
+        }
+        return buffer;
+    }
+
+    @Override
+    public Flushable prepareForFlush()
+    {
+        return NO_OP_FLUSHABLE;
+    }
+
+    @Override
+    public FlushableChannel put( byte value )
+    {
+        bufferWithGuaranteedSpace( 1 ).put( value );
+        return this;
+    }
+
+    @Override
+    public FlushableChannel putShort( short value )
+    {
+        bufferWithGuaranteedSpace( 2 ).putShort( value );
+        return this;
+    }
+
+    @Override
+    public FlushableChannel putInt( int value )
+    {
+        bufferWithGuaranteedSpace( 4 ).putInt( value );
+        return this;
+    }
+
+    @Override
+    public FlushableChannel putLong( long value )
+    {
+        bufferWithGuaranteedSpace( 8 ).putLong( value );
+        return this;
+    }
+
+    @Override
+    public FlushableChannel putFloat( float value )
+    {
+        bufferWithGuaranteedSpace( 4 ).putFloat( value );
+        return this;
+    }
+
+    @Override
+    public FlushableChannel putDouble( double value )
+    {
+        bufferWithGuaranteedSpace( 8 ).putDouble( value );
+        return this;
+    }
+
+    @Override
+    public FlushableChannel put( byte[] value, int length )
+    {
+        bufferWithGuaranteedSpace( length ).put( value, 0, length );
+        return this;
+    }
+
+    @Override
+    public void close()
+    {
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.checkpoint;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.neo4j.io.pagecache.IOLimiter;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.kernel.impl.transaction.log.LogPosition;
+import org.neo4j.kernel.impl.transaction.log.TransactionIdStore;
+import org.neo4j.kernel.impl.util.JobScheduler;
+import org.neo4j.kernel.impl.util.RecurringJob;
+import org.neo4j.kernel.lifecycle.LifecycleAdapter;
+import org.neo4j.logging.LogProvider;
+
+import static org.neo4j.kernel.impl.util.JobScheduler.Groups.checkPoint;
+
+/**
+ * Flushes dirty pages from the page cache in the background, in between check points, so that each check point has
+ * fewer pages left to flush, and the IO of check pointing is spread out over time.
+ * <p>
+ * Every interval, a fraction of the dirty pages are flushed, without forcing them. The fraction grows with how dirty
+ * the page cache is, and with how much transaction log has been written since the last check point; the longer that
+ * log tail is, the more work recovery would have to redo after a crash, and the more work the next check point has to
+ * do. A log tail of a full log file, or a page cache that is half dirty, gets all dirty pages flushed.
+ */
+public class BackgroundFlusher extends LifecycleAdapter implements BackgroundFlushMonitor
+{
+    static final double MIN_FLUSH_FRACTION = 0.05;
+    static final double DIRTY_RATIO_TO_FLUSH_ALL = 0.5;
+
+    private final PageCache pageCache;
+    private final IOLimiter ioLimiter;
+    private final TransactionIdStore transactionIdStore;
+    private final Supplier<LogPosition> lastCheckPointedPosition;
+    private final long logRotationThreshold;
+    private final long intervalMillis;
+    private final AtomicLong flushedPages = new AtomicLong();
+    private final RecurringJob job;
+    private volatile long flushRate;
+    private volatile LogPosition startPosition = LogPosition.UNSPECIFIED;
+
+    public BackgroundFlusher( PageCache pageCache, IOLimiter ioLimiter, TransactionIdStore transactionIdStore,
+            Supplier<LogPosition> lastCheckPointedPosition, long logRotationThreshold, JobScheduler scheduler,
+            long intervalMillis, LogProvider logProvider )
+    {
+        this.pageCache = pageCache;
+        this.ioLimiter = ioLimiter;
+        this.transactionIdStore = transactionIdStore;
+        this.lastCheckPointedPosition = lastCheckPointedPosition;
+        this.logRotationThreshold = logRotationThreshold;
+        this.intervalMillis = intervalMillis;
+        this.job = new RecurringJob( scheduler, checkPoint, intervalMillis, this::flush,
+                logProvider.getLog( getClass() ),
+                "Background flushing of dirty pages failed, and will be retried later." );
+    }
+
+    @Override
+    public void start() throws Throwable
+    {
+        long[] lastClosedTransaction = transactionIdStore.getLastClosedTransaction();
+        startPosition = new LogPosition( lastClosedTransaction[1], lastClosedTransaction[2] );
+        job.start( intervalMillis );
+    }
+
+    @Override
+    public void stop() throws Throwable
+    {
+        job.stop();
+    }
+
+    @Override
+    public long numberOfDirtyPages()
+    {
+        return pageCache.dirtyPages();
+    }
+
+    @Override
+    public long numberOfBackgroundFlushedPages()
+    {
+        return flushedPages.get();
+    }
+
+    @Override
+    public long backgroundFlushRatePagesPerSecond()
+    {
+        return flushRate;
+    }
+
+    /**
+     * Flush the fraction of the dirty pages that the current state of the page cache and the transaction log calls
+     * for.
+     */
+    void flush() throws IOException
+    {
+        long dirtyPages = pageCache.dirtyPages();
+        long pagesToFlush = pagesToFlush( dirtyPages, pageCache.maxCachedPages(), logTailBytes() );
+        long flushed = pagesToFlush == 0 ? 0 : pageCache.flushDirtyPages( pagesToFlush, ioLimiter );
+        flushedPages.addAndGet( flushed );
+        flushRate = flushed * 1000 / Math.max( 1, intervalMillis );
+    }
+
+    long pagesToFlush( long dirtyPages, long maxCachedPages, long logTailBytes )
+    {
+        if ( dirtyPages == 0 )
+        {
+            return 0;
+        }
+        double dirtyRatio = dirtyPages / (double) maxCachedPages;
+        double logTailRatio = logTailBytes / (double) logRotationThreshold;
+        double fraction = Math.max( dirtyRatio / DIRTY_RATIO_TO_FLUSH_ALL, logTailRatio );
+        fraction = Math.min( 1.0, Math.max( MIN_FLUSH_FRACTION, fraction ) );
+        return (long) Math.ceil( dirtyPages * fraction );
+    }
+
+    /**
+     * The amount of transaction log written since the last check point, or since this flusher was started if no
+     * check point has been made since then. Log files are assumed to be as big as the rotation threshold.
+     */
+    long logTailBytes()
+    {
+        LogPosition from = lastCheckPointedPosition.get();
+        if ( from == LogPosition.UNSPECIFIED )
+        {
+            from = startPosition;
+        }
+        long[] lastClosedTransaction = transactionIdStore.getLastClosedTransaction();
+        long logVersions = lastClosedTransaction[1] - from.getLogVersion();
+        return Math.max( 0, logVersions * logRotationThreshold + lastClosedTransaction[2] - from.getByteOffset() );
+    }
+}
@@ -50,6 +50,7 @@ public class CheckPointerImpl extends LifecycleAdapter implements CheckPointer
     private final Lock lock;
 
     private long lastCheckPointedTx;
+    private volatile LogPosition lastCheckPointedPosition = LogPosition.UNSPECIFIED;
 
     public CheckPointerImpl(
             TransactionIdStore transactionIdStore,
@@ -104,6 +105,15 @@ public class CheckPointerImpl extends LifecycleAdapter implements CheckPointer
         threshold.initialize( transactionIdStore.getLastClosedTransactionId() );
     }
 
+    /**
+     * @return the position in the transaction log that the last check point was made at, or
+     * {@link LogPosition#UNSPECIFIED} if no check point has been made since this check pointer was started.
+     */
+    public LogPosition lastCheckPointedPosition()
+    {
+        return lastCheckPointedPosition;
+    }
+
     @Override
     public long forceCheckPoint( TriggerInfo info ) throws IOException
     {
@@ -224,6 +234,7 @@ public class CheckPointerImpl extends LifecycleAdapter implements CheckPointer
         logPruning.pruneLogs( logPosition.getLogVersion() );
 
         lastCheckPointedTx = lastClosedTransactionId;
+        lastCheckPointedPosition = logPosition;
         return lastClosedTransactionId;
     }
 }
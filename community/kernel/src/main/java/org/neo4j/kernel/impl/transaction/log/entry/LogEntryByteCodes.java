@@ -37,4 +37,7 @@ public class LogEntryByteCodes
     public static final byte TX_1P_COMMIT = (byte) 5;
     public static final byte TX_2P_COMMIT = (byte) 6;
     public static final byte CHECK_POINT = (byte) 7;
+
+    // The start entry and commands of a transaction, compressed into one entry
+    public static final byte COMPRESSED_ENTRIES = (byte) 8;
 }
@@ -21,6 +21,7 @@ package org.neo4j.kernel.impl.transaction.log.entry;
 
 import java.io.IOException;
 
+import org.neo4j.kernel.impl.transaction.log.InsertableChannel;
 import org.neo4j.kernel.impl.transaction.log.LogPosition;
 import org.neo4j.kernel.impl.transaction.log.LogPositionMarker;
 import org.neo4j.kernel.impl.transaction.log.ReadableClosableChannel;
@@ -153,5 +154,46 @@ public enum LogEntryParsersV2_3 implements LogEntryParser<LogEntry>
                 {
                     return false;
                 }
+            },
+
+    COMPRESSED_ENTRIES
+            {
+                @Override
+                public LogEntry parse( LogEntryVersion version, ReadableClosableChannel channel, LogPositionMarker marker,
+                                       CommandReaderFactory commandReader ) throws IOException
+                {
+                    int uncompressedLength = channel.getInt();
+                    int compressedLength = channel.getInt();
+                    if ( compressedLength <= 0 || uncompressedLength <= 0 ||
+                         uncompressedLength > compressedLength * 255L )
+                    {
+                        throw new IOException( "Compressed entries of " + compressedLength + " bytes can not " +
+                                "decompress to " + uncompressedLength + " bytes" );
+                    }
+                    if ( !(channel instanceof InsertableChannel) )
+                    {
+                        throw new IOException( "Compressed entries can not be read from " + channel );
+                    }
+                    byte[] compressed = new byte[compressedLength];
+                    channel.get( compressed, compressedLength );
+                    byte[] entries = new byte[uncompressedLength];
+                    Lz4BlockCodec.decompress( compressed, compressedLength, entries );
+
+                    // The inflated entries are read next, the first of them still having this entry as its position
+                    ((InsertableChannel) channel).insert( entries, uncompressedLength );
+                    return null;
+                }
+
+                @Override
+                public byte byteCode()
+                {
+                    return LogEntryByteCodes.COMPRESSED_ENTRIES;
+                }
+
+                @Override
+                public boolean skip()
+                {
+                    return true;
+                }
             }
 }
@@ -30,6 +30,7 @@ import org.neo4j.storageengine.api.StorageCommand;
 
 import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryByteCodes.CHECK_POINT;
 import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryByteCodes.COMMAND;
+import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryByteCodes.COMPRESSED_ENTRIES;
 import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryByteCodes.TX_1P_COMMIT;
 import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryByteCodes.TX_START;
 import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryVersion.CURRENT;
@@ -64,6 +65,25 @@ public class LogEntryWriter
         channel.putLong( transactionId ).putLong( timeWritten );
     }
 
+    /**
+     * Write log entries that have already been serialized by a LogEntryWriter of the same version.
+     */
+    public void writeSerializedEntries( byte[] serializedEntries, int length ) throws IOException
+    {
+        channel.put( serializedEntries, length );
+    }
+
+    /**
+     * Write log entries that have already been serialized by a LogEntryWriter of the same version, and then
+     * compressed by a {@link Lz4BlockCodec}, as one entry. Readers inflate it back into the entries it contains.
+     */
+    public void writeCompressedEntries( byte[] compressedEntries, int compressedLength, int uncompressedLength )
+            throws IOException
+    {
+        writeLogEntryHeader( COMPRESSED_ENTRIES );
+        channel.putInt( uncompressedLength ).putInt( compressedLength ).put( compressedEntries, compressedLength );
+    }
+
     public void serialize( TransactionRepresentation tx ) throws IOException
     {
         tx.accept( serializer );
@@ -39,6 +39,10 @@ public class LogVersions
     // Please don't add more since they aren't really used anyway.
     public static final byte CURRENT_LOG_VERSION = 6;
 
+    // The one exception to the above: log files that may contain compressed log entries, which readers not
+    // knowing about them would fail to read, are marked as such in their header.
+    public static final byte COMPRESSED_ENTRIES_LOG_VERSION = 7;
+
     // on disk current format version
     static final short CURRENT_FORMAT_VERSION = CURRENT_LOG_VERSION & 0xFF;
 }
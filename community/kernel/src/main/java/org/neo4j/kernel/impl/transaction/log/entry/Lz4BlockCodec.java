@@ -0,0 +1,240 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.entry;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Compresses and decompresses blocks of bytes in the LZ4 block format, which trades compression ratio for speed.
+ * This is what the log entries of a transaction are compressed with, when they are written as one
+ * {@link LogEntryByteCodes#COMPRESSED_ENTRIES compressed entry}.
+ * <p>
+ * Compressing is not thread-safe, since instances keep their hash table of recently seen sequences around for
+ * reuse. Decompressing is.
+ */
+public class Lz4BlockCodec
+{
+    private static final int MIN_MATCH = 4;
+    // The last five bytes of a block are always literals, and the last match starts no later than twelve bytes
+    // before the end of the block, as required by the format
+    private static final int LAST_LITERALS = 5;
+    private static final int MATCH_FIND_LIMIT = 12;
+    private static final int MAX_DISTANCE = 0xFFFF;
+    private static final int RUN_MASK = 0xF;
+    private static final int HASH_LOG = 12;
+
+    private final int[] hashTable = new int[1 << HASH_LOG];
+
+    /**
+     * Compress the first {@code length} bytes of {@code src} into {@code dst}.
+     *
+     * @return the length of the compressed block, or {@code -1} if it would not fit in {@code dst}.
+     */
+    public int compress( byte[] src, int length, byte[] dst )
+    {
+        int out = 0;
+        int anchor = 0;
+        if ( length > MATCH_FIND_LIMIT )
+        {
+            Arrays.fill( hashTable, -1 );
+            int searchLimit = length - MATCH_FIND_LIMIT;
+            int matchLimit = length - LAST_LITERALS;
+            int pos = 0;
+            while ( pos < searchLimit )
+            {
+                int sequence = readInt( src, pos );
+                int hash = hash( sequence );
+                int candidate = hashTable[hash];
+                hashTable[hash] = pos;
+                if ( candidate < 0 || pos - candidate > MAX_DISTANCE || readInt( src, candidate ) != sequence )
+                {
+                    pos++;
+                    continue;
+                }
+
+                while ( pos > anchor && candidate > 0 && src[pos - 1] == src[candidate - 1] )
+                {
+                    pos--;
+                    candidate--;
+                }
+                int matchLength = MIN_MATCH;
+                while ( pos + matchLength < matchLimit && src[pos + matchLength] == src[candidate + matchLength] )
+                {
+                    matchLength++;
+                }
+
+                int literals = pos - anchor;
+                if ( out + literals + literals / 255 + matchLength / 255 + 5 > dst.length )
+                {
+                    return -1;
+                }
+                dst[out++] = (byte) (Math.min( literals, RUN_MASK ) << 4 |
+                                     Math.min( matchLength - MIN_MATCH, RUN_MASK ));
+                out = writeLiterals( src, anchor, literals, dst, out );
+                int offset = pos - candidate;
+                dst[out++] = (byte) offset;
+                dst[out++] = (byte) (offset >>> 8);
+                if ( matchLength - MIN_MATCH >= RUN_MASK )
+                {
+                    out = writeLengthExtension( matchLength - MIN_MATCH - RUN_MASK, dst, out );
+                }
+
+                pos += matchLength;
+                anchor = pos;
+            }
+        }
+
+        int literals = length - anchor;
+        if ( out + literals + literals / 255 + 2 > dst.length )
+        {
+            return -1;
+        }
+        dst[out++] = (byte) (Math.min( literals, RUN_MASK ) << 4);
+        return writeLiterals( src, anchor, literals, dst, out );
+    }
+
+    /**
+     * Decompress the compressed block in the first {@code length} bytes of {@code src}, which must decompress to
+     * exactly {@code dst.length} bytes.
+     *
+     * @throws IOException if the block is malformed.
+     */
+    public static void decompress( byte[] src, int length, byte[] dst ) throws IOException
+    {
+        int in = 0;
+        int out = 0;
+        while ( true )
+        {
+            if ( in >= length )
+            {
+                throw malformed( "it ends before its last literals" );
+            }
+            int token = src[in++] & 0xFF;
+
+            int literals = token >>> 4;
+            if ( literals == RUN_MASK )
+            {
+                int lengthByte;
+                do
+                {
+                    if ( in >= length || literals > length )
+                    {
+                        throw malformed( "literal length out of bounds" );
+                    }
+                    lengthByte = src[in++] & 0xFF;
+                    literals += lengthByte;
+                }
+                while ( lengthByte == 255 );
+            }
+            if ( literals > length - in || literals > dst.length - out )
+            {
+                throw malformed( "literal length out of bounds" );
+            }
+            System.arraycopy( src, in, dst, out, literals );
+            in += literals;
+            out += literals;
+            if ( in == length )
+            {
+                break;
+            }
+
+            if ( in + 2 > length )
+            {
+                throw malformed( "match offset out of bounds" );
+            }
+            int offset = (src[in] & 0xFF) | (src[in + 1] & 0xFF) << 8;
+            in += 2;
+            if ( offset == 0 || offset > out )
+            {
+                throw malformed( "match offset " + offset + " out of bounds" );
+            }
+
+            int matchLength = token & RUN_MASK;
+            if ( matchLength == RUN_MASK )
+            {
+                int lengthByte;
+                do
+                {
+                    if ( in >= length || matchLength > dst.length )
+                    {
+                        throw malformed( "match length out of bounds" );
+                    }
+                    lengthByte = src[in++] & 0xFF;
+                    matchLength += lengthByte;
+                }
+                while ( lengthByte == 255 );
+            }
+            matchLength += MIN_MATCH;
+            if ( matchLength > dst.length - out )
+            {
+                throw malformed( "match length out of bounds" );
+            }
+            // The match may overlap the bytes it produces, so it's copied byte by byte
+            for ( int i = 0, from = out - offset; i < matchLength; i++ )
+            {
+                dst[out + i] = dst[from + i];
+            }
+            out += matchLength;
+        }
+
+        if ( out != dst.length )
+        {
+            throw malformed( "decompressed to " + out + " bytes rather than " + dst.length );
+        }
+    }
+
+    private static int writeLiterals( byte[] src, int from, int literals, byte[] dst, int out )
+    {
+        if ( literals >= RUN_MASK )
+        {
+            out = writeLengthExtension( literals - RUN_MASK, dst, out );
+        }
+        System.arraycopy( src, from, dst, out, literals );
+        return out + literals;
+    }
+
+    private static int writeLengthExtension( int length, byte[] dst, int out )
+    {
+        while ( length >= 255 )
+        {
+            dst[out++] = (byte) 255;
+            length -= 255;
+        }
+        dst[out++] = (byte) length;
+        return out;
+    }
+
+    private static int readInt( byte[] bytes, int pos )
+    {
+        return (bytes[pos] & 0xFF) | (bytes[pos + 1] & 0xFF) << 8 | (bytes[pos + 2] & 0xFF) << 16 |
+               (bytes[pos + 3] & 0xFF) << 24;
+    }
+
+    private static int hash( int sequence )
+    {
+        return (sequence * -1640531535) >>> (32 - HASH_LOG);
+    }
+
+    private static IOException malformed( String reason )
+    {
+        return new IOException( "Malformed compressed block, " + reason );
+    }
+}
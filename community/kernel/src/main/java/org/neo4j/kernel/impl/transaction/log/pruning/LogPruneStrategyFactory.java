@@ -25,6 +25,7 @@ import org.neo4j.helpers.Clock;
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.kernel.impl.transaction.log.IllegalLogFormatException;
 import org.neo4j.kernel.impl.transaction.log.LogFileInformation;
+import org.neo4j.kernel.impl.transaction.log.LogFilePreallocator;
 import org.neo4j.kernel.impl.transaction.log.PhysicalLogFiles;
 import org.neo4j.kernel.impl.transaction.log.pruning.ThresholdConfigParser.ThresholdConfigValue;
 
@@ -77,6 +78,19 @@ public class LogPruneStrategyFactory
                                                     LogFileInformation logFileInformation,
                                                     PhysicalLogFiles files,
                                                     String configValue )
+    {
+        return fromConfigValue( fileSystem, logFileInformation, files, configValue, LogFilePreallocator.NONE );
+    }
+
+    /**
+     * Like {@link #fromConfigValue(FileSystemAbstraction, LogFileInformation, PhysicalLogFiles, String)}, but
+     * offering the pruned log files to the given {@link LogFilePreallocator} for reuse, before deleting them.
+     */
+    public static LogPruneStrategy fromConfigValue( FileSystemAbstraction fileSystem,
+                                                    LogFileInformation logFileInformation,
+                                                    PhysicalLogFiles files,
+                                                    String configValue,
+                                                    LogFilePreallocator preallocator )
     {
         ThresholdConfigValue value = parse( configValue );
 
@@ -86,7 +100,7 @@ public class LogPruneStrategyFactory
         }
 
         Threshold thresholdToUse = getThresholdByType( fileSystem, value, configValue );
-        return new ThresholdBasedPruneStrategy( fileSystem, logFileInformation, files, thresholdToUse );
+        return new ThresholdBasedPruneStrategy( fileSystem, logFileInformation, files, thresholdToUse, preallocator );
     }
 
     // visible for testing
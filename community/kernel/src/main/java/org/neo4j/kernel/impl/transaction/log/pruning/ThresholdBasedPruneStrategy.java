@@ -20,9 +20,11 @@
 package org.neo4j.kernel.impl.transaction.log.pruning;
 
 import java.io.File;
+import java.io.IOException;
 
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.kernel.impl.transaction.log.LogFileInformation;
+import org.neo4j.kernel.impl.transaction.log.LogFilePreallocator;
 import org.neo4j.kernel.impl.transaction.log.PhysicalLogFiles;
 
 import static org.neo4j.kernel.impl.transaction.log.LogVersionRepository.INITIAL_LOG_VERSION;
@@ -34,14 +36,23 @@ public class ThresholdBasedPruneStrategy implements LogPruneStrategy
     private final LogFileInformation logFileInformation;
     private final PhysicalLogFiles files;
     private final Threshold threshold;
+    private final LogFilePreallocator preallocator;
 
     public ThresholdBasedPruneStrategy( FileSystemAbstraction fileSystem, LogFileInformation logFileInformation,
                                         PhysicalLogFiles files, Threshold threshold )
+    {
+        this( fileSystem, logFileInformation, files, threshold, LogFilePreallocator.NONE );
+    }
+
+    public ThresholdBasedPruneStrategy( FileSystemAbstraction fileSystem, LogFileInformation logFileInformation,
+                                        PhysicalLogFiles files, Threshold threshold,
+                                        LogFilePreallocator preallocator )
     {
         this.fileSystem = fileSystem;
         this.logFileInformation = logFileInformation;
         this.files = files;
         this.threshold = threshold;
+        this.preallocator = preallocator;
     }
 
     @Override
@@ -106,7 +117,25 @@ public class ThresholdBasedPruneStrategy implements LogPruneStrategy
         // we can be sure that no holes are created
         for ( long version = lower; version <= upper; version++ )
         {
-            fileSystem.deleteFile( files.getLogFileForVersion( version ) );
+            File file = files.getLogFileForVersion( version );
+            if ( !recycle( file ) )
+            {
+                fileSystem.deleteFile( file );
+            }
+            fileSystem.deleteFile( files.getTransactionIndexFileForVersion( version ) );
+        }
+    }
+
+    private boolean recycle( File file )
+    {
+        try
+        {
+            return preallocator.recycle( file );
+        }
+        catch ( IOException e )
+        {
+            // Recycling is only an optimization, so just delete the file instead
+            return false;
         }
     }
 }
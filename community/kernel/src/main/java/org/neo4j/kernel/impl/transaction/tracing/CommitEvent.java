@@ -42,6 +42,12 @@ public interface CommitEvent extends AutoCloseable
         {
             return StoreApplyEvent.NULL;
         }
+
+        @Override
+        public CommitPhaseEvent beginPhase( CommitPhase phase )
+        {
+            return CommitPhaseEvent.NULL;
+        }
     };
 
     /**
@@ -59,4 +65,11 @@ public interface CommitEvent extends AutoCloseable
      * Begin applying the commands of the committed transaction to the stores.
      */
     StoreApplyEvent beginStoreApply();
+
+    /**
+     * Begin one of the {@link CommitPhase#VALIDATE validate}, {@link CommitPhase#PREPARE prepare} or
+     * {@link CommitPhase#CLOSE close} phases of committing the transaction. The other phases are represented by the
+     * more specific events.
+     */
+    CommitPhaseEvent beginPhase( CommitPhase phase );
 }
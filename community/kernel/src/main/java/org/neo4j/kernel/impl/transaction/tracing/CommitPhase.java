@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.tracing;
+
+/**
+ * The phases of the commit of a transaction, in the order that they happen.
+ */
+public enum CommitPhase
+{
+    /**
+     * Running the before-commit transaction hooks, which get to veto the commit.
+     */
+    VALIDATE,
+    /**
+     * Turning the transaction state into commands, which includes taking the locks needed for doing so and checking
+     * the constraints that the changes are subject to.
+     */
+    PREPARE,
+    /**
+     * Serializing the commands and writing them to the transaction log.
+     */
+    APPEND,
+    /**
+     * Waiting for the transaction log to be forced, including the force itself.
+     */
+    FORCE,
+    /**
+     * Applying the commands to the stores, including the index updates.
+     */
+    APPLY,
+    /**
+     * Applying index and label scan updates, of a whole batch of transactions at a time.
+     */
+    INDEX_UPDATE,
+    /**
+     * Marking the transaction as closed and releasing the resources held for it.
+     */
+    CLOSE
+}
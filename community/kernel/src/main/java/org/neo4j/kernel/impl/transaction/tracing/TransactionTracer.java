@@ -38,6 +38,12 @@ public interface TransactionTracer
         {
             return TransactionEvent.NULL;
         }
+
+        @Override
+        public CommitPhaseEvent beginIndexUpdates()
+        {
+            return CommitPhaseEvent.NULL;
+        }
     };
 
     /**
@@ -45,4 +51,10 @@ public interface TransactionTracer
      * @return An event that represents the transaction.
      */
     TransactionEvent beginTransaction();
+
+    /**
+     * Index updates are applied for a whole batch of committed transactions at a time.
+     * @return An event that represents applying the index updates of a batch of transactions.
+     */
+    CommitPhaseEvent beginIndexUpdates();
 }
@@ -166,6 +166,21 @@ public interface JobScheduler extends Lifecycle
          * Storage maintenance.
          */
         public static Group storageMaintenance = new Group( "StorageMaintenance", POOLED );
+
+        /**
+         * Page cache warmup and profiling.
+         */
+        public static final Group pageCacheWarmup = new Group( "PageCacheWarmup", POOLED );
+
+        /**
+         * Pre-allocation of transaction log files.
+         */
+        public static final Group transactionLogPreallocation = new Group( "TransactionLogPreallocation", POOLED );
+
+        /**
+         * Reading ahead in the transaction log, and applying recovered transactions in parallel, during recovery.
+         */
+        public static final Group recovery = new Group( "Recovery", POOLED );
     }
 
     interface JobHandle
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.util;
+
+import java.io.IOException;
+import java.util.function.BooleanSupplier;
+
+import org.neo4j.function.Predicates;
+import org.neo4j.logging.Log;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * A background task that is run by a {@link JobScheduler} at a fixed interval, until it is stopped. Failures of the
+ * task are logged, and the task is retried at the next interval.
+ * <p>
+ * The task is rescheduled after each run, rather than scheduled at a fixed rate, so runs never overlap, and a slow
+ * run pushes the next one back. {@link #stop()} waits for a run in progress to finish.
+ */
+public class RecurringJob
+{
+    public interface Task
+    {
+        void run() throws IOException;
+    }
+
+    private final JobScheduler scheduler;
+    private final JobScheduler.Group group;
+    private final long intervalMillis;
+    private final Task task;
+    private final Log log;
+    private final String failureMessage;
+    private final Runnable job = new Runnable()
+    {
+        @Override
+        public void run()
+        {
+            try
+            {
+                running = true;
+                if ( stopped )
+                {
+                    return;
+                }
+                task.run();
+            }
+            catch ( IOException | RuntimeException e )
+            {
+                log.warn( failureMessage, e );
+            }
+            finally
+            {
+                running = false;
+            }
+
+            // reschedule only if it is not stopped
+            if ( !stopped )
+            {
+                handle = scheduler.schedule( group, job, intervalMillis, MILLISECONDS );
+            }
+        }
+    };
+
+    private volatile JobScheduler.JobHandle handle;
+    private volatile boolean stopped;
+    private volatile boolean running;
+    private final BooleanSupplier notRunningCondition = () -> !running;
+
+    public RecurringJob( JobScheduler scheduler, JobScheduler.Group group, long intervalMillis, Task task, Log log,
+            String failureMessage )
+    {
+        this.scheduler = scheduler;
+        this.group = group;
+        this.intervalMillis = intervalMillis;
+        this.task = task;
+        this.log = log;
+        this.failureMessage = failureMessage;
+    }
+
+    /**
+     * Schedule the first run of the task, after the given delay.
+     */
+    public void start( long initialDelayMillis )
+    {
+        stopped = false;
+        handle = initialDelayMillis == 0
+                 ? scheduler.schedule( group, job )
+                 : scheduler.schedule( group, job, initialDelayMillis, MILLISECONDS );
+    }
+
+    /**
+     * Cancel the next run of the task, and wait for a run in progress to finish.
+     */
+    public void stop() throws InterruptedException
+    {
+        stopped = true;
+        if ( handle != null )
+        {
+            handle.cancel( false );
+        }
+        Predicates.awaitForever( notRunningCondition, 100, MILLISECONDS );
+    }
+
+    /**
+     * @return {@code true} if the job has been stopped, which long running tasks should check, so that they can
+     * return early.
+     */
+    public boolean isStopped()
+    {
+        return stopped;
+    }
+}
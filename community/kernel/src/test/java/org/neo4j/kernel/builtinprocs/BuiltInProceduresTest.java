@@ -147,6 +147,12 @@ public class BuiltInProceduresTest
             record( "db.propertyKeys", "db.propertyKeys() :: (propertyKey :: STRING?)" ),
             record( "db.relationshipTypes", "db.relationshipTypes() :: (relationshipType :: STRING?)" ),
             record( "dbms.components", "dbms.components() :: (name :: STRING?, versions :: LIST? OF STRING?, edition :: STRING?)" ),
+            record( "dbms.listCommitPhaseLatencies", "dbms.listCommitPhaseLatencies() :: (phase :: STRING?, " +
+                    "count :: INTEGER?, meanMicros :: INTEGER?, p50Micros :: INTEGER?, p99Micros :: INTEGER?, " +
+                    "maxMicros :: INTEGER?)" ),
+            record( "dbms.listLockContention", "dbms.listLockContention() :: (resourceType :: STRING?, " +
+                    "resourceId :: INTEGER?, waits :: INTEGER?, totalWaitMicros :: INTEGER?, " +
+                    "maxWaitMicros :: INTEGER?, lastHolders :: STRING?)" ),
             record( "dbms.procedures", "dbms.procedures() :: (name :: STRING?, signature :: STRING?)" ),
             record( "dbms.queryJmx", "dbms.queryJmx(query :: STRING?) :: (name :: STRING?, description :: STRING?, attributes :: MAP?)")
         ) );
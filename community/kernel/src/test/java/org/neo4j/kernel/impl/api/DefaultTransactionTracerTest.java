@@ -27,8 +27,14 @@ import java.util.concurrent.TimeUnit;
 import org.neo4j.helpers.FakeClock;
 import org.neo4j.kernel.impl.api.DefaultTransactionTracer.Monitor;
 import org.neo4j.kernel.impl.transaction.tracing.CommitEvent;
+import org.neo4j.kernel.impl.transaction.tracing.CommitPhase;
+import org.neo4j.kernel.impl.transaction.tracing.CommitPhaseEvent;
 import org.neo4j.kernel.impl.transaction.tracing.LogAppendEvent;
+import org.neo4j.kernel.impl.transaction.tracing.LogForceEvent;
+import org.neo4j.kernel.impl.transaction.tracing.LogForceWaitEvent;
 import org.neo4j.kernel.impl.transaction.tracing.LogRotateEvent;
+import org.neo4j.kernel.impl.transaction.tracing.SerializeTransactionEvent;
+import org.neo4j.kernel.impl.transaction.tracing.StoreApplyEvent;
 import org.neo4j.kernel.impl.transaction.tracing.TransactionEvent;
 import org.neo4j.test.OnDemandJobScheduler;
 
@@ -75,6 +81,86 @@ public class DefaultTransactionTracerTest
         verifyZeroInteractions( monitor );
     }
 
+    @Test
+    public void shouldRecordLatencyOfLogForces() throws Throwable
+    {
+        DefaultTransactionTracer tracer = new DefaultTransactionTracer( clock, monitor, jobScheduler );
+
+        forceLog( tracer, 3 );
+        forceLog( tracer, 5 );
+
+        assertEquals( 2, tracer.logForceLatency().count() );
+        assertEquals( 8_000, tracer.logForceLatency().totalMicros() );
+        assertEquals( 0, tracer.numberOfLogRotationEvents() );
+    }
+
+    @Test
+    public void shouldRecordLatencyOfEachCommitPhase() throws Throwable
+    {
+        DefaultTransactionTracer tracer = new DefaultTransactionTracer( clock, monitor, jobScheduler );
+
+        try ( TransactionEvent txEvent = tracer.beginTransaction();
+              CommitEvent commitEvent = txEvent.beginCommitEvent() )
+        {
+            try ( CommitPhaseEvent event = commitEvent.beginPhase( CommitPhase.VALIDATE ) )
+            {
+                clock.forward( 1, TimeUnit.MILLISECONDS );
+            }
+            try ( CommitPhaseEvent event = commitEvent.beginPhase( CommitPhase.PREPARE ) )
+            {
+                clock.forward( 2, TimeUnit.MILLISECONDS );
+            }
+            try ( LogAppendEvent logAppendEvent = commitEvent.beginLogAppend() )
+            {
+                try ( SerializeTransactionEvent event = logAppendEvent.beginSerializeTransaction() )
+                {
+                    clock.forward( 3, TimeUnit.MILLISECONDS );
+                }
+                try ( LogForceWaitEvent event = logAppendEvent.beginLogForceWait() )
+                {
+                    clock.forward( 4, TimeUnit.MILLISECONDS );
+                }
+            }
+            try ( StoreApplyEvent event = commitEvent.beginStoreApply() )
+            {
+                try ( CommitPhaseEvent indexEvent = tracer.beginIndexUpdates() )
+                {
+                    clock.forward( 6, TimeUnit.MILLISECONDS );
+                }
+            }
+            try ( CommitPhaseEvent event = commitEvent.beginPhase( CommitPhase.CLOSE ) )
+            {
+                clock.forward( 7, TimeUnit.MILLISECONDS );
+            }
+        }
+
+        assertEquals( 1_000, tracer.commitPhaseLatency( CommitPhase.VALIDATE ).totalMicros() );
+        assertEquals( 2_000, tracer.commitPhaseLatency( CommitPhase.PREPARE ).totalMicros() );
+        assertEquals( 3_000, tracer.commitPhaseLatency( CommitPhase.APPEND ).totalMicros() );
+        assertEquals( 4_000, tracer.commitPhaseLatency( CommitPhase.FORCE ).totalMicros() );
+        assertEquals( 6_000, tracer.commitPhaseLatency( CommitPhase.APPLY ).totalMicros() );
+        assertEquals( 6_000, tracer.commitPhaseLatency( CommitPhase.INDEX_UPDATE ).totalMicros() );
+        assertEquals( 7_000, tracer.commitPhaseLatency( CommitPhase.CLOSE ).totalMicros() );
+        for ( CommitPhase phase : CommitPhase.values() )
+        {
+            assertEquals( 1, tracer.commitPhaseLatency( phase ).count() );
+        }
+    }
+
+    private void forceLog( DefaultTransactionTracer tracer, int forceDuration )
+    {
+        try ( TransactionEvent txEvent = tracer.beginTransaction();
+              CommitEvent commitEvent = txEvent.beginCommitEvent();
+              LogAppendEvent logAppendEvent = commitEvent.beginLogAppend() )
+        {
+            clock.forward( ThreadLocalRandom.current().nextLong( 200 ), TimeUnit.MILLISECONDS );
+            try ( LogForceEvent event = logAppendEvent.beginLogForce() )
+            {
+                clock.forward( forceDuration, TimeUnit.MILLISECONDS );
+            }
+        }
+    }
+
     private void triggerEvent( DefaultTransactionTracer tracer, int eventDuration )
     {
         try ( TransactionEvent txEvent = tracer.beginTransaction() )
@@ -168,6 +168,12 @@ public class BuiltinProceduresIT extends KernelIntegrationTest
                         "STRING?)"} ),
                 equalTo( new Object[]{"dbms.components", "dbms.components() :: (name :: STRING?, versions :: LIST? OF" +
                         " STRING?, edition :: STRING?)"} ),
+                equalTo( new Object[]{"dbms.listCommitPhaseLatencies", "dbms.listCommitPhaseLatencies() :: " +
+                        "(phase :: STRING?, count :: INTEGER?, meanMicros :: INTEGER?, p50Micros :: INTEGER?, " +
+                        "p99Micros :: INTEGER?, maxMicros :: INTEGER?)"} ),
+                equalTo( new Object[]{"dbms.listLockContention", "dbms.listLockContention() :: " +
+                        "(resourceType :: STRING?, resourceId :: INTEGER?, waits :: INTEGER?, " +
+                        "totalWaitMicros :: INTEGER?, maxWaitMicros :: INTEGER?, lastHolders :: STRING?)"} ),
                 equalTo( new Object[]{"dbms.queryJmx", "dbms.queryJmx(query :: STRING?) :: (name :: STRING?, " +
                         "description :: STRING?, attributes :: MAP?)"} )
         ) );
@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api.store;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.neo4j.cursor.Cursor;
+import org.neo4j.kernel.api.properties.Property;
+import org.neo4j.kernel.impl.locking.Lock;
+import org.neo4j.kernel.impl.locking.LockService;
+import org.neo4j.kernel.impl.locking.StripedLockService;
+import org.neo4j.kernel.impl.storageengine.impl.recordstorage.RecordStorageEngine;
+import org.neo4j.kernel.impl.store.NeoStores;
+import org.neo4j.kernel.impl.store.RecordCursors;
+import org.neo4j.storageengine.api.PropertyItem;
+
+import static java.util.Collections.singletonMap;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test reading single properties of nodes, optimistically and under a lock.
+ */
+public class StoreSingleNodeCursorTest extends DiskLayerTest
+{
+    private NeoStores neoStores;
+    private RecordCursors cursors;
+
+    @Before
+    public void openCursors()
+    {
+        neoStores = db.getDependencyResolver().resolveDependency( RecordStorageEngine.class ).testAccessNeoStores();
+        cursors = new RecordCursors( neoStores );
+    }
+
+    @After
+    public void closeCursors()
+    {
+        cursors.close();
+    }
+
+    @Test
+    public void shouldReadPropertyWithoutLockWhenNothingIsWritten() throws Exception
+    {
+        // given
+        long nodeId = createLabeledNode( db, singletonMap( "prop", 42 ), label1 ).getId();
+        int propertyKey = propertyKeyId( "prop" );
+        CountingLockService locks = new CountingLockService();
+
+        // when
+        Object value = readProperty( locks, nodeId, propertyKey );
+
+        // then
+        assertEquals( 42, value );
+        assertEquals( 0, locks.acquiredLocks );
+        assertTrue( locks.validations > 0 );
+    }
+
+    @Test
+    public void shouldFallBackToLockWhenWriteOverlapsWithRead() throws Exception
+    {
+        // given
+        long nodeId = createLabeledNode( db, singletonMap( "prop", 42 ), label1 ).getId();
+        int propertyKey = propertyKeyId( "prop" );
+        CountingLockService locks = new CountingLockService();
+        locks.writeDuringValidation = true;
+
+        // when
+        Object value = readProperty( locks, nodeId, propertyKey );
+
+        // then
+        assertEquals( 42, value );
+        assertEquals( 1, locks.acquiredLocks );
+    }
+
+    @Test
+    public void shouldFallBackToLockForValuesInDynamicRecords() throws Exception
+    {
+        // given
+        String longString = "AlalalalalongAlalalalalongAlalalalalongAlalalalalongAlalalalalongAlalalalalong";
+        long nodeId = createLabeledNode( db, singletonMap( "prop", longString ), label1 ).getId();
+        int propertyKey = propertyKeyId( "prop" );
+        CountingLockService locks = new CountingLockService();
+
+        // when
+        Object value = readProperty( locks, nodeId, propertyKey );
+
+        // then
+        assertEquals( longString, value );
+        assertEquals( 1, locks.acquiredLocks );
+    }
+
+    @Test
+    public void shouldNotFindMissingPropertyWithoutLock() throws Exception
+    {
+        // given
+        long nodeId = createLabeledNode( db, singletonMap( "prop", 42 ), label1 ).getId();
+        int otherPropertyKey = propertyKeyId( "prop" ) + 1;
+        CountingLockService locks = new CountingLockService();
+
+        // when
+        StoreSingleNodeCursor node = nodeCursor( locks, nodeId );
+        try ( Cursor<PropertyItem> property = node.property( otherPropertyKey ) )
+        {
+            // then
+            assertFalse( property.next() );
+        }
+        assertEquals( 0, locks.acquiredLocks );
+    }
+
+    @Test
+    public void shouldPrefetchSameValuesAsReadUnderLock() throws Exception
+    {
+        // given
+        Object[] values = {true, (byte) 7, (short) 300, 'c', 1234567, 123456789012L, 3.5f, 2.25d, "short", "",
+                new int[]{1, 2, 3}, new long[]{Long.MAX_VALUE}, new boolean[]{true, false}};
+        for ( Object expected : values )
+        {
+            long nodeId = createLabeledNode( db, singletonMap( "prop", expected ), label1 ).getId();
+            int propertyKey = propertyKeyId( "prop" );
+
+            // when
+            CountingLockService optimisticLocks = new CountingLockService();
+            Object optimistic = readProperty( optimisticLocks, nodeId, propertyKey );
+            CountingLockService pessimisticLocks = new CountingLockService();
+            pessimisticLocks.optimisticReads = false;
+            Object locked = readProperty( pessimisticLocks, nodeId, propertyKey );
+
+            // then
+            assertEquals( 0, optimisticLocks.acquiredLocks );
+            assertEquals( 1, pessimisticLocks.acquiredLocks );
+            assertTrue( optimistic + " should be equal to " + locked,
+                    Property.property( propertyKey, optimistic ).valueEquals( locked ) );
+        }
+    }
+
+    private Object readProperty( LockService locks, long nodeId, int propertyKey )
+    {
+        StoreSingleNodeCursor node = nodeCursor( locks, nodeId );
+        try ( Cursor<PropertyItem> property = node.property( propertyKey ) )
+        {
+            assertTrue( property.next() );
+            assertEquals( propertyKey, property.get().propertyKeyId() );
+            Object value = property.get().value();
+            assertFalse( property.next() );
+            return value;
+        }
+    }
+
+    private StoreSingleNodeCursor nodeCursor( LockService locks, long nodeId )
+    {
+        StoreSingleNodeCursor node = new StoreSingleNodeCursor( neoStores.getNodeStore().newRecord(), neoStores,
+                null, cursor -> {}, cursors, locks );
+        node.init( nodeId );
+        assertTrue( node.next() );
+        return node;
+    }
+
+    private static class CountingLockService implements LockService
+    {
+        private final LockService actual = new StripedLockService();
+        boolean optimisticReads = true;
+        boolean writeDuringValidation;
+        int acquiredLocks;
+        int validations;
+
+        @Override
+        public Lock acquireNodeLock( long nodeId, LockType type )
+        {
+            acquiredLocks++;
+            return actual.acquireNodeLock( nodeId, type );
+        }
+
+        @Override
+        public Lock acquireRelationshipLock( long relationshipId, LockType type )
+        {
+            return actual.acquireRelationshipLock( relationshipId, type );
+        }
+
+        @Override
+        public long tryOptimisticNodeRead( long nodeId )
+        {
+            return optimisticReads ? actual.tryOptimisticNodeRead( nodeId ) : NO_STAMP;
+        }
+
+        @Override
+        public boolean validateNodeRead( long nodeId, long stamp )
+        {
+            validations++;
+            if ( writeDuringValidation )
+            {
+                // As if a transaction wrote to the node while it was being read
+                actual.acquireNodeLock( nodeId, LockType.WRITE_LOCK ).release();
+            }
+            return actual.validateNodeRead( nodeId, stamp );
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.locking;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+
+public class LockContentionProfilerTest
+{
+    @Test
+    public void shouldVisitContendedResourcesInOrderOfDecreasingTotalWait() throws Exception
+    {
+        // Given
+        LockContentionProfiler profiler = new LockContentionProfiler( ResourceTypes.NODE, ResourceTypes.RELATIONSHIP );
+
+        // When
+        profiler.lockWaited( ResourceTypes.NODE, 1, millis( 1 ), "LockClient[1]" );
+        profiler.lockWaited( ResourceTypes.NODE, 2, millis( 5 ), "LockClient[2]" );
+        profiler.lockWaited( ResourceTypes.NODE, 1, millis( 6 ), "LockClient[3]" );
+        profiler.lockWaited( ResourceTypes.RELATIONSHIP, 1, millis( 2 ), "LockClient[4]" );
+
+        // Then
+        assertEquals( asList(
+                "NODE:1:2:7000:6000:LockClient[3]",
+                "NODE:2:1:5000:5000:LockClient[2]",
+                "RELATIONSHIP:1:1:2000:2000:LockClient[4]" ), contendedResources( profiler ) );
+        assertEquals( 3, profiler.lockWaitLatency( ResourceTypes.NODE ).count() );
+        assertEquals( 1, profiler.lockWaitLatency( ResourceTypes.RELATIONSHIP ).count() );
+    }
+
+    @Test
+    public void shouldReplaceLeastContendedResourceWhenFull() throws Exception
+    {
+        // Given
+        LockContentionProfiler profiler = new LockContentionProfiler( 2, ResourceTypes.NODE );
+        profiler.lockWaited( ResourceTypes.NODE, 1, millis( 3 ), "a" );
+        profiler.lockWaited( ResourceTypes.NODE, 2, millis( 1 ), "b" );
+
+        // When
+        profiler.lockWaited( ResourceTypes.NODE, 3, millis( 2 ), "c" );
+
+        // Then
+        assertEquals( asList(
+                "NODE:1:1:3000:3000:a",
+                "NODE:3:1:2000:2000:c" ), contendedResources( profiler ) );
+        assertEquals( 3, profiler.lockWaitLatency( ResourceTypes.NODE ).count() );
+    }
+
+    @Test
+    public void shouldIgnoreWaitsForResourceTypesItDoesNotProfile() throws Exception
+    {
+        // Given
+        LockContentionProfiler profiler = new LockContentionProfiler( ResourceTypes.NODE );
+
+        // When
+        profiler.lockWaited( ResourceTypes.SCHEMA, 0, millis( 1 ), "a" );
+
+        // Then
+        assertEquals( 0, contendedResources( profiler ).size() );
+        assertEquals( 0, profiler.lockWaitLatency( ResourceTypes.SCHEMA ).count() );
+    }
+
+    private static long millis( long millis )
+    {
+        return TimeUnit.MILLISECONDS.toNanos( millis );
+    }
+
+    private static List<String> contendedResources( LockContentionProfiler profiler )
+    {
+        List<String> result = new ArrayList<>();
+        profiler.visitContendedResources( ( resourceType, resourceId, waits, totalWaitMicros, maxWaitMicros,
+                lastHolders ) -> result.add( resourceType + ":" + resourceId + ":" + waits + ":" + totalWaitMicros +
+                                             ":" + maxWaitMicros + ":" + lastHolders ) );
+        return result;
+    }
+}
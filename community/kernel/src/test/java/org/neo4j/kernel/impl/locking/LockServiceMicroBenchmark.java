@@ -106,6 +106,14 @@ public class LockServiceMicroBenchmark
                     {
                         return new ReentrantLockService();
                     }
+                },
+        STRIPED_LOCK_SERVICE
+                {
+                    @Override
+                    LockService create()
+                    {
+                        return new StripedLockService();
+                    }
                 };
 
         abstract LockService create();
@@ -281,6 +289,18 @@ public class LockServiceMicroBenchmark
             return new WriteRelease( resource );
         }
 
+        @Override
+        public long tryOptimisticNodeRead( long nodeId )
+        {
+            return NO_STAMP;
+        }
+
+        @Override
+        public boolean validateNodeRead( long nodeId, long stamp )
+        {
+            return false;
+        }
+
         private class WriteRelease extends Lock
         {
             private final AbstractLockService.LockedPropertyContainer resource;
@@ -0,0 +1,260 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.locking;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.test.rule.concurrent.ThreadRepository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class StripedLockServiceTest
+{
+    @Rule
+    public final ThreadRepository threads = new ThreadRepository( 5, TimeUnit.SECONDS );
+
+    @Test
+    public void shouldAllowReEntrance() throws Exception
+    {
+        // given
+        LockService locks = new StripedLockService();
+
+        ThreadRepository.Events events = threads.events();
+        LockNode lock1once = new LockNode( locks, 1 );
+        LockNode lock1again = new LockNode( locks, 1 );
+        LockNode lock1inOtherThread = new LockNode( locks, 1 );
+
+        ThreadRepository.Signal lockedOnce = threads.signal();
+        ThreadRepository.Signal ready = threads.signal();
+
+        // when
+        threads.execute( lock1once, ready.await(), lockedOnce, lock1again,
+                         events.trigger( "Double Locked" ),
+                         lock1once.release, lock1again.release );
+        threads.execute( ready, lockedOnce.await(), lock1inOtherThread,
+                         events.trigger( "Other Thread" ),
+                         lock1inOtherThread.release );
+
+        // then
+        events.assertInOrder( "Double Locked", "Other Thread" );
+    }
+
+    @Test
+    public void shouldBlockOnLockedLock() throws Exception
+    {
+        // given
+        LockService locks = new StripedLockService();
+        LockNode lockSameNode = new LockNode( locks, 17 );
+        ThreadRepository.Events events = threads.events();
+        ThreadRepository.Signal ready = threads.signal();
+
+        // when
+        try ( Lock ignored = locks.acquireNodeLock( 17, LockService.LockType.WRITE_LOCK ) )
+        {
+            ThreadRepository.ThreadInfo thread =
+                    threads.execute( ready, lockSameNode, events.trigger( "locked" ), lockSameNode.release );
+            ready.awaitNow();
+
+            // then
+            assertTrue( awaitWaiting( thread, 5, TimeUnit.SECONDS ) );
+            assertTrue( events.snapshot().isEmpty() );
+        }
+        events.assertInOrder( "locked" );
+    }
+
+    @Test
+    public void shouldNotBlockOnLockOfOtherNodeInSameStripe() throws Exception
+    {
+        // given
+        LockService locks = new StripedLockService( 1 );
+        LockNode lockOtherNode = new LockNode( locks, 18 );
+        ThreadRepository.Events events = threads.events();
+
+        // when
+        try ( Lock ignored = locks.acquireNodeLock( 17, LockService.LockType.WRITE_LOCK ) )
+        {
+            threads.execute( lockOtherNode, events.trigger( "locked" ), lockOtherNode.release );
+
+            // then
+            events.assertInOrder( "locked" );
+        }
+    }
+
+    @Test
+    public void shouldNotLeaveResidualLockStateAfterAllLocksHaveBeenReleased() throws Exception
+    {
+        // given
+        StripedLockService locks = new StripedLockService( 1 );
+        Lock[] held = new Lock[100];
+
+        // when
+        for ( int i = 0; i < held.length; i++ )
+        {
+            held[i] = locks.acquireNodeLock( i * 3, LockService.LockType.WRITE_LOCK );
+        }
+        assertEquals( held.length, locks.lockCount() );
+        for ( int i = held.length - 1; i >= 0; i -= 2 )
+        {
+            held[i].release();
+        }
+        for ( int i = 0; i < held.length; i++ )
+        {
+            held[i].release();
+        }
+
+        // then
+        assertEquals( 0, locks.lockCount() );
+    }
+
+    @Test
+    public void shouldPresentLockStateInStringRepresentationOfLock() throws Exception
+    {
+        // given
+        LockService locks = new StripedLockService();
+        Lock first, second;
+
+        // when
+        try ( Lock lock = first = locks.acquireNodeLock( 666, LockService.LockType.WRITE_LOCK ) )
+        {
+            // then
+            assertEquals( "LockedNode[id=666; HELD_BY=1*" + Thread.currentThread() + "]", lock.toString() );
+
+            // when
+            try ( Lock inner = second = locks.acquireNodeLock( 666, LockService.LockType.WRITE_LOCK ) )
+            {
+                assertEquals( "LockedNode[id=666; HELD_BY=2*" + Thread.currentThread() + "]", lock.toString() );
+                assertEquals( lock.toString(), inner.toString() );
+            }
+
+            // then
+            assertEquals( "LockedNode[id=666; HELD_BY=1*" + Thread.currentThread() + "]", lock.toString() );
+            assertEquals( "LockedNode[id=666; RELEASED]", second.toString() );
+        }
+
+        // then
+        assertEquals( "LockedNode[id=666; RELEASED]", first.toString() );
+        assertEquals( "LockedNode[id=666; RELEASED]", second.toString() );
+    }
+
+    @Test
+    public void shouldValidateOptimisticReadWithoutInterveningWriteLock() throws Exception
+    {
+        // given
+        LockService locks = new StripedLockService();
+
+        // when
+        long stamp = locks.tryOptimisticNodeRead( 42 );
+
+        // then
+        assertNotEquals( LockService.NO_STAMP, stamp );
+        assertTrue( locks.validateNodeRead( 42, stamp ) );
+    }
+
+    @Test
+    public void shouldNotStartOptimisticReadWhileNodeIsWriteLocked() throws Exception
+    {
+        // given
+        LockService locks = new StripedLockService();
+
+        // when
+        try ( Lock ignored = locks.acquireNodeLock( 42, LockService.LockType.WRITE_LOCK ) )
+        {
+            // then
+            assertEquals( LockService.NO_STAMP, locks.tryOptimisticNodeRead( 42 ) );
+        }
+        assertNotEquals( LockService.NO_STAMP, locks.tryOptimisticNodeRead( 42 ) );
+    }
+
+    @Test
+    public void shouldInvalidateOptimisticReadOverlappingWithWriteLock() throws Exception
+    {
+        // given
+        LockService locks = new StripedLockService();
+        long stamp = locks.tryOptimisticNodeRead( 42 );
+
+        // when
+        locks.acquireNodeLock( 42, LockService.LockType.WRITE_LOCK ).release();
+
+        // then
+        assertFalse( locks.validateNodeRead( 42, stamp ) );
+    }
+
+    @Test
+    public void shouldNotInvalidateOptimisticReadOnReadLock() throws Exception
+    {
+        // given
+        LockService locks = new StripedLockService();
+        long stamp = locks.tryOptimisticNodeRead( 42 );
+
+        // when
+        locks.acquireNodeLock( 42, LockService.LockType.READ_LOCK ).release();
+
+        // then
+        assertTrue( locks.validateNodeRead( 42, stamp ) );
+    }
+
+    private static class LockNode implements ThreadRepository.Task
+    {
+        private final LockService locks;
+        private final long nodeId;
+        private Lock lock;
+
+        LockNode( LockService locks, long nodeId )
+        {
+            this.locks = locks;
+            this.nodeId = nodeId;
+        }
+
+        private final ThreadRepository.Task release = new ThreadRepository.Task()
+        {
+            @Override
+            public void perform() throws Exception
+            {
+                lock.release();
+            }
+        };
+
+        @Override
+        public void perform() throws Exception
+        {
+            this.lock = locks.acquireNodeLock( nodeId, LockService.LockType.WRITE_LOCK );
+        }
+    }
+
+    private static boolean awaitWaiting( ThreadRepository.ThreadInfo thread, long timeout, TimeUnit unit )
+    {
+        for ( long end = System.currentTimeMillis() + unit.toMillis( timeout ); System.currentTimeMillis() < end; )
+        {
+            StackTraceElement frame = thread.getStackTrace()[0];
+            if ( "wait".equals( frame.getMethodName() ) && "java.lang.Object".equals( frame.getClassName() ) &&
+                 thread.getState().name().endsWith( "WAITING" ) )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -28,6 +28,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 import org.neo4j.graphdb.factory.GraphDatabaseSettings;
 import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.impl.muninn.EvictionPolicy;
 import org.neo4j.io.pagecache.tracing.PageCacheTracer;
 import org.neo4j.kernel.configuration.Config;
 import org.neo4j.logging.AssertableLogProvider;
@@ -37,8 +38,10 @@ import org.neo4j.test.rule.fs.EphemeralFileSystemRule;
 
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.is;
 import static org.neo4j.graphdb.factory.GraphDatabaseSettings.mapped_memory_page_size;
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.pagecache_eviction_policy;
 import static org.neo4j.graphdb.factory.GraphDatabaseSettings.pagecache_memory;
 import static org.neo4j.graphdb.factory.GraphDatabaseSettings.pagecache_swapper;
 import static org.neo4j.helpers.collection.MapUtil.stringMap;
@@ -111,6 +114,28 @@ public class ConfiguringPageCacheFactoryTest
         new ConfiguringPageCacheFactory( fsRule.get(), config, PageCacheTracer.NULL, NullLog.getInstance() );
     }
 
+    @Test
+    public void mustCreatePageCacheWithEveryEvictionPolicy() throws Exception
+    {
+        for ( EvictionPolicy evictionPolicy : EvictionPolicy.values() )
+        {
+            // Given
+            Config config = new Config( stringMap(
+                    pagecache_memory.name(), "8m",
+                    pagecache_eviction_policy.name(), evictionPolicy.name() ) );
+
+            // When
+            ConfiguringPageCacheFactory factory = new ConfiguringPageCacheFactory(
+                    fsRule.get(), config, PageCacheTracer.NULL, NullLog.getInstance() );
+
+            // Then
+            try ( PageCache cache = factory.getOrCreatePageCache() )
+            {
+                assertThat( cache.maxCachedPages(), greaterThan( 0 ) );
+            }
+        }
+    }
+
     @Test
     public void mustUsePageSwapperCachePageSizeHintAsDefault() throws Exception
     {
@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.pagecache;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.RuleChain;
+
+import java.io.File;
+
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.kernel.impl.util.JobScheduler;
+import org.neo4j.logging.NullLogProvider;
+import org.neo4j.test.rule.PageCacheRule;
+import org.neo4j.test.rule.fs.EphemeralFileSystemRule;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.neo4j.io.pagecache.PagedFile.PF_NO_FAULT;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_WRITE_LOCK;
+
+public class PageCacheWarmerTest
+{
+    private final EphemeralFileSystemRule fsRule = new EphemeralFileSystemRule();
+    private final PageCacheRule pageCacheRule = new PageCacheRule( false );
+
+    @Rule
+    public final RuleChain rules = RuleChain.outerRule( fsRule ).around( pageCacheRule );
+
+    private FileSystemAbstraction fs;
+    private File storeDir;
+    private File file;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        fs = fsRule.get();
+        storeDir = new File( "store" ).getAbsoluteFile();
+        fs.mkdirs( storeDir );
+        file = new File( storeDir, "a" );
+        fs.create( file ).close();
+    }
+
+    @Test
+    public void mustReloadProfiledPagesOnWarmup() throws Exception
+    {
+        PageCache pageCache = pageCacheRule.getPageCache( fs );
+        try ( PagedFile pf = pageCache.map( file, pageCache.pageSize(), CREATE ) )
+        {
+            try ( PageCursor cursor = pf.io( 0, PF_SHARED_WRITE_LOCK ) )
+            {
+                for ( int i = 0; i < 10; i++ )
+                {
+                    assertTrue( cursor.next() );
+                }
+            }
+            pf.flushAndForce();
+        }
+
+        pageCache = pageCacheRule.getPageCache( fs );
+        try ( PagedFile pf = pageCache.map( file, pageCache.pageSize() ) )
+        {
+            try ( PageCursor cursor = pf.io( 0, PF_SHARED_READ_LOCK ) )
+            {
+                assertTrue( cursor.next( 2 ) );
+                assertTrue( cursor.next( 7 ) );
+            }
+            PageCacheWarmer warmer = createWarmer( pageCache );
+            warmer.profile();
+            assertEquals( 1, warmer.numberOfProfilesWritten() );
+        }
+
+        pageCache = pageCacheRule.getPageCache( fs );
+        try ( PagedFile pf = pageCache.map( file, pageCache.pageSize() ) )
+        {
+            PageCacheWarmer warmer = createWarmer( pageCache );
+            warmer.warmup();
+            assertEquals( 2, warmer.warmupPagesToLoad() );
+            assertEquals( 2, warmer.warmupPagesLoaded() );
+
+            try ( PageCursor cursor = pf.io( 0, PF_SHARED_READ_LOCK | PF_NO_FAULT ) )
+            {
+                assertTrue( cursor.next( 2 ) );
+                assertEquals( 2, cursor.getCurrentPageId() );
+                assertTrue( cursor.next( 7 ) );
+                assertEquals( 7, cursor.getCurrentPageId() );
+            }
+        }
+    }
+
+    @Test
+    public void mustReplacePreviousProfileWhenProfilingAgain() throws Exception
+    {
+        PageCache pageCache = pageCacheRule.getPageCache( fs );
+        try ( PagedFile pf = pageCache.map( file, pageCache.pageSize(), CREATE ) )
+        {
+            PageCacheWarmer warmer = createWarmer( pageCache );
+            try ( PageCursor cursor = pf.io( 0, PF_SHARED_WRITE_LOCK ) )
+            {
+                assertTrue( cursor.next( 2 ) );
+                warmer.profile();
+                assertTrue( cursor.next( 7 ) );
+                warmer.profile();
+            }
+            assertEquals( 2, warmer.numberOfProfilesWritten() );
+            pf.flushAndForce();
+        }
+
+        pageCache = pageCacheRule.getPageCache( fs );
+        try ( PagedFile ignore = pageCache.map( file, pageCache.pageSize() ) )
+        {
+            PageCacheWarmer warmer = createWarmer( pageCache );
+            warmer.warmup();
+            assertEquals( 2, warmer.warmupPagesToLoad() );
+            File profilesDir = new File( storeDir, PageCacheWarmer.PROFILES_DIRECTORY );
+            assertEquals( 1, fs.listFiles( profilesDir ).length );
+        }
+    }
+
+    @Test
+    public void mustNotProfileFilesOutsideOfTheStoreDirectory() throws Exception
+    {
+        File otherFile = new File( "other" ).getAbsoluteFile();
+        PageCache pageCache = pageCacheRule.getPageCache( fs );
+        try ( PagedFile pf = pageCache.map( otherFile, pageCache.pageSize(), CREATE ) )
+        {
+            PageCacheWarmer warmer = createWarmer( pageCache );
+            warmer.profile();
+            assertEquals( 0, warmer.numberOfProfilesWritten() );
+            assertFalse( fs.fileExists( new File( storeDir, PageCacheWarmer.PROFILES_DIRECTORY ) ) );
+        }
+    }
+
+    private PageCacheWarmer createWarmer( PageCache pageCache )
+    {
+        return new PageCacheWarmer( fs, pageCache, mock( JobScheduler.class ), storeDir, 1000,
+                NullLogProvider.getInstance() );
+    }
+}
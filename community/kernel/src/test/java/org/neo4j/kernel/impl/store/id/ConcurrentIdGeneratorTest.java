@@ -0,0 +1,350 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.id;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.neo4j.test.rule.fs.EphemeralFileSystemRule;
+
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ConcurrentIdGeneratorTest
+{
+    @Rule
+    public final EphemeralFileSystemRule fsr = new EphemeralFileSystemRule();
+    private final File file = new File( "ids" );
+
+    @Test
+    public void shouldHandOutConsecutiveIdsFromBatchOfThread() throws Exception
+    {
+        // given
+        IdGenerator idGenerator = open( 10, false, 0 );
+
+        // when
+        for ( long i = 0; i < 25; i++ )
+        {
+            // then
+            assertEquals( i, idGenerator.nextId() );
+        }
+        assertEquals( 30, idGenerator.getHighId() );
+    }
+
+    @Test
+    public void shouldNotHandOutSameIdToDifferentThreads() throws Exception
+    {
+        // given
+        IdGenerator idGenerator = open( 7, false, 0 );
+        int threads = 4;
+        int idsPerThread = 1_000;
+        ExecutorService executor = Executors.newFixedThreadPool( threads );
+
+        // when
+        List<Future<List<Long>>> futures = new ArrayList<>();
+        try
+        {
+            for ( int t = 0; t < threads; t++ )
+            {
+                futures.add( executor.submit( () ->
+                {
+                    List<Long> ids = new ArrayList<>();
+                    for ( int i = 0; i < idsPerThread; i++ )
+                    {
+                        ids.add( idGenerator.nextId() );
+                    }
+                    return ids;
+                } ) );
+            }
+
+            // then
+            Set<Long> allIds = new HashSet<>();
+            for ( Future<List<Long>> future : futures )
+            {
+                for ( long id : future.get() )
+                {
+                    assertTrue( "Id " + id + " was handed out twice", allIds.add( id ) );
+                }
+            }
+            assertEquals( threads * idsPerThread, allIds.size() );
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldNotReserveIdsPerThreadWhenThreadsComeAndGo() throws Exception
+    {
+        // given
+        int poolSize = 4;
+        int batchSize = 10;
+        IdGenerator idGenerator = open( batchSize, false, 0, poolSize );
+        int threads = 100;
+
+        // when every id is allocated by a thread of its own
+        Set<Long> ids = new HashSet<>();
+        for ( int t = 0; t < threads; t++ )
+        {
+            long[] id = new long[1];
+            Thread thread = new Thread( () -> id[0] = idGenerator.nextId() );
+            thread.start();
+            thread.join();
+            assertTrue( "Id " + id[0] + " was handed out twice", ids.add( id[0] ) );
+        }
+
+        // then the batches taken by threads that are gone are used by the threads that came after them
+        assertThat( idGenerator.getHighId(), lessThanOrEqualTo( (long) threads + poolSize * batchSize ) );
+    }
+
+    @Test
+    public void shouldNotLoseIdsWhenManyMoreThreadsThanBatchesAllocateAndFree() throws Exception
+    {
+        // given
+        IdGenerator idGenerator = open( 7, false, 0, 2 );
+        int threads = 16;
+        int idsPerThread = 1_000;
+        ExecutorService executor = Executors.newFixedThreadPool( threads );
+
+        // when
+        List<Future<List<Long>>> futures = new ArrayList<>();
+        Set<Long> allIds = new HashSet<>();
+        int freed = 0;
+        try
+        {
+            for ( int t = 0; t < threads; t++ )
+            {
+                futures.add( executor.submit( () ->
+                {
+                    List<Long> ids = new ArrayList<>();
+                    for ( int i = 0; i < idsPerThread; i++ )
+                    {
+                        long id = idGenerator.nextId();
+                        ids.add( id );
+                        if ( i % 3 == 0 )
+                        {
+                            idGenerator.freeId( id );
+                        }
+                    }
+                    return ids;
+                } ) );
+            }
+
+            // then
+            for ( Future<List<Long>> future : futures )
+            {
+                List<Long> ids = future.get();
+                for ( int i = 0; i < ids.size(); i++ )
+                {
+                    long id = ids.get( i );
+                    assertTrue( "Id " + id + " was handed out twice", allIds.add( id ) );
+                    freed += i % 3 == 0 ? 1 : 0;
+                }
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        // and every id that isn't in use is freed when closing, rather than stranded in a batch
+        idGenerator.close();
+        IdGenerator reopened = new IdGeneratorImpl( fsr.get(), file, 100, Long.MAX_VALUE, false, 0 );
+        assertEquals( allIds.size() - freed, reopened.getNumberOfIdsInUse() );
+        reopened.close();
+    }
+
+    @Test
+    public void shouldReuseFreedIdsRightAwayWithAggressiveReuse() throws Exception
+    {
+        // given
+        IdGenerator idGenerator = open( 10, true, 0 );
+        long first = idGenerator.nextId();
+        long second = idGenerator.nextId();
+
+        // when
+        idGenerator.freeId( first );
+        idGenerator.freeId( second );
+
+        // then
+        assertEquals( second, idGenerator.nextId() );
+        assertEquals( first, idGenerator.nextId() );
+        assertEquals( 2, idGenerator.nextId() );
+    }
+
+    @Test
+    public void shouldNotReuseFreedIdsBeforeReopenWithoutAggressiveReuse() throws Exception
+    {
+        // given
+        IdGenerator idGenerator = open( 4, false, 0 );
+        long id = idGenerator.nextId();
+
+        // when
+        idGenerator.freeId( id );
+
+        // then
+        Set<Long> ids = new HashSet<>();
+        for ( int i = 0; i < 20; i++ )
+        {
+            ids.add( idGenerator.nextId() );
+        }
+        assertFalse( ids.contains( id ) );
+        assertEquals( 1, idGenerator.getDefragCount() );
+    }
+
+    @Test
+    public void shouldFreeUnusedBatchIdsOnClose() throws Exception
+    {
+        // given
+        IdGenerator idGenerator = open( 10, false, 0 );
+        idGenerator.nextId();
+        idGenerator.nextId();
+
+        // when
+        idGenerator.close();
+
+        // then the ids reserved for the batch, but never handed out, are handed out after reopening
+        IdGenerator reopened = new IdGeneratorImpl( fsr.get(), file, 100, Long.MAX_VALUE, false, 0 );
+        Set<Long> ids = new HashSet<>();
+        for ( int i = 0; i < 8; i++ )
+        {
+            ids.add( reopened.nextId() );
+        }
+        for ( long id = 2; id < 10; id++ )
+        {
+            assertTrue( "Expected unused id " + id + " to be reused", ids.contains( id ) );
+        }
+        reopened.close();
+    }
+
+    @Test
+    public void shouldDiscardBatchWhenHighIdIsSet() throws Exception
+    {
+        // given
+        IdGenerator idGenerator = open( 10, false, 0 );
+        idGenerator.nextId();
+
+        // when
+        idGenerator.setHighId( 100 );
+
+        // then
+        assertEquals( 100, idGenerator.nextId() );
+    }
+
+    @Test
+    public void shouldNotDropBatchTakenWhileHighIdIsBeingSet() throws Exception
+    {
+        // given a generator where the high id is set by another thread, while a batch is being taken
+        IdGeneratorImpl.createGenerator( fsr.get(), file, 0, false );
+        IdGenerator actual = new IdGeneratorImpl( fsr.get(), file, 100, Long.MAX_VALUE, false, 0 );
+        AtomicReference<IdGenerator> idGenerator = new AtomicReference<>();
+        AtomicReference<Thread> highIdSetter = new AtomicReference<>();
+        idGenerator.set( new ConcurrentIdGenerator( new IdGenerator.Delegate( actual )
+        {
+            @Override
+            public IdRange nextIdBatch( int size )
+            {
+                IdRange range = super.nextIdBatch( size );
+                if ( highIdSetter.get() == null )
+                {
+                    Thread thread = new Thread( () -> idGenerator.get().setHighId(
+                            range.getRangeStart() + range.getRangeLength() ) );
+                    highIdSetter.set( thread );
+                    thread.start();
+                    try
+                    {
+                        thread.join( 100 );
+                    }
+                    catch ( InterruptedException e )
+                    {
+                        throw new RuntimeException( e );
+                    }
+                }
+                return range;
+            }
+        }, 10, Long.MAX_VALUE, false, 100, 4 ) );
+
+        // when
+        long id = idGenerator.get().nextId();
+        highIdSetter.get().join();
+
+        // then the ids of that batch are handed out, rather than lost
+        assertEquals( 0, id );
+    }
+
+    @Test
+    public void shouldNotHandOutReservedId() throws Exception
+    {
+        // given
+        IdGenerator idGenerator = open( 10, false, IdGeneratorImpl.INTEGER_MINUS_ONE - 5 );
+
+        // when
+        for ( int i = 0; i < 10; i++ )
+        {
+            // then
+            assertFalse( idGenerator.nextId() == IdGeneratorImpl.INTEGER_MINUS_ONE );
+        }
+    }
+
+    @Test
+    public void shouldRejectFreeingIdAboveHighId() throws Exception
+    {
+        // given
+        IdGenerator idGenerator = open( 10, false, 0 );
+
+        // when
+        try
+        {
+            idGenerator.freeId( 10 );
+            fail( "Should have failed" );
+        }
+        catch ( IllegalArgumentException e )
+        {
+            // then good
+        }
+    }
+
+    private IdGenerator open( int batchSize, boolean aggressiveReuse, long highId )
+    {
+        return open( batchSize, aggressiveReuse, highId, 4 );
+    }
+
+    private IdGenerator open( int batchSize, boolean aggressiveReuse, long highId, int poolSize )
+    {
+        IdGeneratorImpl.createGenerator( fsr.get(), file, highId, false );
+        IdGenerator actual = new IdGeneratorImpl( fsr.get(), file, 100, Long.MAX_VALUE, aggressiveReuse, highId );
+        return new ConcurrentIdGenerator( actual, batchSize, Long.MAX_VALUE, aggressiveReuse, 100, poolSize );
+    }
+}
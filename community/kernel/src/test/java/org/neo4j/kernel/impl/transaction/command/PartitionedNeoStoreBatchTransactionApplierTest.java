@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.command;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.neo4j.kernel.impl.api.TransactionApplier;
+import org.neo4j.kernel.impl.api.TransactionToApply;
+import org.neo4j.kernel.impl.core.CacheAccessBackDoor;
+import org.neo4j.kernel.impl.locking.LockGroup;
+import org.neo4j.kernel.impl.locking.LockService;
+import org.neo4j.kernel.impl.store.NeoStores;
+import org.neo4j.kernel.impl.store.PropertyStore;
+import org.neo4j.kernel.impl.store.PropertyType;
+import org.neo4j.kernel.impl.store.record.DynamicRecord;
+import org.neo4j.kernel.impl.store.record.PropertyBlock;
+import org.neo4j.kernel.impl.store.record.PropertyRecord;
+import org.neo4j.test.rule.NeoStoresRule;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+public class PartitionedNeoStoreBatchTransactionApplierTest
+{
+    @Rule
+    public final NeoStoresRule neoStoresRule = new NeoStoresRule( getClass() );
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private long nextTxId = 2;
+
+    @After
+    public void shutdownExecutor()
+    {
+        executor.shutdown();
+    }
+
+    @Test
+    public void shouldWriteAllPartitionedRecordsWhenClosed() throws Exception
+    {
+        // GIVEN
+        NeoStores neoStores = neoStoresRule.open();
+        PartitionedNeoStoreBatchTransactionApplier applier = newApplier( neoStores, executor );
+
+        // WHEN
+        for ( int tx = 0; tx < 10; tx++ )
+        {
+            List<Command> commands = new ArrayList<>();
+            for ( int i = 0; i < 100; i++ )
+            {
+                long id = tx * 100 + i;
+                commands.add( Commands.createNode( id ) );
+                commands.add( Commands.createRelationship( id, id, id, 0 ) );
+            }
+            apply( applier, commands.toArray( new Command[commands.size()] ) );
+        }
+        applier.close();
+
+        // THEN
+        for ( long id = 0; id < 1000; id++ )
+        {
+            assertTrue( neoStores.getNodeStore().isInUse( id ) );
+            assertTrue( neoStores.getRelationshipStore().isInUse( id ) );
+        }
+    }
+
+    @Test
+    public void shouldWriteReusedDynamicRecordsInTransactionOrder() throws Exception
+    {
+        // GIVEN
+        NeoStores neoStores = neoStoresRule.open();
+        // writing partitions one after the other, on the calling thread
+        PartitionedNeoStoreBatchTransactionApplier applier = newApplier( neoStores, Runnable::run );
+        PropertyStore propertyStore = neoStores.getPropertyStore();
+        long farAwayPropertyId = propertyStore.getRecordsPerPage() * 2 + 5;
+        // high ids are otherwise tracked by another applier, which would have seen these records already
+        propertyStore.setHighestPossibleIdInUse( farAwayPropertyId );
+        propertyStore.getStringStore().setHighestPossibleIdInUse( 10 );
+
+        // WHEN a string value record is created, deleted and then reused by a property on another page
+        apply( applier, createStringProperty( farAwayPropertyId, 10 ) );
+        apply( applier, deleteStringProperty( farAwayPropertyId, 10 ) );
+        apply( applier, createStringProperty( 5, 10 ) );
+        applier.close();
+
+        // THEN
+        assertFalse( propertyStore.isInUse( farAwayPropertyId ) );
+        assertTrue( propertyStore.isInUse( 5 ) );
+        assertTrue( propertyStore.getStringStore().isInUse( 10 ) );
+    }
+
+    private PartitionedNeoStoreBatchTransactionApplier newApplier( NeoStores neoStores, Executor executor )
+    {
+        return new PartitionedNeoStoreBatchTransactionApplier( neoStores, mock( CacheAccessBackDoor.class ),
+                LockService.NO_LOCK_SERVICE, executor, 4 );
+    }
+
+    private void apply( PartitionedNeoStoreBatchTransactionApplier applier, Command... commands ) throws Exception
+    {
+        TransactionToApply tx = new TransactionToApply( Commands.transactionRepresentation( commands ), nextTxId++ );
+        try ( LockGroup locks = new LockGroup();
+              TransactionApplier txApplier = applier.startTx( tx, locks ) )
+        {
+            for ( Command command : commands )
+            {
+                command.handle( txApplier );
+            }
+        }
+    }
+
+    private static Command createStringProperty( long id, long valueRecordId )
+    {
+        DynamicRecord valueRecord = new DynamicRecord( valueRecordId );
+        valueRecord.setInUse( true );
+        valueRecord.setCreated();
+        valueRecord.setType( PropertyType.STRING.intValue() );
+        valueRecord.setData( new byte[10] );
+        PropertyBlock block = new PropertyBlock();
+        PropertyStore.setSingleBlockValue( block, 0, PropertyType.STRING, valueRecordId );
+        block.addValueRecord( valueRecord );
+        PropertyRecord after = new PropertyRecord( id );
+        after.setInUse( true );
+        after.setCreated();
+        after.addPropertyBlock( block );
+        return new Command.PropertyCommand( new PropertyRecord( id ), after );
+    }
+
+    private static Command deleteStringProperty( long id, long valueRecordId )
+    {
+        DynamicRecord valueRecord = new DynamicRecord( valueRecordId );
+        valueRecord.setInUse( false );
+        valueRecord.setType( PropertyType.STRING.intValue() );
+        PropertyRecord before = new PropertyRecord( id );
+        before.setInUse( true );
+        PropertyRecord after = new PropertyRecord( id );
+        after.setInUse( false );
+        after.addDeletedRecord( valueRecord );
+        return new Command.PropertyCommand( before, after );
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AdaptiveGroupCommitTest
+{
+    private static final long MILLI = TimeUnit.MILLISECONDS.toNanos( 1 );
+
+    @Test
+    public void shouldNotDelayBeforeAnyForceHasBeenObserved() throws Exception
+    {
+        AdaptiveGroupCommit groupCommit = new AdaptiveGroupCommit( 1, TimeUnit.MILLISECONDS );
+
+        assertEquals( 0, groupCommit.windowNanos() );
+        assertEquals( 0, groupCommit.awaitBatch() );
+    }
+
+    @Test
+    public void shouldNotDelayLoneCommitter() throws Exception
+    {
+        // given one append per force, arriving no faster than the log can be forced
+        AdaptiveGroupCommit groupCommit = new AdaptiveGroupCommit( 1, TimeUnit.MILLISECONDS );
+        long time = 0;
+        for ( int i = 0; i < 10; i++ )
+        {
+            groupCommit.arrived();
+            groupCommit.forceStarted( 1 );
+            groupCommit.forceCompleted( 1, time, time + 2 * MILLI );
+            time += 2 * MILLI;
+        }
+
+        // then
+        assertEquals( 0, groupCommit.windowNanos() );
+    }
+
+    @Test
+    public void shouldDelayWhenAppendsArriveFasterThanForces() throws Exception
+    {
+        // given ten appends per force, where each force takes a millisecond
+        AdaptiveGroupCommit groupCommit = new AdaptiveGroupCommit( 300, TimeUnit.MICROSECONDS );
+        observeForces( groupCommit, 10, MILLI );
+
+        // then the window is bounded by the max delay, and we expect a few more appends within it
+        assertEquals( TimeUnit.MICROSECONDS.toNanos( 300 ), groupCommit.windowNanos() );
+        assertEquals( 4, groupCommit.targetBatchSize( groupCommit.windowNanos() ) );
+    }
+
+    @Test
+    public void shouldBoundWindowByHalfTheForceLatency() throws Exception
+    {
+        AdaptiveGroupCommit groupCommit = new AdaptiveGroupCommit( 10, TimeUnit.MILLISECONDS );
+        observeForces( groupCommit, 10, MILLI );
+
+        assertEquals( MILLI / 2, groupCommit.windowNanos() );
+    }
+
+    @Test
+    public void shouldNeverDelayWhenDisabled() throws Exception
+    {
+        AdaptiveGroupCommit groupCommit = AdaptiveGroupCommit.disabled();
+        observeForces( groupCommit, 10, MILLI );
+
+        assertEquals( 0, groupCommit.windowNanos() );
+        assertEquals( 0, groupCommit.awaitBatch() );
+    }
+
+    @Test
+    public void shouldStopWaitingOnceTargetBatchSizeHasArrived() throws Exception
+    {
+        // given a window of ten seconds, which we'd notice if we waited it out
+        AdaptiveGroupCommit groupCommit = new AdaptiveGroupCommit( 10, TimeUnit.SECONDS );
+        observeForces( groupCommit, 1000, TimeUnit.SECONDS.toNanos( 20 ) );
+        assertTrue( groupCommit.targetBatchSize( groupCommit.windowNanos() ) > 1 );
+
+        // when more appends than we could ever expect have already arrived
+        for ( int i = 0; i < 2000; i++ )
+        {
+            groupCommit.arrived();
+        }
+
+        // then
+        assertEquals( 0, groupCommit.awaitBatch() );
+    }
+
+    @Test
+    public void shouldCountForcesAndForcedAppends() throws Exception
+    {
+        AdaptiveGroupCommit groupCommit = AdaptiveGroupCommit.disabled();
+        observeForces( groupCommit, 3, MILLI );
+
+        assertEquals( 10, groupCommit.numberOfLogForces() );
+        assertEquals( 30, groupCommit.numberOfForcedAppends() );
+    }
+
+    @Test
+    public void shouldKeepAppendsThatWereNotForcedPending() throws Exception
+    {
+        AdaptiveGroupCommit groupCommit = AdaptiveGroupCommit.disabled();
+
+        // when three appends have arrived, but only two of them had linked up when the force was started
+        groupCommit.arrived();
+        groupCommit.arrived();
+        groupCommit.arrived();
+        groupCommit.forceStarted( 2 );
+        groupCommit.forceCompleted( 2, 0, MILLI );
+
+        // then the third is left for the next force
+        assertEquals( 1, groupCommit.pendingAppends() );
+        assertEquals( 2, groupCommit.numberOfForcedAppends() );
+    }
+
+    private void observeForces( AdaptiveGroupCommit groupCommit, int appendsPerForce, long forceNanos )
+    {
+        long time = 0;
+        for ( int i = 0; i < 10; i++ )
+        {
+            for ( int j = 0; j < appendsPerForce; j++ )
+            {
+                groupCommit.arrived();
+            }
+            groupCommit.forceStarted( appendsPerForce );
+            groupCommit.forceCompleted( appendsPerForce, time, time + forceNanos );
+            time += forceNanos;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+
+import org.neo4j.graphdb.mockfs.EphemeralFileSystemAbstraction;
+import org.neo4j.io.fs.StoreChannel;
+import org.neo4j.logging.NullLogProvider;
+import org.neo4j.test.OnDemandJobScheduler;
+import org.neo4j.test.rule.fs.EphemeralFileSystemRule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BackgroundLogFilePreallocatorTest
+{
+    private static final int SIZE = 3 * 1024 * 1024 + 17;
+
+    @Rule
+    public final EphemeralFileSystemRule fsRule = new EphemeralFileSystemRule();
+    private final File directory = new File( "logs" );
+    private final OnDemandJobScheduler scheduler = new OnDemandJobScheduler();
+    private EphemeralFileSystemAbstraction fs;
+    private PhysicalLogFiles logFiles;
+    private BackgroundLogFilePreallocator preallocator;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        fs = fsRule.get();
+        fs.mkdirs( directory );
+        logFiles = new PhysicalLogFiles( directory, fs );
+        preallocator = new BackgroundLogFilePreallocator( fs, logFiles, SIZE, scheduler, NullLogProvider.getInstance() );
+        preallocator.start();
+    }
+
+    @After
+    public void tearDown() throws Throwable
+    {
+        preallocator.stop();
+    }
+
+    @Test
+    public void shouldNotClaimBeforeFileHasBeenFilled() throws Exception
+    {
+        assertFalse( preallocator.claim( logFiles.getLogFileForVersion( 0 ) ) );
+        assertFalse( fs.fileExists( logFiles.getLogFileForVersion( 0 ) ) );
+    }
+
+    @Test
+    public void shouldClaimZeroFilledFileAndPrepareTheNext() throws Exception
+    {
+        // GIVEN
+        scheduler.runJob();
+
+        // WHEN
+        File logFile = logFiles.getLogFileForVersion( 0 );
+        assertTrue( preallocator.claim( logFile ) );
+
+        // THEN
+        assertEquals( SIZE, fs.getFileSize( logFile ) );
+        assertZeroFilled( logFile );
+        assertFalse( fs.fileExists( logFiles.getPreallocatedFile() ) );
+        assertFalse( preallocator.claim( logFiles.getLogFileForVersion( 1 ) ) );
+        scheduler.runJob();
+        assertTrue( preallocator.claim( logFiles.getLogFileForVersion( 1 ) ) );
+    }
+
+    @Test
+    public void shouldPreallocateNextLogFileFromRecycledLogFile() throws Exception
+    {
+        // GIVEN a claimed file, and a pruned log file full of entries, somewhat larger than the rotation size
+        scheduler.runJob();
+        assertTrue( preallocator.claim( logFiles.getLogFileForVersion( 1 ) ) );
+        File prunedFile = logFiles.getLogFileForVersion( 0 );
+        createFileFullOfData( prunedFile, SIZE + 100 );
+
+        // WHEN
+        assertTrue( preallocator.recycle( prunedFile ) );
+        scheduler.runJob();
+
+        // THEN
+        assertFalse( fs.fileExists( prunedFile ) );
+        assertFalse( fs.fileExists( logFiles.getRecycledFile() ) );
+        File logFile = logFiles.getLogFileForVersion( 2 );
+        assertTrue( preallocator.claim( logFile ) );
+        assertEquals( SIZE, fs.getFileSize( logFile ) );
+        assertZeroFilled( logFile );
+    }
+
+    @Test
+    public void shouldOnlyKeepOneRecycledLogFile() throws Exception
+    {
+        File firstPrunedFile = logFiles.getLogFileForVersion( 0 );
+        File secondPrunedFile = logFiles.getLogFileForVersion( 1 );
+        createFileFullOfData( firstPrunedFile, 100 );
+        createFileFullOfData( secondPrunedFile, 100 );
+
+        assertTrue( preallocator.recycle( firstPrunedFile ) );
+        assertFalse( preallocator.recycle( secondPrunedFile ) );
+        assertTrue( fs.fileExists( secondPrunedFile ) );
+    }
+
+    private void createFileFullOfData( File file, int length ) throws Exception
+    {
+        try ( StoreChannel channel = fs.create( file ) )
+        {
+            ByteBuffer buffer = ByteBuffer.allocate( length );
+            while ( buffer.hasRemaining() )
+            {
+                buffer.put( (byte) 42 );
+            }
+            buffer.flip();
+            channel.writeAll( buffer );
+        }
+    }
+
+    private void assertZeroFilled( File file ) throws Exception
+    {
+        try ( StoreChannel channel = fs.open( file, "r" ) )
+        {
+            ByteBuffer buffer = ByteBuffer.allocate( (int) channel.size() );
+            while ( buffer.hasRemaining() && channel.read( buffer ) != -1 )
+            {
+                // keep reading
+            }
+            buffer.flip();
+            while ( buffer.hasRemaining() )
+            {
+                assertEquals( 0, buffer.get() );
+            }
+        }
+    }
+}
@@ -24,21 +24,32 @@ import org.junit.Test;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 
 import org.neo4j.io.fs.DefaultFileSystemAbstraction;
 import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.fs.StoreChannel;
 import org.neo4j.kernel.impl.transaction.DeadSimpleLogVersionRepository;
 import org.neo4j.kernel.impl.transaction.DeadSimpleTransactionIdStore;
 import org.neo4j.kernel.impl.transaction.log.PhysicalLogFile.Monitor;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryWriter;
 import org.neo4j.kernel.impl.transaction.log.entry.LogHeader;
+import org.neo4j.kernel.impl.transaction.log.entry.LogVersions;
+import org.neo4j.kernel.impl.transaction.log.entry.VersionAwareLogEntryReader;
 import org.neo4j.kernel.lifecycle.LifeSupport;
+import org.neo4j.kernel.lifecycle.LifecycleException;
 import org.neo4j.test.rule.TargetDirectory;
 import org.neo4j.test.rule.TargetDirectory.TestDirectory;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
 import static org.neo4j.kernel.impl.transaction.log.entry.LogHeaderReader.readLogHeader;
 
@@ -71,6 +82,35 @@ public class PhysicalLogFileTest
         assertEquals( 5L, header.lastCommittedTxId );
     }
 
+    @Test
+    public void shouldRotateLogWithOlderFormatVersionWhenStarted() throws Exception
+    {
+        // GIVEN a log file written with the current format version
+        String name = "log";
+        PhysicalLogFiles logFiles = new PhysicalLogFiles( directory.directory(), name, fs );
+        LifeSupport life = new LifeSupport();
+        life.add( new PhysicalLogFile( fs, logFiles, 1000, transactionIdStore::getLastCommittedTransactionId,
+                logVersionRepository, mock( Monitor.class ), new LogHeaderCache( 10 ) ) );
+        life.start();
+        life.shutdown();
+
+        // WHEN started with a newer format version
+        life = new LifeSupport();
+        life.add( new PhysicalLogFile( fs, logFiles, 1000, transactionIdStore::getLastCommittedTransactionId,
+                logVersionRepository, mock( Monitor.class ), new LogHeaderCache( 10 ),
+                new VersionAwareLogEntryReader<>(), LogFilePreallocator.NONE,
+                LogVersions.COMPRESSED_ENTRIES_LOG_VERSION ) );
+        life.start();
+        life.shutdown();
+
+        // THEN
+        assertEquals( 2L, logVersionRepository.getCurrentLogVersion() );
+        assertEquals( LogVersions.CURRENT_LOG_VERSION,
+                readLogHeader( fs, logFiles.getLogFileForVersion( 1L ) ).logFormatVersion );
+        assertEquals( LogVersions.COMPRESSED_ENTRIES_LOG_VERSION,
+                readLogHeader( fs, logFiles.getLogFileForVersion( 2L ) ).logFormatVersion );
+    }
+
     @Test
     public void shouldWriteSomeDataIntoTheLog() throws Exception
     {
@@ -162,6 +202,103 @@ public class PhysicalLogFileTest
         }
     }
 
+    @Test
+    public void shouldReadRotatedLogsThroughMappedBuffers() throws Exception
+    {
+        // GIVEN
+        String name = "log";
+        LifeSupport life = new LifeSupport();
+        PhysicalLogFiles logFiles = new PhysicalLogFiles( directory.directory(), name, fs );
+        PhysicalLogFile logFile = life.add( new PhysicalLogFile( fs, logFiles, 1000,
+                transactionIdStore::getLastCommittedTransactionId, logVersionRepository, mock( Monitor.class ),
+                new LogHeaderCache( 10 ), new VersionAwareLogEntryReader<>(), LogFilePreallocator.NONE,
+                LogVersions.CURRENT_LOG_VERSION, true ) );
+        life.start();
+        try
+        {
+            FlushablePositionAwareChannel writer = logFile.getWriter();
+            LogPositionMarker positionMarker = new LogPositionMarker();
+            writer.getCurrentPosition( positionMarker );
+            LogPosition position1 = positionMarker.newPosition();
+            byte[] someBytes = someBytes( 40 );
+            writer.putInt( 45 );
+            writer.putLong( 4854587 );
+            writer.put( someBytes, someBytes.length );
+            writer.prepareForFlush().flush();
+            logFile.rotate();
+            writer.putLong( 123456789L );
+            writer.prepareForFlush().flush();
+            logFile.rotate();
+            writer.putLong( 987654321L );
+            writer.prepareForFlush().flush();
+
+            // WHEN
+            try ( ReadAheadLogChannel reader = (ReadAheadLogChannel) logFile.getReader( position1 ) )
+            {
+                // THEN
+                assertTrue( reader.channel instanceof MappedLogVersionedStoreChannel );
+                assertEquals( 45, reader.getInt() );
+                assertEquals( 4854587, reader.getLong() );
+                assertArrayEquals( someBytes, readBytes( reader, 40 ) );
+                assertEquals( position1.getByteOffset() + 52, reader.getCurrentPosition( positionMarker )
+                        .newPosition().getByteOffset() );
+                assertEquals( 123456789L, reader.getLong() );
+                assertTrue( reader.channel instanceof MappedLogVersionedStoreChannel );
+                assertEquals( 987654321L, reader.getLong() );
+                assertTrue( reader.channel instanceof PhysicalLogVersionedStoreChannel );
+                assertEquals( new LogPosition( 3, LogHeader.LOG_HEADER_SIZE + 8 ),
+                        reader.getCurrentPosition( positionMarker ).newPosition() );
+            }
+        }
+        finally
+        {
+            life.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldReleaseMappedBufferWhenMappedChannelIsClosed() throws Exception
+    {
+        // GIVEN
+        String name = "log";
+        LifeSupport life = new LifeSupport();
+        PhysicalLogFiles logFiles = new PhysicalLogFiles( directory.directory(), name, fs );
+        PhysicalLogFile logFile = life.add( new PhysicalLogFile( fs, logFiles, 1000,
+                transactionIdStore::getLastCommittedTransactionId, logVersionRepository, mock( Monitor.class ),
+                new LogHeaderCache( 10 ) ) );
+        life.start();
+        try
+        {
+            FlushablePositionAwareChannel writer = logFile.getWriter();
+            writer.putLong( 123456789L );
+            writer.prepareForFlush().flush();
+            logFile.rotate();
+            MappedLogVersionedStoreChannel channel = MappedLogVersionedStoreChannel.tryMap( logFiles, fs, 1 );
+            assertNotNull( channel );
+            assertEquals( 123456789L, channel.buffer().getLong() );
+
+            // WHEN
+            channel.close();
+            channel.close();
+
+            // THEN
+            assertFalse( channel.isOpen() );
+            try
+            {
+                channel.buffer();
+                fail( "Should not hand out the buffer of a closed channel" );
+            }
+            catch ( ClosedChannelException e )
+            {
+                // expected
+            }
+        }
+        finally
+        {
+            life.shutdown();
+        }
+    }
+
     @Test
     public void shouldVisitLogFile() throws Exception
     {
@@ -196,6 +333,206 @@ public class PhysicalLogFileTest
         life.shutdown();
     }
 
+    @Test
+    public void shouldAppendAfterLastEntryOfPreallocatedLogFile() throws Exception
+    {
+        // GIVEN a log file created from a pre-allocated file, with a single entry in it
+        String name = "log";
+        PhysicalLogFiles logFiles = new PhysicalLogFiles( directory.directory(), name, fs );
+        LifeSupport life = new LifeSupport();
+        LogFile logFile = life.add( preallocatedLogFile( logFiles, 4096 ) );
+        life.start();
+        LogPositionMarker mark = new LogPositionMarker();
+        try
+        {
+            FlushablePositionAwareChannel writer = logFile.getWriter();
+            new LogEntryWriter( writer ).writeCheckPointEntry( new LogPosition( 1, 16 ) );
+            writer.prepareForFlush().flush();
+            writer.getCurrentPosition( mark );
+        }
+        finally
+        {
+            life.shutdown();
+        }
+        assertEquals( 4096, fs.getFileSize( logFiles.getLogFileForVersion( 1 ) ) );
+
+        // WHEN
+        life = new LifeSupport();
+        logFile = life.add( preallocatedLogFile( logFiles, 4096 ) );
+        life.start();
+        try
+        {
+            // THEN
+            LogPositionMarker positionAfterRestart = new LogPositionMarker();
+            logFile.getWriter().getCurrentPosition( positionAfterRestart );
+            assertEquals( mark.newPosition(), positionAfterRestart.newPosition() );
+        }
+        finally
+        {
+            life.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldOnlyReadEntriesAfterLastClosedTransactionToFindEndOfPreallocatedLogFile() throws Exception
+    {
+        // GIVEN a pre-allocated log file with three entries, where the last closed transaction ends after the second
+        String name = "log";
+        PhysicalLogFiles logFiles = new PhysicalLogFiles( directory.directory(), name, fs );
+        LifeSupport life = new LifeSupport();
+        LogFile logFile = life.add( preallocatedLogFile( logFiles, 4096 ) );
+        life.start();
+        LogPositionMarker lastClosed = new LogPositionMarker();
+        LogPositionMarker mark = new LogPositionMarker();
+        try
+        {
+            FlushablePositionAwareChannel writer = logFile.getWriter();
+            LogEntryWriter entryWriter = new LogEntryWriter( writer );
+            entryWriter.writeCheckPointEntry( new LogPosition( 1, 16 ) );
+            entryWriter.writeCheckPointEntry( new LogPosition( 1, 16 ) );
+            writer.getCurrentPosition( lastClosed );
+            entryWriter.writeCheckPointEntry( new LogPosition( 1, 16 ) );
+            writer.prepareForFlush().flush();
+            writer.getCurrentPosition( mark );
+        }
+        finally
+        {
+            life.shutdown();
+        }
+
+        // and the entries before the last closed transaction are unreadable, so they can't have been read
+        try ( StoreChannel channel = fs.open( logFiles.getLogFileForVersion( 1 ), "rw" ) )
+        {
+            channel.writeAll( ByteBuffer.wrap( new byte[]{-1, -1, -1, -1} ), LogHeader.LOG_HEADER_SIZE );
+        }
+
+        // WHEN
+        life = new LifeSupport();
+        logFile = life.add( preallocatedLogFile( logFiles, 4096, lastClosed::newPosition ) );
+        life.start();
+        try
+        {
+            // THEN
+            LogPositionMarker positionAfterRestart = new LogPositionMarker();
+            logFile.getWriter().getCurrentPosition( positionAfterRestart );
+            assertEquals( mark.newPosition(), positionAfterRestart.newPosition() );
+        }
+        finally
+        {
+            life.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldFailToStartOnUnreadableEntryInPreallocatedLogFile() throws Exception
+    {
+        // GIVEN a pre-allocated log file with a single entry in it
+        String name = "log";
+        PhysicalLogFiles logFiles = new PhysicalLogFiles( directory.directory(), name, fs );
+        LifeSupport life = new LifeSupport();
+        LogFile logFile = life.add( preallocatedLogFile( logFiles, 4096 ) );
+        life.start();
+        try
+        {
+            FlushablePositionAwareChannel writer = logFile.getWriter();
+            new LogEntryWriter( writer ).writeCheckPointEntry( new LogPosition( 1, 16 ) );
+            writer.prepareForFlush().flush();
+        }
+        finally
+        {
+            life.shutdown();
+        }
+
+        // and the entry has been corrupted
+        try ( StoreChannel channel = fs.open( logFiles.getLogFileForVersion( 1 ), "rw" ) )
+        {
+            channel.writeAll( ByteBuffer.wrap( new byte[]{-1, -1, -1, -1} ), LogHeader.LOG_HEADER_SIZE );
+        }
+
+        // WHEN
+        life = new LifeSupport();
+        life.add( preallocatedLogFile( logFiles, 4096 ) );
+        try
+        {
+            life.start();
+            fail( "Should not start appending after an unreadable log entry" );
+        }
+        catch ( LifecycleException e )
+        {
+            // THEN
+            assertNotNull( e.getCause() );
+        }
+        finally
+        {
+            life.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldTruncatePreallocatedTailWhenRotatingAndClaimPreallocatedFileForNextLog() throws Exception
+    {
+        // GIVEN
+        String name = "log";
+        PhysicalLogFiles logFiles = new PhysicalLogFiles( directory.directory(), name, fs );
+        LifeSupport life = new LifeSupport();
+        LogFile logFile = life.add( preallocatedLogFile( logFiles, 4096 ) );
+        life.start();
+        try
+        {
+            FlushablePositionAwareChannel writer = logFile.getWriter();
+            new LogEntryWriter( writer ).writeCheckPointEntry( new LogPosition( 1, 16 ) );
+            writer.prepareForFlush().flush();
+            LogPositionMarker mark = new LogPositionMarker();
+            writer.getCurrentPosition( mark );
+
+            // WHEN
+            logFile.rotate();
+
+            // THEN
+            assertEquals( mark.getByteOffset(), fs.getFileSize( logFiles.getLogFileForVersion( 1 ) ) );
+            assertEquals( 4096, fs.getFileSize( logFiles.getLogFileForVersion( 2 ) ) );
+            LogHeader header = readLogHeader( fs, logFiles.getLogFileForVersion( 2 ) );
+            assertEquals( 2L, header.logVersion );
+            assertEquals( 5L, header.lastCommittedTxId );
+        }
+        finally
+        {
+            life.shutdown();
+        }
+    }
+
+    private PhysicalLogFile preallocatedLogFile( PhysicalLogFiles logFiles, int size )
+    {
+        return preallocatedLogFile( logFiles, size, () -> LogPosition.UNSPECIFIED );
+    }
+
+    private PhysicalLogFile preallocatedLogFile( PhysicalLogFiles logFiles, int size,
+            Supplier<LogPosition> lastClosedPosition )
+    {
+        LogFilePreallocator preallocator = new LogFilePreallocator()
+        {
+            @Override
+            public boolean claim( File logFile ) throws IOException
+            {
+                try ( StoreChannel channel = fs.create( logFile ) )
+                {
+                    channel.writeAll( ByteBuffer.allocate( size ) );
+                }
+                return true;
+            }
+
+            @Override
+            public boolean recycle( File logFile )
+            {
+                return false;
+            }
+        };
+        return new PhysicalLogFile( fs, logFiles, 1000, transactionIdStore::getLastCommittedTransactionId,
+                logVersionRepository, mock( Monitor.class ), new LogHeaderCache( 10 ),
+                new VersionAwareLogEntryReader<>(), preallocator, LogVersions.CURRENT_LOG_VERSION, false,
+                lastClosedPosition );
+    }
+
     private byte[] readBytes( ReadableClosableChannel reader, int length ) throws IOException
     {
         byte[] result = new byte[length];
@@ -29,6 +29,8 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.neo4j.helpers.collection.CloseableVisitor;
@@ -288,6 +290,56 @@ public class PhysicalLogicalTransactionStoreTest
         }
     }
 
+    @Test
+    public void shouldRecoverTransactionsReadAheadByAnotherThread() throws Exception
+    {
+        // GIVEN
+        TransactionIdStore transactionIdStore = new DeadSimpleTransactionIdStore();
+        TransactionMetadataCache positionCache = new TransactionMetadataCache( 100 );
+        LogHeaderCache logHeaderCache = new LogHeaderCache( 10 );
+        final byte[] additionalHeader = new byte[]{1, 2, 5};
+        final int masterId = 2, authorId = 1;
+        final long timeStarted = 12345, latestCommittedTxWhenStarted = 4545, timeCommitted = timeStarted + 10;
+        LifeSupport life = new LifeSupport();
+        PhysicalLogFiles logFiles = new PhysicalLogFiles( testDir, DEFAULT_NAME, fs );
+        Monitor monitor = new Monitors().newMonitor( PhysicalLogFile.Monitor.class );
+        LogFile logFile = life.add( new PhysicalLogFile( fs, logFiles, 1000,
+                transactionIdStore::getLastCommittedTransactionId, mock( LogVersionRepository.class ), monitor,
+                logHeaderCache ) );
+
+        life.start();
+        try
+        {
+            addATransactionAndRewind( life, logFile, positionCache, transactionIdStore,
+                    additionalHeader, masterId, authorId, timeStarted, latestCommittedTxWhenStarted, timeCommitted );
+        }
+        finally
+        {
+            life.shutdown();
+        }
+
+        FakeRecoveryVisitor visitor = new FakeRecoveryVisitor( additionalHeader, masterId,
+                authorId, timeStarted, timeCommitted, latestCommittedTxWhenStarted );
+        ExecutorService readAheadExecutor = Executors.newSingleThreadExecutor();
+        LogFileRecoverer recoverer = new LogFileRecoverer( new VersionAwareLogEntryReader<>(), visitor,
+                readAheadExecutor );
+
+        // WHEN
+        try
+        {
+            recoverer.visit( PhysicalLogFile.openForVersion( logFiles, fs, 0 ) );
+        }
+        finally
+        {
+            readAheadExecutor.shutdown();
+        }
+
+        // THEN
+        assertEquals( 1, visitor.getVisitedTransactions() );
+        assertEquals( positionCache.getTransactionMetadata( transactionIdStore.getLastCommittedTransactionId() )
+                .getStartPosition(), visitor.getStartPosition() );
+    }
+
     @Test
     public void shouldThrowNoSuchTransactionExceptionIfMetadataNotFound() throws Exception
     {
@@ -218,4 +218,60 @@ public class ReadAheadChannelTest
         storeChannel.writeAll( buffer );
         storeChannel.close();
     }
+
+    @Test
+    public void shouldReadInsertedBytesBeforeTheRestOfTheChannel() throws Exception
+    {
+        // Given
+        FileSystemAbstraction fileSystem = new EphemeralFileSystemAbstraction();
+        StoreChannel storeChannel = fileSystem.open( new File( "foo.txt" ), "rw" );
+        ByteBuffer buffer = ByteBuffer.allocate( 10 );
+        buffer.put( (byte) 1 ).putInt( 2 ).put( (byte) 3 );
+        buffer.flip();
+        storeChannel.writeAll( buffer );
+        storeChannel.close();
+
+        storeChannel = fileSystem.open( new File( "foo.txt" ), "r" );
+        ReadAheadChannel<StoreChannel> channel = new ReadAheadChannel<>( storeChannel );
+        assertEquals( (byte) 1, channel.get() );
+        long position = channel.position();
+
+        // When
+        channel.insert( ByteBuffer.allocate( 12 ).putLong( 10 ).putInt( 20 ).array(), 12 );
+
+        // Then
+        assertEquals( position, channel.position() );
+        assertEquals( 10, channel.getLong() );
+        assertEquals( 20, channel.getInt() );
+        assertEquals( 2, channel.getInt() );
+        assertEquals( (byte) 3, channel.get() );
+    }
+
+    @Test
+    public void shouldNotReadPastTheEndOfInsertedBytes() throws Exception
+    {
+        // Given
+        FileSystemAbstraction fileSystem = new EphemeralFileSystemAbstraction();
+        StoreChannel storeChannel = fileSystem.open( new File( "foo.txt" ), "rw" );
+        ByteBuffer buffer = ByteBuffer.allocate( 4 );
+        buffer.putInt( 1 );
+        buffer.flip();
+        storeChannel.writeAll( buffer );
+        storeChannel.close();
+
+        storeChannel = fileSystem.open( new File( "foo.txt" ), "r" );
+        ReadAheadChannel<StoreChannel> channel = new ReadAheadChannel<>( storeChannel );
+        channel.insert( new byte[2], 2 );
+
+        try
+        {
+            // When
+            channel.getInt();
+            fail( "Should have failed to read an int spanning the end of the inserted bytes" );
+        }
+        catch ( IOException e )
+        {
+            // Then good
+        }
+    }
 }
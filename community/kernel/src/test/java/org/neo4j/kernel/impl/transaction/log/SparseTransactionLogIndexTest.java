@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.neo4j.graphdb.mockfs.EphemeralFileSystemAbstraction;
+import org.neo4j.io.fs.StoreChannel;
+import org.neo4j.logging.NullLogProvider;
+import org.neo4j.test.rule.fs.EphemeralFileSystemRule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.neo4j.kernel.impl.transaction.log.entry.LogHeaderWriter.writeLogHeader;
+
+public class SparseTransactionLogIndexTest
+{
+    private static final long STRIDE = 1000;
+
+    @Rule
+    public final EphemeralFileSystemRule fsRule = new EphemeralFileSystemRule();
+    private final File directory = new File( "logs" );
+    private EphemeralFileSystemAbstraction fs;
+    private PhysicalLogFiles logFiles;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        fs = fsRule.get();
+        fs.mkdirs( directory );
+        logFiles = new PhysicalLogFiles( directory, fs );
+    }
+
+    @Test
+    public void shouldFindClosestIndexedTransactionAtOrBefore() throws Exception
+    {
+        // GIVEN
+        SparseTransactionLogIndex index = newIndex();
+        index.transactionAppended( 10, new LogPosition( 0, 16 ) );
+        index.transactionAppended( 11, new LogPosition( 0, 500 ) );   // within stride, not indexed
+        index.transactionAppended( 12, new LogPosition( 0, 1016 ) );
+        index.transactionAppended( 13, new LogPosition( 0, 1500 ) );  // within stride, not indexed
+        index.transactionAppended( 14, new LogPosition( 0, 2100 ) );
+
+        // THEN
+        assertNull( index.lookup( 0, 9 ) );
+        assertEquals( new LogPosition( 0, 16 ), index.lookup( 0, 10 ) );
+        assertEquals( new LogPosition( 0, 16 ), index.lookup( 0, 11 ) );
+        assertEquals( new LogPosition( 0, 1016 ), index.lookup( 0, 12 ) );
+        assertEquals( new LogPosition( 0, 1016 ), index.lookup( 0, 13 ) );
+        assertEquals( new LogPosition( 0, 2100 ), index.lookup( 0, 14 ) );
+        assertEquals( new LogPosition( 0, 2100 ), index.lookup( 0, 100 ) );
+        assertNull( index.lookup( 1, 14 ) );
+    }
+
+    @Test
+    public void shouldWriteIndexOfPreviousLogVersionOnRotationAndReadItBack() throws Exception
+    {
+        // GIVEN
+        createLogFile( 0, 9, 3000 );
+        SparseTransactionLogIndex index = newIndex();
+        index.transactionAppended( 10, new LogPosition( 0, 16 ) );
+        index.transactionAppended( 11, new LogPosition( 0, 1200 ) );
+        index.transactionAppended( 12, new LogPosition( 0, 2400 ) );
+        createLogFile( 1, 12, 16 );
+
+        // WHEN
+        index.transactionAppended( 13, new LogPosition( 1, 16 ) );
+
+        // THEN
+        assertTrue( fs.fileExists( logFiles.getTransactionIndexFileForVersion( 0 ) ) );
+        assertFalse( fs.fileExists( logFiles.getTransactionIndexFileForVersion( 1 ) ) );
+        SparseTransactionLogIndex restartedIndex = newIndex();
+        assertEquals( new LogPosition( 0, 16 ), restartedIndex.lookup( 0, 10 ) );
+        assertEquals( new LogPosition( 0, 1200 ), restartedIndex.lookup( 0, 11 ) );
+        assertEquals( new LogPosition( 0, 2400 ), restartedIndex.lookup( 0, 12 ) );
+        assertNull( restartedIndex.lookup( 1, 13 ) );
+    }
+
+    @Test
+    public void shouldIgnoreIndexOfLogFileThatHasChangedSinceIndexWasWritten() throws Exception
+    {
+        // GIVEN
+        createLogFile( 0, 9, 3000 );
+        SparseTransactionLogIndex index = newIndex();
+        index.transactionAppended( 10, new LogPosition( 0, 16 ) );
+        index.transactionAppended( 11, new LogPosition( 0, 1200 ) );
+        createLogFile( 1, 11, 16 );
+        index.transactionAppended( 12, new LogPosition( 1, 16 ) );
+
+        // WHEN the log file is replaced by one with other transactions in it
+        createLogFile( 0, 19, 3000 );
+
+        // THEN
+        assertNull( newIndex().lookup( 0, 11 ) );
+    }
+
+    @Test
+    public void shouldIgnoreTruncatedIndexFile() throws Exception
+    {
+        // GIVEN
+        createLogFile( 0, 9, 3000 );
+        SparseTransactionLogIndex index = newIndex();
+        index.transactionAppended( 10, new LogPosition( 0, 16 ) );
+        index.transactionAppended( 11, new LogPosition( 0, 1200 ) );
+        createLogFile( 1, 11, 16 );
+        index.transactionAppended( 12, new LogPosition( 1, 16 ) );
+
+        // WHEN
+        File indexFile = logFiles.getTransactionIndexFileForVersion( 0 );
+        try ( StoreChannel channel = fs.open( indexFile, "rw" ) )
+        {
+            channel.truncate( channel.size() - 3 );
+        }
+
+        // THEN
+        assertNull( newIndex().lookup( 0, 11 ) );
+    }
+
+    private SparseTransactionLogIndex newIndex()
+    {
+        return new SparseTransactionLogIndex( fs, logFiles, STRIDE, NullLogProvider.getInstance() );
+    }
+
+    private void createLogFile( long version, long previousLastCommittedTxId, int size ) throws IOException
+    {
+        File file = logFiles.getLogFileForVersion( version );
+        fs.deleteFile( file );
+        writeLogHeader( fs, file, version, previousLastCommittedTxId );
+        try ( StoreChannel channel = fs.open( file, "rw" ) )
+        {
+            channel.position( channel.size() );
+            channel.writeAll( ByteBuffer.allocate( size - (int) channel.size() ) );
+        }
+    }
+}
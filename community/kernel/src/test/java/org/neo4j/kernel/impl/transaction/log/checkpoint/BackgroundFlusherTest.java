@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.checkpoint;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.neo4j.io.pagecache.IOLimiter;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.kernel.impl.transaction.log.LogPosition;
+import org.neo4j.kernel.impl.transaction.log.TransactionIdStore;
+import org.neo4j.logging.NullLogProvider;
+import org.neo4j.test.OnDemandJobScheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class BackgroundFlusherTest
+{
+    private static final long ROTATION_THRESHOLD = 1000;
+    private static final long INTERVAL_MILLIS = 500;
+
+    private final PageCache pageCache = mock( PageCache.class );
+    private final TransactionIdStore transactionIdStore = mock( TransactionIdStore.class );
+    private final AtomicReference<LogPosition> lastCheckPointedPosition =
+            new AtomicReference<>( LogPosition.UNSPECIFIED );
+    private final IOLimiter ioLimiter = IOLimiter.unlimited();
+    private final OnDemandJobScheduler jobScheduler = new OnDemandJobScheduler();
+    private final BackgroundFlusher flusher = new BackgroundFlusher( pageCache, ioLimiter, transactionIdStore,
+            lastCheckPointedPosition::get, ROTATION_THRESHOLD, jobScheduler, INTERVAL_MILLIS,
+            NullLogProvider.getInstance() );
+
+    @Test
+    public void shouldNotFlushAnythingWhenNoPagesAreDirty() throws Exception
+    {
+        assertEquals( 0, flusher.pagesToFlush( 0, 100, ROTATION_THRESHOLD ) );
+    }
+
+    @Test
+    public void shouldFlushAMinimumFractionOfTheDirtyPages() throws Exception
+    {
+        assertEquals( 1, flusher.pagesToFlush( 1, 1000, 0 ) );
+        assertEquals( 5, flusher.pagesToFlush( 100, 10_000, 0 ) );
+    }
+
+    @Test
+    public void shouldFlushMoreOfTheDirtyPagesTheDirtierThePageCacheIs() throws Exception
+    {
+        assertEquals( 50, flusher.pagesToFlush( 100, 400, 0 ) );
+        assertEquals( 500, flusher.pagesToFlush( 500, 1000, 0 ) );
+        assertEquals( 900, flusher.pagesToFlush( 900, 1000, 0 ) );
+    }
+
+    @Test
+    public void shouldFlushMoreOfTheDirtyPagesTheLongerTheLogTailIs() throws Exception
+    {
+        assertEquals( 25, flusher.pagesToFlush( 100, 10_000, ROTATION_THRESHOLD / 4 ) );
+        assertEquals( 100, flusher.pagesToFlush( 100, 10_000, ROTATION_THRESHOLD ) );
+        assertEquals( 100, flusher.pagesToFlush( 100, 10_000, ROTATION_THRESHOLD * 3 ) );
+    }
+
+    @Test
+    public void shouldMeasureTheLogTailFromWhenItWasStartedIfThereHasBeenNoCheckPoint() throws Throwable
+    {
+        // given
+        lastClosedTransactionAt( 2, 100 );
+        flusher.start();
+
+        // when
+        lastClosedTransactionAt( 2, 400 );
+
+        // then
+        assertEquals( 300, flusher.logTailBytes() );
+    }
+
+    @Test
+    public void shouldMeasureTheLogTailFromTheLastCheckPointAcrossLogVersions() throws Throwable
+    {
+        // given
+        lastClosedTransactionAt( 2, 100 );
+        flusher.start();
+        lastCheckPointedPosition.set( new LogPosition( 3, 800 ) );
+
+        // when
+        lastClosedTransactionAt( 5, 300 );
+
+        // then
+        assertEquals( 2 * ROTATION_THRESHOLD + 300 - 800, flusher.logTailBytes() );
+    }
+
+    @Test
+    public void shouldFlushDirtyPagesAndCountThemWhenTheJobRuns() throws Throwable
+    {
+        // given
+        lastClosedTransactionAt( 2, 100 );
+        flusher.start();
+        lastClosedTransactionAt( 2, 100 + ROTATION_THRESHOLD / 2 );
+        when( pageCache.dirtyPages() ).thenReturn( 40L );
+        when( pageCache.maxCachedPages() ).thenReturn( 10_000 );
+        when( pageCache.flushDirtyPages( 20, ioLimiter ) ).thenReturn( 20L );
+
+        // when
+        jobScheduler.runJob();
+
+        // then
+        assertEquals( 40, flusher.numberOfDirtyPages() );
+        assertEquals( 20, flusher.numberOfBackgroundFlushedPages() );
+        assertEquals( 20 * 1000 / INTERVAL_MILLIS, flusher.backgroundFlushRatePagesPerSecond() );
+        assertNotNull( jobScheduler.getJob() );
+    }
+
+    @Test
+    public void shouldNotRescheduleTheJobWhenStopped() throws Throwable
+    {
+        // given
+        lastClosedTransactionAt( 2, 100 );
+        flusher.start();
+        assertNotNull( jobScheduler.getJob() );
+
+        // when
+        flusher.stop();
+
+        // then
+        assertNull( jobScheduler.getJob() );
+    }
+
+    private void lastClosedTransactionAt( long logVersion, long byteOffset )
+    {
+        when( transactionIdStore.getLastClosedTransaction() ).thenReturn( new long[]{10, logVersion, byteOffset} );
+    }
+}
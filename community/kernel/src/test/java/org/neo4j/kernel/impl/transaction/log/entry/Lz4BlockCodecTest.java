@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.entry;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class Lz4BlockCodecTest
+{
+    private final Lz4BlockCodec codec = new Lz4BlockCodec();
+    private final Random random = new Random();
+
+    @Test
+    public void shouldCompressAndDecompressRepetitiveBytes() throws Exception
+    {
+        // given
+        byte[] bytes = new byte[10_000];
+        for ( int i = 0; i < bytes.length; i++ )
+        {
+            bytes[i] = (byte) (i % 13);
+        }
+
+        // when
+        byte[] compressed = new byte[bytes.length];
+        int compressedLength = codec.compress( bytes, bytes.length, compressed );
+
+        // then
+        assertTrue( compressedLength > 0 && compressedLength < bytes.length / 10 );
+        assertArrayEquals( bytes, decompress( compressed, compressedLength, bytes.length ) );
+    }
+
+    @Test
+    public void shouldCompressAndDecompressBlocksOfAllSizes() throws Exception
+    {
+        for ( int length = 0; length < 2_000; length++ )
+        {
+            // given
+            byte[] bytes = new byte[length];
+            for ( int i = 0; i < length; i++ )
+            {
+                bytes[i] = (byte) (random.nextInt( 4 ) == 0 ? random.nextInt() : i / 50);
+            }
+
+            // when
+            byte[] compressed = new byte[length + length / 255 + 16];
+            int compressedLength = codec.compress( bytes, length, compressed );
+
+            // then
+            assertArrayEquals( bytes, decompress( compressed, compressedLength, length ) );
+        }
+    }
+
+    @Test
+    public void shouldGiveUpCompressingWhenTheResultDoesNotFit() throws Exception
+    {
+        // given
+        byte[] bytes = new byte[1_000];
+        random.nextBytes( bytes );
+
+        // when
+        int compressedLength = codec.compress( bytes, bytes.length, new byte[bytes.length] );
+
+        // then
+        assertEquals( -1, compressedLength );
+    }
+
+    @Test
+    public void shouldFailToDecompressMalformedBlock() throws Exception
+    {
+        // given a match referring to bytes before the start of the block
+        byte[] compressed = {0x10, 1, 5, 0, 0x00};
+
+        try
+        {
+            // when
+            decompress( compressed, compressed.length, 10 );
+            fail( "Should have failed" );
+        }
+        catch ( IOException e )
+        {
+            // then good
+        }
+    }
+
+    private byte[] decompress( byte[] compressed, int compressedLength, int length ) throws IOException
+    {
+        byte[] bytes = new byte[length];
+        Lz4BlockCodec.decompress( compressed, compressedLength, bytes );
+        return bytes;
+    }
+}
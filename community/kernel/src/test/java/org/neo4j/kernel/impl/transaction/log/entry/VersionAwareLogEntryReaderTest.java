@@ -21,13 +21,22 @@ package org.neo4j.kernel.impl.transaction.log.entry;
 
 import org.junit.Test;
 
+import java.io.File;
 import java.io.IOException;
+import java.util.Collections;
+
+import org.neo4j.graphdb.mockfs.EphemeralFileSystemAbstraction;
+import org.neo4j.io.fs.StoreChannel;
 
 import org.neo4j.kernel.impl.store.record.NodeRecord;
 import org.neo4j.kernel.impl.transaction.command.Command;
 import org.neo4j.kernel.impl.transaction.command.NeoCommandType;
 import org.neo4j.kernel.impl.transaction.log.InMemoryClosableChannel;
 import org.neo4j.kernel.impl.transaction.log.LogPosition;
+import org.neo4j.kernel.impl.transaction.log.LogVersionBridge;
+import org.neo4j.kernel.impl.transaction.log.PhysicalLogVersionedStoreChannel;
+import org.neo4j.kernel.impl.transaction.log.PositionAwarePhysicalFlushableChannel;
+import org.neo4j.kernel.impl.transaction.log.ReadAheadLogChannel;
 import org.neo4j.kernel.impl.transaction.log.ReadableClosablePositionAwareChannel;
 
 import static org.junit.Assert.assertEquals;
@@ -386,4 +395,42 @@ public class VersionAwareLogEntryReaderTest
             assertEquals( i+1, channel.readerPosition() );
         }
     }
+
+    @Test
+    public void shouldReadTheEntriesOfACompressedLogEntry() throws IOException
+    {
+        // given
+        LogEntryVersion version = LogEntryVersion.CURRENT;
+        final InMemoryClosableChannel entries = new InMemoryClosableChannel();
+        LogEntryWriter writer = new LogEntryWriter( entries );
+        writer.writeStartEntry( 1, 2, 3, 4, new byte[]{5} );
+        Command.NodeCommand nodeCommand = new Command.NodeCommand( new NodeRecord( 11 ), new NodeRecord( 11 ) );
+        writer.serialize( Collections.singletonList( nodeCommand ) );
+        byte[] uncompressed = new byte[entries.writerPosition()];
+        entries.get( uncompressed, uncompressed.length );
+        byte[] compressed = new byte[uncompressed.length * 2];
+        int compressedLength = new Lz4BlockCodec().compress( uncompressed, uncompressed.length, compressed );
+
+        EphemeralFileSystemAbstraction fs = new EphemeralFileSystemAbstraction();
+        File file = new File( "log" );
+        StoreChannel storeChannel = fs.open( file, "rw" );
+        PositionAwarePhysicalFlushableChannel logChannel = new PositionAwarePhysicalFlushableChannel(
+                new PhysicalLogVersionedStoreChannel( storeChannel, 0, LogVersions.COMPRESSED_ENTRIES_LOG_VERSION ) );
+        new LogEntryWriter( logChannel ).writeCompressedEntries( compressed, compressedLength, uncompressed.length );
+        new LogEntryWriter( logChannel ).writeCommitEntry( 42, 21 );
+        logChannel.prepareForFlush().flush();
+        storeChannel.position( 0 );
+
+        // when
+        ReadAheadLogChannel channel = new ReadAheadLogChannel( new PhysicalLogVersionedStoreChannel( storeChannel, 0,
+                LogVersions.COMPRESSED_ENTRIES_LOG_VERSION ), LogVersionBridge.NO_MORE_CHANNELS );
+        LogEntryReader<ReadableClosablePositionAwareChannel> reader = new VersionAwareLogEntryReader<>();
+
+        // then
+        assertEquals( new LogEntryStart( version, 1, 2, 3, 4, new byte[]{5}, new LogPosition( 0, 0 ) ),
+                reader.readLogEntry( channel ) );
+        assertEquals( new LogEntryCommand( version, nodeCommand ), reader.readLogEntry( channel ) );
+        assertEquals( new OnePhaseCommit( version, 42, 21 ), reader.readLogEntry( channel ) );
+        assertNull( reader.readLogEntry( channel ) );
+    }
 }
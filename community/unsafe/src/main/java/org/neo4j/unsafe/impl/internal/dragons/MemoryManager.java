@@ -23,7 +23,14 @@ package org.neo4j.unsafe.impl.internal.dragons;
  * The memory manager is simple: it only allocates memory, until it itself is finalizable and frees it all in one go.
  *
  * The memory is allocated in large segments, and the memory returned by the memory manager is page aligned, and plays
- * well with transparent huge pages and other operating system optimisations.
+ * well with transparent huge pages and other operating system optimisations. The segments themselves can be aligned
+ * to a larger boundary, such as the size of a huge page, so that the operating system can back them with huge pages
+ * without splitting any at the segment edges.
+ *
+ * The memory can also be split into a number of partitions, each with its own segments. A thread always allocates
+ * from the same partition, and since operating systems place memory on the NUMA node of the thread that first touches
+ * it, this keeps the memory that a thread allocates and fills close to that thread. It also means that threads
+ * allocating memory at the same time rarely contend with each other.
  *
  * The memory manager assumes that the memory claimed from it is evenly divisible in units of pages.
  */
@@ -34,13 +41,7 @@ public final class MemoryManager
      */
     private static final long GRAB_SIZE = FeatureToggles.getInteger( MemoryManager.class, "GRAB_SIZE", 512 * 1024 ); // 512 KiB
 
-    /**
-     * The amount of memory that this memory manager can still allocate.
-     */
-    private long memoryReserve;
-    private final long alignment;
-
-    private Slab slabs;
+    private final Partition[] partitions;
 
     /**
      * Create a new MemoryManager that will allocate the given amount of memory, to pointers that are aligned to the
@@ -51,8 +52,39 @@ public final class MemoryManager
      */
     public MemoryManager( long expectedMaxMemory, long alignment )
     {
-        this.memoryReserve = expectedMaxMemory;
-        this.alignment = alignment;
+        this( expectedMaxMemory, alignment, alignment, 1 );
+    }
+
+    /**
+     * Create a new MemoryManager that will allocate the given amount of memory, to pointers that are aligned to the
+     * given alignment size, from slabs that are aligned to the given slab alignment, and spread over the given number
+     * of partitions.
+     * @param expectedMaxMemory The maximum amount of memory that this memory manager is expected to allocate. The
+     * actual amount of memory used can end up greater than this value, if some of it gets wasted on alignment padding.
+     * @param alignment The byte multiple that the allocated pointers have to be aligned at.
+     * @param slabAlignment The byte multiple that the underlying slabs are aligned at, and sized in. This must be a
+     * multiple of the alignment, and is typically the size of a huge page.
+     * @param partitionCount The number of partitions to spread the allocations over, depending on the allocating
+     * thread.
+     */
+    public MemoryManager( long expectedMaxMemory, long alignment, long slabAlignment, int partitionCount )
+    {
+        if ( slabAlignment < alignment || slabAlignment % alignment != 0 )
+        {
+            throw new IllegalArgumentException( "Slab alignment (" + slabAlignment + ") must be a multiple of the " +
+                                                "alignment (" + alignment + ")" );
+        }
+        if ( partitionCount < 1 )
+        {
+            throw new IllegalArgumentException( "Partition count must be positive, but was " + partitionCount );
+        }
+        long grabSize = Math.max( GRAB_SIZE, slabAlignment );
+        grabSize += (slabAlignment - grabSize % slabAlignment) % slabAlignment;
+        partitions = new Partition[partitionCount];
+        for ( int i = 0; i < partitionCount; i++ )
+        {
+            partitions[i] = new Partition( expectedMaxMemory / partitionCount, alignment, slabAlignment, grabSize );
+        }
     }
 
     /**
@@ -60,40 +92,104 @@ public final class MemoryManager
      * @param bytes the number of bytes to allocate.
      * @return A pointer to the allocated memory.
      */
-    public synchronized long allocateAligned( long bytes )
+    public long allocateAligned( long bytes )
+    {
+        Partition[] partitions = this.partitions;
+        int index = partitions.length == 1 ? 0 : (int) (Thread.currentThread().getId() % partitions.length);
+        return partitions[index].allocateAligned( bytes );
+    }
+
+    /**
+     * @return {@code true} if the given range of memory lies entirely within memory that this memory manager has
+     * allocated from the operating system. Used for testing.
+     */
+    boolean isAllocated( long pointer, long bytes )
     {
-        if ( slabs == null || !slabs.canAllocate( bytes ) )
+        for ( Partition partition : partitions )
         {
-            long slabGrab = Math.min( GRAB_SIZE, memoryReserve );
-            if ( slabGrab < bytes )
+            if ( partition.isAllocated( pointer, bytes ) )
             {
-                slabGrab = bytes;
-                Slab slab = new Slab( slabs, slabGrab, alignment );
-                if ( slab.canAllocate( bytes ) )
-                {
-                    memoryReserve -= slabGrab;
-                    slabs = slab;
-                    return slabs.allocate( bytes );
-                }
-                slab.free();
-                slabGrab = bytes + alignment;
+                return true;
             }
-            memoryReserve -= slabGrab;
-            slabs = new Slab( slabs, slabGrab, alignment );
         }
-        return slabs.allocate( bytes );
+        return false;
     }
 
     @Override
-    protected synchronized void finalize() throws Throwable
+    protected void finalize() throws Throwable
     {
         super.finalize();
-        Slab current = slabs;
+        for ( Partition partition : partitions )
+        {
+            partition.free();
+        }
+    }
+
+    private static class Partition
+    {
+        private final long alignment;
+        private final long slabAlignment;
+        private final long grabSize;
+
+        /**
+         * The amount of memory that this partition can still allocate.
+         */
+        private long memoryReserve;
+        private Slab slabs;
+
+        Partition( long memoryReserve, long alignment, long slabAlignment, long grabSize )
+        {
+            this.memoryReserve = memoryReserve;
+            this.alignment = alignment;
+            this.slabAlignment = slabAlignment;
+            this.grabSize = grabSize;
+        }
 
-        while ( current != null )
+        synchronized long allocateAligned( long bytes )
         {
-            current.free();
-            current = current.next;
+            if ( slabs == null || !slabs.canAllocate( bytes ) )
+            {
+                long slabGrab = Math.min( grabSize, memoryReserve );
+                if ( slabGrab < bytes )
+                {
+                    slabGrab = bytes;
+                    Slab slab = new Slab( slabs, slabGrab, alignment, slabAlignment );
+                    if ( slab.canAllocate( bytes ) )
+                    {
+                        memoryReserve -= slabGrab;
+                        slabs = slab;
+                        return slabs.allocate( bytes );
+                    }
+                    slab.free();
+                    slabGrab = bytes + alignment;
+                }
+                memoryReserve -= slabGrab;
+                slabs = new Slab( slabs, slabGrab, alignment, slabAlignment );
+            }
+            return slabs.allocate( bytes );
+        }
+
+        synchronized boolean isAllocated( long pointer, long bytes )
+        {
+            for ( Slab slab = slabs; slab != null; slab = slab.next )
+            {
+                if ( slab.isAllocated( pointer, bytes ) )
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        synchronized void free()
+        {
+            Slab current = slabs;
+
+            while ( current != null )
+            {
+                current.free();
+                current = current.next;
+            }
         }
     }
 
@@ -101,21 +197,27 @@ public final class MemoryManager
     {
         public final Slab next;
         private final long address;
+        private final long allocatedSize;
         private final long limit;
         private final long alignMask;
         private long nextAlignedPointer;
 
-        public Slab( Slab next, long size, long alignment )
+        public Slab( Slab next, long size, long alignment, long slabAlignment )
         {
             this.next = next;
-            this.address = UnsafeUtil.allocateMemory( size );
-            this.limit = address + size;
+            // Only pad the allocation when the slab needs a coarser alignment than the pointers we hand out
+            long padding = slabAlignment > alignment ? slabAlignment - 1 : 0;
+            this.allocatedSize = size + padding;
+            this.address = UnsafeUtil.allocateMemory( allocatedSize );
+            long slabStart = nextAligned( address, slabAlignment - 1 );
+            // Without padding, aligning the start of the slab eats into its size, instead of into the padding
+            this.limit = padding == 0 ? address + size : slabStart + size;
             this.alignMask = alignment - 1;
 
-            nextAlignedPointer = nextAligned( address );
+            nextAlignedPointer = nextAligned( slabStart, alignMask );
         }
 
-        private long nextAligned( long pointer )
+        private static long nextAligned( long pointer, long alignMask )
         {
             if ( (pointer & ~alignMask) == pointer )
             {
@@ -127,7 +229,7 @@ public final class MemoryManager
         public long allocate( long bytes )
         {
             long allocation = nextAlignedPointer;
-            nextAlignedPointer = nextAligned( nextAlignedPointer + bytes );
+            nextAlignedPointer = nextAligned( nextAlignedPointer + bytes, alignMask );
             return allocation;
         }
 
@@ -140,5 +242,10 @@ public final class MemoryManager
         {
             return nextAlignedPointer + bytes <= limit;
         }
+
+        boolean isAllocated( long pointer, long bytes )
+        {
+            return address <= pointer && pointer + bytes <= address + allocatedSize;
+        }
     }
 }
@@ -25,6 +25,7 @@ import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
+import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
@@ -53,6 +54,7 @@ public final class UnsafeUtil
 
     private static final Unsafe unsafe;
     private static final MethodHandle sharedStringConstructor;
+    private static final MethodHandle directByteBufferCleaner;
     private static final String allowUnalignedMemoryAccessProperty =
             "org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil.allowUnalignedMemoryAccess";
 
@@ -75,6 +77,7 @@ public final class UnsafeUtil
 
         MethodHandles.Lookup lookup = MethodHandles.lookup();
         sharedStringConstructor = getSharedStringConstructorMethodHandle( lookup );
+        directByteBufferCleaner = getDirectByteBufferCleanerMethodHandle( lookup );
 
         Class<?> dbbClass = null;
         Constructor<?> ctor = null;
@@ -194,6 +197,33 @@ public final class UnsafeUtil
         }
     }
 
+    private static MethodHandle getDirectByteBufferCleanerMethodHandle( MethodHandles.Lookup lookup )
+    {
+        try
+        {
+            // Java 9 and later: sun.misc.Unsafe.invokeCleaner(ByteBuffer)
+            Method invokeCleaner = Unsafe.class.getMethod( "invokeCleaner", ByteBuffer.class );
+            return lookup.unreflect( invokeCleaner ).bindTo( unsafe );
+        }
+        catch ( Exception e )
+        {
+            // Java 8: ((sun.nio.ch.DirectBuffer) buffer).cleaner().clean()
+            try
+            {
+                Method cleaner = Class.forName( "sun.nio.ch.DirectBuffer" ).getMethod( "cleaner" );
+                Method clean = Class.forName( "sun.misc.Cleaner" ).getMethod( "clean" );
+                MethodHandle cleanerHandle = lookup.unreflect( cleaner );
+                MethodHandle cleanHandle = lookup.unreflect( clean );
+                cleanerHandle = cleanerHandle.asType( cleanerHandle.type().changeParameterType( 0, ByteBuffer.class ) );
+                return MethodHandles.filterReturnValue( cleanerHandle, cleanHandle );
+            }
+            catch ( Exception e1 )
+            {
+                return null;
+            }
+        }
+    }
+
     private static MethodHandle getSharedStringConstructorMethodHandle(
             MethodHandles.Lookup lookup )
     {
@@ -256,6 +286,24 @@ public final class UnsafeUtil
         return unsafe.compareAndSwapLong( obj, offset, expected, update );
     }
 
+    /**
+     * Same as compareAndSwapLong, but for int fields.
+     */
+    public static boolean compareAndSwapInt( Object obj, long offset, int expected, int update )
+    {
+        return unsafe.compareAndSwapInt( obj, offset, expected, update );
+    }
+
+    /**
+     * Atomically set the given int field to the new value, and return its previous value.
+     * <p>
+     * This has the memory visibility semantics of a volatile read followed by a volatile write.
+     */
+    public static int getAndSetInt( Object obj, long offset, int newValue )
+    {
+        return unsafe.getAndSetInt( obj, offset, newValue );
+    }
+
     /**
      * Same as compareAndSwapLong, but for object references.
      */
@@ -714,4 +762,29 @@ public final class UnsafeUtil
         unsafe.putInt( dbb, directByteBufferCapacityOffset, cap );
         unsafe.putLong( dbb, directByteBufferAddressOffset, addr );
     }
+
+    /**
+     * Release the memory, or the memory mapping, of the given direct ByteBuffer right away, instead of when it is
+     * garbage collected. The buffer must not be accessed in any way afterwards.
+     *
+     * @return {@code true} if the buffer was released, or {@code false} if this is not supported by the JVM, or the
+     * buffer is not a direct buffer, or it is a slice or a duplicate of another buffer.
+     */
+    public static boolean invokeCleaner( ByteBuffer buffer )
+    {
+        if ( directByteBufferCleaner == null || !buffer.isDirect() )
+        {
+            return false;
+        }
+        try
+        {
+            directByteBufferCleaner.invokeExact( buffer );
+            return true;
+        }
+        catch ( Throwable e )
+        {
+            // Slices and duplicates have no cleaner of their own
+            return false;
+        }
+    }
 }
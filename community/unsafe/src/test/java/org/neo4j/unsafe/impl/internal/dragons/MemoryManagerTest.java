@@ -24,6 +24,7 @@ import org.junit.Test;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 
 public class MemoryManagerTest
 {
@@ -53,4 +54,52 @@ public class MemoryManagerTest
         }
         // Also asserts that no OutOfMemoryError is thrown.
     }
+
+    @Test
+    public void allocatedPointersMustBeWithinSlabsAlignedToSlabAlignment() throws Exception
+    {
+        long slabAlignment = 2 * 1024 * 1024;
+        MemoryManager mman = new MemoryManager( 4 * slabAlignment, 8192, slabAlignment, 1 );
+        long first = mman.allocateAligned( 8192 );
+        assertThat( first % slabAlignment, is( 0L ) );
+        for ( int i = 1; i < slabAlignment / 8192; i++ )
+        {
+            assertThat( mman.allocateAligned( 8192 ), is( first + i * 8192L ) );
+        }
+    }
+
+    @Test
+    public void allocatedPointersMustStayWithinAllocatedMemoryWhenSlabAlignmentIsTheAlignment() throws Exception
+    {
+        long alignment = 4096;
+        int pages = 1000;
+        MemoryManager mman = new MemoryManager( pages * alignment, alignment, alignment, 1 );
+        for ( int i = 0; i < pages; i++ )
+        {
+            long address = mman.allocateAligned( alignment );
+            assertThat( address % alignment, is( 0L ) );
+            assertTrue( "page " + i + " at " + address + " is outside of the allocated memory",
+                    mman.isAllocated( address, alignment ) );
+        }
+    }
+
+    @Test
+    public void mustBeAbleToAllocateFromManyPartitions() throws Exception
+    {
+        MemoryManager mman = new MemoryManager( 16 * 4096, UnsafeUtil.pageSize(), UnsafeUtil.pageSize(), 4 );
+        Thread[] threads = new Thread[8];
+        long[] addresses = new long[threads.length];
+        for ( int i = 0; i < threads.length; i++ )
+        {
+            int index = i;
+            threads[i] = new Thread( () -> addresses[index] = mman.allocateAligned( 8192 ) );
+            threads[i].start();
+        }
+        for ( int i = 0; i < threads.length; i++ )
+        {
+            threads[i].join();
+            assertThat( addresses[i] % UnsafeUtil.pageSize(), is( 0L ) );
+            assertThat( addresses[i], is( not( 0L ) ) );
+        }
+    }
 }
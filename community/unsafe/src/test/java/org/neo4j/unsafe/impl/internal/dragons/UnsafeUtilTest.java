@@ -472,4 +472,13 @@ public class UnsafeUtilTest
             free( address );
         }
     }
+
+    @Test
+    public void invokeCleanerMustOnlyReleaseDirectBuffersThatOwnTheirMemory() throws Exception
+    {
+        ByteBuffer direct = ByteBuffer.allocateDirect( 313 );
+        assertFalse( invokeCleaner( ByteBuffer.allocate( 313 ) ) );
+        assertFalse( invokeCleaner( direct.duplicate() ) );
+        assertTrue( invokeCleaner( direct ) );
+    }
 }
@@ -22,6 +22,7 @@ package org.neo4j.com.storecopy;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.OpenOption;
+import java.util.List;
 import java.util.Map;
 
 import org.neo4j.graphdb.GraphDatabaseService;
@@ -79,12 +80,30 @@ public class ExternallyManagedPageCache implements PageCache
         delegate.flushAndForce( limiter );
     }
 
+    @Override
+    public long flushDirtyPages( long maxPages, IOLimiter limiter ) throws IOException
+    {
+        return delegate.flushDirtyPages( maxPages, limiter );
+    }
+
+    @Override
+    public long dirtyPages()
+    {
+        return delegate.dirtyPages();
+    }
+
     @Override
     public int pageSize()
     {
         return delegate.pageSize();
     }
 
+    @Override
+    public List<PagedFile> listExistingMappings() throws IOException
+    {
+        return delegate.listExistingMappings();
+    }
+
     @Override
     public int maxCachedPages()
     {
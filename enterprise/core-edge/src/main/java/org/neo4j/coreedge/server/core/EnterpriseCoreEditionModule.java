@@ -124,7 +124,7 @@ import org.neo4j.kernel.impl.api.index.RemoveOrphanConstraintIndexesOnStartup;
 import org.neo4j.kernel.impl.core.RelationshipTypeToken;
 import org.neo4j.kernel.impl.coreapi.CoreAPIAvailabilityGuard;
 import org.neo4j.kernel.impl.enterprise.EnterpriseConstraintSemantics;
-import org.neo4j.kernel.impl.enterprise.transaction.log.checkpoint.ConfigurableIOLimiter;
+import org.neo4j.kernel.impl.enterprise.transaction.log.checkpoint.IOLimiters;
 import org.neo4j.kernel.impl.factory.CommunityEditionModule;
 import org.neo4j.kernel.impl.factory.DatabaseInfo;
 import org.neo4j.kernel.impl.factory.EditionModule;
@@ -190,7 +190,7 @@ public class EnterpriseCoreEditionModule extends EditionModule
     EnterpriseCoreEditionModule(final PlatformModule platformModule,
                                 DiscoveryServiceFactory discoveryServiceFactory)
     {
-        ioLimiter = new ConfigurableIOLimiter( platformModule.config );
+        ioLimiter = IOLimiters.create( platformModule.config, platformModule.tracers );
 
         final Dependencies dependencies = platformModule.dependencies;
         final Config config = platformModule.config;
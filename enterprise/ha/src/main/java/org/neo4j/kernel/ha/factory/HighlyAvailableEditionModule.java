@@ -127,7 +127,7 @@ import org.neo4j.kernel.impl.core.TokenCreator;
 import org.neo4j.kernel.impl.coreapi.CoreAPIAvailabilityGuard;
 import org.neo4j.kernel.impl.enterprise.EnterpriseConstraintSemantics;
 import org.neo4j.kernel.impl.enterprise.EnterpriseEditionModule;
-import org.neo4j.kernel.impl.enterprise.transaction.log.checkpoint.ConfigurableIOLimiter;
+import org.neo4j.kernel.impl.enterprise.transaction.log.checkpoint.IOLimiters;
 import org.neo4j.kernel.impl.factory.CommunityEditionModule;
 import org.neo4j.kernel.impl.factory.DatabaseInfo;
 import org.neo4j.kernel.impl.factory.EditionModule;
@@ -173,7 +173,7 @@ public class HighlyAvailableEditionModule
 
     public HighlyAvailableEditionModule( final PlatformModule platformModule )
     {
-        ioLimiter = new ConfigurableIOLimiter( platformModule.config );
+        ioLimiter = IOLimiters.create( platformModule.config, platformModule.tracers );
 
         final LifeSupport life = platformModule.life;
         life.add( platformModule.dataSourceManager );
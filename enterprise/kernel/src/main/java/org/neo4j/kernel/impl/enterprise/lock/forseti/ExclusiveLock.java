@@ -42,12 +42,27 @@ class ExclusiveLock implements ForsetiLockManager.Lock
         return owner.isWaitingFor( client ) ? owner.id() : -1;
     }
 
+    @Override
+    public void addWaiterToHolders( ForsetiClient waiter )
+    {
+        if ( owner != waiter )
+        {
+            owner.addWaitingClient( waiter );
+        }
+    }
+
     @Override
     public String describeWaitList()
     {
         return "ExclusiveLock[" + owner.describeWaitList() + "]";
     }
 
+    @Override
+    public String describeHolders()
+    {
+        return owner.toString();
+    }
+
     @Override
     public String toString()
     {
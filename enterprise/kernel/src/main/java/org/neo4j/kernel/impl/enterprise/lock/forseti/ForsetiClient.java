@@ -19,7 +19,11 @@
  */
 package org.neo4j.kernel.impl.enterprise.lock.forseti;
 
-import java.util.concurrent.ConcurrentMap;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 import java.util.function.IntFunction;
 
 import org.neo4j.collection.pool.Pool;
@@ -31,6 +35,7 @@ import org.neo4j.kernel.DeadlockDetectedException;
 import org.neo4j.kernel.impl.enterprise.lock.forseti.ForsetiLockManager.DeadlockResolutionStrategy;
 import org.neo4j.kernel.impl.locking.LockClientStateHolder;
 import org.neo4j.kernel.impl.locking.LockClientStoppedException;
+import org.neo4j.kernel.impl.locking.LockContentionProfiler;
 import org.neo4j.kernel.impl.locking.Locks;
 import org.neo4j.kernel.impl.util.collection.SimpleBitSet;
 import org.neo4j.storageengine.api.lock.AcquireLockTimeoutException;
@@ -54,11 +59,22 @@ import static java.lang.String.format;
  */
 public class ForsetiClient implements Locks.Client
 {
+    /**
+     * Number of tries at grabbing a contended lock during which we back off according to the wait strategy of the
+     * resource type, before we start parking.
+     */
+    private static final int SPIN_TRIES = 64;
+
+    /** The first park is this short, and each following park doubles in length, up to {@link #MAX_PARK_NANOS}. */
+    private static final long MIN_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos( 10 );
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos( 10 );
+    private static final int MAX_PARK_SHIFT = 10;
+
     /** Id for this client */
     private final int clientId;
 
-    /** resourceType -> lock map. These are the global lock maps, shared across all clients. */
-    private final ConcurrentMap<Long,ForsetiLockManager.Lock>[] lockMaps;
+    /** resourceType -> lock table. These are the global lock tables, shared across all clients. */
+    private final LockTable[] lockTables;
 
     /** resourceType -> wait strategy */
     private final WaitStrategy<AcquireLockTimeoutException>[] waitStrategies;
@@ -87,6 +103,23 @@ public class ForsetiClient implements Locks.Client
     /** List of other clients this client is waiting for. */
     private final SimpleBitSet waitList = new SimpleBitSet( 64 );
 
+    /** Scratch space for recomputing our wait list, such that it only ever changes when who we wait for changes. */
+    private final SimpleBitSet nextWaitList = new SimpleBitSet( 64 );
+
+    /**
+     * Clients that are waiting for a lock held by this client, i.e. our incoming edges in the wait-for graph. We
+     * wake them up whenever we release a lock, or when our own wait list changes, such that they can retry, or pass
+     * the change on to whoever is waiting for them in turn. Waking a client removes its edge; a client that still has
+     * to wait adds it back.
+     */
+    private final Set<ForsetiClient> waitingClients = ConcurrentHashMap.newKeySet();
+
+    /** The thread waiting for a lock on behalf of this client, or null if this client is not waiting. */
+    private volatile Thread waitingThread;
+
+    /** Records lock acquisitions that had to wait, and who they waited for. Shared across all clients. */
+    private final LockContentionProfiler contentionProfiler;
+
     // To be able to close Locks.Client instance properly we should be able to do couple of things:
     //  - have a possibility to prevent new clients to come
     //  - wake up all the waiters and let them go
@@ -97,27 +130,37 @@ public class ForsetiClient implements Locks.Client
 
     /**
      * For exclusive locks, we only need a single re-usable one per client. We simply CAS this lock into whatever slots
-     * we want to hold in the global lock map.
+     * we want to hold in the global lock table.
      */
     private final ExclusiveLock myExclusiveLock = new ExclusiveLock( this );
 
+    /**
+     * A shared lock that this client created but never managed to put into a lock table, kept for re-use by the next
+     * shared lock this client creates. Only such unpublished locks are pooled: once a shared lock has been in a lock
+     * table, other clients may still hold a reference to it, and re-using it for another resource would let them
+     * acquire the wrong lock.
+     */
+    private SharedLock spareSharedLock;
+
     private volatile boolean hasLocks;
 
     public ForsetiClient( int id,
-                          ConcurrentMap<Long,ForsetiLockManager.Lock>[] lockMaps,
+                          LockTable[] lockTables,
                           WaitStrategy<AcquireLockTimeoutException>[] waitStrategies,
                           Pool<ForsetiClient> clientPool,
                           DeadlockResolutionStrategy deadlockResolutionStrategy,
-                          IntFunction<ForsetiClient> clientById )
+                          IntFunction<ForsetiClient> clientById,
+                          LockContentionProfiler contentionProfiler )
     {
         this.clientId = id;
-        this.lockMaps = lockMaps;
+        this.lockTables = lockTables;
         this.waitStrategies = waitStrategies;
         this.deadlockResolutionStrategy = deadlockResolutionStrategy;
         this.clientPool = clientPool;
         this.clientById = clientById;
-        this.sharedLockCounts = new PrimitiveLongIntMap[lockMaps.length];
-        this.exclusiveLockCounts = new PrimitiveLongIntMap[lockMaps.length];
+        this.contentionProfiler = contentionProfiler;
+        this.sharedLockCounts = new PrimitiveLongIntMap[lockTables.length];
+        this.exclusiveLockCounts = new PrimitiveLongIntMap[lockTables.length];
 
         for ( int i = 0; i < sharedLockCounts.length; i++ )
         {
@@ -143,8 +186,8 @@ public class ForsetiClient implements Locks.Client
 
         try
         {
-            // Grab the global lock map we will be using
-            ConcurrentMap<Long,ForsetiLockManager.Lock> lockMap = lockMaps[resourceType.typeId()];
+            // Grab the global lock table we will be using
+            LockTable lockTable = lockTables[resourceType.typeId()];
 
             // And grab our local lock maps
             PrimitiveLongIntMap heldShareLocks = sharedLockCounts[resourceType.typeId()];
@@ -168,8 +211,10 @@ public class ForsetiClient implements Locks.Client
                 return;
             }
 
-            // We don't hold the lock, so we need to grab it via the global lock map
+            // We don't hold the lock, so we need to grab it via the global lock table
             int tries = 0;
+            long waitStartNanos = 0;
+            String holders = null;
             SharedLock mySharedLock = null;
 
             // Retry loop
@@ -178,7 +223,7 @@ public class ForsetiClient implements Locks.Client
                 assertNotStopped();
 
                 // Check if there is a lock for this entity in the map
-                ForsetiLockManager.Lock existingLock = lockMap.get( resourceId );
+                ForsetiLockManager.Lock existingLock = lockTable.get( resourceId );
 
                 // No lock
                 if ( existingLock == null )
@@ -186,12 +231,13 @@ public class ForsetiClient implements Locks.Client
                     // Try to create a new shared lock
                     if ( mySharedLock == null )
                     {
-                        mySharedLock = new SharedLock( this );
+                        mySharedLock = newSharedLock();
                     }
 
-                    if ( lockMap.putIfAbsent( resourceId, mySharedLock ) == null )
+                    if ( lockTable.putIfAbsent( resourceId, mySharedLock ) == null )
                     {
                         // Success, we now hold the shared lock.
+                        mySharedLock = null;
                         break;
                     }
                     else
@@ -220,14 +266,21 @@ public class ForsetiClient implements Locks.Client
                     throw new UnsupportedOperationException( "Unknown lock type: " + existingLock );
                 }
 
-                applyWaitStrategy( resourceType, tries++ );
+                if ( waitStartNanos == 0 )
+                {
+                    waitStartNanos = System.nanoTime();
+                    holders = existingLock.describeHolders();
+                }
 
-                // And take note of who we are waiting for. This is used for deadlock detection.
+                // Take note of who we are waiting for. This is used for deadlock detection, and to get woken up.
                 markAsWaitingFor( existingLock, resourceType, resourceId );
+                waitForLock( resourceType, tries++, lockTable.get( resourceId ) == existingLock );
             }
 
             // Got the lock, no longer waiting for anyone.
             clearWaitList();
+            recordWait( resourceType, resourceId, waitStartNanos, holders );
+            recycleUnpublishedSharedLock( mySharedLock );
 
             // Make a local note about the fact that we now hold this lock
             heldShareLocks.put( resourceId, 1 );
@@ -246,7 +299,7 @@ public class ForsetiClient implements Locks.Client
 
         try
         {
-            ConcurrentMap<Long,ForsetiLockManager.Lock> lockMap = lockMaps[resourceType.typeId()];
+            LockTable lockTable = lockTables[resourceType.typeId()];
             PrimitiveLongIntMap heldLocks = exclusiveLockCounts[resourceType.typeId()];
 
             int heldCount = heldLocks.get( resourceId );
@@ -260,7 +313,9 @@ public class ForsetiClient implements Locks.Client
             // Grab the global lock
             ForsetiLockManager.Lock existingLock;
             int tries = 0;
-            while ( (existingLock = lockMap.putIfAbsent( resourceId, myExclusiveLock )) != null )
+            long waitStartNanos = 0;
+            String holders = null;
+            while ( (existingLock = lockTable.putIfAbsent( resourceId, myExclusiveLock )) != null )
             {
                 assertNotStopped();
 
@@ -271,17 +326,23 @@ public class ForsetiClient implements Locks.Client
                 {
                     // Then we should upgrade that lock
                     SharedLock sharedLock = (SharedLock) existingLock;
-                    if ( tryUpgradeSharedToExclusive( resourceType, lockMap, resourceId, sharedLock ) )
+                    if ( tryUpgradeSharedToExclusive( resourceType, lockTable, resourceId, sharedLock ) )
                     {
                         break;
                     }
                 }
 
-                applyWaitStrategy( resourceType, tries++ );
+                if ( waitStartNanos == 0 )
+                {
+                    waitStartNanos = System.nanoTime();
+                    holders = existingLock.describeHolders();
+                }
                 markAsWaitingFor( existingLock, resourceType, resourceId );
+                waitForLock( resourceType, tries++, lockTable.get( resourceId ) == existingLock );
             }
 
             clearWaitList();
+            recordWait( resourceType, resourceId, waitStartNanos, holders );
             heldLocks.put( resourceId, 1 );
         }
         finally
@@ -298,7 +359,7 @@ public class ForsetiClient implements Locks.Client
 
         try
         {
-            ConcurrentMap<Long,ForsetiLockManager.Lock> lockMap = lockMaps[resourceType.typeId()];
+            LockTable lockTable = lockTables[resourceType.typeId()];
             PrimitiveLongIntMap heldLocks = exclusiveLockCounts[resourceType.typeId()];
 
             int heldCount = heldLocks.get( resourceId );
@@ -311,7 +372,7 @@ public class ForsetiClient implements Locks.Client
 
             // Grab the global lock
             ForsetiLockManager.Lock lock;
-            if ( (lock = lockMap.putIfAbsent( resourceId, myExclusiveLock )) != null )
+            if ( (lock = lockTable.putIfAbsent( resourceId, myExclusiveLock )) != null )
             {
                 if ( lock instanceof SharedLock && sharedLockCounts[resourceType.typeId()].containsKey( resourceId ) )
                 {
@@ -326,6 +387,7 @@ public class ForsetiClient implements Locks.Client
                         else
                         {
                             sharedLock.releaseUpdateLock( this );
+                            wakeWaitingClients();
                             return false;
                         }
                     }
@@ -350,7 +412,7 @@ public class ForsetiClient implements Locks.Client
 
         try
         {
-            ConcurrentMap<Long,ForsetiLockManager.Lock> lockMap = lockMaps[resourceType.typeId()];
+            LockTable lockTable = lockTables[resourceType.typeId()];
             PrimitiveLongIntMap heldShareLocks = sharedLockCounts[resourceType.typeId()];
             PrimitiveLongIntMap heldExclusiveLocks = exclusiveLockCounts[resourceType.typeId()];
 
@@ -374,15 +436,17 @@ public class ForsetiClient implements Locks.Client
             {
                 assertNotStopped();
 
-                ForsetiLockManager.Lock existingLock = lockMap.get( resourceId );
+                ForsetiLockManager.Lock existingLock = lockTable.get( resourceId );
                 if ( existingLock == null )
                 {
                     // Try to create a new shared lock
-                    if ( lockMap.putIfAbsent( resourceId, new SharedLock( this ) ) == null )
+                    SharedLock mySharedLock = newSharedLock();
+                    if ( lockTable.putIfAbsent( resourceId, mySharedLock ) == null )
                     {
                         // Success!
                         break;
                     }
+                    recycleUnpublishedSharedLock( mySharedLock );
                 }
                 else if ( existingLock instanceof SharedLock )
                 {
@@ -432,7 +496,7 @@ public class ForsetiClient implements Locks.Client
             // Only release if we were not holding an exclusive lock as well
             if ( !exclusiveLockCounts[resourceType.typeId()].containsKey( resourceId ) )
             {
-                releaseGlobalLock( lockMaps[resourceType.typeId()], resourceId );
+                releaseGlobalLock( lockTables[resourceType.typeId()], resourceId );
             }
         }
         finally
@@ -453,17 +517,18 @@ public class ForsetiClient implements Locks.Client
                 return;
             }
 
-            ConcurrentMap<Long,ForsetiLockManager.Lock> lockMap = lockMaps[resourceType.typeId()];
+            LockTable lockTable = lockTables[resourceType.typeId()];
             if ( sharedLockCounts[resourceType.typeId()].containsKey( resourceId ) )
             {
                 // We are still holding a shared lock, so we will release it to be reused
-                ForsetiLockManager.Lock lock = lockMap.get( resourceId );
+                ForsetiLockManager.Lock lock = lockTable.get( resourceId );
                 if ( lock instanceof SharedLock )
                 {
                     SharedLock sharedLock = (SharedLock) lock;
                     if ( sharedLock.isUpdateLock() )
                     {
                         sharedLock.releaseUpdateLock( this );
+                        wakeWaitingClients();
                     }
                     else
                     {
@@ -474,14 +539,14 @@ public class ForsetiClient implements Locks.Client
                 else
                 {
                     // in case if current lock is exclusive we swap it to new shared lock
-                    SharedLock sharedLock = new SharedLock( this );
-                    lockMap.put( resourceId, sharedLock );
+                    lockTable.put( resourceId, newSharedLock() );
+                    wakeWaitingClients();
                 }
             }
             else
             {
                 // we do not hold shared lock so we just releasing it
-                releaseGlobalLock( lockMap, resourceId );
+                releaseGlobalLock( lockTable, resourceId );
             }
         }
         finally
@@ -505,7 +570,7 @@ public class ForsetiClient implements Locks.Client
             {
                 int size = exclusiveLocks.size();
                 exclusiveLocks.visitKeys(
-                        releaseExclusiveAndClearSharedVisitor.initialize( sharedLocks, lockMaps[i] ) );
+                        releaseExclusiveAndClearSharedVisitor.initialize( sharedLocks, lockTables[i] ) );
                 if ( size <= 32 )
                 {
                     // If the map is small, its fast and nice to GC to clear it. However, if its large, it is
@@ -526,7 +591,7 @@ public class ForsetiClient implements Locks.Client
             if ( sharedLocks != null )
             {
                 int size = sharedLocks.size();
-                sharedLocks.visitKeys( releaseSharedDontCheckExclusiveVisitor.initialize( lockMaps[i] ) );
+                sharedLocks.visitKeys( releaseSharedDontCheckExclusiveVisitor.initialize( lockTables[i] ) );
                 if ( size <= 32 )
                 {
                     // If the map is small, its fast and nice to GC to clear it. However, if its large, it is
@@ -550,6 +615,8 @@ public class ForsetiClient implements Locks.Client
     {
         // marking client as closed
         stateHolder.stopClient();
+        // wake up our thread if it is parked waiting for a lock, so that it notices
+        wakeUp();
         // waiting for all operations to be completed
         while ( stateHolder.hasActiveClients() )
         {
@@ -632,20 +699,21 @@ public class ForsetiClient implements Locks.Client
     }
 
     /** Release a lock from the global pool. */
-    private void releaseGlobalLock( ConcurrentMap<Long,ForsetiLockManager.Lock> lockMap, long resourceId )
+    private void releaseGlobalLock( LockTable lockTable, long resourceId )
     {
-        ForsetiLockManager.Lock lock = lockMap.get( resourceId );
+        ForsetiLockManager.Lock lock = lockTable.get( resourceId );
         if ( lock instanceof ExclusiveLock )
         {
-            lockMap.remove( resourceId );
+            lockTable.remove( resourceId );
         }
         else if ( lock instanceof SharedLock && ((SharedLock) lock).release( this ) )
         {
             // We were the last to hold this lock, it is now dead and we should remove it.
             // Also cleaning updater referense that can hold lock in memory
             ((SharedLock) lock).cleanUpdateHolder();
-            lockMap.remove( resourceId );
+            lockTable.remove( resourceId );
         }
+        wakeWaitingClients();
     }
 
     /** Release a lock locally, and return true if we still hold more references to that lock. */
@@ -670,7 +738,7 @@ public class ForsetiClient implements Locks.Client
      * Attempt to upgrade a share lock to an exclusive lock, grabbing the share lock if we don't hold it.
      **/
     private boolean tryUpgradeSharedToExclusive( ResourceType resourceType,
-                                                 ConcurrentMap<Long,ForsetiLockManager.Lock> lockMap,
+                                                 LockTable lockTable,
                                                  long resourceId, SharedLock sharedLock )
             throws AcquireLockTimeoutException
     {
@@ -692,13 +760,13 @@ public class ForsetiClient implements Locks.Client
                 }
                 else
                 {
-                    releaseGlobalLock( lockMap, resourceId );
+                    releaseGlobalLock( lockTable, resourceId );
                     return false;
                 }
             }
             catch ( Throwable e )
             {
-                releaseGlobalLock( lockMap, resourceId );
+                releaseGlobalLock( lockTable, resourceId );
                 throw e;
             }
         }
@@ -723,8 +791,8 @@ public class ForsetiClient implements Locks.Client
                 // Now we just wait for all clients to release the the share lock
                 while ( sharedLock.numberOfHolders() > 1 )
                 {
-                    applyWaitStrategy( resourceType, tries++ );
                     markAsWaitingFor( sharedLock, resourceType, resourceId );
+                    waitForLock( resourceType, tries++, sharedLock.numberOfHolders() > 1 );
                 }
 
                 return true;
@@ -733,6 +801,7 @@ public class ForsetiClient implements Locks.Client
             catch ( DeadlockDetectedException e )
             {
                 sharedLock.releaseUpdateLock( this );
+                wakeWaitingClients();
                 // wait list is not cleared here as in other catch blocks because it is cleared in
                 // markAsWaitingFor() before throwing DeadlockDetectedException
                 throw e;
@@ -751,22 +820,60 @@ public class ForsetiClient implements Locks.Client
         return false;
     }
 
+    private SharedLock newSharedLock()
+    {
+        SharedLock sharedLock = spareSharedLock;
+        if ( sharedLock == null )
+        {
+            return new SharedLock( this );
+        }
+        spareSharedLock = null;
+        return sharedLock;
+    }
+
+    private void recycleUnpublishedSharedLock( SharedLock sharedLock )
+    {
+        if ( sharedLock != null )
+        {
+            spareSharedLock = sharedLock;
+        }
+    }
+
     private void handleUpgradeToExclusiveFailure( SharedLock sharedLock )
     {
         sharedLock.releaseUpdateLock( this );
+        wakeWaitingClients();
         clearWaitList();
     }
 
     private void clearWaitList()
     {
+        waitingThread = null;
+        boolean wasWaiting = waitList.size() > 1;
         waitList.clear();
         waitList.put( clientId );
+        if ( wasWaiting )
+        {
+            // Those waiting for us must not keep thinking that they transitively wait for whoever we waited for
+            wakeWaitingClients();
+        }
     }
 
     private void markAsWaitingFor( ForsetiLockManager.Lock lock, ResourceType type, long resourceId )
     {
-        clearWaitList();
-        lock.copyHolderWaitListsInto( waitList );
+        waitingThread = Thread.currentThread();
+        lock.addWaiterToHolders( this );
+
+        nextWaitList.clear();
+        nextWaitList.put( clientId );
+        lock.copyHolderWaitListsInto( nextWaitList );
+        if ( !isWaitList( nextWaitList ) )
+        {
+            waitList.clear();
+            waitList.put( nextWaitList );
+            // Who we wait for has changed, so those waiting for us need to update their wait lists as well
+            wakeWaitingClients();
+        }
 
         int b = lock.detectDeadlock( id() );
         if ( b != -1 && deadlockResolutionStrategy.shouldAbort( this, clientById.apply( b ) ) )
@@ -784,6 +891,7 @@ public class ForsetiClient implements Locks.Client
             // after we've generated a description of it.
             if ( lock.detectDeadlock( id() ) != -1 )
             {
+                waitingThread = null;
                 waitList.clear();
                 throw new DeadlockDetectedException( message );
             }
@@ -832,14 +940,91 @@ public class ForsetiClient implements Locks.Client
         return clientId;
     }
 
-    private void applyWaitStrategy( ResourceType resourceType, int tries )
+    /**
+     * Wait for the lock we failed to grab. The first tries back off according to the wait strategy of the resource
+     * type, which is the cheapest way to wait for locks that are only held briefly. After that we park, and rely on
+     * the holders of the lock to wake us up. Each park is bounded by a timeout that grows exponentially with the
+     * number of tries, such that we still get to re-check for deadlocks if we ever miss a wake-up.
+     *
+     * @param stillBlocked whether the lock was still taken after we added ourselves as a waiter to its holders. If not,
+     * the lock may have been released before our registration was visible to the releaser, so we must not park.
+     */
+    private void waitForLock( ResourceType resourceType, int tries, boolean stillBlocked )
     {
-        WaitStrategy<AcquireLockTimeoutException> waitStrategy = waitStrategies[resourceType.typeId()];
-        waitStrategy.apply( tries );
+        assertNotStopped();
+
+        if ( tries < SPIN_TRIES )
+        {
+            WaitStrategy<AcquireLockTimeoutException> waitStrategy = waitStrategies[resourceType.typeId()];
+            waitStrategy.apply( tries );
+        }
+        else if ( stillBlocked )
+        {
+            int shift = Math.min( tries - SPIN_TRIES, MAX_PARK_SHIFT );
+            LockSupport.parkNanos( this, Math.min( MIN_PARK_NANOS << shift, MAX_PARK_NANOS ) );
+            if ( Thread.interrupted() )
+            {
+                throw new AcquireLockTimeoutException( "Interrupted while waiting." );
+            }
+        }
 
         assertNotStopped();
     }
 
+    private boolean isWaitList( SimpleBitSet clients )
+    {
+        if ( clients.size() != waitList.size() )
+        {
+            return false;
+        }
+        PrimitiveIntIterator iterator = clients.iterator();
+        while ( iterator.hasNext() )
+        {
+            if ( !waitList.contains( iterator.next() ) )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Add an edge to the wait-for graph, from the given client to this client. */
+    void addWaitingClient( ForsetiClient waiter )
+    {
+        waitingClients.add( waiter );
+    }
+
+    private void wakeWaitingClients()
+    {
+        if ( !waitingClients.isEmpty() )
+        {
+            Iterator<ForsetiClient> waiters = waitingClients.iterator();
+            while ( waiters.hasNext() )
+            {
+                ForsetiClient waiter = waiters.next();
+                waiters.remove();
+                waiter.wakeUp();
+            }
+        }
+    }
+
+    private void wakeUp()
+    {
+        Thread thread = waitingThread;
+        if ( thread != null )
+        {
+            LockSupport.unpark( thread );
+        }
+    }
+
+    private void recordWait( ResourceType resourceType, long resourceId, long waitStartNanos, String holders )
+    {
+        if ( waitStartNanos != 0 )
+        {
+            contentionProfiler.lockWaited( resourceType, resourceId, System.nanoTime() - waitStartNanos, holders );
+        }
+    }
+
     private void assertNotStopped()
     {
         if ( stateHolder.isStopped() )
@@ -848,7 +1033,7 @@ public class ForsetiClient implements Locks.Client
         }
     }
 
-    // Visitors used for bulk ops on the lock maps (such as releasing all locks)
+    // Visitors used for bulk ops on the lock tables (such as releasing all locks)
 
     /**
      * Release all shared locks, assuming that there will be no exclusive locks held by this client, such that there
@@ -856,18 +1041,18 @@ public class ForsetiClient implements Locks.Client
      */
     private class ReleaseSharedDontCheckExclusiveVisitor implements PrimitiveLongVisitor<RuntimeException>
     {
-        private ConcurrentMap<Long,ForsetiLockManager.Lock> lockMap;
+        private LockTable lockTable;
 
-        private PrimitiveLongVisitor<RuntimeException> initialize( ConcurrentMap<Long,ForsetiLockManager.Lock> lockMap )
+        private PrimitiveLongVisitor<RuntimeException> initialize( LockTable lockTable )
         {
-            this.lockMap = lockMap;
+            this.lockTable = lockTable;
             return this;
         }
 
         @Override
         public boolean visited( long resourceId )
         {
-            releaseGlobalLock( lockMap, resourceId );
+            releaseGlobalLock( lockTable, resourceId );
             return false;
         }
     }
@@ -879,20 +1064,20 @@ public class ForsetiClient implements Locks.Client
     private class ReleaseExclusiveLocksAndClearSharedVisitor implements PrimitiveLongVisitor<RuntimeException>
     {
         private PrimitiveLongIntMap sharedLockCounts;
-        private ConcurrentMap<Long,ForsetiLockManager.Lock> lockMap;
+        private LockTable lockTable;
 
         private PrimitiveLongVisitor<RuntimeException> initialize( PrimitiveLongIntMap sharedLockCounts,
-                                                                   ConcurrentMap<Long,ForsetiLockManager.Lock> lockMap )
+                                                                   LockTable lockTable )
         {
             this.sharedLockCounts = sharedLockCounts;
-            this.lockMap = lockMap;
+            this.lockTable = lockTable;
             return this;
         }
 
         @Override
         public boolean visited( long resourceId )
         {
-            releaseGlobalLock( lockMap, resourceId );
+            releaseGlobalLock( lockTable, resourceId );
 
             // If we hold this as a shared lock, we can throw that shared lock away directly, since we haven't
             // followed the down-grade protocol.
@@ -19,7 +19,6 @@
  */
 package org.neo4j.kernel.impl.enterprise.lock.forseti;
 
-import java.util.Map;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
@@ -28,6 +27,10 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 import org.neo4j.collection.pool.LinkedQueuePool;
 import org.neo4j.collection.pool.Pool;
+import org.neo4j.io.pagecache.monitoring.LatencyHistogram;
+import org.neo4j.kernel.impl.locking.LockContentionMonitor;
+import org.neo4j.kernel.impl.locking.LockContentionProfiler;
+import org.neo4j.kernel.impl.locking.LockWaitMonitor;
 import org.neo4j.kernel.impl.locking.Locks;
 import org.neo4j.kernel.impl.util.collection.SimpleBitSet;
 import org.neo4j.storageengine.api.lock.AcquireLockTimeoutException;
@@ -50,12 +53,12 @@ import org.neo4j.storageengine.api.lock.WaitStrategy;
  * <h2>Locking algorithm</h2>
  * <p/>
  * Forseti is used by acquiring clients, which act as agents on behalf of whoever wants to grab locks. The clients
- * have access to a central map of locks.
+ * have access to a central {@link LockTable table of locks} per resource type.
  * <p/>
  * To grab a lock, a client must insert itself into the holder list of the lock it wants. The lock may either be a
  * shared lock or an exclusive lock. In the case of a shared lock, the client simply appends itself to the holder list.
- * In the case of an exclusive lock, the client has it's own unique exclusive lock, which it must put into the lock map
- * using a CAS operation.
+ * In the case of an exclusive lock, the client has it's own unique exclusive lock, which it must put into the lock
+ * table using a CAS operation.
  * <p/>
  * Once the client is in the holder list, it has the lock.
  * <p/>
@@ -76,25 +79,30 @@ import org.neo4j.storageengine.api.lock.WaitStrategy;
  * <p/>
  * A.waitlist = [A] U [B] => [A,B]
  * <p/>
- * It will do this in a loop, continiously figuring out the union of wait lists for all clients it waits for. The magic
- * then happens whenever one of those clients become blocked on client A. Assuming client B now has to wait for A,
- * it will also perform a union of A's wait list (which is [A,B] at this point):
+ * The magic then happens whenever one of those clients become blocked on client A. Assuming client B now has to wait
+ * for A, it will also perform a union of A's wait list (which is [A,B] at this point):
  * <p/>
  * B.waitlist = [B] U [A,B]
  * <p/>
  * As it performs this union, B will find itself in A's waiting list, and when it does, it has detected a deadlock.
  * <p/>
+ * <h2>Waiting</h2>
+ * <p/>
+ * A blocked client does not recompute its wait list in a loop. Instead, it adds itself as a waiter to every client
+ * holding the lock it wants, which makes up the edges of the wait-for graph, and after a short back off it parks.
+ * A client wakes its waiters up whenever it releases a lock, and whenever its own wait list changes. The waiters then
+ * retry grabbing their locks, and those that still have to wait recompute their wait lists, which propagates the
+ * change through the graph, one edge at a time. Every park is bounded by a timeout, so a missed wake-up only delays,
+ * and never prevents, detecting a deadlock.
+ * <p/>
  * <p/>
  * <h2>Future work</h2>
  * <p/>
  * We have at least one type of lock (SchemaLock) that can be held concurrently by several hundred transactions. It may
  * be worth investigating fat locks, or in any case optimize the current way SharedLock adds and removes clients from
  * its holder list.
- * <p/>
- * The maps used by Forseti should be replaced by faster concurrent maps, perhaps a striped hopscotch map or something
- * similar.
  */
-public class ForsetiLockManager implements Locks
+public class ForsetiLockManager implements Locks, LockWaitMonitor, LockContentionMonitor
 {
     /** This is Forsetis internal lock API, which it uses to do deadlock detection. */
     interface Lock
@@ -116,11 +124,23 @@ public class ForsetiLockManager implements Locks
          */
         int detectDeadlock( int client );
 
+        /**
+         * Register the given client as waiting for every other client currently holding this lock. Those are the
+         * edges of the wait-for graph, along which the holders wake the waiting client up when they release a lock,
+         * or when who they are waiting for themselves changes.
+         */
+        void addWaiterToHolders( ForsetiClient waiter );
+
         /**
          * For introspection and error messages, this gives a (somewhat) human-readable description of who is waiting
          * for the lock.
          */
         String describeWaitList();
+
+        /**
+         * For introspection, this gives a (somewhat) human-readable description of who is holding the lock.
+         */
+        String describeHolders();
     }
 
     /**
@@ -161,12 +181,18 @@ public class ForsetiLockManager implements Locks
         boolean shouldAbort( ForsetiClient clientThatsAsking, ForsetiClient clientWereDeadlockedWith );
     }
 
-    /** Pointers to lock maps, one array per resource type. */
-    private final ConcurrentMap<Long,ForsetiLockManager.Lock>[] lockMaps;
+    /** Number of stripes in each lock table, which bounds how many clients can modify a lock table concurrently. */
+    private static final int LOCK_TABLE_STRIPES = 64;
+
+    /** Pointers to lock tables, one per resource type. */
+    private final LockTable[] lockTables;
 
     /** Reverse lookup resource types by id, used for introspection */
     private final ResourceType[] resourceTypes;
 
+    /** Latencies of lock acquisitions that had to wait, and the resources they waited for the most. */
+    private final LockContentionProfiler contentionProfiler;
+
     /** Pool forseti clients. */
     private final Pool<ForsetiClient> clientPool;
 
@@ -176,15 +202,16 @@ public class ForsetiLockManager implements Locks
     public ForsetiLockManager( ResourceType... resourceTypes )
     {
         int maxResourceId = findMaxResourceId( resourceTypes );
-        this.lockMaps = new ConcurrentMap[maxResourceId];
+        this.lockTables = new LockTable[maxResourceId];
         this.resourceTypes = new ResourceType[maxResourceId];
+        this.contentionProfiler = new LockContentionProfiler( resourceTypes );
 
         /* Wait strategies per resource type */
         WaitStrategy<AcquireLockTimeoutException>[] waitStrategies = new WaitStrategy[maxResourceId];
 
         for ( ResourceType type : resourceTypes )
         {
-            this.lockMaps[type.typeId()] = new ConcurrentHashMap<>( 16, 0.6f, 512 );
+            this.lockTables[type.typeId()] = new LockTable( LOCK_TABLE_STRIPES );
             waitStrategies[type.typeId()] = type.waitStrategy();
             this.resourceTypes[type.typeId()] = type;
         }
@@ -193,7 +220,7 @@ public class ForsetiLockManager implements Locks
         // TODO be good enough. In fact, we could add the required fields for such a stack
         // TODO to the ForsetiClient objects themselves, making the stack garbage-free in
         // TODO the (presumably) common case of client re-use.
-        clientPool = new ForsetiClientFlyweightPool( lockMaps, waitStrategies );
+        clientPool = new ForsetiClientFlyweightPool( lockTables, waitStrategies, contentionProfiler );
     }
 
     /**
@@ -218,20 +245,29 @@ public class ForsetiLockManager implements Locks
     @Override
     public void accept( Visitor out )
     {
-        for ( int i = 0; i < lockMaps.length; i++ )
+        for ( int i = 0; i < lockTables.length; i++ )
         {
-            if ( lockMaps[i] != null )
+            if ( lockTables[i] != null )
             {
                 ResourceType type = resourceTypes[i];
-                for ( Map.Entry<Long,Lock> entry : lockMaps[i].entrySet() )
-                {
-                    Lock lock = entry.getValue();
-                    out.visit( type, entry.getKey(), lock.describeWaitList(), 0, System.identityHashCode( lock ) );
-                }
+                lockTables[i].visit( ( resourceId, lock ) -> out.visit(
+                        type, resourceId, lock.describeWaitList(), 0, System.identityHashCode( lock ) ) );
             }
         }
     }
 
+    @Override
+    public LatencyHistogram lockWaitLatency( ResourceType resourceType )
+    {
+        return contentionProfiler.lockWaitLatency( resourceType );
+    }
+
+    @Override
+    public void visitContendedResources( ContendedResourceVisitor visitor )
+    {
+        contentionProfiler.visitContendedResources( visitor );
+    }
+
     private int findMaxResourceId( ResourceType[] resourceTypes )
     {
         int max = 0;
@@ -258,17 +294,20 @@ public class ForsetiLockManager implements Locks
         // very limited set of integers.
         private final Queue<Integer> unusedIds = new ConcurrentLinkedQueue<>();
         private final ConcurrentMap<Integer,ForsetiClient> clientsById = new ConcurrentHashMap<>();
-        private final ConcurrentMap<Long,ForsetiLockManager.Lock>[] lockMaps;
+        private final LockTable[] lockTables;
         private final WaitStrategy<AcquireLockTimeoutException>[] waitStrategies;
+        private final LockContentionProfiler contentionProfiler;
         private final DeadlockResolutionStrategy deadlockResolutionStrategy = DeadlockStrategies.DEFAULT;
 
         public ForsetiClientFlyweightPool(
-                ConcurrentMap<Long,ForsetiLockManager.Lock>[] lockMaps,
-                WaitStrategy<AcquireLockTimeoutException>[] waitStrategies )
+                LockTable[] lockTables,
+                WaitStrategy<AcquireLockTimeoutException>[] waitStrategies,
+                LockContentionProfiler contentionProfiler )
         {
             super( 128, null );
-            this.lockMaps = lockMaps;
+            this.lockTables = lockTables;
             this.waitStrategies = waitStrategies;
+            this.contentionProfiler = contentionProfiler;
         }
 
         @Override
@@ -280,7 +319,8 @@ public class ForsetiLockManager implements Locks
                 id = clientIds.getAndIncrement();
             }
             ForsetiClient client = new ForsetiClient(
-                    id, lockMaps, waitStrategies, this, deadlockResolutionStrategy, clientsById::get );
+                    id, lockTables, waitStrategies, this, deadlockResolutionStrategy, clientsById::get,
+                    contentionProfiler );
             clientsById.put( id, client );
             return client;
         }
@@ -0,0 +1,341 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.enterprise.lock.forseti;
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * The global lock table of a single {@link org.neo4j.storageengine.api.lock.ResourceType resource type}, mapping
+ * primitive resource ids to the {@link ForsetiLockManager.Lock} currently held on them.
+ * <p/>
+ * This replaces a {@code ConcurrentHashMap<Long,Lock>}, which boxed the resource id and allocated a map node for
+ * every lock grabbed. The table is split into a power-of-two number of stripes, each of which is an open addressing
+ * hash table with linear probing, guarded by a {@link StampedLock}. Lookups run as optimistic reads and only fall
+ * back to taking the read lock if a writer raced with them. Modifications take the write lock of their stripe only,
+ * and removals use backward shift deletion, so no tombstones are ever left behind.
+ */
+class LockTable
+{
+    interface Visitor
+    {
+        void visit( long resourceId, ForsetiLockManager.Lock lock );
+    }
+
+    private static final int INITIAL_STRIPE_CAPACITY = 16;
+
+    private final Stripe[] stripes;
+    private final int stripeMask;
+
+    /**
+     * @param stripeCount the number of independently locked stripes, which will be rounded up to a power of two.
+     */
+    LockTable( int stripeCount )
+    {
+        int count = Integer.highestOneBit( Math.max( 1, stripeCount - 1 ) << 1 );
+        this.stripes = new Stripe[count];
+        this.stripeMask = count - 1;
+        for ( int i = 0; i < count; i++ )
+        {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * @return the lock held on the given resource, or {@code null} if there is none.
+     */
+    ForsetiLockManager.Lock get( long resourceId )
+    {
+        long hash = hash( resourceId );
+        return stripeFor( hash ).get( resourceId, hash );
+    }
+
+    /**
+     * Put the given lock into the table, unless there already is a lock on the given resource.
+     *
+     * @return the lock already held on the resource, or {@code null} if the given lock was put into the table.
+     */
+    ForsetiLockManager.Lock putIfAbsent( long resourceId, ForsetiLockManager.Lock lock )
+    {
+        long hash = hash( resourceId );
+        return stripeFor( hash ).put( resourceId, hash, lock, true );
+    }
+
+    /**
+     * Put the given lock into the table, replacing any lock already held on the given resource.
+     *
+     * @return the lock that was replaced, or {@code null} if there was none.
+     */
+    ForsetiLockManager.Lock put( long resourceId, ForsetiLockManager.Lock lock )
+    {
+        long hash = hash( resourceId );
+        return stripeFor( hash ).put( resourceId, hash, lock, false );
+    }
+
+    /**
+     * @return the lock that was removed from the given resource, or {@code null} if there was none.
+     */
+    ForsetiLockManager.Lock remove( long resourceId )
+    {
+        long hash = hash( resourceId );
+        return stripeFor( hash ).remove( resourceId, hash );
+    }
+
+    /**
+     * Visit all locks in the table. Each stripe is visited under its read lock, so the visitor must not modify
+     * this table.
+     */
+    void visit( Visitor visitor )
+    {
+        for ( Stripe stripe : stripes )
+        {
+            stripe.visit( visitor );
+        }
+    }
+
+    private Stripe stripeFor( long hash )
+    {
+        return stripes[(int) (hash >>> 32) & stripeMask];
+    }
+
+    private static long hash( long resourceId )
+    {
+        // The finalisation step of MurmurHash3, as resource ids are often dense and sequential
+        long hash = resourceId;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * The keys and values of a stripe live in a single object, so that an optimistic reader always sees arrays of
+     * the same length, even when it races with a resize.
+     */
+    private static final class Table
+    {
+        private final long[] keys;
+        private final ForsetiLockManager.Lock[] values;
+        private final int mask;
+
+        Table( int capacity )
+        {
+            this.keys = new long[capacity];
+            this.values = new ForsetiLockManager.Lock[capacity];
+            this.mask = capacity - 1;
+        }
+
+        int capacity()
+        {
+            return values.length;
+        }
+
+        /**
+         * @return the slot holding the given key, or {@code -1} if the key is not in this table. Probing is bounded by
+         * the capacity, so that a reader racing with a writer can never loop forever.
+         */
+        int slotOf( long key, long hash )
+        {
+            int slot = (int) hash & mask;
+            for ( int i = 0; i <= mask; i++ )
+            {
+                if ( values[slot] == null )
+                {
+                    return -1;
+                }
+                if ( keys[slot] == key )
+                {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        int freeSlot( long hash )
+        {
+            int slot = (int) hash & mask;
+            while ( values[slot] != null )
+            {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+    }
+
+    private static final class Stripe extends StampedLock
+    {
+        private Table table = new Table( INITIAL_STRIPE_CAPACITY );
+        private int size;
+
+        ForsetiLockManager.Lock get( long key, long hash )
+        {
+            long stamp = tryOptimisticRead();
+            if ( stamp != 0 )
+            {
+                ForsetiLockManager.Lock lock = find( table, key, hash );
+                if ( validate( stamp ) )
+                {
+                    return lock;
+                }
+            }
+
+            stamp = readLock();
+            try
+            {
+                return find( table, key, hash );
+            }
+            finally
+            {
+                unlockRead( stamp );
+            }
+        }
+
+        ForsetiLockManager.Lock put( long key, long hash, ForsetiLockManager.Lock lock, boolean onlyIfAbsent )
+        {
+            long stamp = writeLock();
+            try
+            {
+                Table table = this.table;
+                int slot = table.slotOf( key, hash );
+                if ( slot != -1 )
+                {
+                    ForsetiLockManager.Lock existing = table.values[slot];
+                    if ( !onlyIfAbsent )
+                    {
+                        table.values[slot] = lock;
+                    }
+                    return existing;
+                }
+
+                if ( (size + 1) << 1 > table.capacity() )
+                {
+                    table = resize( table.capacity() << 1 );
+                }
+                slot = table.freeSlot( hash );
+                table.keys[slot] = key;
+                table.values[slot] = lock;
+                size++;
+                return null;
+            }
+            finally
+            {
+                unlockWrite( stamp );
+            }
+        }
+
+        ForsetiLockManager.Lock remove( long key, long hash )
+        {
+            long stamp = writeLock();
+            try
+            {
+                Table table = this.table;
+                int slot = table.slotOf( key, hash );
+                if ( slot == -1 )
+                {
+                    return null;
+                }
+
+                ForsetiLockManager.Lock removed = table.values[slot];
+                shiftBackwardsInto( table, slot );
+                size--;
+
+                if ( table.capacity() > INITIAL_STRIPE_CAPACITY && size < table.capacity() >>> 3 )
+                {
+                    // Don't hold on to the memory of a past burst of locks
+                    resize( table.capacity() >>> 1 );
+                }
+                return removed;
+            }
+            finally
+            {
+                unlockWrite( stamp );
+            }
+        }
+
+        void visit( Visitor visitor )
+        {
+            long stamp = readLock();
+            try
+            {
+                Table table = this.table;
+                for ( int i = 0; i < table.capacity(); i++ )
+                {
+                    ForsetiLockManager.Lock lock = table.values[i];
+                    if ( lock != null )
+                    {
+                        visitor.visit( table.keys[i], lock );
+                    }
+                }
+            }
+            finally
+            {
+                unlockRead( stamp );
+            }
+        }
+
+        private static ForsetiLockManager.Lock find( Table table, long key, long hash )
+        {
+            int slot = table.slotOf( key, hash );
+            return slot == -1 ? null : table.values[slot];
+        }
+
+        /**
+         * Empty the given slot, and move every following entry in its probe sequence that would otherwise become
+         * unreachable, back into the hole.
+         */
+        private static void shiftBackwardsInto( Table table, int hole )
+        {
+            int mask = table.mask;
+            table.values[hole] = null;
+            for ( int slot = (hole + 1) & mask; table.values[slot] != null; slot = (slot + 1) & mask )
+            {
+                int home = (int) hash( table.keys[slot] ) & mask;
+                if ( ((slot - home) & mask) >= ((slot - hole) & mask) )
+                {
+                    table.keys[hole] = table.keys[slot];
+                    table.values[hole] = table.values[slot];
+                    table.values[slot] = null;
+                    hole = slot;
+                }
+            }
+        }
+
+        private Table resize( int capacity )
+        {
+            Table oldTable = this.table;
+            Table newTable = new Table( capacity );
+            for ( int i = 0; i < oldTable.capacity(); i++ )
+            {
+                ForsetiLockManager.Lock lock = oldTable.values[i];
+                if ( lock != null )
+                {
+                    long key = oldTable.keys[i];
+                    int slot = newTable.freeSlot( hash( key ) );
+                    newTable.keys[slot] = key;
+                    newTable.values[slot] = lock;
+                }
+            }
+            this.table = newTable;
+            return newTable;
+        }
+    }
+}
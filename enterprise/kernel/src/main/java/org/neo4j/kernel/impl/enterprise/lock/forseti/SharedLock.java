@@ -144,6 +144,23 @@ class SharedLock implements ForsetiLockManager.Lock
         return -1;
     }
 
+    @Override
+    public void addWaiterToHolders( ForsetiClient waiter )
+    {
+        for ( int i = 0; i < clientsHoldingThisLock.length; i++ )
+        {
+            AtomicReferenceArray<ForsetiClient> holders = clientsHoldingThisLock[i];
+            for ( int j = 0; holders != null && j < holders.length(); j++ )
+            {
+                ForsetiClient client = holders.get( j );
+                if ( client != null && client != waiter )
+                {
+                    client.addWaitingClient( waiter );
+                }
+            }
+        }
+    }
+
     public boolean tryAcquireUpdateLock( ForsetiClient client )
     {
         while ( true )
@@ -213,6 +230,25 @@ class SharedLock implements ForsetiLockManager.Lock
         return sb.append( "]" ).toString();
     }
 
+    @Override
+    public String describeHolders()
+    {
+        StringBuilder sb = new StringBuilder();
+        for ( int i = 0; i < clientsHoldingThisLock.length; i++ )
+        {
+            AtomicReferenceArray<ForsetiClient> holders = clientsHoldingThisLock[i];
+            for ( int j = 0; holders != null && j < holders.length(); j++ )
+            {
+                ForsetiClient current = holders.get( j );
+                if ( current != null )
+                {
+                    sb.append( sb.length() == 0 ? "" : ", " ).append( current );
+                }
+            }
+        }
+        return sb.toString();
+    }
+
     @Override
     public String toString()
     {
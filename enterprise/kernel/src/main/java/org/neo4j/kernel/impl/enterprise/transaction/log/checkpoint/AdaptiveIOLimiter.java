@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.enterprise.transaction.log.checkpoint;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+import java.util.function.ObjLongConsumer;
+
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.io.pagecache.IOLimiter;
+import org.neo4j.io.pagecache.monitoring.LatencyHistogram;
+import org.neo4j.kernel.configuration.Config;
+
+/**
+ * An {@link IOLimiter} that starts out limiting IO to the configured
+ * {@link GraphDatabaseSettings#check_point_iops_limit IOPS limit}, and then raises or lowers that limit according to
+ * the latency that the foreground work is experiencing.
+ * <p>
+ * Once per quantum, the mean latency of the page faults and of the forces of the transaction log that happened during
+ * that quantum are compared to their targets. If either of them is above its target, the limit is lowered to half of
+ * the IO rate that was actually achieved, but never below the configured limit. If both are below half of their
+ * targets, then the limit is raised by half, up to the
+ * {@link GraphDatabaseSettings#check_point_iops_adaptive_max_limit max limit}. In between, the limit is left as is.
+ */
+public class AdaptiveIOLimiter implements IOLimiter
+{
+    private static final AtomicIntegerFieldUpdater<AdaptiveIOLimiter> disableCountUpdater =
+            AtomicIntegerFieldUpdater.newUpdater( AdaptiveIOLimiter.class, "disabledCount" );
+
+    private static final int QUANTUM_MILLIS = 100;
+    private static final int QUANTUMS_PER_SECOND = (int) (TimeUnit.SECONDS.toMillis( 1 ) / QUANTUM_MILLIS);
+    private static final int TIME_BITS = 32;
+    private static final long TIME_MASK = (1L << TIME_BITS) - 1;
+    // Samples spanning more than this many quantums are too stale to adapt to, for instance after an idle period.
+    private static final int MAX_SAMPLE_QUANTUMS = 10;
+    private static final double RAISE_FACTOR = 1.5;
+    private static final double LOWER_FACTOR = 0.5;
+
+    private final int minIopq; // IOs per quantum
+    private final int maxIopq;
+    private final long pageFaultLatencyTargetMicros;
+    private final long logForceLatencyTargetMicros;
+    private final LatencyHistogram pageFaultLatency;
+    private final LatencyHistogram logForceLatency;
+    private final ObjLongConsumer<Object> pauseNanos;
+    private final LongSupplier currentTimeMillis;
+    private final AtomicLong iosSinceSample = new AtomicLong();
+
+    private volatile int iopq;
+    private volatile long sampleTimeMillis;
+    // The rest of the sample is guarded by 'this'
+    private long sampledPageFaults;
+    private long sampledPageFaultMicros;
+    private long sampledLogForces;
+    private long sampledLogForceMicros;
+
+    @SuppressWarnings( "unused" ) // Updated via disableCountUpdater
+    private volatile int disabledCount;
+
+    public AdaptiveIOLimiter( Config config, LatencyHistogram pageFaultLatency, LatencyHistogram logForceLatency )
+    {
+        this( config, pageFaultLatency, logForceLatency, LockSupport::parkNanos, System::currentTimeMillis );
+    }
+
+    // Only visible for testing
+    AdaptiveIOLimiter( Config config, LatencyHistogram pageFaultLatency, LatencyHistogram logForceLatency,
+            ObjLongConsumer<Object> pauseNanos, LongSupplier currentTimeMillis )
+    {
+        this.pageFaultLatency = pageFaultLatency;
+        this.logForceLatency = logForceLatency;
+        this.pauseNanos = pauseNanos;
+        this.currentTimeMillis = currentTimeMillis;
+        this.pageFaultLatencyTargetMicros = TimeUnit.MILLISECONDS.toMicros(
+                config.get( GraphDatabaseSettings.check_point_iops_adaptive_page_fault_latency ) );
+        this.logForceLatencyTargetMicros = TimeUnit.MILLISECONDS.toMicros(
+                config.get( GraphDatabaseSettings.check_point_iops_adaptive_log_force_latency ) );
+        Integer iops = config.get( GraphDatabaseSettings.check_point_iops_limit );
+        Integer maxIops = config.get( GraphDatabaseSettings.check_point_iops_adaptive_max_limit );
+        if ( iops == null || iops < 1 )
+        {
+            disabledCount = 1; // This permanently disables IO limiting
+            iops = 0;
+        }
+        this.minIopq = Math.max( 1, iops / QUANTUMS_PER_SECOND );
+        this.maxIopq = maxIops == null || maxIops < 1
+                       ? Integer.MAX_VALUE : Math.max( minIopq, maxIops / QUANTUMS_PER_SECOND );
+        this.iopq = minIopq;
+        takeSample( currentTimeMillis() );
+    }
+
+    // The stamp works the same way as in the ConfigurableIOLimiter: the high bits are the number of IOs performed
+    // since the last pause, and the low bits are the 32-bit timestamp in milliseconds since the last pause.
+    // On top of that, the IOs are counted towards the current sample, which is adapted to once every quantum.
+
+    @Override
+    public long maybeLimitIO( long previousStamp, int recentlyCompletedIOs, Flushable flushable ) throws IOException
+    {
+        if ( disabledCount > 0 )
+        {
+            return INITIAL_STAMP;
+        }
+
+        iosSinceSample.getAndAdd( recentlyCompletedIOs );
+        long nowMillis = currentTimeMillis();
+        if ( nowMillis - sampleTimeMillis >= QUANTUM_MILLIS )
+        {
+            adapt( nowMillis );
+        }
+
+        long now = nowMillis & TIME_MASK;
+        long then = previousStamp & TIME_MASK;
+
+        if ( now - then > QUANTUM_MILLIS )
+        {
+            return now + (((long) recentlyCompletedIOs) << TIME_BITS);
+        }
+
+        long ioSum = (previousStamp >> TIME_BITS) + recentlyCompletedIOs;
+        if ( ioSum >= iopq )
+        {
+            long millisLeftInQuantum = QUANTUM_MILLIS - (now - then);
+            pauseNanos.accept( this, TimeUnit.MILLISECONDS.toNanos( millisLeftInQuantum ) );
+            return currentTimeMillis() & TIME_MASK;
+        }
+
+        return then + (ioSum << TIME_BITS);
+    }
+
+    private synchronized void adapt( long nowMillis )
+    {
+        long elapsedMillis = nowMillis - sampleTimeMillis;
+        if ( elapsedMillis < QUANTUM_MILLIS )
+        {
+            return; // Someone else adapted to this quantum already
+        }
+
+        long pageFaults = sampledPageFaults;
+        long pageFaultMicros = sampledPageFaultMicros;
+        long logForces = sampledLogForces;
+        long logForceMicros = sampledLogForceMicros;
+        long ios = takeSample( nowMillis );
+        if ( elapsedMillis > MAX_SAMPLE_QUANTUMS * QUANTUM_MILLIS )
+        {
+            return;
+        }
+
+        long pageFaultMeanMicros = mean( sampledPageFaults - pageFaults, sampledPageFaultMicros - pageFaultMicros );
+        long logForceMeanMicros = mean( sampledLogForces - logForces, sampledLogForceMicros - logForceMicros );
+        if ( pageFaultMeanMicros > pageFaultLatencyTargetMicros || logForceMeanMicros > logForceLatencyTargetMicros )
+        {
+            // The limit can be far above what we actually manage to do, so back off from the achieved rate instead.
+            long achievedIopq = ios * QUANTUM_MILLIS / elapsedMillis;
+            iopq = (int) Math.max( minIopq, Math.min( iopq, achievedIopq ) * LOWER_FACTOR );
+        }
+        else if ( pageFaultMeanMicros <= pageFaultLatencyTargetMicros / 2 &&
+                  logForceMeanMicros <= logForceLatencyTargetMicros / 2 )
+        {
+            iopq = (int) Math.min( maxIopq, Math.max( iopq + 1.0, iopq * RAISE_FACTOR ) );
+        }
+    }
+
+    /**
+     * @return the number of IOs counted towards the previous sample.
+     */
+    private synchronized long takeSample( long nowMillis )
+    {
+        sampleTimeMillis = nowMillis;
+        sampledPageFaults = pageFaultLatency.count();
+        sampledPageFaultMicros = pageFaultLatency.totalMicros();
+        sampledLogForces = logForceLatency.count();
+        sampledLogForceMicros = logForceLatency.totalMicros();
+        return iosSinceSample.getAndSet( 0 );
+    }
+
+    private static long mean( long count, long totalMicros )
+    {
+        return count <= 0 ? 0 : totalMicros / count;
+    }
+
+    /**
+     * @return the IOPS limit that is currently in effect.
+     */
+    long currentIOPSLimit()
+    {
+        return (long) iopq * QUANTUMS_PER_SECOND;
+    }
+
+    @Override
+    public void disableLimit()
+    {
+        disableCountUpdater.getAndIncrement( this );
+    }
+
+    @Override
+    public void enableLimit()
+    {
+        disableCountUpdater.getAndDecrement( this );
+    }
+
+    private long currentTimeMillis()
+    {
+        return currentTimeMillis.getAsLong();
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.enterprise.transaction.log.checkpoint;
+
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.io.pagecache.IOLimiter;
+import org.neo4j.io.pagecache.monitoring.LatencyHistogram;
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.api.LogForceMonitor;
+import org.neo4j.kernel.monitoring.tracing.Tracers;
+
+public final class IOLimiters
+{
+    private IOLimiters()
+    {
+    }
+
+    /**
+     * Create the {@link IOLimiter} for check-pointing that the given configuration calls for. The adaptive limiter
+     * takes its page fault latencies from the page cache tracer, and its transaction log force latencies from the
+     * transaction tracer, if it records them.
+     */
+    public static IOLimiter create( Config config, Tracers tracers )
+    {
+        if ( !config.get( GraphDatabaseSettings.check_point_iops_adaptive ) )
+        {
+            return new ConfigurableIOLimiter( config );
+        }
+        LatencyHistogram logForceLatency = tracers.transactionTracer instanceof LogForceMonitor
+                                           ? ((LogForceMonitor) tracers.transactionTracer).logForceLatency()
+                                           : new LatencyHistogram();
+        return new AdaptiveIOLimiter( config, tracers.pageCacheTracer.faultLatency(), logForceLatency );
+    }
+}
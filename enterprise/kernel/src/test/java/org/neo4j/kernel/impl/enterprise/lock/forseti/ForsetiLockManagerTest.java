@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.enterprise.lock.forseti;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.neo4j.kernel.impl.locking.Locks;
+import org.neo4j.kernel.impl.locking.ResourceTypes;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ForsetiLockManagerTest
+{
+    private final ForsetiLockManager locks = new ForsetiLockManager( ResourceTypes.values() );
+
+    @Test
+    public void shouldNotRecordWaitsForUncontendedLocks() throws Exception
+    {
+        // Given
+        try ( Locks.Client client = locks.newClient() )
+        {
+            // When
+            client.acquireExclusive( ResourceTypes.NODE, 1 );
+            client.acquireShared( ResourceTypes.RELATIONSHIP, 1 );
+        }
+
+        // Then
+        assertEquals( 0, locks.lockWaitLatency( ResourceTypes.NODE ).count() );
+        assertEquals( 0, locks.lockWaitLatency( ResourceTypes.RELATIONSHIP ).count() );
+    }
+
+    @Test( timeout = 10_000 )
+    public void shouldRecordWaitOfClientParkedOnContendedLock() throws Exception
+    {
+        // Given
+        Locks.Client holder = locks.newClient();
+        holder.acquireExclusive( ResourceTypes.NODE, 1 );
+        Thread waiter = new Thread( () ->
+        {
+            try ( Locks.Client client = locks.newClient() )
+            {
+                client.acquireExclusive( ResourceTypes.NODE, 1 );
+            }
+        } );
+        waiter.start();
+        while ( waiter.getState() != Thread.State.TIMED_WAITING )
+        {
+            Thread.sleep( 1 );
+        }
+
+        // When
+        Thread.sleep( 10 );
+        holder.close();
+        waiter.join();
+
+        // Then
+        assertEquals( 1, locks.lockWaitLatency( ResourceTypes.NODE ).count() );
+        assertTrue( locks.lockWaitLatency( ResourceTypes.NODE ).totalMicros() >= 10_000 );
+        assertEquals( 0, locks.lockWaitLatency( ResourceTypes.RELATIONSHIP ).count() );
+    }
+
+    @Test( timeout = 10_000 )
+    public void shouldReportContendedResourceWithItsHolder() throws Exception
+    {
+        // Given
+        Locks.Client holder = locks.newClient();
+        holder.acquireShared( ResourceTypes.NODE, 7 );
+        Thread waiter = new Thread( () ->
+        {
+            try ( Locks.Client client = locks.newClient() )
+            {
+                client.acquireExclusive( ResourceTypes.NODE, 7 );
+            }
+        } );
+        waiter.start();
+        while ( waiter.getState() != Thread.State.TIMED_WAITING )
+        {
+            Thread.sleep( 1 );
+        }
+
+        // When
+        holder.close();
+        waiter.join();
+
+        // Then
+        List<String> contended = new ArrayList<>();
+        locks.visitContendedResources( ( resourceType, resourceId, waits, totalWaitMicros, maxWaitMicros,
+                lastHolders ) -> contended.add( resourceType + ":" + resourceId + ":" + waits + ":" + lastHolders ) );
+        assertEquals( 1, contended.size() );
+        assertEquals( ResourceTypes.NODE + ":7:1:" + holder, contended.get( 0 ) );
+    }
+}
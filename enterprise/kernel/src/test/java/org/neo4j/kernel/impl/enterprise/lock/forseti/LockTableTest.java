@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.enterprise.lock.forseti;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+
+public class LockTableTest
+{
+    @Test
+    public void shouldOnlyPutIfAbsent() throws Exception
+    {
+        // Given
+        LockTable table = new LockTable( 4 );
+        ForsetiLockManager.Lock first = mock( ForsetiLockManager.Lock.class );
+        ForsetiLockManager.Lock second = mock( ForsetiLockManager.Lock.class );
+
+        // When
+        assertNull( table.putIfAbsent( 42, first ) );
+
+        // Then
+        assertSame( first, table.putIfAbsent( 42, second ) );
+        assertSame( first, table.get( 42 ) );
+        assertSame( first, table.put( 42, second ) );
+        assertSame( second, table.get( 42 ) );
+    }
+
+    @Test
+    public void shouldRemoveLocks() throws Exception
+    {
+        // Given
+        LockTable table = new LockTable( 4 );
+        ForsetiLockManager.Lock lock = mock( ForsetiLockManager.Lock.class );
+        table.putIfAbsent( -1, lock );
+
+        // When
+        assertSame( lock, table.remove( -1 ) );
+
+        // Then
+        assertNull( table.get( -1 ) );
+        assertNull( table.remove( -1 ) );
+    }
+
+    @Test
+    public void shouldKeepAllLocksReachableThroughGrowingShrinkingAndRemovals() throws Exception
+    {
+        // Given
+        LockTable table = new LockTable( 2 );
+        Map<Long,ForsetiLockManager.Lock> expected = new HashMap<>();
+        ForsetiLockManager.Lock[] locks = new ForsetiLockManager.Lock[8];
+        for ( int i = 0; i < locks.length; i++ )
+        {
+            locks[i] = mock( ForsetiLockManager.Lock.class );
+        }
+        Random random = new Random( 1 );
+
+        // When
+        for ( int i = 0; i < 100_000; i++ )
+        {
+            long resourceId = random.nextInt( 2_000 );
+            if ( random.nextInt( 3 ) == 0 )
+            {
+                assertSame( expected.remove( resourceId ), table.remove( resourceId ) );
+            }
+            else
+            {
+                ForsetiLockManager.Lock lock = locks[random.nextInt( locks.length )];
+                assertSame( expected.putIfAbsent( resourceId, lock ), table.putIfAbsent( resourceId, lock ) );
+            }
+        }
+
+        // Then
+        Map<Long,ForsetiLockManager.Lock> visited = new HashMap<>();
+        table.visit( visited::put );
+        assertEquals( expected, visited );
+        for ( long resourceId = 0; resourceId < 2_000; resourceId++ )
+        {
+            assertSame( expected.get( resourceId ), table.get( resourceId ) );
+        }
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.enterprise.transaction.log.checkpoint;
+
+import org.junit.Test;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ObjLongConsumer;
+
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.io.pagecache.IOLimiter;
+import org.neo4j.io.pagecache.monitoring.LatencyHistogram;
+import org.neo4j.kernel.configuration.Config;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertThat;
+import static org.neo4j.helpers.collection.MapUtil.stringMap;
+
+public class AdaptiveIOLimiterTest
+{
+    private static final Flushable FLUSHABLE = () -> {};
+
+    private final LatencyHistogram pageFaultLatency = new LatencyHistogram();
+    private final LatencyHistogram logForceLatency = new LatencyHistogram();
+    private final AtomicLong pauseNanosCounter = new AtomicLong();
+    private final AtomicLong currentTimeMillis = new AtomicLong( 1_000 );
+    private AdaptiveIOLimiter limiter;
+    private long stamp = IOLimiter.INITIAL_STAMP;
+
+    private void createIOLimiter( String... settings )
+    {
+        Config config = new Config( stringMap( settings ) );
+        ObjLongConsumer<Object> pauseNanos = ( blocker, nanos ) ->
+        {
+            pauseNanosCounter.getAndAdd( nanos );
+            currentTimeMillis.getAndAdd( TimeUnit.NANOSECONDS.toMillis( nanos ) );
+        };
+        limiter = new AdaptiveIOLimiter( config, pageFaultLatency, logForceLatency, pauseNanos,
+                currentTimeMillis::get );
+    }
+
+    private void createIOLimiter( int limit, int maxLimit )
+    {
+        createIOLimiter( GraphDatabaseSettings.check_point_iops_limit.name(), "" + limit,
+                GraphDatabaseSettings.check_point_iops_adaptive_max_limit.name(), "" + maxLimit );
+    }
+
+    @Test
+    public void mustStartOutAtTheConfiguredLimit() throws Exception
+    {
+        createIOLimiter( 100, -1 );
+
+        assertThat( limiter.currentIOPSLimit(), is( 100L ) );
+    }
+
+    @Test
+    public void mustRaiseLimitWhileForegroundLatencyIsHealthy() throws Exception
+    {
+        createIOLimiter( 100, -1 );
+
+        flushForQuantums( 10 );
+
+        assertThat( limiter.currentIOPSLimit(), greaterThan( 1000L ) );
+    }
+
+    @Test
+    public void mustNotRaiseLimitAboveConfiguredMaxLimit() throws Exception
+    {
+        createIOLimiter( 100, 500 );
+
+        flushForQuantums( 20 );
+
+        assertThat( limiter.currentIOPSLimit(), is( 500L ) );
+    }
+
+    @Test
+    public void mustLowerLimitWhenPageFaultLatencyDegrades() throws Exception
+    {
+        createIOLimiter( 100, -1 );
+        flushForQuantums( 10 );
+        long raisedLimit = limiter.currentIOPSLimit();
+
+        pageFaultLatency.record( 50, TimeUnit.MILLISECONDS );
+        flushForQuantums( 1 );
+
+        assertThat( limiter.currentIOPSLimit(), lessThan( raisedLimit ) );
+    }
+
+    @Test
+    public void mustLowerLimitWhenLogForceLatencyDegrades() throws Exception
+    {
+        createIOLimiter( 100, -1 );
+        flushForQuantums( 10 );
+        long raisedLimit = limiter.currentIOPSLimit();
+
+        logForceLatency.record( 100, TimeUnit.MILLISECONDS );
+        flushForQuantums( 1 );
+
+        assertThat( limiter.currentIOPSLimit(), lessThan( raisedLimit ) );
+    }
+
+    @Test
+    public void mustNotLowerLimitBelowConfiguredLimit() throws Exception
+    {
+        createIOLimiter( 100, -1 );
+
+        for ( int i = 0; i < 10; i++ )
+        {
+            pageFaultLatency.record( 50, TimeUnit.MILLISECONDS );
+            flushForQuantums( 1 );
+        }
+
+        assertThat( limiter.currentIOPSLimit(), is( 100L ) );
+    }
+
+    @Test
+    public void mustRestrictIORateToTheLimitThatIsCurrentlyInEffect() throws Exception
+    {
+        createIOLimiter( 100, 100 );
+
+        // Do 10*100 = 1000 IOs real quick, when we're limited to 100 IOPS.
+        for ( int i = 0; i < 100; i++ )
+        {
+            stamp = limiter.maybeLimitIO( stamp, 10, FLUSHABLE );
+        }
+
+        assertThat( pauseNanosCounter.get(), greaterThan( TimeUnit.SECONDS.toNanos( 9 ) ) );
+    }
+
+    @Test
+    public void mustNotPutLimitOnIOWhenConfiguredToBeUnlimited() throws Exception
+    {
+        createIOLimiter( -1, -1 );
+
+        for ( int i = 0; i < 100; i++ )
+        {
+            stamp = limiter.maybeLimitIO( stamp, 1000, FLUSHABLE );
+        }
+
+        assertThat( pauseNanosCounter.get(), is( 0L ) );
+    }
+
+    @Test
+    public void mustNotRestrictIOWhenLimitIsDisabled() throws Exception
+    {
+        createIOLimiter( 100, 100 );
+
+        limiter.disableLimit();
+        try
+        {
+            for ( int i = 0; i < 100; i++ )
+            {
+                stamp = limiter.maybeLimitIO( stamp, 10, FLUSHABLE );
+            }
+        }
+        finally
+        {
+            limiter.enableLimit();
+        }
+
+        assertThat( pauseNanosCounter.get(), is( 0L ) );
+    }
+
+    /**
+     * Do IO at the rate that the limiter allows, for the given number of 100 millisecond quantums.
+     */
+    private void flushForQuantums( int quantums ) throws IOException
+    {
+        long end = currentTimeMillis.get() + quantums * 100;
+        while ( currentTimeMillis.get() < end )
+        {
+            stamp = limiter.maybeLimitIO( stamp, 1, FLUSHABLE );
+        }
+    }
+}
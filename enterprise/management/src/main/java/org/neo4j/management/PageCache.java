@@ -57,4 +57,23 @@ public interface PageCache
                   "This number should be zero, or at least not growing, in a healthy database. " +
                   "Otherwise it could indicate drive failure, storage space, or permission problems." )
     public long getEvictionExceptions();
+
+    @Description( "Number of pages that the page cache warmup is going to load, according to the most recent " +
+                  "profile of the page cache. This is zero if page cache warmup is disabled." )
+    long getWarmupPagesToLoad();
+
+    @Description( "Number of pages that have been loaded by the page cache warmup so far." )
+    long getWarmupPagesLoaded();
+
+    @Description( "Whether or not the page cache warmup has completed." )
+    boolean isWarmupCompleted();
+
+    @Description( "Number of page cache profiles that have been written. The profiles are used for warming up the " +
+                  "page cache after a restart." )
+    long getWarmupProfilesWritten();
+
+    @Description( "IO statistics for each file that has been mapped into the page cache: the number of page faults " +
+                  "and flushes, the bytes read and written, and the mean, 99th percentile and max latencies of " +
+                  "page faults and flushes in microseconds." )
+    PagedFileInfo[] getFileStatistics();
 }
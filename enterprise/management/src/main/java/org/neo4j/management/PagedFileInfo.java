@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.management;
+
+import java.beans.ConstructorProperties;
+import java.io.Serializable;
+
+public final class PagedFileInfo implements Serializable
+{
+    private static final long serialVersionUID = 5308185207431616367L;
+
+    private final String file;
+    private final long faults;
+    private final long bytesRead;
+    private final long flushes;
+    private final long bytesWritten;
+    private final long faultLatencyMeanMicros;
+    private final long faultLatencyP99Micros;
+    private final long faultLatencyMaxMicros;
+    private final long flushLatencyMeanMicros;
+    private final long flushLatencyP99Micros;
+    private final long flushLatencyMaxMicros;
+
+    @ConstructorProperties( { "file", "faults", "bytesRead", "flushes", "bytesWritten",
+            "faultLatencyMeanMicros", "faultLatencyP99Micros", "faultLatencyMaxMicros",
+            "flushLatencyMeanMicros", "flushLatencyP99Micros", "flushLatencyMaxMicros" } )
+    public PagedFileInfo( String file, long faults, long bytesRead, long flushes, long bytesWritten,
+            long faultLatencyMeanMicros, long faultLatencyP99Micros, long faultLatencyMaxMicros,
+            long flushLatencyMeanMicros, long flushLatencyP99Micros, long flushLatencyMaxMicros )
+    {
+        this.file = file;
+        this.faults = faults;
+        this.bytesRead = bytesRead;
+        this.flushes = flushes;
+        this.bytesWritten = bytesWritten;
+        this.faultLatencyMeanMicros = faultLatencyMeanMicros;
+        this.faultLatencyP99Micros = faultLatencyP99Micros;
+        this.faultLatencyMaxMicros = faultLatencyMaxMicros;
+        this.flushLatencyMeanMicros = flushLatencyMeanMicros;
+        this.flushLatencyP99Micros = flushLatencyP99Micros;
+        this.flushLatencyMaxMicros = flushLatencyMaxMicros;
+    }
+
+    public String getFile()
+    {
+        return file;
+    }
+
+    public long getFaults()
+    {
+        return faults;
+    }
+
+    public long getBytesRead()
+    {
+        return bytesRead;
+    }
+
+    public long getFlushes()
+    {
+        return flushes;
+    }
+
+    public long getBytesWritten()
+    {
+        return bytesWritten;
+    }
+
+    public long getFaultLatencyMeanMicros()
+    {
+        return faultLatencyMeanMicros;
+    }
+
+    public long getFaultLatencyP99Micros()
+    {
+        return faultLatencyP99Micros;
+    }
+
+    public long getFaultLatencyMaxMicros()
+    {
+        return faultLatencyMaxMicros;
+    }
+
+    public long getFlushLatencyMeanMicros()
+    {
+        return flushLatencyMeanMicros;
+    }
+
+    public long getFlushLatencyP99Micros()
+    {
+        return flushLatencyP99Micros;
+    }
+
+    public long getFlushLatencyMaxMicros()
+    {
+        return flushLatencyMaxMicros;
+    }
+}
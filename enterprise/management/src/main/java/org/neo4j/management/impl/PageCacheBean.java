@@ -21,12 +21,18 @@ package org.neo4j.management.impl;
 
 import javax.management.NotCompliantMBeanException;
 
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
 import org.neo4j.helpers.Service;
+import org.neo4j.io.pagecache.monitoring.LatencyHistogram;
 import org.neo4j.io.pagecache.monitoring.PageCacheCounters;
+import org.neo4j.io.pagecache.monitoring.PagedFileCounters;
 import org.neo4j.jmx.impl.ManagementBeanProvider;
 import org.neo4j.jmx.impl.ManagementData;
 import org.neo4j.jmx.impl.Neo4jMBean;
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.pagecache.PageCacheWarmerMonitor;
 import org.neo4j.management.PageCache;
+import org.neo4j.management.PagedFileInfo;
 
 @Service.Implementation(ManagementBeanProvider.class)
 public final class PageCacheBean extends ManagementBeanProvider
@@ -44,12 +50,17 @@ public final class PageCacheBean extends ManagementBeanProvider
 
     private static class PageCacheImpl extends Neo4jMBean implements PageCache
     {
+        private final ManagementData management;
         private final PageCacheCounters pageCacheCounters;
+        private final boolean warmupEnabled;
 
         PageCacheImpl( ManagementData management ) throws NotCompliantMBeanException
         {
             super( management );
+            this.management = management;
             this.pageCacheCounters = management.resolveDependency( PageCacheCounters.class );
+            this.warmupEnabled = management.resolveDependency( Config.class )
+                    .get( GraphDatabaseSettings.pagecache_warmup_enabled );
         }
 
         @Override
@@ -105,5 +116,51 @@ public final class PageCacheBean extends ManagementBeanProvider
         {
             return pageCacheCounters.evictionExceptions();
         }
+
+        @Override
+        public long getWarmupPagesToLoad()
+        {
+            return warmupEnabled ? pageCacheWarmerMonitor().warmupPagesToLoad() : 0;
+        }
+
+        @Override
+        public long getWarmupPagesLoaded()
+        {
+            return warmupEnabled ? pageCacheWarmerMonitor().warmupPagesLoaded() : 0;
+        }
+
+        @Override
+        public boolean isWarmupCompleted()
+        {
+            return warmupEnabled && pageCacheWarmerMonitor().isWarmupCompleted();
+        }
+
+        @Override
+        public long getWarmupProfilesWritten()
+        {
+            return warmupEnabled ? pageCacheWarmerMonitor().numberOfProfilesWritten() : 0;
+        }
+
+        @Override
+        public PagedFileInfo[] getFileStatistics()
+        {
+            return pageCacheCounters.fileCounters().stream().map( this::fileInfo ).toArray( PagedFileInfo[]::new );
+        }
+
+        private PagedFileInfo fileInfo( PagedFileCounters counters )
+        {
+            LatencyHistogram faultLatency = counters.faultLatency();
+            LatencyHistogram flushLatency = counters.flushLatency();
+            return new PagedFileInfo( counters.file().getPath(),
+                    counters.faults(), counters.bytesRead(), counters.flushes(), counters.bytesWritten(),
+                    faultLatency.meanMicros(), faultLatency.percentileMicros( 0.99 ), faultLatency.maxMicros(),
+                    flushLatency.meanMicros(), flushLatency.percentileMicros( 0.99 ), flushLatency.maxMicros() );
+        }
+
+        private PageCacheWarmerMonitor pageCacheWarmerMonitor()
+        {
+            // The warmer belongs to the data source, which can be restarted, so we look it up every time
+            return management.resolveDependency( PageCacheWarmerMonitor.class );
+        }
     }
 }
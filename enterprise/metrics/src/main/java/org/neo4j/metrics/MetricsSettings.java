@@ -75,6 +75,10 @@ public class MetricsSettings
                   + "complete." )
     public static Setting<Boolean> neoLogRotationEnabled = setting(
             "metrics.neo4j.logrotation.enabled", Settings.BOOLEAN, neoEnabled );
+    @Description( "Enable reporting metrics about Neo4j locks; how many lock acquisitions have had to wait for other " +
+                  "transactions, and for how long, per resource type." )
+    public static Setting<Boolean> neoLocksEnabled = setting(
+            "metrics.neo4j.locks.enabled", Settings.BOOLEAN, neoEnabled );
     @Description( "Enable reporting metrics about HA cluster info." )
     public static Setting<Boolean> neoClusterEnabled = setting(
             "metrics.neo4j.cluster.enabled", Settings.BOOLEAN, neoEnabled );
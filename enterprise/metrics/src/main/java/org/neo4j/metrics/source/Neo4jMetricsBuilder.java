@@ -24,16 +24,23 @@ import com.codahale.metrics.MetricRegistry;
 import java.util.function.Supplier;
 
 import org.neo4j.coreedge.raft.CoreMetaData;
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
 import org.neo4j.io.pagecache.monitoring.PageCacheCounters;
 import org.neo4j.kernel.configuration.Config;
 import org.neo4j.kernel.ha.cluster.member.ClusterMembers;
+import org.neo4j.kernel.impl.api.CommitPhaseMonitor;
 import org.neo4j.kernel.impl.api.LogRotationMonitor;
 import org.neo4j.kernel.impl.factory.OperationalMode;
+import org.neo4j.kernel.impl.locking.LockWaitMonitor;
+import org.neo4j.kernel.impl.locking.Locks;
 import org.neo4j.kernel.impl.logging.LogService;
+import org.neo4j.kernel.impl.pagecache.PageCacheWarmerMonitor;
 import org.neo4j.kernel.impl.spi.KernelContext;
 import org.neo4j.kernel.impl.store.stats.StoreEntityCounters;
 import org.neo4j.kernel.impl.transaction.TransactionCounters;
+import org.neo4j.kernel.impl.transaction.log.LogForceCounters;
 import org.neo4j.kernel.impl.transaction.log.TransactionIdStore;
+import org.neo4j.kernel.impl.transaction.log.checkpoint.BackgroundFlushMonitor;
 import org.neo4j.kernel.impl.transaction.log.checkpoint.CheckPointerMonitor;
 import org.neo4j.kernel.lifecycle.LifeSupport;
 import org.neo4j.kernel.monitoring.Monitors;
@@ -47,8 +54,10 @@ import org.neo4j.metrics.source.db.BoltMetrics;
 import org.neo4j.metrics.source.db.CheckPointingMetrics;
 import org.neo4j.metrics.source.db.CypherMetrics;
 import org.neo4j.metrics.source.db.EntityCountMetrics;
+import org.neo4j.metrics.source.db.LockMetrics;
 import org.neo4j.metrics.source.db.LogRotationMetrics;
 import org.neo4j.metrics.source.db.PageCacheMetrics;
+import org.neo4j.metrics.source.db.PageCacheWarmupMetrics;
 import org.neo4j.metrics.source.db.TransactionMetrics;
 import org.neo4j.metrics.source.jvm.GCMetrics;
 import org.neo4j.metrics.source.jvm.MemoryBuffersMetrics;
@@ -78,6 +87,10 @@ public class Neo4jMetricsBuilder
 
         LogRotationMonitor logRotationMonitor();
 
+        CommitPhaseMonitor commitPhaseMonitor();
+
+        Locks lockManager();
+
         StoreEntityCounters entityCountStats();
 
         Supplier<ClusterMembers> clusterMembers();
@@ -85,6 +98,12 @@ public class Neo4jMetricsBuilder
         Supplier<CoreMetaData> raft();
 
         Supplier<TransactionIdStore> transactionIdStore();
+
+        Supplier<LogForceCounters> logForceCounters();
+
+        Supplier<PageCacheWarmerMonitor> pageCacheWarmerMonitor();
+
+        Supplier<BackgroundFlushMonitor> backgroundFlushMonitor();
     }
 
     public Neo4jMetricsBuilder( MetricRegistry registry, EventReporter reporter, Config config, LogService logService,
@@ -105,20 +124,26 @@ public class Neo4jMetricsBuilder
         if ( config.get( MetricsSettings.neoTxEnabled ) )
         {
             life.add( new TransactionMetrics( registry,
-                    dependencies.transactionIdStore(), dependencies.transactionCounters() ) );
+                    dependencies.transactionIdStore(), dependencies.transactionCounters(),
+                    dependencies.logForceCounters(), dependencies.commitPhaseMonitor() ) );
             result = true;
         }
 
         if ( config.get( MetricsSettings.neoPageCacheEnabled ) )
         {
             life.add( new PageCacheMetrics( registry, dependencies.pageCacheCounters() ) );
+            if ( config.get( GraphDatabaseSettings.pagecache_warmup_enabled ) )
+            {
+                life.add( new PageCacheWarmupMetrics( registry, dependencies.pageCacheWarmerMonitor() ) );
+            }
             result = true;
         }
 
         if ( config.get( MetricsSettings.neoCheckPointingEnabled ) )
         {
             life.add( new CheckPointingMetrics( reporter, registry,
-                    dependencies.monitors(), dependencies.checkPointerMonitor() ) );
+                    dependencies.monitors(), dependencies.checkPointerMonitor(),
+                    dependencies.backgroundFlushMonitor() ) );
             result = true;
         }
 
@@ -129,6 +154,15 @@ public class Neo4jMetricsBuilder
             result = true;
         }
 
+        if ( config.get( MetricsSettings.neoLocksEnabled ) )
+        {
+            Locks lockManager = dependencies.lockManager();
+            LockWaitMonitor lockWaitMonitor =
+                    lockManager instanceof LockWaitMonitor ? (LockWaitMonitor) lockManager : LockWaitMonitor.NONE;
+            life.add( new LockMetrics( registry, lockWaitMonitor ) );
+            result = true;
+        }
+
         if ( config.get( MetricsSettings.neoCountsEnabled ) )
         {
             life.add( new EntityCountMetrics( registry, dependencies.entityCountStats() ) );
@@ -23,8 +23,10 @@ import com.codahale.metrics.Gauge;
 import com.codahale.metrics.MetricRegistry;
 
 import java.util.TreeMap;
+import java.util.function.Supplier;
 
 import org.neo4j.kernel.impl.annotations.Documented;
+import org.neo4j.kernel.impl.transaction.log.checkpoint.BackgroundFlushMonitor;
 import org.neo4j.kernel.impl.transaction.log.checkpoint.CheckPointerMonitor;
 import org.neo4j.kernel.impl.transaction.log.checkpoint.DefaultCheckPointerTracer;
 import org.neo4j.kernel.lifecycle.LifecycleAdapter;
@@ -46,18 +48,28 @@ public class CheckPointingMetrics extends LifecycleAdapter
     public static final String CHECK_POINT_TOTAL_TIME = name( CHECK_POINT_PREFIX, "total_time" );
     @Documented( "The duration of the check point event" )
     public static final String CHECK_POINT_DURATION = name( CHECK_POINT_PREFIX, "check_point_duration" );
+    @Documented( "The estimated number of dirty pages that the next check point would have to flush" )
+    public static final String CHECK_POINT_DIRTY_PAGES = name( CHECK_POINT_PREFIX, "dirty_pages" );
+    @Documented( "The total number of pages flushed by background flushing between check points so far" )
+    public static final String CHECK_POINT_BACKGROUND_FLUSHED_PAGES =
+            name( CHECK_POINT_PREFIX, "background_flushed_pages" );
+    @Documented( "The rate, in pages per second, of the most recent background flush" )
+    public static final String CHECK_POINT_BACKGROUND_FLUSH_RATE = name( CHECK_POINT_PREFIX, "background_flush_rate" );
 
     private final MetricRegistry registry;
     private final Monitors monitors;
     private final CheckPointerMonitor checkPointerMonitor;
+    private final Supplier<BackgroundFlushMonitor> backgroundFlushMonitor;
     private final DefaultCheckPointerTracer.Monitor listener;
 
     public CheckPointingMetrics( EventReporter reporter, MetricRegistry registry,
-            Monitors monitors, CheckPointerMonitor checkPointerMonitor )
+            Monitors monitors, CheckPointerMonitor checkPointerMonitor,
+            Supplier<BackgroundFlushMonitor> backgroundFlushMonitor )
     {
         this.registry = registry;
         this.monitors = monitors;
         this.checkPointerMonitor = checkPointerMonitor;
+        this.backgroundFlushMonitor = backgroundFlushMonitor;
         this.listener = ( durationMillis ) -> {
             TreeMap<String,Gauge> gauges = new TreeMap<>();
             gauges.put( CHECK_POINT_DURATION, () -> durationMillis );
@@ -73,6 +85,12 @@ public class CheckPointingMetrics extends LifecycleAdapter
         registry.register( CHECK_POINT_EVENTS, (Gauge<Long>) checkPointerMonitor::numberOfCheckPointEvents );
         registry.register( CHECK_POINT_TOTAL_TIME,
                 (Gauge<Long>) checkPointerMonitor::checkPointAccumulatedTotalTimeMillis );
+        registry.register( CHECK_POINT_DIRTY_PAGES,
+                (Gauge<Long>) () -> backgroundFlushMonitor.get().numberOfDirtyPages() );
+        registry.register( CHECK_POINT_BACKGROUND_FLUSHED_PAGES,
+                (Gauge<Long>) () -> backgroundFlushMonitor.get().numberOfBackgroundFlushedPages() );
+        registry.register( CHECK_POINT_BACKGROUND_FLUSH_RATE,
+                (Gauge<Long>) () -> backgroundFlushMonitor.get().backgroundFlushRatePagesPerSecond() );
     }
 
     @Override
@@ -82,5 +100,8 @@ public class CheckPointingMetrics extends LifecycleAdapter
 
         registry.remove( CHECK_POINT_EVENTS );
         registry.remove( CHECK_POINT_TOTAL_TIME );
+        registry.remove( CHECK_POINT_DIRTY_PAGES );
+        registry.remove( CHECK_POINT_BACKGROUND_FLUSHED_PAGES );
+        registry.remove( CHECK_POINT_BACKGROUND_FLUSH_RATE );
     }
 }
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.metrics.source.db;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+
+import org.neo4j.io.pagecache.monitoring.LatencyHistogram;
+import org.neo4j.kernel.impl.annotations.Documented;
+import org.neo4j.kernel.impl.locking.LockWaitMonitor;
+import org.neo4j.kernel.impl.locking.ResourceTypes;
+import org.neo4j.kernel.lifecycle.LifecycleAdapter;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+@Documented( ".Database Lock Metrics" )
+public class LockMetrics extends LifecycleAdapter
+{
+    @Documented( "The time spent waiting for locks, per resource type, i.e. node, relationship, graph_props, schema, " +
+                 "index_entry and legacy_index, is reported as <prefix>.<type>.wait_count, the number of lock " +
+                 "acquisitions that had to wait, <prefix>.<type>.wait_total_micros, the total time in microseconds " +
+                 "spent waiting, <prefix>.<type>.wait_p99_micros, the 99th percentile wait in microseconds, and " +
+                 "<prefix>.<type>.wait_max_micros, the longest wait in microseconds" )
+    public static final String LOCKS_PREFIX = "neo4j.locks";
+
+    private final MetricRegistry registry;
+    private final LockWaitMonitor lockWaitMonitor;
+
+    public LockMetrics( MetricRegistry registry, LockWaitMonitor lockWaitMonitor )
+    {
+        this.registry = registry;
+        this.lockWaitMonitor = lockWaitMonitor;
+    }
+
+    @Override
+    public void start()
+    {
+        for ( ResourceTypes type : ResourceTypes.values() )
+        {
+            LatencyHistogram latency = lockWaitMonitor.lockWaitLatency( type );
+            registry.register( lockMetric( type, "wait_count" ), (Gauge<Long>) latency::count );
+            registry.register( lockMetric( type, "wait_total_micros" ), (Gauge<Long>) latency::totalMicros );
+            registry.register( lockMetric( type, "wait_p99_micros" ),
+                    (Gauge<Long>) () -> latency.percentileMicros( 0.99 ) );
+            registry.register( lockMetric( type, "wait_max_micros" ), (Gauge<Long>) latency::maxMicros );
+        }
+    }
+
+    @Override
+    public void stop()
+    {
+        for ( ResourceTypes type : ResourceTypes.values() )
+        {
+            registry.remove( lockMetric( type, "wait_count" ) );
+            registry.remove( lockMetric( type, "wait_total_micros" ) );
+            registry.remove( lockMetric( type, "wait_p99_micros" ) );
+            registry.remove( lockMetric( type, "wait_max_micros" ) );
+        }
+    }
+
+    private static String lockMetric( ResourceTypes type, String measure )
+    {
+        return name( LOCKS_PREFIX, type.name().toLowerCase(), measure );
+    }
+}
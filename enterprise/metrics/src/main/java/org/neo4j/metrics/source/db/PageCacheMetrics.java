@@ -22,7 +22,12 @@ package org.neo4j.metrics.source.db;
 import com.codahale.metrics.Gauge;
 import com.codahale.metrics.MetricRegistry;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import org.neo4j.io.pagecache.monitoring.LatencyHistogram;
 import org.neo4j.io.pagecache.monitoring.PageCacheCounters;
+import org.neo4j.io.pagecache.monitoring.PagedFileCounters;
 import org.neo4j.kernel.impl.annotations.Documented;
 import org.neo4j.kernel.lifecycle.LifecycleAdapter;
 
@@ -45,9 +50,26 @@ public class PageCacheMetrics extends LifecycleAdapter
     public static final String PC_EVICTIONS = name( PAGE_CACHE_PREFIX, "evictions" );
     @Documented( "The total number of page faults happened in the page cache" )
     public static final String PC_PAGE_FAULTS = name( PAGE_CACHE_PREFIX, "page_faults" );
+    @Documented( "The total number of page pins that hit a page in the probationary segment of the page cache" )
+    public static final String PC_PROBATIONARY_HITS = name( PAGE_CACHE_PREFIX, "probationary_hits" );
+    @Documented( "The total number of page pins that hit a page in the protected segment of the page cache" )
+    public static final String PC_PROTECTED_HITS = name( PAGE_CACHE_PREFIX, "protected_hits" );
+    @Documented( "The total number of pages evicted from the probationary segment of the page cache" )
+    public static final String PC_PROBATIONARY_EVICTIONS = name( PAGE_CACHE_PREFIX, "probationary_evictions" );
+    @Documented( "The total number of pages evicted from the protected segment of the page cache" )
+    public static final String PC_PROTECTED_EVICTIONS = name( PAGE_CACHE_PREFIX, "protected_evictions" );
+
+    @Documented( "Per-file page cache metrics are registered under this prefix, followed by the name of the " +
+                 "mapped file, for every file that has been mapped when metrics start. For each file there are " +
+                 "`page_faults`, `bytes_read`, `flushes` and `bytes_written` counts, and the mean, 99th " +
+                 "percentile and max latencies, in microseconds, of page faults (`fault_latency_mean`, " +
+                 "`fault_latency_p99`, `fault_latency_max`) and flushes (`flush_latency_mean`, " +
+                 "`flush_latency_p99`, `flush_latency_max`)" )
+    public static final String PC_FILE_PREFIX = name( PAGE_CACHE_PREFIX, "file" );
 
     private final MetricRegistry registry;
     private final PageCacheCounters pageCacheCounters;
+    private final List<String> fileMetricNames = new ArrayList<>();
 
     public PageCacheMetrics( MetricRegistry registry, PageCacheCounters pageCacheCounters )
     {
@@ -64,6 +86,39 @@ public class PageCacheMetrics extends LifecycleAdapter
         registry.register( PC_UNPINS, (Gauge<Long>) pageCacheCounters::unpins );
         registry.register( PC_FLUSHES, (Gauge<Long>) pageCacheCounters::flushes );
         registry.register( PC_EVICTION_EXCEPTIONS, (Gauge<Long>) pageCacheCounters::evictionExceptions );
+        registry.register( PC_PROBATIONARY_HITS, (Gauge<Long>) pageCacheCounters::probationaryHits );
+        registry.register( PC_PROTECTED_HITS, (Gauge<Long>) pageCacheCounters::protectedHits );
+        registry.register( PC_PROBATIONARY_EVICTIONS, (Gauge<Long>) pageCacheCounters::probationaryEvictions );
+        registry.register( PC_PROTECTED_EVICTIONS, (Gauge<Long>) pageCacheCounters::protectedEvictions );
+
+        for ( PagedFileCounters fileCounters : pageCacheCounters.fileCounters() )
+        {
+            String prefix = name( PC_FILE_PREFIX, fileCounters.file().getName() );
+            registerFileGauge( prefix, "page_faults", fileCounters::faults );
+            registerFileGauge( prefix, "bytes_read", fileCounters::bytesRead );
+            registerFileGauge( prefix, "flushes", fileCounters::flushes );
+            registerFileGauge( prefix, "bytes_written", fileCounters::bytesWritten );
+            registerLatencyGauges( prefix, "fault_latency", fileCounters.faultLatency() );
+            registerLatencyGauges( prefix, "flush_latency", fileCounters.flushLatency() );
+        }
+    }
+
+    private void registerLatencyGauges( String prefix, String metric, LatencyHistogram histogram )
+    {
+        registerFileGauge( prefix, metric + "_mean", histogram::meanMicros );
+        registerFileGauge( prefix, metric + "_p99", () -> histogram.percentileMicros( 0.99 ) );
+        registerFileGauge( prefix, metric + "_max", histogram::maxMicros );
+    }
+
+    private void registerFileGauge( String prefix, String metric, Gauge<Long> gauge )
+    {
+        String metricName = name( prefix, metric );
+        if ( !registry.getNames().contains( metricName ) )
+        {
+            // Files in different directories can have the same name, in which case the first one wins.
+            registry.register( metricName, gauge );
+            fileMetricNames.add( metricName );
+        }
     }
 
     @Override
@@ -75,5 +130,11 @@ public class PageCacheMetrics extends LifecycleAdapter
         registry.remove( PC_UNPINS );
         registry.remove( PC_FLUSHES );
         registry.remove( PC_EVICTION_EXCEPTIONS );
+        registry.remove( PC_PROBATIONARY_HITS );
+        registry.remove( PC_PROTECTED_HITS );
+        registry.remove( PC_PROBATIONARY_EVICTIONS );
+        registry.remove( PC_PROTECTED_EVICTIONS );
+        fileMetricNames.forEach( registry::remove );
+        fileMetricNames.clear();
     }
 }
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.metrics.source.db;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+
+import java.util.function.Supplier;
+
+import org.neo4j.kernel.impl.annotations.Documented;
+import org.neo4j.kernel.impl.pagecache.PageCacheWarmerMonitor;
+import org.neo4j.kernel.lifecycle.LifecycleAdapter;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+@Documented( ".Database PageCache Warmup Metrics" )
+public class PageCacheWarmupMetrics extends LifecycleAdapter
+{
+    private static final String PAGE_CACHE_WARMUP_PREFIX = "neo4j.page_cache.warmup";
+
+    @Documented( "The total number of pages that the page cache warmup is going to load" )
+    public static final String PC_WARMUP_PAGES_TO_LOAD = name( PAGE_CACHE_WARMUP_PREFIX, "pages_to_load" );
+    @Documented( "The number of pages that the page cache warmup has loaded so far" )
+    public static final String PC_WARMUP_PAGES_LOADED = name( PAGE_CACHE_WARMUP_PREFIX, "pages_loaded" );
+    @Documented( "Whether or not the page cache warmup has completed; 1 if it has, 0 otherwise" )
+    public static final String PC_WARMUP_COMPLETED = name( PAGE_CACHE_WARMUP_PREFIX, "completed" );
+    @Documented( "The total number of page cache profiles written so far" )
+    public static final String PC_WARMUP_PROFILES_WRITTEN = name( PAGE_CACHE_WARMUP_PREFIX, "profiles_written" );
+
+    private final MetricRegistry registry;
+    private final Supplier<PageCacheWarmerMonitor> pageCacheWarmerMonitor;
+
+    public PageCacheWarmupMetrics( MetricRegistry registry, Supplier<PageCacheWarmerMonitor> pageCacheWarmerMonitor )
+    {
+        this.registry = registry;
+        this.pageCacheWarmerMonitor = pageCacheWarmerMonitor;
+    }
+
+    @Override
+    public void start()
+    {
+        registry.register( PC_WARMUP_PAGES_TO_LOAD,
+                (Gauge<Long>) () -> pageCacheWarmerMonitor.get().warmupPagesToLoad() );
+        registry.register( PC_WARMUP_PAGES_LOADED,
+                (Gauge<Long>) () -> pageCacheWarmerMonitor.get().warmupPagesLoaded() );
+        registry.register( PC_WARMUP_COMPLETED,
+                (Gauge<Long>) () -> pageCacheWarmerMonitor.get().isWarmupCompleted() ? 1L : 0L );
+        registry.register( PC_WARMUP_PROFILES_WRITTEN,
+                (Gauge<Long>) () -> pageCacheWarmerMonitor.get().numberOfProfilesWritten() );
+    }
+
+    @Override
+    public void stop()
+    {
+        registry.remove( PC_WARMUP_PAGES_TO_LOAD );
+        registry.remove( PC_WARMUP_PAGES_LOADED );
+        registry.remove( PC_WARMUP_COMPLETED );
+        registry.remove( PC_WARMUP_PROFILES_WRITTEN );
+    }
+}
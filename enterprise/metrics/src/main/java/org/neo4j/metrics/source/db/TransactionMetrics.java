@@ -24,9 +24,13 @@ import com.codahale.metrics.MetricRegistry;
 
 import java.util.function.Supplier;
 
+import org.neo4j.io.pagecache.monitoring.LatencyHistogram;
 import org.neo4j.kernel.impl.annotations.Documented;
+import org.neo4j.kernel.impl.api.CommitPhaseMonitor;
 import org.neo4j.kernel.impl.transaction.TransactionCounters;
+import org.neo4j.kernel.impl.transaction.log.LogForceCounters;
 import org.neo4j.kernel.impl.transaction.log.TransactionIdStore;
+import org.neo4j.kernel.impl.transaction.tracing.CommitPhase;
 import org.neo4j.kernel.lifecycle.LifecycleAdapter;
 
 import static com.codahale.metrics.MetricRegistry.name;
@@ -74,16 +78,37 @@ public class TransactionMetrics extends LifecycleAdapter
     @Documented( "The ID of the last closed transaction" )
     public static final String LAST_CLOSED_TX_ID = name( TRANSACTION_PREFIX, "last_closed_tx_id" );
 
+    @Documented( "The total number of times the transaction log has been forced" )
+    public static final String LOG_FORCES = name( TRANSACTION_PREFIX, "log_forces" );
+    @Documented( "The total number of transactions and check points made durable by forcing the transaction log. " +
+                 "Divided by the number of log forces, this is the average group commit size" )
+    public static final String LOG_FORCED_APPENDS = name( TRANSACTION_PREFIX, "log_forced_appends" );
+    @Documented( "The total time in microseconds that log forces have been delayed by adaptive group commit" )
+    public static final String GROUP_COMMIT_DELAY = name( TRANSACTION_PREFIX, "group_commit_delay_total" );
+    @Documented( "The current upper bound in microseconds on the adaptive group commit delay of a log force" )
+    public static final String GROUP_COMMIT_WINDOW = name( TRANSACTION_PREFIX, "group_commit_window" );
+
+    @Documented( "The latencies of each phase of committing transactions, i.e. validate, prepare, append, force, " +
+                 "apply, index_update and close, are reported as <prefix>.<phase>.count, the number of times the " +
+                 "phase has completed, <prefix>.<phase>.total_micros, the total time in microseconds spent in the " +
+                 "phase, and <prefix>.<phase>.p99_micros, the 99th percentile latency of the phase in microseconds" )
+    public static final String COMMIT_PHASE_PREFIX = name( TRANSACTION_PREFIX, "commit_phase" );
+
     private final MetricRegistry registry;
     private final TransactionCounters transactionCounters;
     private final Supplier<TransactionIdStore> transactionIdStore;
+    private final Supplier<LogForceCounters> logForceCounters;
+    private final CommitPhaseMonitor commitPhaseMonitor;
 
     public TransactionMetrics( MetricRegistry registry,
-            Supplier<TransactionIdStore> transactionIdStore, TransactionCounters transactionCounters )
+            Supplier<TransactionIdStore> transactionIdStore, TransactionCounters transactionCounters,
+            Supplier<LogForceCounters> logForceCounters, CommitPhaseMonitor commitPhaseMonitor )
     {
+        this.commitPhaseMonitor = commitPhaseMonitor;
         this.registry = registry;
         this.transactionIdStore = transactionIdStore;
         this.transactionCounters = transactionCounters;
+        this.logForceCounters = logForceCounters;
     }
 
     @Override
@@ -118,6 +143,22 @@ public class TransactionMetrics extends LifecycleAdapter
                 transactionIdStore.get().getLastCommittedTransactionId() );
         registry.register( LAST_CLOSED_TX_ID, (Gauge<Long>) () ->
                 transactionIdStore.get().getLastClosedTransactionId() );
+
+        registry.register( LOG_FORCES, (Gauge<Long>) () -> logForceCounters.get().numberOfLogForces() );
+        registry.register( LOG_FORCED_APPENDS, (Gauge<Long>) () -> logForceCounters.get().numberOfForcedAppends() );
+        registry.register( GROUP_COMMIT_DELAY, (Gauge<Long>) () ->
+                logForceCounters.get().groupCommitDelayMicros() );
+        registry.register( GROUP_COMMIT_WINDOW, (Gauge<Long>) () ->
+                logForceCounters.get().groupCommitWindowMicros() );
+
+        for ( CommitPhase phase : CommitPhase.values() )
+        {
+            LatencyHistogram latency = commitPhaseMonitor.commitPhaseLatency( phase );
+            registry.register( commitPhaseMetric( phase, "count" ), (Gauge<Long>) latency::count );
+            registry.register( commitPhaseMetric( phase, "total_micros" ), (Gauge<Long>) latency::totalMicros );
+            registry.register( commitPhaseMetric( phase, "p99_micros" ),
+                    (Gauge<Long>) () -> latency.percentileMicros( 0.99 ) );
+        }
     }
 
     @Override
@@ -144,5 +185,22 @@ public class TransactionMetrics extends LifecycleAdapter
 
         registry.remove( LAST_COMMITTED_TX_ID );
         registry.remove( LAST_CLOSED_TX_ID );
+
+        registry.remove( LOG_FORCES );
+        registry.remove( LOG_FORCED_APPENDS );
+        registry.remove( GROUP_COMMIT_DELAY );
+        registry.remove( GROUP_COMMIT_WINDOW );
+
+        for ( CommitPhase phase : CommitPhase.values() )
+        {
+            registry.remove( commitPhaseMetric( phase, "count" ) );
+            registry.remove( commitPhaseMetric( phase, "total_micros" ) );
+            registry.remove( commitPhaseMetric( phase, "p99_micros" ) );
+        }
+    }
+
+    private static String commitPhaseMetric( CommitPhase phase, String measure )
+    {
+        return name( COMMIT_PHASE_PREFIX, phase.name().toLowerCase(), measure );
     }
 }
@@ -26,6 +26,8 @@ import java.util.concurrent.TimeUnit;
 
 import org.neo4j.kernel.impl.transaction.tracing.CheckPointTracer;
 import org.neo4j.kernel.impl.transaction.tracing.CommitEvent;
+import org.neo4j.kernel.impl.transaction.tracing.CommitPhase;
+import org.neo4j.kernel.impl.transaction.tracing.CommitPhaseEvent;
 import org.neo4j.kernel.impl.transaction.tracing.LogAppendEvent;
 import org.neo4j.kernel.impl.transaction.tracing.LogCheckPointEvent;
 import org.neo4j.kernel.impl.transaction.tracing.LogForceEvent;
@@ -159,6 +161,12 @@ public class TimerTransactionTracer implements TransactionTracer, CheckPointTrac
         {
             return StoreApplyEvent.NULL;
         }
+
+        @Override
+        public CommitPhaseEvent beginPhase( CommitPhase phase )
+        {
+            return CommitPhaseEvent.NULL;
+        }
     };
 
     private static final TransactionEvent TRANSACTION_EVENT = new TransactionEvent()
@@ -201,6 +209,12 @@ public class TimerTransactionTracer implements TransactionTracer, CheckPointTrac
         return TRANSACTION_EVENT;
     }
 
+    @Override
+    public CommitPhaseEvent beginIndexUpdates()
+    {
+        return CommitPhaseEvent.NULL;
+    }
+
     @Override
     public LogCheckPointEvent beginCheckPoint()
     {